@@ -0,0 +1,67 @@
+package app.personal.bench;
+
+import app.personal.dto.CreditCardStatementDto;
+import app.personal.dto.SavingsAccountStatementDto;
+import app.personal.parser.BankStatementParser;
+import app.personal.parser.CompiledProfile;
+import app.personal.parser.ParseException;
+import app.personal.parser.ParseResult;
+import app.personal.parser.ParserRegistry;
+import app.personal.parser.PdfBoxStatementParser;
+import app.personal.parser.PdfDocumentSession;
+import app.personal.parser.PdfSource;
+import app.personal.parser.ProfileCache;
+import app.personal.parser.StatementParserProvider;
+
+import java.time.Duration;
+
+/**
+ * Checks run once per trial, so that a generator or parser change that breaks parsing fails the
+ * benchmark instead of timing a failure.
+ */
+final class Benchmarks {
+
+    private static final ParserRegistry REGISTRY = ParserRegistry.load();
+    private static final ProfileCache BUNDLED_PROFILES = new ProfileCache(null, Duration.ZERO);
+
+    private Benchmarks() {
+    }
+
+    /**
+     * Parse {@code pdf} the way the application parses an upload: detect the format, then parse the
+     * regions of the provider's bundled profile if it has one, or else the full text.
+     */
+    static ParseResult parseAsUploaded(byte[] pdf) throws ParseException {
+        try (PdfDocumentSession session = PdfDocumentSession.open(PdfSource.of(pdf))) {
+            ParserRegistry.Detection detection = REGISTRY.detect(session);
+            if (!detection.isDetected()) {
+                return ParseResult.failure("No parser detected the statement");
+            }
+            StatementParserProvider provider = detection.getProvider();
+            BankStatementParser parser = provider.getParser();
+            CompiledProfile profile = provider.getProfileName() != null
+                    ? BUNDLED_PROFILES.get(provider.getProfileName()) : null;
+            return profile != null && parser instanceof PdfBoxStatementParser
+                    ? ((PdfBoxStatementParser) parser).parseByArea(session, profile)
+                    : parser.parse(session);
+        }
+    }
+
+    /**
+     * The statement {@code result} holds, which must have exactly {@code rows} transactions.
+     */
+    static Object requireSuccess(ParseResult result, int rows) {
+        if (!result.isSuccess()) {
+            throw new IllegalStateException("Synthetic statement did not parse: " + result.getErrorMessage());
+        }
+        Object statement = result.getResult();
+        int transactions = statement instanceof CreditCardStatementDto
+                ? ((CreditCardStatementDto) statement).getTransactions().size()
+                : ((SavingsAccountStatementDto) statement).getTransactions().size();
+        if (transactions != rows) {
+            throw new IllegalStateException("Synthetic statement of " + rows + " rows parsed as "
+                    + transactions + " transactions");
+        }
+        return statement;
+    }
+}
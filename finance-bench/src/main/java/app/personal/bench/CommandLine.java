@@ -0,0 +1,89 @@
+package app.personal.bench;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@code --name value} options of the generator and load driver. An option given twice keeps the
+ * last value; an option no one asked for is an error, so a typo does not silently run with the
+ * default.
+ */
+final class CommandLine {
+
+    private final Map<String, String> values;
+    private final Set<String> used = new HashSet<>();
+
+    private CommandLine(Map<String, String> values) {
+        this.values = values;
+    }
+
+    static CommandLine parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 == args.length) {
+                throw new IllegalArgumentException("Expected --name value, got: " + args[i]);
+            }
+            values.put(args[i].substring(2), args[i + 1]);
+        }
+        return new CommandLine(values);
+    }
+
+    boolean has(String name) {
+        used.add(name);
+        return values.containsKey(name);
+    }
+
+    String getString(String name, String defaultValue) {
+        used.add(name);
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    int getInt(String name, int defaultValue) {
+        String value = getString(name, null);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    long getLong(String name, long defaultValue) {
+        String value = getString(name, null);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
+    double getDouble(String name, double defaultValue) {
+        String value = getString(name, null);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    /**
+     * A duration such as {@code 30s}, {@code 5m} or {@code 500ms}.
+     */
+    Duration getDuration(String name, Duration defaultValue) {
+        String value = getString(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.parse(value);
+    }
+
+    /**
+     * Fail on options that were given but never read.
+     */
+    void requireAllUsed() {
+        for (String name : values.keySet()) {
+            if (!used.contains(name)) {
+                throw new IllegalArgumentException("Unknown option: --" + name);
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package app.personal.bench;
+
+import app.personal.processor.ImportProgress;
+import app.personal.processor.ImportSummary;
+import app.personal.processor.StandardCsvImporter;
+import app.personal.processor.TransactionBatchWriter;
+import app.personal.repository.IdSequences;
+import app.personal.repository.SavingsFingerprints;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Importing a standard CSV of {@value #ROWS} transactions with {@link StandardCsvImporter} into an
+ * H2 file database in a temporary directory, reported in rows per second. The tables are emptied
+ * before each iteration so that they do not grow without bound.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(CsvImportBenchmark.ROWS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CsvImportBenchmark {
+
+    static final int ROWS = 100_000;
+
+    @Param({"1000"})
+    private int batchSize;
+
+    @Param({"5000"})
+    private int chunkRows;
+
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbc;
+    private StandardCsvImporter importer;
+    private byte[] csv;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("finance-bench-");
+        context = new SpringApplicationBuilder(PersistenceBenchConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .properties("spring.jpa.hibernate.ddl-auto=create", "logging.level.root=WARN",
+                        "spring.datasource.url=jdbc:h2:file:" + directory.resolve("bench"),
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.datasource.username=sa")
+                .run();
+        jdbc = context.getBean(JdbcTemplate.class);
+        importer = new StandardCsvImporter(
+                new TransactionBatchWriter(jdbc, context.getBean(PlatformTransactionManager.class),
+                        new IdSequences(jdbc), new SavingsFingerprints(jdbc), batchSize),
+                Runtime.getRuntime().availableProcessors(), chunkRows, 100);
+        csv = SyntheticStatements.standardCsv(ROWS);
+        ImportSummary summary = importCsv();
+        if (summary.getRowsImported() != ROWS) {
+            throw new IllegalStateException("Expected " + ROWS + " rows imported, got " + summary.getRowsImported()
+                    + " (" + summary.getFailure() + ", " + summary.getRowsRejected() + " rejected)");
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void emptyTables() {
+        jdbc.update("DELETE FROM credit_card_transactions");
+        jdbc.update("DELETE FROM credit_card_statements");
+        jdbc.update("DELETE FROM savings_account_transactions");
+        jdbc.update("DELETE FROM savings_account_statements");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        importer.shutdown();
+        context.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public ImportSummary importCsv() {
+        return importer.importCsv(new ByteArrayInputStream(csv), new ImportProgress(csv.length));
+    }
+}
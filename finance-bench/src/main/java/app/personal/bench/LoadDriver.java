@@ -0,0 +1,287 @@
+package app.personal.bench;
+
+import app.personal.parser.ParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Uploads statement PDFs to a running application from a fixed number of concurrent clients and
+ * reports throughput, latency percentiles, responses by status, and the server's heap and garbage
+ * collection (see {@link ServerMetrics}). Each client sends its next upload as soon as the last one
+ * is answered, so latency is measured at the throughput the server sustains, not at a fixed
+ * arrival rate.
+ *
+ * <p>For example, against {@code ./gradlew :finance-web:bootRun}:</p>
+ * <pre>
+ * --endpoint statements-upload --files build/statements --concurrency 16 --duration 2m
+ * </pre>
+ *
+ * <p>Options: {@code --url} (default {@code http://localhost:8080}); {@code --endpoint} parse
+ * (default), credit-card-upload or statements-upload; {@code --files}, a directory of PDFs to
+ * replay round-robin, or else {@code --count} statements of {@code --rows} rows with
+ * {@code --noise} made by a {@link StatementPdfGenerator} of {@code --type}; {@code --concurrency};
+ * {@code --warm-up} and {@code --duration}; {@code --timeout} per request; {@code --report}, a
+ * file to write the report to as JSON.</p>
+ */
+public final class LoadDriver {
+
+    private static final Map<String, String> ENDPOINTS = Map.of(
+            "parse", "/api/parse/hdfc-credit-card",
+            "credit-card-upload", "/api/credit-card/statements/upload",
+            "statements-upload", "/api/statements/upload");
+    private static final String BOUNDARY = "----finance-bench-load-driver";
+    // recorded instead of a status for a request that got no response
+    private static final String NO_RESPONSE = "no response";
+    // the parse endpoint answers 200 with a null statement when the statement fails validation
+    private static final String NO_STATEMENT = "\"statement\":null";
+    private static final String UNPARSED = "200 without statement";
+
+    private final HttpClient client;
+    private final URI target;
+    private final List<Upload> uploads;
+    private final int concurrency;
+    private final Duration timeout;
+
+    private LoadDriver(HttpClient client, URI target, List<Upload> uploads, int concurrency, Duration timeout) {
+        this.client = client;
+        this.target = target;
+        this.uploads = uploads;
+        this.concurrency = concurrency;
+        this.timeout = timeout;
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLine options = CommandLine.parse(args);
+        URI url = URI.create(options.getString("url", "http://localhost:8080"));
+        String endpoint = options.getString("endpoint", "parse");
+        String path = ENDPOINTS.get(endpoint);
+        if (path == null) {
+            throw new IllegalArgumentException("Unknown endpoint: " + endpoint + " (one of " + ENDPOINTS.keySet() + ")");
+        }
+        List<Upload> uploads = options.has("files") ? read(Path.of(options.getString("files", null)))
+                : generate(options);
+        int concurrency = options.getInt("concurrency", 8);
+        Duration warmUp = options.getDuration("warm-up", Duration.ofSeconds(10));
+        Duration duration = options.getDuration("duration", Duration.ofSeconds(60));
+        Duration timeout = options.getDuration("timeout", Duration.ofSeconds(60));
+        String reportFile = options.getString("report", null);
+        options.requireAllUsed();
+        if (uploads.isEmpty()) {
+            throw new IllegalArgumentException("No statements to upload");
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        LoadDriver driver = new LoadDriver(client, url.resolve(path), uploads, concurrency, timeout);
+        System.out.printf("%d clients uploading %d statements to %s: %ds warm-up, %ds measured%n",
+                concurrency, uploads.size(), driver.target, warmUp.toSeconds(), duration.toSeconds());
+
+        driver.run(warmUp);
+        ServerMetrics server = new ServerMetrics(client, url);
+        server.start();
+        Result result = driver.run(duration);
+        server.stop();
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("endpoint", driver.target.toString());
+        report.put("statements", uploads.size());
+        report.put("concurrency", concurrency);
+        report.putAll(result.report());
+        report.put("server", server.report(result.seconds()));
+        ObjectMapper json = new ObjectMapper();
+        System.out.println(json.writerWithDefaultPrettyPrinter().writeValueAsString(report));
+        if (reportFile != null) {
+            json.writerWithDefaultPrettyPrinter().writeValue(Path.of(reportFile).toFile(), report);
+        }
+    }
+
+    private static List<Upload> read(Path directory) throws IOException {
+        List<Upload> uploads = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files.filter(f -> f.toString().endsWith(".pdf")).sorted()::iterator) {
+                uploads.add(new Upload(file.getFileName().toString(), Files.readAllBytes(file)));
+            }
+        }
+        return uploads;
+    }
+
+    // every statement is checked to parse as the application would, so the run does not time failures
+    private static List<Upload> generate(CommandLine options) throws IOException, ParseException {
+        StatementPdfGenerator generator = new StatementPdfGenerator(
+                StatementPdfGenerator.Kind.of(options.getString("type", "credit-card")));
+        generator.setRows(options.getInt("rows", 100));
+        generator.setNoise(options.getDouble("noise", 0.2));
+        List<Upload> uploads = new ArrayList<>();
+        for (int i = options.getInt("count", 20); i > 0; i--) {
+            generator.setSeed(i);
+            byte[] pdf = generator.generate();
+            Benchmarks.requireSuccess(Benchmarks.parseAsUploaded(pdf), generator.getRows());
+            uploads.add(new Upload(generator.getKind().getId() + "-" + i + ".pdf", pdf));
+        }
+        return uploads;
+    }
+
+    private Result run(Duration duration) throws Exception {
+        AtomicLong next = new AtomicLong();
+        long start = System.nanoTime();
+        long stop = start + duration.toNanos();
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<Client>> futures = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(clients.submit(() -> {
+                    Client c = new Client();
+                    while (System.nanoTime() - stop < 0) {
+                        c.send(uploads.get((int) (next.getAndIncrement() % uploads.size())));
+                    }
+                    return c;
+                }));
+            }
+            Result result = new Result();
+            for (Future<Client> future : futures) {
+                result.add(future.get());
+            }
+            result.nanos = System.nanoTime() - start;
+            return result;
+        } finally {
+            clients.shutdownNow();
+            clients.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private HttpRequest request(Upload upload) {
+        return HttpRequest.newBuilder(target)
+                .timeout(timeout)
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(upload.body))
+                .build();
+    }
+
+    // a statement and the multipart request body that uploads it as "file"
+    private static class Upload {
+        private final byte[] pdf;
+        private final byte[] body;
+
+        Upload(String name, byte[] pdf) {
+            this.pdf = pdf;
+            ByteArrayOutputStream body = new ByteArrayOutputStream(pdf.length + 256);
+            String head = "--" + BOUNDARY + "\r\n"
+                    + "Content-Disposition: form-data; name=\"file\"; filename=\"" + name + "\"\r\n"
+                    + "Content-Type: application/pdf\r\n\r\n";
+            body.writeBytes(head.getBytes(StandardCharsets.UTF_8));
+            body.writeBytes(pdf);
+            body.writeBytes(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+            this.body = body.toByteArray();
+        }
+    }
+
+    // one simulated user: its latencies and responses
+    private class Client {
+        private long[] latencies = new long[1024];
+        private int count;
+        private final Map<String, Integer> statuses = new TreeMap<>();
+        private long bytes;
+
+        void send(Upload upload) {
+            HttpRequest request = request(upload);
+            long start = System.nanoTime();
+            String status;
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                status = String.valueOf(response.statusCode());
+                if (response.statusCode() == 200 && response.body().contains(NO_STATEMENT)) {
+                    status = UNPARSED;
+                }
+            } catch (IOException e) {
+                status = NO_RESPONSE;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = System.nanoTime() - start;
+            statuses.merge(status, 1, Integer::sum);
+            bytes += upload.pdf.length;
+        }
+    }
+
+    private static class Result {
+        private long[] latencies = new long[0];
+        private final Map<String, Integer> statuses = new TreeMap<>();
+        private long bytes;
+        private long nanos;
+
+        void add(Client client) {
+            int offset = latencies.length;
+            latencies = Arrays.copyOf(latencies, offset + client.count);
+            System.arraycopy(client.latencies, 0, latencies, offset, client.count);
+            client.statuses.forEach((status, n) -> statuses.merge(status, n, Integer::sum));
+            bytes += client.bytes;
+        }
+
+        double seconds() {
+            return nanos / 1e9;
+        }
+
+        Map<String, Object> report() {
+            Arrays.sort(latencies);
+            int ok = statuses.getOrDefault("200", 0);
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("seconds", round(seconds()));
+            report.put("requests", latencies.length);
+            report.put("requestsPerSecond", round(latencies.length / seconds()));
+            report.put("successfulPerSecond", round(ok / seconds()));
+            report.put("uploadedMbPerSecond", round(bytes / 1024.0 / 1024.0 / seconds()));
+            report.put("responses", statuses);
+            Map<String, Object> latency = new LinkedHashMap<>();
+            latency.put("mean", round(Arrays.stream(latencies).average().orElse(0) / 1e6));
+            latency.put("p50", percentile(50));
+            latency.put("p90", percentile(90));
+            latency.put("p95", percentile(95));
+            latency.put("p99", percentile(99));
+            latency.put("p99.9", percentile(99.9));
+            latency.put("max", percentile(100));
+            report.put("latencyMs", latency);
+            return report;
+        }
+
+        // nearest-rank percentile, in milliseconds
+        private double percentile(double p) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(p / 100 * latencies.length);
+            return round(latencies[Math.max(rank, 1) - 1] / 1e6);
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 10) / 10.0;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package app.personal.bench;
+
+import app.personal.parser.ParallelTextExtractor;
+import app.personal.parser.ParseException;
+import app.personal.parser.PdfDocumentSession;
+import app.personal.parser.PdfSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Text extraction of a savings statement by page count, sequential against split over a
+ * {@link ParallelTextExtractor} with one worker per CPU. With a single CPU both run sequentially.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelExtractionBenchmark {
+
+    // the generator's default rows per page
+    private static final int ROWS_PER_PAGE = 50;
+
+    @Param({"4", "16", "64", "256"})
+    private int pages;
+
+    private ParallelTextExtractor extractor;
+    private byte[] pdf;
+
+    @Setup
+    public void setUp() throws IOException {
+        extractor = new ParallelTextExtractor(Runtime.getRuntime().availableProcessors(), 2);
+        pdf = SyntheticStatements.savingsPdf(pages * ROWS_PER_PAGE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        extractor.shutdown();
+    }
+
+    @Benchmark
+    public String sequential() throws ParseException {
+        return extract(null);
+    }
+
+    @Benchmark
+    public String parallel() throws ParseException {
+        return extract(extractor);
+    }
+
+    private String extract(ParallelTextExtractor extractor) throws ParseException {
+        try (PdfDocumentSession session = PdfDocumentSession.open(PdfSource.of(pdf), extractor)) {
+            return session.getText();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package app.personal.bench;
+
+import app.personal.parser.HdfcCreditCardPdfParser;
+import app.personal.parser.HdfcSavingsPdfParser;
+import app.personal.parser.ParseDeadline;
+import app.personal.parser.ParseException;
+import app.personal.parser.ParseResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matching already extracted statement text: the regex and decoding work of the HDFC parsers,
+ * without PDFBox.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseTextBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    private int rows;
+
+    private HdfcCreditCardPdfParser creditCardParser;
+    private HdfcSavingsPdfParser savingsParser;
+    private String creditCardText;
+    private String savingsText;
+
+    @Setup
+    public void setUp() throws ParseException {
+        creditCardParser = new HdfcCreditCardPdfParser();
+        savingsParser = new HdfcSavingsPdfParser();
+        creditCardText = SyntheticStatements.creditCardText(rows);
+        savingsText = SyntheticStatements.savingsText(rows);
+        // a benchmark of a failing parse would measure the wrong thing
+        Benchmarks.requireSuccess(creditCardParser.parseExtractedText(creditCardText, ParseDeadline.NONE), rows);
+        Benchmarks.requireSuccess(savingsParser.parseExtractedText(savingsText, ParseDeadline.NONE), rows);
+    }
+
+    @Benchmark
+    public ParseResult creditCard() throws ParseException {
+        return creditCardParser.parseExtractedText(creditCardText, ParseDeadline.NONE);
+    }
+
+    @Benchmark
+    public ParseResult savings() throws ParseException {
+        return savingsParser.parseExtractedText(savingsText, ParseDeadline.NONE);
+    }
+}
@@ -0,0 +1,70 @@
+package app.personal.bench;
+
+import app.personal.parser.HdfcCreditCardPdfParser;
+import app.personal.parser.HdfcSavingsPdfParser;
+import app.personal.parser.ParseException;
+import app.personal.parser.ParseResult;
+import app.personal.parser.PdfBoxStatementParser;
+import app.personal.parser.PdfDocumentSession;
+import app.personal.parser.PdfSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A whole upload as the parser sees it: open the PDF from memory, classify its pages, extract the
+ * text and the table glyphs, and match the statement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfParseBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int rows;
+
+    private HdfcCreditCardPdfParser creditCardParser;
+    private HdfcSavingsPdfParser savingsParser;
+    private byte[] creditCardPdf;
+    private byte[] savingsPdf;
+
+    @Setup
+    public void setUp() throws IOException, ParseException {
+        creditCardParser = new HdfcCreditCardPdfParser();
+        savingsParser = new HdfcSavingsPdfParser();
+        creditCardPdf = SyntheticStatements.creditCardPdf(rows);
+        savingsPdf = SyntheticStatements.savingsPdf(rows);
+        Benchmarks.requireSuccess(parse(creditCardParser, creditCardPdf), rows);
+        Benchmarks.requireSuccess(parse(savingsParser, savingsPdf), rows);
+    }
+
+    @Benchmark
+    public ParseResult creditCard() throws ParseException {
+        return parse(creditCardParser, creditCardPdf);
+    }
+
+    @Benchmark
+    public ParseResult savings() throws ParseException {
+        return parse(savingsParser, savingsPdf);
+    }
+
+    private static ParseResult parse(PdfBoxStatementParser parser, byte[] pdf) throws ParseException {
+        try (PdfDocumentSession session = PdfDocumentSession.open(PdfSource.of(pdf))) {
+            return parser.parse(session);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package app.personal.bench;
+
+import app.personal.repository.SavingsFingerprints;
+import app.personal.service.CreditCardStatementService;
+import app.personal.service.SavingsAccountStatementService;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * The persistence half of the application: the core entities, repositories and statement
+ * services, on whatever data source the benchmark configures, without the web layer.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@EntityScan("app.personal.model")
+@EnableJpaRepositories("app.personal.repository")
+@Import({CreditCardStatementService.class, SavingsAccountStatementService.class, SavingsFingerprints.class})
+class PersistenceBenchConfiguration {
+}
@@ -0,0 +1,152 @@
+package app.personal.bench;
+
+import app.personal.dto.CreditCardStatementDto;
+import app.personal.dto.SavingsAccountStatementDto;
+import app.personal.model.CreditCardStatement;
+import app.personal.model.SavingsAccountStatement;
+import app.personal.parser.HdfcCreditCardPdfParser;
+import app.personal.parser.HdfcSavingsPdfParser;
+import app.personal.parser.ParseDeadline;
+import app.personal.parser.ParseException;
+import app.personal.service.CreditCardStatementService;
+import app.personal.service.SavingsAccountStatementService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Saving a parsed statement of {@code transactions} transactions through the statement services,
+ * on a file database in a temporary directory: H2, which the application uses today, and SQLite.
+ * Every call saves a new statement for a new card or account, so each one runs the duplicate
+ * lookup and inserts the statement and all its transactions; the tables are emptied before each
+ * iteration so that they do not grow without bound. Dividing the score by {@code transactions}
+ * gives the write cost per row; {@code -p jdbcBatchSize=0,100} compares it with and without
+ * Hibernate's JDBC batching. The {@code Reupload} variants save the same statement over and over,
+ * which reads it and its transactions back but writes nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SaveStatementBenchmark {
+
+    @Param({"h2", "sqlite"})
+    private String database;
+
+    @Param({"10", "100", "1000"})
+    private int transactions;
+
+    // Hibernate's JDBC batch size, as in the application; 0 sends every insert on its own
+    @Param({"100"})
+    private int jdbcBatchSize;
+
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbc;
+    private CreditCardStatementService creditCardService;
+    private SavingsAccountStatementService savingsService;
+    private CreditCardStatementDto creditCardStatement;
+    private SavingsAccountStatementDto savingsStatement;
+    private long saved;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, ParseException {
+        directory = Files.createTempDirectory("finance-bench-");
+        SpringApplicationBuilder application = new SpringApplicationBuilder(PersistenceBenchConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .properties("spring.jpa.hibernate.ddl-auto=create", "logging.level.root=WARN",
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize,
+                        "spring.jpa.properties.hibernate.order_inserts=true",
+                        "spring.jpa.properties.hibernate.order_updates=true");
+        if ("sqlite".equals(database)) {
+            application.properties(
+                    "spring.datasource.url=jdbc:sqlite:" + directory.resolve("bench.db"),
+                    "spring.datasource.driver-class-name=org.sqlite.JDBC",
+                    "spring.jpa.database-platform=app.personal.repository.UniqueIndexSQLiteDialect",
+                    "spring.jpa.mapping-resources=META-INF/sqlite-orm.xml",
+                    // SQLite allows one writer; more connections would only wait on its lock
+                    "spring.datasource.hikari.maximum-pool-size=1");
+        } else if ("h2".equals(database)) {
+            application.properties(
+                    "spring.datasource.url=jdbc:h2:file:" + directory.resolve("bench"),
+                    "spring.datasource.driver-class-name=org.h2.Driver",
+                    "spring.datasource.username=sa");
+        } else {
+            throw new IllegalArgumentException("Unknown database: " + database);
+        }
+        context = application.run();
+        jdbc = context.getBean(JdbcTemplate.class);
+        creditCardService = context.getBean(CreditCardStatementService.class);
+        savingsService = context.getBean(SavingsAccountStatementService.class);
+        creditCardStatement = (CreditCardStatementDto) Benchmarks.requireSuccess(new HdfcCreditCardPdfParser()
+                .parseExtractedText(SyntheticStatements.creditCardText(transactions), ParseDeadline.NONE), transactions);
+        savingsStatement = (SavingsAccountStatementDto) Benchmarks.requireSuccess(new HdfcSavingsPdfParser()
+                .parseExtractedText(SyntheticStatements.savingsText(transactions), ParseDeadline.NONE), transactions);
+    }
+
+    @Setup(Level.Iteration)
+    public void emptyTables() {
+        jdbc.update("DELETE FROM credit_card_transactions");
+        jdbc.update("DELETE FROM credit_card_statements");
+        jdbc.update("DELETE FROM savings_account_transactions");
+        jdbc.update("DELETE FROM savings_account_statements");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public CreditCardStatement creditCard() {
+        creditCardStatement.setCardNumber("4000 12XX XXXX " + ++saved);
+        return creditCardService.saveStatement(creditCardStatement);
+    }
+
+    @Benchmark
+    public SavingsAccountStatement savings() {
+        savingsStatement.setAccountNumber(String.format("501%011d", ++saved));
+        return savingsService.saveStatement(savingsStatement);
+    }
+
+    // the first call of an iteration stores the statement, every later one uploads it again
+    @Benchmark
+    public CreditCardStatement creditCardReupload() {
+        creditCardStatement.setCardNumber("4000 12XX XXXX 0000");
+        return creditCardService.saveStatement(creditCardStatement);
+    }
+
+    @Benchmark
+    public SavingsAccountStatement savingsReupload() {
+        savingsStatement.setAccountNumber("50100000000000");
+        return savingsService.saveStatement(savingsStatement);
+    }
+}
@@ -0,0 +1,172 @@
+package app.personal.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap and garbage collection of the application under load, read from its actuator metrics
+ * endpoint: heap use and CPU are sampled every second, the collector's counters are read at the
+ * start and end of the run and reported as the difference.
+ */
+class ServerMetrics {
+
+    private static final double MB = 1024.0 * 1024.0;
+
+    private final HttpClient client;
+    private final URI metrics;
+    private final ObjectMapper json = new ObjectMapper();
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "server-metrics");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Map<String, Double> start;
+    private Map<String, Double> end;
+    private final Samples heapUsed = new Samples();
+    private final Samples cpu = new Samples();
+    private final Samples maxPause = new Samples();
+    private volatile String unavailable;
+
+    ServerMetrics(HttpClient client, URI baseUrl) {
+        this.client = client;
+        this.metrics = baseUrl.resolve("/actuator/metrics/");
+    }
+
+    void start() {
+        start = counters();
+        if (start == null) {
+            return;
+        }
+        sampler.scheduleAtFixedRate(this::sample, 0, 1, TimeUnit.SECONDS);
+    }
+
+    void stop() {
+        sampler.shutdownNow();
+        if (start != null) {
+            end = counters();
+        }
+    }
+
+    /**
+     * What the server's heap and collector did between {@link #start()} and {@link #stop()}, or
+     * why that is not known.
+     */
+    Map<String, Object> report(double seconds) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        if (start == null || end == null) {
+            report.put("unavailable", unavailable);
+            return report;
+        }
+        report.put("heapMaxMb", round(end.get("heapMax") / MB));
+        report.put("heapUsedMinMb", round(heapUsed.min() / MB));
+        report.put("heapUsedAvgMb", round(heapUsed.average() / MB));
+        report.put("heapUsedMaxMb", round(heapUsed.max() / MB));
+        double allocated = end.get("allocated") - start.get("allocated");
+        report.put("allocatedMb", round(allocated / MB));
+        report.put("allocationRateMbPerSecond", round(allocated / MB / seconds));
+        report.put("promotedMb", round((end.get("promoted") - start.get("promoted")) / MB));
+        report.put("gcPauses", Math.round(end.get("gcCount") - start.get("gcCount")));
+        double pauseSeconds = end.get("gcTime") - start.get("gcTime");
+        report.put("gcPauseTotalMs", round(pauseSeconds * 1000));
+        report.put("gcPauseMaxMs", round(maxPause.max() * 1000));
+        report.put("gcTimePercent", round(100 * pauseSeconds / seconds));
+        report.put("cpuAvgPercent", round(100 * cpu.average()));
+        report.put("cpuMaxPercent", round(100 * cpu.max()));
+        return report;
+    }
+
+    private void sample() {
+        try {
+            heapUsed.add(value("jvm.memory.used?tag=area:heap", "VALUE"));
+            cpu.add(value("process.cpu.usage", "VALUE"));
+            maxPause.add(value("jvm.gc.pause", "MAX"));
+        } catch (IOException | RuntimeException e) {
+            // a missed sample only makes the figures coarser
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Map<String, Double> counters() {
+        try {
+            Map<String, Double> counters = new LinkedHashMap<>();
+            counters.put("heapMax", value("jvm.memory.max?tag=area:heap", "VALUE"));
+            counters.put("allocated", value("jvm.gc.memory.allocated", "COUNT"));
+            counters.put("promoted", value("jvm.gc.memory.promoted", "COUNT"));
+            counters.put("gcCount", value("jvm.gc.pause", "COUNT"));
+            counters.put("gcTime", value("jvm.gc.pause", "TOTAL_TIME"));
+            return counters;
+        } catch (IOException | RuntimeException e) {
+            unavailable = "Could not read " + metrics + ": " + e.getMessage();
+            System.err.println("Warning: Server metrics unavailable. " + unavailable);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    // one statistic of an actuator metric; 0 for a meter that has not recorded anything yet
+    private double value(String metric, String statistic) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(metrics.resolve(metric))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 404) {
+            return 0;
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("HTTP " + response.statusCode() + " for " + metric);
+        }
+        for (JsonNode measurement : json.readTree(response.body()).path("measurements")) {
+            if (statistic.equals(measurement.path("statistic").asText())) {
+                return measurement.path("value").asDouble();
+            }
+        }
+        return 0;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    private static class Samples {
+        private double min = Double.NaN;
+        private double max = Double.NaN;
+        private double sum;
+        private int count;
+
+        synchronized void add(double value) {
+            min = count == 0 ? value : Math.min(min, value);
+            max = count == 0 ? value : Math.max(max, value);
+            sum += value;
+            count++;
+        }
+
+        synchronized double min() {
+            return count == 0 ? 0 : min;
+        }
+
+        synchronized double max() {
+            return count == 0 ? 0 : max;
+        }
+
+        synchronized double average() {
+            return count == 0 ? 0 : sum / count;
+        }
+    }
+}
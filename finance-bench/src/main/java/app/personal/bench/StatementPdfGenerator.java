@@ -0,0 +1,334 @@
+package app.personal.bench;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Writes HDFC credit card and savings statement PDFs laid out like the real ones: statement fields
+ * on the first page, a table header row on every page, one text run per cell, right-aligned
+ * amounts, and optionally pages of terms at the end. Credit card pages keep their content inside
+ * the transactions region of the bundled {@code hdfc-profile.yml}, because an uploaded credit card
+ * statement is parsed from that region only.
+ *
+ * <p>Noise, from 0 to 1, makes the layout less regular the way real statements are: cells move off
+ * their column and line by up to a point or two, some descriptions wrap onto a second line, and
+ * every page gets a footer. The seed picks the card or account number and the noise, so files
+ * generated with different seeds are different statements to the application, and the same seed
+ * always gives the same file.</p>
+ *
+ * <p>Run {@link #main(String[])} to write files for a load test, see {@link LoadDriver}.</p>
+ */
+public class StatementPdfGenerator {
+
+    public enum Kind {
+        CREDIT_CARD("credit-card"),
+        SAVINGS("savings");
+
+        private final String id;
+
+        Kind(String id) {
+            this.id = id;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public static Kind of(String id) {
+            for (Kind kind : values()) {
+                if (kind.id.equals(id)) {
+                    return kind;
+                }
+            }
+            throw new IllegalArgumentException("Unknown statement type: " + id + " (credit-card or savings)");
+        }
+    }
+
+    private static final PDType1Font FONT = PDType1Font.HELVETICA;
+    private static final float FONT_SIZE = 8;
+    private static final float TOP = 800;
+    // rows stop here and move to the next page, whatever rowsPerPage says
+    private static final float BOTTOM = 60;
+    // the region is [50, 200, 500, 600] measured from the top left, so x 50 to 550 and y below 642
+    private static final float CARD_LEFT = 60;
+    private static final float CARD_RIGHT = 540;
+    private static final float CARD_TOP = 630;
+    private static final float MAX_JITTER_X = 1.5f;
+    private static final float MAX_JITTER_Y = 0.6f;
+    private static final double MAX_WRAPPED = 0.25;
+
+    private final Kind kind;
+    private int rows = 20;
+    private int rowsPerPage = 50;
+    private int termsPages;
+    private double noise;
+    private long seed;
+
+    private Random random;
+
+    public StatementPdfGenerator(Kind kind) {
+        this.kind = kind;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public void setRows(int rows) {
+        if (rows < 0) {
+            throw new IllegalArgumentException("rows must not be negative");
+        }
+        this.rows = rows;
+    }
+
+    public int getRowsPerPage() {
+        return rowsPerPage;
+    }
+
+    /**
+     * Most transactions on one page; fewer fit when noise wraps descriptions.
+     */
+    public void setRowsPerPage(int rowsPerPage) {
+        if (rowsPerPage < 1) {
+            throw new IllegalArgumentException("rowsPerPage must be positive");
+        }
+        this.rowsPerPage = rowsPerPage;
+    }
+
+    public int getTermsPages() {
+        return termsPages;
+    }
+
+    /**
+     * Pages of terms and conditions after the transactions, which carry no transactions.
+     */
+    public void setTermsPages(int termsPages) {
+        if (termsPages < 0) {
+            throw new IllegalArgumentException("termsPages must not be negative");
+        }
+        this.termsPages = termsPages;
+    }
+
+    public double getNoise() {
+        return noise;
+    }
+
+    public void setNoise(double noise) {
+        if (noise < 0 || noise > 1) {
+            throw new IllegalArgumentException("noise must be between 0 and 1");
+        }
+        this.noise = noise;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public byte[] generate() throws IOException {
+        random = new Random(seed);
+        try (PDDocument doc = new PDDocument()) {
+            if (kind == Kind.CREDIT_CARD) {
+                writeCreditCard(doc);
+            } else {
+                writeSavings(doc);
+            }
+            for (int p = 0; p < termsPages; p++) {
+                writeTermsPage(doc);
+            }
+            if (noise > 0) {
+                writeFooters(doc);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            doc.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    private void writeCreditCard(PDDocument doc) throws IOException {
+        String statementDate = SyntheticStatements.LONG_DATE.format(SyntheticStatements.lastDay(rows));
+        String dueDate = SyntheticStatements.LONG_DATE.format(SyntheticStatements.lastDay(rows).plusDays(20));
+        int r = 0;
+        do {
+            PDPage page = new PDPage(PDRectangle.A4);
+            doc.addPage(page);
+            try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                float y = CARD_TOP;
+                if (r == 0) {
+                    text(cs, CARD_LEFT, y, "HDFC Bank Credit Card Statement");
+                    text(cs, CARD_LEFT, y -= 12, "Name : SAMPLE CARDHOLDER");
+                    text(cs, CARD_LEFT, y -= 12, "Card No: " + SyntheticStatements.cardNumber(seed));
+                    text(cs, CARD_LEFT, y -= 12, "Statement Date:" + statementDate);
+                    text(cs, CARD_LEFT, y -= 12, "Payment Due Date " + dueDate);
+                    text(cs, CARD_LEFT, y -= 12, "Credit Limit 1,000,000");
+                    text(cs, CARD_LEFT, y -= 12, "Minimum Amount Due 620.00");
+                    y -= 12;
+                }
+                text(cs, CARD_LEFT, y -= 12, "Domestic Transactions");
+                text(cs, CARD_LEFT, y -= 12, "Date");
+                text(cs, CARD_LEFT + 60, y, "Transaction Description");
+                text(cs, CARD_RIGHT - 70, y, "Amount (in Rs.)");
+                for (int onPage = 0; r < rows && onPage < rowsPerPage && y - 22 > BOTTOM; onPage++, r++) {
+                    y -= 11;
+                    // cells go down in reading order: the area parse keeps content-stream order
+                    cell(cs, CARD_LEFT, y, SyntheticStatements.LONG_DATE.format(SyntheticStatements.day(r)));
+                    String merchant = SyntheticStatements.merchant(r);
+                    int ref = merchant.indexOf(" (Ref#");
+                    boolean wrapped = wraps();
+                    cell(cs, CARD_LEFT + 60, y, wrapped ? merchant.substring(0, ref) : merchant);
+                    rightAlignedCell(cs, CARD_RIGHT, y, SyntheticStatements.cardAmount(r));
+                    if (wrapped) {
+                        cell(cs, CARD_LEFT + 60, y -= 11, merchant.substring(ref + 1));
+                    }
+                }
+                if (r == rows) {
+                    text(cs, CARD_LEFT, y - 24, "Important Information");
+                }
+            }
+        } while (r < rows);
+    }
+
+    private void writeSavings(PDDocument doc) throws IOException {
+        long balance = SyntheticStatements.OPENING_BALANCE;
+        int r = 0;
+        do {
+            PDPage page = new PDPage(PDRectangle.A4);
+            doc.addPage(page);
+            try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                float y = TOP;
+                if (r == 0) {
+                    text(cs, 30, y, "HDFC BANK Ltd.");
+                    text(cs, 30, y -= 12, "Account No : " + SyntheticStatements.accountNumber(seed));
+                    text(cs, 30, y -= 12, "Customer ID : 10000001");
+                    text(cs, 30, y -= 12, "IFSC Code : HDFC0000001");
+                    text(cs, 30, y -= 12, "Branch : SAMPLE BRANCH");
+                    text(cs, 30, y -= 12, "Statement From : "
+                            + SyntheticStatements.LONG_DATE.format(SyntheticStatements.FIRST_DAY)
+                            + " To : " + SyntheticStatements.LONG_DATE.format(SyntheticStatements.lastDay(rows)));
+                    y -= 12;
+                }
+                text(cs, 30, y -= 12, "Date");
+                text(cs, 80, y, "Narration");
+                text(cs, 250, y, "Chq./Ref.No.");
+                text(cs, 330, y, "Value Dt");
+                text(cs, 380, y, "Withdrawal Amt.");
+                text(cs, 450, y, "Deposit Amt.");
+                text(cs, 510, y, "Closing Balance");
+                for (int onPage = 0; r < rows && onPage < rowsPerPage && y - 24 > BOTTOM; onPage++, r++) {
+                    y -= 12;
+                    long amount = SyntheticStatements.savingsAmount(r);
+                    boolean deposit = SyntheticStatements.isDeposit(r);
+                    balance += deposit ? amount : -amount;
+                    String date = SyntheticStatements.SHORT_DATE.format(SyntheticStatements.day(r));
+                    cell(cs, 30, y, date);
+                    cell(cs, 80, y, SyntheticStatements.narration(r));
+                    cell(cs, 250, y, String.valueOf(400000 + r));
+                    cell(cs, 330, y, date);
+                    rightAlignedCell(cs, deposit ? 500 : 440, y, SyntheticStatements.money(amount));
+                    rightAlignedCell(cs, 570, y, SyntheticStatements.money(balance));
+                    if (wraps()) {
+                        cell(cs, 80, y -= 12, "REF " + (900000 + r));
+                    }
+                }
+            }
+        } while (r < rows);
+    }
+
+    private static void writeTermsPage(PDDocument doc) throws IOException {
+        PDPage page = new PDPage(PDRectangle.A4);
+        doc.addPage(page);
+        try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+            float y = TOP;
+            text(cs, 30, y, "Terms and Conditions");
+            for (int r = 1; r <= 50; r++) {
+                text(cs, 30, y -= 12, "Clause " + r + ": the bank may revise these terms with notice.");
+            }
+        }
+    }
+
+    private static void writeFooters(PDDocument doc) throws IOException {
+        int pages = doc.getNumberOfPages();
+        for (int p = 0; p < pages; p++) {
+            try (PDPageContentStream cs = new PDPageContentStream(doc, doc.getPage(p),
+                    PDPageContentStream.AppendMode.APPEND, true)) {
+                text(cs, 30, 30, "This is a computer generated statement and does not require a signature.");
+                text(cs, 500, 30, "Page " + (p + 1) + " of " + pages);
+            }
+        }
+    }
+
+    private boolean wraps() {
+        return noise > 0 && random.nextDouble() < noise * MAX_WRAPPED;
+    }
+
+    // a table cell, moved off its position by the noise
+    private void cell(PDPageContentStream cs, float x, float y, String s) throws IOException {
+        text(cs, x + jitter(MAX_JITTER_X), y + jitter(MAX_JITTER_Y), s);
+    }
+
+    private void rightAlignedCell(PDPageContentStream cs, float right, float y, String s) throws IOException {
+        cell(cs, right - FONT.getStringWidth(s) / 1000 * FONT_SIZE, y, s);
+    }
+
+    private float jitter(float max) {
+        return noise > 0 ? (float) ((random.nextDouble() * 2 - 1) * noise * max) : 0;
+    }
+
+    private static void text(PDPageContentStream cs, float x, float y, String s) throws IOException {
+        cs.beginText();
+        cs.setFont(FONT, FONT_SIZE);
+        cs.newLineAtOffset(x, y);
+        cs.showText(s);
+        cs.endText();
+    }
+
+    /**
+     * Write statements to a directory, for example
+     * {@code --type savings --pages 20 --noise 0.3 --count 50 --out build/statements}.
+     *
+     * <p>Options: {@code --type} credit-card (default) or savings; {@code --rows}, or {@code --pages}
+     * full pages of {@code --rows-per-page} (default 50) rows; {@code --terms-pages};
+     * {@code --noise} 0 to 1; {@code --count} files, seeded {@code --seed}, {@code --seed}+1, ...;
+     * {@code --out} directory (default {@code build/statements}).</p>
+     */
+    public static void main(String[] args) throws IOException {
+        CommandLine options = CommandLine.parse(args);
+        Kind kind = Kind.of(options.getString("type", Kind.CREDIT_CARD.getId()));
+        int rowsPerPage = options.getInt("rows-per-page", 50);
+        int rows = options.has("pages") ? options.getInt("pages", 1) * rowsPerPage : options.getInt("rows", 20);
+        int count = options.getInt("count", 1);
+        long firstSeed = options.getLong("seed", 0);
+        Path out = Path.of(options.getString("out", "build/statements"));
+        StatementPdfGenerator generator = new StatementPdfGenerator(kind);
+        generator.setRows(rows);
+        generator.setRowsPerPage(rowsPerPage);
+        generator.setTermsPages(options.getInt("terms-pages", 0));
+        generator.setNoise(options.getDouble("noise", 0));
+        options.requireAllUsed();
+
+        Files.createDirectories(out);
+        for (int i = 0; i < count; i++) {
+            generator.setSeed(firstSeed + i);
+            Path file = out.resolve(kind.getId() + "-" + generator.getSeed() + ".pdf");
+            byte[] pdf = generator.generate();
+            Files.write(file, pdf);
+            System.out.println(file + " (" + rows + " rows, " + pdf.length / 1024 + " KB)");
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package app.personal.bench;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * HDFC credit card and savings statements of any length, with made-up data: as the text PDFBox
+ * extracts from them, for the text parsers, and as PDFs without noise from a
+ * {@link StatementPdfGenerator}, for full parses. The same row count always gives the same
+ * statement. Also the row data the generator lays out, and the same transactions as a standard
+ * CSV for the importer.
+ */
+public final class SyntheticStatements {
+
+    static final LocalDate FIRST_DAY = LocalDate.of(2025, 1, 1);
+    static final DateTimeFormatter LONG_DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    static final DateTimeFormatter SHORT_DATE = DateTimeFormatter.ofPattern("dd/MM/yy");
+    static final long OPENING_BALANCE = 500_000_000;
+
+    private SyntheticStatements() {
+    }
+
+    public static String creditCardText(int rows) {
+        StringBuilder text = new StringBuilder(64 * rows + 256);
+        text.append("HDFC Bank Credit Card Statement\n")
+                .append("Name : SAMPLE CARDHOLDER\n")
+                .append("Card No: ").append(cardNumber(0)).append('\n')
+                .append("Statement Date:").append(LONG_DATE.format(lastDay(rows))).append('\n')
+                .append("Payment Due Date ").append(LONG_DATE.format(lastDay(rows).plusDays(20))).append('\n')
+                .append("Credit Limit 1,000,000\n")
+                .append("Minimum Amount Due 620.00\n")
+                .append("Domestic Transactions\n")
+                .append("Date Transaction Description Amount (in Rs.)\n");
+        for (int r = 0; r < rows; r++) {
+            text.append(LONG_DATE.format(day(r))).append(' ').append(merchant(r)).append(' ')
+                    .append(cardAmount(r)).append('\n');
+        }
+        return text.append("Important Information\n").toString();
+    }
+
+    public static String savingsText(int rows) {
+        StringBuilder text = new StringBuilder(96 * rows + 256);
+        text.append("HDFC BANK Ltd.\n")
+                .append("Account No : ").append(accountNumber(0)).append('\n')
+                .append("Customer ID : 10000001\n")
+                .append("IFSC Code : HDFC0000001\n")
+                .append("Branch : SAMPLE BRANCH\n")
+                .append("Statement From : ").append(LONG_DATE.format(FIRST_DAY))
+                .append(" To : ").append(LONG_DATE.format(lastDay(rows))).append('\n')
+                .append("Date Narration Chq./Ref.No. Value Dt Withdrawal Amt. Deposit Amt. Closing Balance\n");
+        long balance = OPENING_BALANCE;
+        for (int r = 0; r < rows; r++) {
+            long amount = savingsAmount(r);
+            balance += isDeposit(r) ? amount : -amount;
+            String date = SHORT_DATE.format(day(r));
+            text.append(date).append(' ').append(narration(r)).append(' ').append(400000 + r).append(' ')
+                    .append(date).append(' ')
+                    .append(isDeposit(r) ? "0.00" : money(amount)).append(' ')
+                    .append(isDeposit(r) ? money(amount) : "0.00").append(' ')
+                    .append(money(balance)).append('\n');
+        }
+        return text.toString();
+    }
+
+    public static byte[] creditCardPdf(int rows) throws IOException {
+        StatementPdfGenerator generator = new StatementPdfGenerator(StatementPdfGenerator.Kind.CREDIT_CARD);
+        generator.setRows(rows);
+        return generator.generate();
+    }
+
+    public static byte[] savingsPdf(int rows) throws IOException {
+        StatementPdfGenerator generator = new StatementPdfGenerator(StatementPdfGenerator.Kind.SAVINGS);
+        generator.setRows(rows);
+        return generator.generate();
+    }
+
+    /**
+     * The transactions of a savings and a credit card statement, alternating, as a standard CSV
+     * for {@code StandardCsvImporter}.
+     */
+    public static byte[] standardCsv(int rows) {
+        StringBuilder csv = new StringBuilder(96 * rows + 128);
+        csv.append("account_type,account_number,date,description,amount,type,reference_number,balance\n");
+        long balance = OPENING_BALANCE;
+        for (int r = 0; r < rows; r++) {
+            if (r % 2 == 0) {
+                long amount = savingsAmount(r);
+                balance += isDeposit(r) ? amount : -amount;
+                csv.append("SAVINGS,").append(accountNumber(0)).append(',').append(day(r)).append(',')
+                        .append(narration(r)).append(',').append(plainMoney(amount)).append(',')
+                        .append(isDeposit(r) ? "CREDIT" : "DEBIT").append(',').append(400000 + r).append(',')
+                        .append(plainMoney(balance)).append('\n');
+            } else {
+                csv.append("CREDIT_CARD,").append(cardNumber(0)).append(',').append(day(r)).append(',')
+                        .append(merchant(r)).append(',').append(100 + r % 900).append('.').append(r % 10)
+                        .append("0,").append(r % 25 == 24 ? "CREDIT" : "DEBIT").append(",,\n");
+            }
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The card number of the statements generated with {@code seed}, masked like HDFC's.
+     */
+    static String cardNumber(long seed) {
+        return String.format("4000 12XX XXXX %04d", Math.floorMod(seed + 1, 10_000));
+    }
+
+    /**
+     * The 14-digit account number of the statements generated with {@code seed}.
+     */
+    static String accountNumber(long seed) {
+        return String.format("501%011d", Math.floorMod(seed + 1, 100_000_000_000L));
+    }
+
+    // ten transactions a day
+    static LocalDate day(int row) {
+        return FIRST_DAY.plusDays(row / 10);
+    }
+
+    static LocalDate lastDay(int rows) {
+        return day(Math.max(rows - 1, 0));
+    }
+
+    static String merchant(int row) {
+        return "MERCHANT " + row % 500 + " BENGALURU (Ref# " + (70000000 + row) + ")";
+    }
+
+    static String cardAmount(int row) {
+        return (100 + row % 900) + "." + row % 10 + "0" + (row % 25 == 24 ? " Cr" : "");
+    }
+
+    static boolean isDeposit(int row) {
+        return row % 4 == 0;
+    }
+
+    static String narration(int row) {
+        return (isDeposit(row) ? "NEFT-SAMPLE PAYER " : "UPI-SAMPLE MERCHANT ") + row % 500;
+    }
+
+    // in cents
+    static long savingsAmount(int row) {
+        return 10_000 + row % 900 * 1_234L;
+    }
+
+    // cents as 1,234.56
+    static String money(long cents) {
+        return String.format("%,d.%02d", cents / 100, cents % 100);
+    }
+
+    // cents as 1234.56
+    static String plainMoney(long cents) {
+        return BigDecimal.valueOf(cents, 2).toPlainString();
+    }
+}
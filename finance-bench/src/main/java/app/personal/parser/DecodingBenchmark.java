@@ -0,0 +1,62 @@
+package app.personal.parser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding one credit card row's date, amount and credit marker: the string and formatter based
+ * code the parsers used before {@link FieldDecoder}, against the decoder itself. In the parser's
+ * package because the decoder is package-private.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecodingBenchmark {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    // a field, so the JIT cannot fold the decoding into a constant
+    private String row = "18/06 AMAZON PAY INDIA (Ref# 74332745169) 1,29,999.00 Cr";
+    private int dateEnd = 5;
+    private int amountStart = row.indexOf("1,29");
+
+    @Benchmark
+    public long legacy() {
+        String[] parts = row.substring(0, dateEnd).split("/");
+        LocalDate date = LocalDate.parse(parts[0] + "/" + parts[1] + "/" + 2025, DATE_FORMATTER);
+        String amountStr = row.substring(amountStart).trim();
+        boolean isCredit = amountStr.toLowerCase().endsWith("cr") || amountStr.toLowerCase().endsWith("c");
+        if (isCredit) {
+            amountStr = amountStr.replaceAll("(?i)[cr]+\\s*$", "").trim();
+        }
+        BigDecimal amount = new BigDecimal(amountStr.replaceAll("[,\\s]", ""));
+        return date.getDayOfYear() + amount.scale() + (isCredit ? 1 : 0);
+    }
+
+    @Benchmark
+    public long decoder() {
+        LocalDate date = FieldDecoder.decodeDate(row, 0, dateEnd, 2025);
+        int amountEnd = row.length();
+        boolean isCredit = FieldDecoder.isCredit(row, amountStart, amountEnd);
+        if (isCredit) {
+            amountEnd = FieldDecoder.amountEnd(row, amountStart, amountEnd);
+        }
+        BigDecimal amount = FieldDecoder.decodeAmount(row, amountStart, amountEnd);
+        return date.getDayOfYear() + amount.scale() + (isCredit ? 1 : 0);
+    }
+}
@@ -1,16 +1,25 @@
 package app.personal.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "credit_card_statements")
+@Table(name = "credit_card_statements", uniqueConstraints = @UniqueConstraint(
+        name = "uk_credit_card_statements_card_date", columnNames = {"card_number", "statement_date"}),
+        indexes = @Index(name = "idx_credit_card_statements_statement_date", columnList = "statement_date"))
 public class CreditCardStatement {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = Ids.CREDIT_CARD_STATEMENTS_SEQ)
+    @GenericGenerator(name = Ids.CREDIT_CARD_STATEMENTS_SEQ, type = SequenceStyleGenerator.class, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = Ids.CREDIT_CARD_STATEMENTS_SEQ),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "" + Ids.ALLOCATION_SIZE),
+            @Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = Ids.OPTIMIZER)})
     private Long id;
 
     private LocalDate statementDate;
@@ -25,6 +34,10 @@ public class CreditCardStatement {
     @OneToMany(mappedBy = "statement", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<CreditCardTransaction> transactions = new ArrayList<>();
 
+    // what the last save changed in the stored transactions
+    @Transient
+    private MergeCounts mergeCounts;
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -107,6 +120,14 @@ public class CreditCardStatement {
     }
 
     // Helper methods
+    public MergeCounts getMergeCounts() {
+        return mergeCounts;
+    }
+
+    public void setMergeCounts(MergeCounts mergeCounts) {
+        this.mergeCounts = mergeCounts;
+    }
+
     public void addTransaction(CreditCardTransaction transaction) {
         transactions.add(transaction);
         transaction.setStatement(this);
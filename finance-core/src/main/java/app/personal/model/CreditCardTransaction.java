@@ -1,14 +1,23 @@
 package app.personal.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "credit_card_transactions")
+@Table(name = "credit_card_transactions", indexes = {
+        @Index(name = "idx_credit_card_transactions_date", columnList = "date"),
+        @Index(name = "idx_credit_card_transactions_statement_date", columnList = "statement_id, date")})
 public class CreditCardTransaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = Ids.CREDIT_CARD_TRANSACTIONS_SEQ)
+    @GenericGenerator(name = Ids.CREDIT_CARD_TRANSACTIONS_SEQ, type = SequenceStyleGenerator.class, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = Ids.CREDIT_CARD_TRANSACTIONS_SEQ),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "" + Ids.ALLOCATION_SIZE),
+            @Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = Ids.OPTIMIZER)})
     private Long id;
 
     private LocalDate date;
@@ -0,0 +1,24 @@
+package app.personal.model;
+
+/**
+ * Id generation shared by the entities and by code that inserts rows with plain JDBC.
+ *
+ * <p>Every table takes its ids from its own sequence through Hibernate's pooled-lo optimizer: a
+ * sequence value {@code v} reserves the ids {@code v} to {@code v + ALLOCATION_SIZE - 1} for
+ * whoever read it. Hibernate can then assign ids to a whole statement's transactions without a
+ * round trip per row and send their inserts in JDBC batches, which identity columns rule out. A
+ * JDBC writer that reads the same sequence and uses the same block size never collides with it.</p>
+ */
+public final class Ids {
+
+    public static final int ALLOCATION_SIZE = 100;
+    public static final String OPTIMIZER = "pooled-lo";
+
+    public static final String CREDIT_CARD_STATEMENTS_SEQ = "credit_card_statements_seq";
+    public static final String CREDIT_CARD_TRANSACTIONS_SEQ = "credit_card_transactions_seq";
+    public static final String SAVINGS_ACCOUNT_STATEMENTS_SEQ = "savings_account_statements_seq";
+    public static final String SAVINGS_ACCOUNT_TRANSACTIONS_SEQ = "savings_account_transactions_seq";
+
+    private Ids() {
+    }
+}
@@ -0,0 +1,48 @@
+package app.personal.model;
+
+/**
+ * What saving a statement changed in its stored transactions: rows inserted, rows updated in
+ * place, rows deleted because the upload no longer has them, and rows left as they were. Skipped
+ * rows were not inserted because another statement of the account already holds them.
+ */
+public class MergeCounts {
+    private final int inserted;
+    private final int updated;
+    private final int deleted;
+    private final int unchanged;
+    private final int skipped;
+
+    public MergeCounts(int inserted, int updated, int deleted, int unchanged, int skipped) {
+        this.inserted = inserted;
+        this.updated = updated;
+        this.deleted = deleted;
+        this.unchanged = unchanged;
+        this.skipped = skipped;
+    }
+
+    public int getInserted() {
+        return inserted;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public int getDeleted() {
+        return deleted;
+    }
+
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    public int getSkipped() {
+        return skipped;
+    }
+
+    @Override
+    public String toString() {
+        return inserted + " inserted, " + updated + " updated, " + deleted + " deleted, " + unchanged + " unchanged, "
+                + skipped + " skipped as duplicates";
+    }
+}
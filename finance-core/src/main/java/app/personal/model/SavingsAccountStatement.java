@@ -1,16 +1,26 @@
 package app.personal.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "savings_account_statements")
+@Table(name = "savings_account_statements", uniqueConstraints = @UniqueConstraint(
+        name = "uk_savings_account_statements_account_period",
+        columnNames = {"account_number", "from_date", "to_date"}),
+        indexes = @Index(name = "idx_savings_account_statements_from_date", columnList = "from_date"))
 public class SavingsAccountStatement {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = Ids.SAVINGS_ACCOUNT_STATEMENTS_SEQ)
+    @GenericGenerator(name = Ids.SAVINGS_ACCOUNT_STATEMENTS_SEQ, type = SequenceStyleGenerator.class, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = Ids.SAVINGS_ACCOUNT_STATEMENTS_SEQ),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "" + Ids.ALLOCATION_SIZE),
+            @Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = Ids.OPTIMIZER)})
     private Long id;
 
     private String accountNumber;
@@ -25,6 +35,10 @@ public class SavingsAccountStatement {
     @OneToMany(mappedBy = "statement", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<SavingsAccountTransaction> transactions = new ArrayList<>();
 
+    // what the last save changed in the stored transactions
+    @Transient
+    private MergeCounts mergeCounts;
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -106,6 +120,14 @@ public class SavingsAccountStatement {
         this.transactions = transactions;
     }
 
+    public MergeCounts getMergeCounts() {
+        return mergeCounts;
+    }
+
+    public void setMergeCounts(MergeCounts mergeCounts) {
+        this.mergeCounts = mergeCounts;
+    }
+
     public void addTransaction(SavingsAccountTransaction transaction) {
         transactions.add(transaction);
         transaction.setStatement(this);
@@ -1,14 +1,24 @@
 package app.personal.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "savings_account_transactions")
+@Table(name = "savings_account_transactions", uniqueConstraints = @UniqueConstraint(
+        name = "uk_savings_account_transactions_fingerprint", columnNames = "fingerprint"), indexes = {
+        @Index(name = "idx_savings_account_transactions_date", columnList = "date"),
+        @Index(name = "idx_savings_account_transactions_statement_date", columnList = "statement_id, date")})
 public class SavingsAccountTransaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = Ids.SAVINGS_ACCOUNT_TRANSACTIONS_SEQ)
+    @GenericGenerator(name = Ids.SAVINGS_ACCOUNT_TRANSACTIONS_SEQ, type = SequenceStyleGenerator.class, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = Ids.SAVINGS_ACCOUNT_TRANSACTIONS_SEQ),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "" + Ids.ALLOCATION_SIZE),
+            @Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = Ids.OPTIMIZER)})
     private Long id;
 
     private LocalDate date;
@@ -21,6 +31,13 @@ public class SavingsAccountTransaction {
     @Enumerated(EnumType.STRING)
     private TransactionType type;
 
+    // TransactionFingerprint.savings; null only for a row marked duplicate
+    @Column(length = 32)
+    private String fingerprint;
+
+    // true for a row that copies another stored one and so keeps no fingerprint; null otherwise
+    private Boolean duplicate;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "statement_id")
     private SavingsAccountStatement statement;
@@ -90,6 +107,22 @@ public class SavingsAccountTransaction {
         this.type = type;
     }
 
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public Boolean getDuplicate() {
+        return duplicate;
+    }
+
+    public void setDuplicate(Boolean duplicate) {
+        this.duplicate = duplicate;
+    }
+
     public SavingsAccountStatement getStatement() {
         return statement;
     }
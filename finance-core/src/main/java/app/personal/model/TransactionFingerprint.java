@@ -0,0 +1,70 @@
+package app.personal.model;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * A transaction's identity for matching the rows of a re-uploaded statement to the stored ones:
+ * its date, signed amount, reference number and description, the description normalised so that
+ * case and spacing the parser happens to produce differently do not make it a new transaction.
+ * Everything else, such as a savings row's closing balance, is data that an upload may correct.
+ *
+ * <p>{@link #savings} is the identity of a savings transaction across all statements of its
+ * account, stored with the row so that overlapping statements do not store it twice.</p>
+ */
+public final class TransactionFingerprint {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private TransactionFingerprint() {
+    }
+
+    /**
+     * @param amount positive for money in (credits, deposits), negative for money out
+     */
+    public static String of(LocalDate date, BigDecimal amount, String referenceNumber, String description) {
+        return date + "|" + (amount == null ? "" : amount.stripTrailingZeros().toPlainString())
+                + "|" + (referenceNumber == null ? "" : referenceNumber.trim())
+                + "|" + normalizeDescription(description);
+    }
+
+    /**
+     * The stored fingerprint of a savings transaction: 32 hex digits hashing the account number
+     * with {@link #of} and the balance after the transaction. A monthly and a quarterly export
+     * show the same row with the same running balance, while two identical payments on one day
+     * differ in it. Rows without a balance cannot be told apart that way, so {@code occurrence}
+     * numbers the identical ones within one upload, from 1.
+     */
+    public static String savings(String accountNumber, LocalDate date, BigDecimal amount, String referenceNumber,
+                                 String description, BigDecimal balance, int occurrence) {
+        String key = (accountNumber == null ? "" : accountNumber.trim()) + "|"
+                + of(date, amount, referenceNumber, description) + "|"
+                + (balance == null ? "#" + occurrence : balance.stripTrailingZeros().toPlainString());
+        byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        char[] hex = new char[32];
+        for (int i = 0; i < 16; i++) {
+            hex[2 * i] = HEX[(hash[i] >> 4) & 0xf];
+            hex[2 * i + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Upper case with runs of whitespace collapsed to one space.
+     */
+    public static String normalizeDescription(String description) {
+        if (description == null) {
+            return "";
+        }
+        return description.trim().replaceAll("\\s+", " ").toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,66 @@
+package app.personal.repository;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter over {@link app.personal.model.TransactionFingerprint} values: it answers "not
+ * stored" for certain and "maybe stored" with a false positive rate that holds up to its capacity.
+ * The fingerprints are already hashes, so the bit positions come straight from their hex digits.
+ * Thread-safe.
+ */
+final class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+    private final long capacity;
+    private final AtomicLong size = new AtomicLong();
+
+    BloomFilter(long capacity, double falsePositiveRate) {
+        this.capacity = Math.max(1, capacity);
+        double ln2 = Math.log(2);
+        long wanted = (long) Math.ceil(-this.capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.words = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE - 8, (wanted + 63) / 64));
+        this.bits = 64L * words.length();
+        this.hashes = Math.max(1, (int) Math.round((double) bits / this.capacity * ln2));
+    }
+
+    boolean mightContain(String fingerprint) {
+        long h1 = Long.parseUnsignedLong(fingerprint, 0, 16, 16);
+        long h2 = Long.parseUnsignedLong(fingerprint, 16, 32, 16);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void add(String fingerprint) {
+        long h1 = Long.parseUnsignedLong(fingerprint, 0, 16, 16);
+        long h2 = Long.parseUnsignedLong(fingerprint, 16, 32, 16);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            while (((current = words.get(word)) & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+                // another thread set a bit in the same word; try again
+            }
+        }
+        size.incrementAndGet();
+    }
+
+    /**
+     * Fingerprints added, including repeats.
+     */
+    long size() {
+        return size.get();
+    }
+
+    long capacity() {
+        return capacity;
+    }
+}
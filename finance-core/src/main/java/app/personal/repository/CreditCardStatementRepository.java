@@ -1,14 +1,24 @@
 package app.personal.repository;
 
 import app.personal.model.CreditCardStatement;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CreditCardStatementRepository extends JpaRepository<CreditCardStatement, Long> {
     List<CreditCardStatement> findByCardNumber(String cardNumber);
     List<CreditCardStatement> findByStatementDateBetween(LocalDate startDate, LocalDate endDate);
-}
\ No newline at end of file
+
+    /**
+     * The statement with this unique key, locked until the transaction ends so that concurrent
+     * uploads of the same statement update it one after the other.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<CreditCardStatement> findByCardNumberAndStatementDate(String cardNumber, LocalDate statementDate);
+}
@@ -0,0 +1,127 @@
+package app.personal.repository;
+
+import app.personal.model.Ids;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
+import org.springframework.jdbc.support.incrementer.H2SequenceMaxValueIncrementer;
+import org.springframework.jdbc.support.incrementer.PostgresSequenceMaxValueIncrementer;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The id sequences of the statement and transaction tables (see {@link Ids}), for code that
+ * inserts rows with plain JDBC, and their repair at startup.
+ *
+ * <p>Tables created while the entities used identity columns already hold rows, and Hibernate's
+ * schema update creates their sequences starting at 1. Once the schema is up to date, every
+ * sequence that is behind its table is restarted after the table's largest id.</p>
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class IdSequences {
+
+    private static final Map<String, String> SEQUENCE_BY_TABLE = new LinkedHashMap<>();
+
+    static {
+        SEQUENCE_BY_TABLE.put("credit_card_statements", Ids.CREDIT_CARD_STATEMENTS_SEQ);
+        SEQUENCE_BY_TABLE.put("credit_card_transactions", Ids.CREDIT_CARD_TRANSACTIONS_SEQ);
+        SEQUENCE_BY_TABLE.put("savings_account_statements", Ids.SAVINGS_ACCOUNT_STATEMENTS_SEQ);
+        SEQUENCE_BY_TABLE.put("savings_account_transactions", Ids.SAVINGS_ACCOUNT_TRANSACTIONS_SEQ);
+    }
+
+    private final JdbcTemplate jdbc;
+    private final String databaseProduct;
+
+    @Autowired
+    public IdSequences(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+        String product;
+        try {
+            product = JdbcUtils.extractDatabaseMetaData(jdbc.getDataSource(),
+                    DatabaseMetaData::getDatabaseProductName);
+        } catch (MetaDataAccessException e) {
+            product = "unknown";
+        }
+        this.databaseProduct = product;
+    }
+
+    /**
+     * Ids from {@code sequence}, read one block of {@link Ids#ALLOCATION_SIZE} at a time.
+     *
+     * @throws IllegalStateException if this database's sequences cannot be read with plain JDBC
+     */
+    public Block block(String sequence) {
+        return new Block(incrementer(sequence));
+    }
+
+    /**
+     * Restart every sequence that would hand out ids already in its table.
+     */
+    @PostConstruct
+    public void align() {
+        if (!supported()) {
+            // sequences emulated with tables, as on SQLite, are only ever created with the schema
+            return;
+        }
+        SEQUENCE_BY_TABLE.forEach((table, sequence) -> {
+            try {
+                Long maxId = jdbc.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+                if (maxId == null) {
+                    return;
+                }
+                // reading a value gives up one block, which is cheaper than asking each database
+                // for its sequence's current value in its own way
+                if (incrementer(sequence).nextLongValue() <= maxId) {
+                    jdbc.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (maxId + 1));
+                }
+            } catch (DataAccessException e) {
+                System.err.println("Warning: Could not align " + sequence + " with " + table + ": " + e.getMessage());
+            }
+        });
+    }
+
+    private boolean supported() {
+        return "H2".equals(databaseProduct) || "PostgreSQL".equals(databaseProduct);
+    }
+
+    private DataFieldMaxValueIncrementer incrementer(String sequence) {
+        if ("H2".equals(databaseProduct)) {
+            return new H2SequenceMaxValueIncrementer(jdbc.getDataSource(), sequence);
+        }
+        if ("PostgreSQL".equals(databaseProduct)) {
+            return new PostgresSequenceMaxValueIncrementer(jdbc.getDataSource(), sequence);
+        }
+        throw new IllegalStateException("Sequences of " + databaseProduct + " cannot be read with plain JDBC");
+    }
+
+    /**
+     * Hands out the ids of one sequence value at a time, the way Hibernate's pooled-lo optimizer
+     * does. Not thread-safe.
+     */
+    public static class Block {
+        private final DataFieldMaxValueIncrementer incrementer;
+        private long next;
+        private long end;
+
+        private Block(DataFieldMaxValueIncrementer incrementer) {
+            this.incrementer = incrementer;
+        }
+
+        public long nextId() {
+            if (next == end) {
+                next = incrementer.nextLongValue();
+                end = next + Ids.ALLOCATION_SIZE;
+            }
+            return next++;
+        }
+    }
+}
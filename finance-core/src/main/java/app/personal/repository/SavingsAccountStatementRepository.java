@@ -1,15 +1,26 @@
 package app.personal.repository;
 
 import app.personal.model.SavingsAccountStatement;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface SavingsAccountStatementRepository extends JpaRepository<SavingsAccountStatement, Long> {
     List<SavingsAccountStatement> findByAccountNumber(String accountNumber);
 
     List<SavingsAccountStatement> findByFromDateBetween(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * The statement with this unique key, locked until the transaction ends so that concurrent
+     * uploads of the same statement update it one after the other.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<SavingsAccountStatement> findByAccountNumberAndFromDateAndToDate(
+            String accountNumber, LocalDate fromDate, LocalDate toDate);
 }
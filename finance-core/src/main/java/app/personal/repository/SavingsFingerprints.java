@@ -0,0 +1,188 @@
+package app.personal.repository;
+
+import app.personal.model.TransactionFingerprint;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The fingerprints of the stored savings transactions (see
+ * {@link TransactionFingerprint#savings}), which a unique index keeps from being stored twice, and
+ * a Bloom filter over them rebuilt at startup. Most new rows are not stored yet, and the filter
+ * says so without a database probe; only the rest are looked up.
+ *
+ * <p>Writers call {@link #added} after committing, so a filter rebuilt in between still finds
+ * every committed row in the table.</p>
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class SavingsFingerprints {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final long MIN_CAPACITY = 1 << 20;
+    // fingerprints per IN list
+    private static final int PROBE_BATCH = 500;
+
+    private final JdbcTemplate jdbc;
+    private volatile BloomFilter filter = new BloomFilter(MIN_CAPACITY, FALSE_POSITIVE_RATE);
+    private final AtomicLong checked = new AtomicLong();
+    private final AtomicLong probed = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+
+    @Autowired
+    public SavingsFingerprints(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Build the filter, then fingerprint the rows stored before the column existed. Those that
+     * duplicate another row are marked so, and not looked at again on the next start.
+     */
+    @PostConstruct
+    public void load() {
+        rebuild();
+        fingerprintOldRows();
+        Long marked = jdbc.queryForObject(
+                "SELECT COUNT(*) FROM savings_account_transactions WHERE fingerprint IS NULL", Long.class);
+        duplicates.set(marked == null ? 0 : marked);
+    }
+
+    /**
+     * Those of {@code fingerprints} that are already stored.
+     */
+    public Set<String> stored(Collection<String> fingerprints) {
+        BloomFilter current = filter;
+        List<String> candidates = new ArrayList<>();
+        for (String fingerprint : fingerprints) {
+            if (current.mightContain(fingerprint)) {
+                candidates.add(fingerprint);
+            }
+        }
+        checked.addAndGet(fingerprints.size());
+        probed.addAndGet(candidates.size());
+        if (candidates.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> stored = new HashSet<>();
+        for (int from = 0; from < candidates.size(); from += PROBE_BATCH) {
+            List<String> batch = candidates.subList(from, Math.min(candidates.size(), from + PROBE_BATCH));
+            stored.addAll(jdbc.queryForList("SELECT fingerprint FROM savings_account_transactions WHERE fingerprint IN ("
+                    + String.join(",", Collections.nCopies(batch.size(), "?")) + ")", String.class, batch.toArray()));
+        }
+        return stored;
+    }
+
+    /**
+     * Record fingerprints whose rows were just committed.
+     */
+    public synchronized void added(Collection<String> fingerprints) {
+        fingerprints.forEach(filter::add);
+        if (filter.size() > filter.capacity()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Fingerprints checked by {@link #stored}.
+     */
+    public long getChecked() {
+        return checked.get();
+    }
+
+    /**
+     * Fingerprints that the filter could not rule out and that were looked up in the database.
+     */
+    public long getProbed() {
+        return probed.get();
+    }
+
+    /**
+     * Stored transactions marked as duplicating another and so left without a fingerprint, counted
+     * at startup.
+     */
+    public long getDuplicates() {
+        return duplicates.get();
+    }
+
+    private boolean exists(String fingerprint) {
+        return !jdbc.queryForList("SELECT id FROM savings_account_transactions WHERE fingerprint = ?", Long.class,
+                fingerprint).isEmpty();
+    }
+
+    // a filter sized for twice the stored rows, so that it lasts a while before the next rebuild
+    private synchronized void rebuild() {
+        Long rows = jdbc.queryForObject(
+                "SELECT COUNT(*) FROM savings_account_transactions WHERE fingerprint IS NOT NULL", Long.class);
+        BloomFilter rebuilt = new BloomFilter(Math.max(MIN_CAPACITY, 2 * (rows == null ? 0 : rows)),
+                FALSE_POSITIVE_RATE);
+        jdbc.query("SELECT fingerprint FROM savings_account_transactions WHERE fingerprint IS NOT NULL",
+                rs -> {
+                    rebuilt.add(rs.getString(1));
+                });
+        filter = rebuilt;
+    }
+
+    // a row that turns out to duplicate another keeps no fingerprint, as the unique index requires
+    private void fingerprintOldRows() {
+        List<Object[]> updates = new ArrayList<>();
+        Set<String> assigned = new HashSet<>();
+        List<Object[]> copies = new ArrayList<>();
+        Map<String, Integer> occurrences = new HashMap<>();
+        long[] statement = {-1};
+        jdbc.query("SELECT t.id, t.statement_id, s.account_number, t.date, t.deposit_amount, t.withdrawal_amount,"
+                + " t.reference_number, t.description, t.closing_balance FROM savings_account_transactions t"
+                + " JOIN savings_account_statements s ON s.id = t.statement_id"
+                + " WHERE t.fingerprint IS NULL AND t.duplicate IS NULL ORDER BY t.statement_id, t.id", rs -> {
+            if (rs.getLong(2) != statement[0]) {
+                statement[0] = rs.getLong(2);
+                occurrences.clear();
+            }
+            String accountNumber = rs.getString(3);
+            Date sqlDate = rs.getDate(4);
+            LocalDate date = sqlDate == null ? null : sqlDate.toLocalDate();
+            BigDecimal deposit = rs.getBigDecimal(5);
+            BigDecimal withdrawal = rs.getBigDecimal(6);
+            BigDecimal amount = (deposit == null ? BigDecimal.ZERO : deposit)
+                    .subtract(withdrawal == null ? BigDecimal.ZERO : withdrawal);
+            String reference = rs.getString(7);
+            String description = rs.getString(8);
+            BigDecimal balance = rs.getBigDecimal(9);
+            int occurrence = 1;
+            if (balance == null) {
+                occurrence = occurrences.merge(
+                        TransactionFingerprint.of(date, amount, reference, description),
+                        1, Integer::sum);
+            }
+            String fingerprint = TransactionFingerprint.savings(accountNumber, date, amount, reference, description,
+                    balance, occurrence);
+            if (assigned.contains(fingerprint) || (filter.mightContain(fingerprint) && exists(fingerprint))) {
+                copies.add(new Object[] {Boolean.TRUE, rs.getLong(1)});
+            } else {
+                assigned.add(fingerprint);
+                updates.add(new Object[] {fingerprint, rs.getLong(1)});
+            }
+        });
+        if (!updates.isEmpty()) {
+            jdbc.batchUpdate("UPDATE savings_account_transactions SET fingerprint = ? WHERE id = ?", updates);
+            added(assigned);
+        }
+        if (!copies.isEmpty()) {
+            jdbc.batchUpdate("UPDATE savings_account_transactions SET duplicate = ? WHERE id = ?", copies);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package app.personal.repository;
+
+import org.hibernate.community.dialect.SQLiteDialect;
+import org.hibernate.dialect.unique.AlterTableUniqueIndexDelegate;
+import org.hibernate.dialect.unique.UniqueDelegate;
+
+/**
+ * Hibernate's SQLite dialect, but keeping the entities' unique constraints. SQLite cannot add a
+ * constraint to an existing table, so the community dialect drops them without a word, and with
+ * them the statement keys and the transaction fingerprint index. A unique index enforces the same
+ * thing and can be created at any time.
+ */
+public class UniqueIndexSQLiteDialect extends SQLiteDialect {
+
+    private final UniqueDelegate uniqueDelegate = new AlterTableUniqueIndexDelegate(this);
+
+    @Override
+    public UniqueDelegate getUniqueDelegate() {
+        return uniqueDelegate;
+    }
+}
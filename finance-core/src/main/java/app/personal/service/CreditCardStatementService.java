@@ -4,15 +4,20 @@ import app.personal.dto.CreditCardStatementDto;
 import app.personal.dto.CreditCardTransactionDto;
 import app.personal.model.CreditCardStatement;
 import app.personal.model.CreditCardTransaction;
+import app.personal.model.TransactionFingerprint;
+import app.personal.model.TransactionType;
 import app.personal.repository.CreditCardStatementRepository;
 import app.personal.repository.CreditCardTransactionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Optional;
+import java.util.Objects;
 
 @Service
 public class CreditCardStatementService {
@@ -23,23 +28,29 @@ public class CreditCardStatementService {
     @Autowired
     private CreditCardTransactionRepository transactionRepository;
 
-    @Transactional
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Insert the statement, or replace the stored one with the same card number and statement
+     * date. The lookup is one unique-index probe however many statements the card has. Two uploads
+     * of a new statement can both miss it; the second then fails on the unique key and is retried
+     * once, finding the first one's row to update.
+     */
     public CreditCardStatement saveStatement(CreditCardStatementDto dto) {
-        CreditCardStatement statement = new CreditCardStatement();
-        mapDtoToStatement(dto, statement);
-        
-        // Check for existing statement
-        Optional<CreditCardStatement> existing = statementRepository.findByCardNumber(dto.getCardNumber())
-            .stream()
-            .filter(s -> s.getStatementDate().equals(dto.getStatementDate()))
-            .findFirst();
-
-        if (existing.isPresent()) {
-            // Update existing statement
-            mapDtoToStatement(dto, existing.get());
-            return statementRepository.save(existing.get());
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            return transaction.execute(status -> upsert(dto));
+        } catch (DataIntegrityViolationException e) {
+            return transaction.execute(status -> upsert(dto));
         }
+    }
 
+    private CreditCardStatement upsert(CreditCardStatementDto dto) {
+        CreditCardStatement statement = statementRepository
+                .findByCardNumberAndStatementDate(dto.getCardNumber(), dto.getStatementDate())
+                .orElseGet(CreditCardStatement::new);
+        mapDtoToStatement(dto, statement);
         return statementRepository.save(statement);
     }
 
@@ -52,19 +63,61 @@ public class CreditCardStatementService {
         statement.setAvailableCredit(dto.getAvailableCredit());
         statement.setTotalDues(dto.getTotalDues());
         statement.setMinimumAmountDue(dto.getMinimumAmountDue());
-        
-        // Clear existing transactions
-        statement.getTransactions().clear();
-        
-        // Add new transactions
-        for (CreditCardTransactionDto txDto : dto.getTransactions()) {
+
+        // write only the transactions that changed, keeping the ids of the rest
+        statement.setMergeCounts(TransactionMerger.merge(statement.getTransactions(), dto.getTransactions(),
+                new TransactionMapping(statement)));
+    }
+
+    private static class TransactionMapping
+            implements TransactionMerger.Mapping<CreditCardTransaction, CreditCardTransactionDto> {
+        private final CreditCardStatement statement;
+
+        TransactionMapping(CreditCardStatement statement) {
+            this.statement = statement;
+        }
+
+        @Override
+        public String fingerprint(CreditCardTransaction stored) {
+            return TransactionFingerprint.of(stored.getDate(), signed(stored.getAmount(), stored.getType()),
+                    stored.getReferenceNumber(), stored.getDescription());
+        }
+
+        @Override
+        public String fingerprintOf(CreditCardTransactionDto incoming) {
+            return TransactionFingerprint.of(incoming.getDate(), signed(incoming.getAmount(), incoming.getType()),
+                    incoming.getReferenceNumber(), incoming.getDescription());
+        }
+
+        @Override
+        public boolean update(CreditCardTransaction stored, CreditCardTransactionDto incoming) {
+            // only the spelling of the description and the amount's scale can differ on a match
+            boolean changed = false;
+            if (!Objects.equals(stored.getDescription(), incoming.getDescription())) {
+                stored.setDescription(incoming.getDescription());
+                changed = true;
+            }
+            if (TransactionMerger.differ(stored.getAmount(), incoming.getAmount())) {
+                stored.setAmount(incoming.getAmount());
+                changed = true;
+            }
+            return changed;
+        }
+
+        @Override
+        public boolean insert(CreditCardTransactionDto incoming) {
             CreditCardTransaction transaction = new CreditCardTransaction();
-            transaction.setDate(txDto.getDate());
-            transaction.setDescription(txDto.getDescription());
-            transaction.setAmount(txDto.getAmount());
-            transaction.setType(txDto.getType());
-            transaction.setReferenceNumber(txDto.getReferenceNumber());
+            transaction.setDate(incoming.getDate());
+            transaction.setDescription(incoming.getDescription());
+            transaction.setAmount(incoming.getAmount());
+            transaction.setType(incoming.getType());
+            transaction.setReferenceNumber(incoming.getReferenceNumber());
             statement.addTransaction(transaction);
+            return true;
+        }
+
+        private static BigDecimal signed(BigDecimal amount, TransactionType type) {
+            return amount == null || type != TransactionType.DEBIT ? amount : amount.negate();
         }
     }
 
@@ -4,15 +4,25 @@ import app.personal.dto.SavingsAccountStatementDto;
 import app.personal.dto.SavingsAccountTransactionDto;
 import app.personal.model.SavingsAccountStatement;
 import app.personal.model.SavingsAccountTransaction;
+import app.personal.model.TransactionFingerprint;
 import app.personal.repository.SavingsAccountStatementRepository;
 import app.personal.repository.SavingsAccountTransactionRepository;
+import app.personal.repository.SavingsFingerprints;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Service
 public class SavingsAccountStatementService {
@@ -23,27 +33,45 @@ public class SavingsAccountStatementService {
     @Autowired
     private SavingsAccountTransactionRepository transactionRepository;
 
-    @Transactional
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private SavingsFingerprints fingerprints;
+
+    /**
+     * Insert the statement, or replace the stored one with the same account number and period.
+     * The lookup is one unique-index probe however many statements the account has. Two uploads of
+     * a new statement can both miss it; the second then fails on the unique key and is retried
+     * once, finding the first one's row to update.
+     *
+     * <p>Transactions already stored with another statement of the account, as when a quarterly
+     * export overlaps the monthly ones, are skipped and counted in the merge counts.</p>
+     */
     public SavingsAccountStatement saveStatement(SavingsAccountStatementDto dto) {
-        SavingsAccountStatement statement = new SavingsAccountStatement();
-        mapDtoToStatement(dto, statement);
-
-        // Check for existing statement (Assuming duplication check based on account
-        // number and date range)
-        Optional<SavingsAccountStatement> existing = statementRepository.findByAccountNumber(dto.getAccountNumber())
-                .stream()
-                .filter(s -> s.getFromDate().equals(dto.getFromDate()) && s.getToDate().equals(dto.getToDate()))
-                .findFirst();
-
-        if (existing.isPresent()) {
-            mapDtoToStatement(dto, existing.get());
-            return statementRepository.save(existing.get());
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Set<String> inserted = new HashSet<>();
+        SavingsAccountStatement saved;
+        try {
+            saved = transaction.execute(status -> upsert(dto, inserted));
+        } catch (DataIntegrityViolationException e) {
+            inserted.clear();
+            saved = transaction.execute(status -> upsert(dto, inserted));
         }
+        fingerprints.added(inserted);
+        return saved;
+    }
 
+    private SavingsAccountStatement upsert(SavingsAccountStatementDto dto, Set<String> inserted) {
+        SavingsAccountStatement statement = statementRepository
+                .findByAccountNumberAndFromDateAndToDate(dto.getAccountNumber(), dto.getFromDate(), dto.getToDate())
+                .orElseGet(SavingsAccountStatement::new);
+        mapDtoToStatement(dto, statement, inserted);
         return statementRepository.save(statement);
     }
 
-    private void mapDtoToStatement(SavingsAccountStatementDto dto, SavingsAccountStatement statement) {
+    private void mapDtoToStatement(SavingsAccountStatementDto dto, SavingsAccountStatement statement,
+                                   Set<String> inserted) {
         statement.setAccountNumber(dto.getAccountNumber());
         statement.setAccountHolderName(dto.getAccountHolderName());
         statement.setIfscCode(dto.getIfscCode());
@@ -53,21 +81,126 @@ public class SavingsAccountStatementService {
         statement.setOpeningBalance(dto.getOpeningBalance());
         statement.setClosingBalance(dto.getClosingBalance());
 
-        // Clear existing transactions
-        statement.getTransactions().clear();
+        // rows this statement already holds are matched below; only the others can be stored elsewhere
+        Map<SavingsAccountTransactionDto, String> incoming = fingerprintsOf(dto);
+        Set<String> own = new HashSet<>();
+        for (SavingsAccountTransaction transaction : statement.getTransactions()) {
+            own.add(transaction.getFingerprint());
+        }
+        Set<String> elsewhere = fingerprints.stored(
+                incoming.values().stream().filter(fingerprint -> !own.contains(fingerprint)).toList());
+
+        // write only the transactions that changed, keeping the ids of the rest
+        statement.setMergeCounts(TransactionMerger.merge(statement.getTransactions(), dto.getTransactions(),
+                new TransactionMapping(statement, incoming, elsewhere, inserted)));
+    }
 
-        // Add new transactions
-        for (SavingsAccountTransactionDto txDto : dto.getTransactions()) {
-            SavingsAccountTransaction transaction = new SavingsAccountTransaction();
-            transaction.setDate(txDto.getDate());
-            transaction.setDescription(txDto.getDescription());
-            transaction.setReferenceNumber(txDto.getReferenceNumber());
-            transaction.setWithdrawalAmount(txDto.getWithdrawalAmount());
-            transaction.setDepositAmount(txDto.getDepositAmount());
-            transaction.setClosingBalance(txDto.getClosingBalance());
-            transaction.setType(txDto.getType());
+    // TransactionFingerprint.savings of every row, numbering identical rows without a balance
+    private static Map<SavingsAccountTransactionDto, String> fingerprintsOf(SavingsAccountStatementDto dto) {
+        Map<SavingsAccountTransactionDto, String> fingerprints = new IdentityHashMap<>();
+        Map<String, Integer> occurrences = new HashMap<>();
+        for (SavingsAccountTransactionDto row : dto.getTransactions()) {
+            BigDecimal amount = TransactionMapping.signed(row.getDepositAmount(), row.getWithdrawalAmount());
+            int occurrence = 1;
+            if (row.getClosingBalance() == null) {
+                occurrence = occurrences.merge(TransactionFingerprint.of(row.getDate(), amount,
+                        row.getReferenceNumber(), row.getDescription()), 1, Integer::sum);
+            }
+            fingerprints.put(row, TransactionFingerprint.savings(dto.getAccountNumber(), row.getDate(), amount,
+                    row.getReferenceNumber(), row.getDescription(), row.getClosingBalance(), occurrence));
+        }
+        return fingerprints;
+    }
+
+    private static class TransactionMapping
+            implements TransactionMerger.Mapping<SavingsAccountTransaction, SavingsAccountTransactionDto> {
+        private final SavingsAccountStatement statement;
+        private final Map<SavingsAccountTransactionDto, String> fingerprints;
+        // fingerprints stored with other statements
+        private final Set<String> elsewhere;
+        private final Set<String> inserted;
 
+        TransactionMapping(SavingsAccountStatement statement, Map<SavingsAccountTransactionDto, String> fingerprints,
+                           Set<String> elsewhere, Set<String> inserted) {
+            this.statement = statement;
+            this.fingerprints = fingerprints;
+            this.elsewhere = elsewhere;
+            this.inserted = inserted;
+        }
+
+        @Override
+        public String fingerprint(SavingsAccountTransaction stored) {
+            return TransactionFingerprint.of(stored.getDate(),
+                    signed(stored.getDepositAmount(), stored.getWithdrawalAmount()),
+                    stored.getReferenceNumber(), stored.getDescription());
+        }
+
+        @Override
+        public String fingerprintOf(SavingsAccountTransactionDto incoming) {
+            return TransactionFingerprint.of(incoming.getDate(),
+                    signed(incoming.getDepositAmount(), incoming.getWithdrawalAmount()),
+                    incoming.getReferenceNumber(), incoming.getDescription());
+        }
+
+        @Override
+        public boolean update(SavingsAccountTransaction stored, SavingsAccountTransactionDto incoming) {
+            boolean changed = false;
+            if (!Objects.equals(stored.getDescription(), incoming.getDescription())) {
+                stored.setDescription(incoming.getDescription());
+                changed = true;
+            }
+            if (TransactionMerger.differ(stored.getWithdrawalAmount(), incoming.getWithdrawalAmount())) {
+                stored.setWithdrawalAmount(incoming.getWithdrawalAmount());
+                changed = true;
+            }
+            if (TransactionMerger.differ(stored.getDepositAmount(), incoming.getDepositAmount())) {
+                stored.setDepositAmount(incoming.getDepositAmount());
+                changed = true;
+            }
+            if (TransactionMerger.differ(stored.getClosingBalance(), incoming.getClosingBalance())) {
+                stored.setClosingBalance(incoming.getClosingBalance());
+                changed = true;
+            }
+            if (stored.getType() != incoming.getType()) {
+                stored.setType(incoming.getType());
+                changed = true;
+            }
+            String fingerprint = fingerprints.get(incoming);
+            if (!fingerprint.equals(stored.getFingerprint())) {
+                // a correction that turns the row into a copy of one stored elsewhere leaves it unfingerprinted
+                boolean duplicate = elsewhere.contains(fingerprint) || !inserted.add(fingerprint);
+                stored.setFingerprint(duplicate ? null : fingerprint);
+                stored.setDuplicate(duplicate ? Boolean.TRUE : null);
+                changed = true;
+            }
+            return changed;
+        }
+
+        @Override
+        public boolean insert(SavingsAccountTransactionDto incoming) {
+            String fingerprint = fingerprints.get(incoming);
+            // a row repeated with the same balance in this upload is a duplicate too
+            if (elsewhere.contains(fingerprint) || inserted.contains(fingerprint)) {
+                return false;
+            }
+            SavingsAccountTransaction transaction = new SavingsAccountTransaction();
+            transaction.setDate(incoming.getDate());
+            transaction.setDescription(incoming.getDescription());
+            transaction.setReferenceNumber(incoming.getReferenceNumber());
+            transaction.setWithdrawalAmount(incoming.getWithdrawalAmount());
+            transaction.setDepositAmount(incoming.getDepositAmount());
+            transaction.setClosingBalance(incoming.getClosingBalance());
+            transaction.setType(incoming.getType());
+            transaction.setFingerprint(fingerprint);
             statement.addTransaction(transaction);
+            inserted.add(fingerprint);
+            return true;
+        }
+
+        // deposits in, withdrawals out
+        static BigDecimal signed(BigDecimal deposit, BigDecimal withdrawal) {
+            BigDecimal in = deposit == null ? BigDecimal.ZERO : deposit;
+            return withdrawal == null ? in : in.subtract(withdrawal);
         }
     }
 
@@ -0,0 +1,108 @@
+package app.personal.service;
+
+import app.personal.model.MergeCounts;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Merges the transactions of an uploaded statement into the stored ones, so that saving a
+ * statement again writes only what changed instead of deleting and re-inserting every row.
+ *
+ * <p>Rows are matched by fingerprint. A statement can hold several identical rows, two coffees on
+ * the same day, so each stored row matches at most one incoming row: the n-th incoming row with a
+ * fingerprint takes the n-th stored row with it. A matched row is updated in place and keeps its
+ * id; an unmatched incoming row is inserted, unless the mapping finds it stored with another
+ * statement; an unmatched stored row is removed from the list, which orphan removal turns into a
+ * delete.</p>
+ */
+public final class TransactionMerger {
+
+    /**
+     * How one kind of transaction is matched, compared and created.
+     *
+     * @param <E> the stored entity
+     * @param <D> the uploaded row
+     */
+    public interface Mapping<E, D> {
+        String fingerprint(E stored);
+
+        String fingerprintOf(D incoming);
+
+        /**
+         * Copy the incoming row's data into the stored row.
+         *
+         * @return whether any value changed
+         */
+        boolean update(E stored, D incoming);
+
+        /**
+         * A new entity for the incoming row, attached to the statement, unless the row is already
+         * stored elsewhere.
+         *
+         * @return false if the row was skipped as a duplicate
+         */
+        boolean insert(D incoming);
+    }
+
+    private TransactionMerger() {
+    }
+
+    /**
+     * Whether two amounts differ in value; 500 and 500.00 are the same, as they are to Hibernate's
+     * dirty checking.
+     */
+    public static boolean differ(BigDecimal a, BigDecimal b) {
+        return a == null ? b != null : b == null || a.compareTo(b) != 0;
+    }
+
+    /**
+     * @param stored the statement's transactions, modified in place
+     */
+    public static <E, D> MergeCounts merge(List<E> stored, List<D> incoming, Mapping<E, D> mapping) {
+        Map<String, Deque<E>> byFingerprint = new HashMap<>();
+        for (E transaction : stored) {
+            byFingerprint.computeIfAbsent(mapping.fingerprint(transaction), k -> new ArrayDeque<>()).add(transaction);
+        }
+        Set<E> matched = Collections.newSetFromMap(new IdentityHashMap<>());
+        int inserted = 0;
+        int skipped = 0;
+        int updated = 0;
+        int unchanged = 0;
+        for (D row : incoming) {
+            Deque<E> candidates = byFingerprint.get(mapping.fingerprintOf(row));
+            E match = candidates == null ? null : candidates.poll();
+            if (match == null) {
+                if (mapping.insert(row)) {
+                    inserted++;
+                } else {
+                    skipped++;
+                }
+            } else {
+                matched.add(match);
+                if (mapping.update(match, row)) {
+                    updated++;
+                } else {
+                    unchanged++;
+                }
+            }
+        }
+        int deleted = 0;
+        if (matched.size() + inserted < stored.size()) {
+            int before = stored.size();
+            // rows inserted above are in the list too and were never candidates
+            Set<E> leftOver = Collections.newSetFromMap(new IdentityHashMap<>());
+            byFingerprint.values().forEach(leftOver::addAll);
+            stored.removeIf(leftOver::contains);
+            deleted = before - stored.size();
+        }
+        return new MergeCounts(inserted, updated, deleted, unchanged, skipped);
+    }
+}
@@ -0,0 +1,46 @@
+package app.personal.repository;
+
+import app.personal.model.TransactionFingerprint;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BloomFilterTest {
+
+    @Test
+    void addedFingerprintsAreAlwaysFound() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add(fingerprint(i));
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain(fingerprint(i)));
+        }
+        assertEquals(10_000, filter.size());
+    }
+
+    @Test
+    void falsePositivesStayNearTheRateAtCapacity() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add(fingerprint(i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 10_000; i < 110_000; i++) {
+            if (filter.mightContain(fingerprint(i))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, falsePositives + " false positives in 100000");
+    }
+
+    private static String fingerprint(int i) {
+        return TransactionFingerprint.savings("50100234567890", LocalDate.of(2025, 6, 1).plusDays(i % 30),
+                new BigDecimal(i).movePointLeft(2), null, "UPI-" + i, new BigDecimal(i), 1);
+    }
+}
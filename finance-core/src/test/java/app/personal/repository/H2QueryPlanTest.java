@@ -0,0 +1,19 @@
+package app.personal.repository;
+
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:query-plans;DB_CLOSE_DELAY=-1")
+public class H2QueryPlanTest extends QueryPlanTest {
+
+    @Override
+    protected List<String> explain(String sql, Object... parameters) {
+        return List.of(jdbc.queryForObject("EXPLAIN " + sql, String.class, parameters).split("\n"));
+    }
+
+    @Override
+    protected boolean scansTable(String step) {
+        return step.contains(".tableScan");
+    }
+}
@@ -0,0 +1,76 @@
+package app.personal.repository;
+
+import app.personal.model.Ids;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdSequencesTest {
+
+    private static final String[] TABLES = {"credit_card_statements", "credit_card_transactions",
+            "savings_account_statements", "savings_account_transactions"};
+
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void createSchema() {
+        jdbc = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:ids-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", ""));
+        // tables from before sequences, plus the sequences Hibernate's schema update adds
+        for (String table : TABLES) {
+            jdbc.execute("create table " + table + " (id bigint generated by default as identity primary key)");
+            jdbc.execute("create sequence " + table + "_seq start with 1 increment by " + Ids.ALLOCATION_SIZE);
+        }
+    }
+
+    @AfterEach
+    void dropDatabase() {
+        jdbc.execute("SHUTDOWN");
+    }
+
+    @Test
+    void sequencesBehindTheirTablesRestartAfterTheLargestId() {
+        for (int i = 0; i < 250; i++) {
+            jdbc.update("insert into savings_account_transactions default values");
+        }
+        jdbc.update("insert into credit_card_statements default values");
+
+        new IdSequences(jdbc).align();
+
+        IdSequences.Block transactions = new IdSequences(jdbc).block(Ids.SAVINGS_ACCOUNT_TRANSACTIONS_SEQ);
+        assertEquals(251, transactions.nextId());
+        assertEquals(252, transactions.nextId());
+        assertEquals(2, new IdSequences(jdbc).block(Ids.CREDIT_CARD_STATEMENTS_SEQ).nextId());
+        // an empty table keeps its sequence as it is
+        assertEquals(1, new IdSequences(jdbc).block(Ids.SAVINGS_ACCOUNT_STATEMENTS_SEQ).nextId());
+    }
+
+    @Test
+    void blocksHandOutOneSequenceValueAtATime() {
+        IdSequences ids = new IdSequences(jdbc);
+        IdSequences.Block first = ids.block(Ids.CREDIT_CARD_TRANSACTIONS_SEQ);
+        IdSequences.Block second = ids.block(Ids.CREDIT_CARD_TRANSACTIONS_SEQ);
+
+        assertEquals(1, first.nextId());
+        assertEquals(1 + Ids.ALLOCATION_SIZE, second.nextId());
+        for (int i = 2; i <= Ids.ALLOCATION_SIZE; i++) {
+            assertEquals(i, first.nextId());
+        }
+        assertEquals(1 + 2 * Ids.ALLOCATION_SIZE, first.nextId());
+    }
+
+    @Test
+    void alignedSequencesAreLeftAlone() {
+        jdbc.update("insert into credit_card_statements default values");
+        IdSequences ids = new IdSequences(jdbc);
+        ids.align();
+        ids.align();
+
+        // the first alignment restarted at 2, the second read 2 and gave up that block
+        assertEquals(2 + Ids.ALLOCATION_SIZE, ids.block(Ids.CREDIT_CARD_STATEMENTS_SEQ).nextId());
+    }
+}
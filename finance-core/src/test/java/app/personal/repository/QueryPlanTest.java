@@ -0,0 +1,153 @@
+package app.personal.repository;
+
+import app.personal.model.CreditCardStatement;
+import app.personal.model.SavingsAccountStatement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs every repository query, and the loads of a statement's transactions, with the database's
+ * EXPLAIN and fails if the plan reads a whole table. The schema, indexes included, is created from
+ * the entities; subclasses choose the database.
+ *
+ * <p>{@code findByDescriptionContainingIgnoreCase} is left out: a substring match cannot use a
+ * B-tree index on any of the databases.</p>
+ */
+@DataJpaTest(properties = {"spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=app.personal.repository.SqlRecorder"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+abstract class QueryPlanTest {
+
+    private static final LocalDate FROM = LocalDate.of(2025, 6, 1);
+    private static final LocalDate TO = LocalDate.of(2025, 6, 30);
+
+    @Autowired
+    private CreditCardStatementRepository creditCardStatements;
+
+    @Autowired
+    private CreditCardTransactionRepository creditCardTransactions;
+
+    @Autowired
+    private SavingsAccountStatementRepository savingsStatements;
+
+    @Autowired
+    private SavingsAccountTransactionRepository savingsTransactions;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    protected JdbcTemplate jdbc;
+
+    /**
+     * The plan of {@code sql} with these parameters, one line per step.
+     */
+    protected abstract List<String> explain(String sql, Object... parameters);
+
+    /**
+     * Whether a line of a plan reads every row of a table.
+     */
+    protected abstract boolean scansTable(String step);
+
+    @BeforeEach
+    void forgetQueries() {
+        SqlRecorder.clear();
+    }
+
+    @Test
+    void creditCardStatementsByCardNumber() {
+        creditCardStatements.findByCardNumber("4000 12XX XXXX 0001");
+        assertUsesIndexes("4000 12XX XXXX 0001");
+    }
+
+    @Test
+    void creditCardStatementsByStatementDate() {
+        creditCardStatements.findByStatementDateBetween(FROM, TO);
+        assertUsesIndexes(FROM, TO);
+    }
+
+    @Test
+    void creditCardStatementByKey() {
+        creditCardStatements.findByCardNumberAndStatementDate("4000 12XX XXXX 0001", TO);
+        assertUsesIndexes("4000 12XX XXXX 0001", TO);
+    }
+
+    @Test
+    void creditCardTransactionsByDate() {
+        creditCardTransactions.findByDateBetween(FROM, TO);
+        assertUsesIndexes(FROM, TO);
+    }
+
+    @Test
+    void transactionsOfACreditCardStatement() {
+        CreditCardStatement statement = new CreditCardStatement();
+        statement.setCardNumber("4000 12XX XXXX 0001");
+        statement.setStatementDate(TO);
+        Long id = entityManager.persistAndFlush(statement).getId();
+        entityManager.clear();
+
+        creditCardStatements.findById(id).orElseThrow().getTransactions().size();
+        assertUsesIndexes(id);
+    }
+
+    @Test
+    void savingsStatementsByAccountNumber() {
+        savingsStatements.findByAccountNumber("50100234567890");
+        assertUsesIndexes("50100234567890");
+    }
+
+    @Test
+    void savingsStatementsByFromDate() {
+        savingsStatements.findByFromDateBetween(FROM, TO);
+        assertUsesIndexes(FROM, TO);
+    }
+
+    @Test
+    void savingsStatementByKey() {
+        savingsStatements.findByAccountNumberAndFromDateAndToDate("50100234567890", FROM, TO);
+        assertUsesIndexes("50100234567890", FROM, TO);
+    }
+
+    @Test
+    void savingsTransactionsByDate() {
+        savingsTransactions.findByDateBetween(FROM, TO);
+        assertUsesIndexes(FROM, TO);
+    }
+
+    @Test
+    void transactionsOfASavingsStatement() {
+        SavingsAccountStatement statement = new SavingsAccountStatement();
+        statement.setAccountNumber("50100234567890");
+        statement.setFromDate(FROM);
+        statement.setToDate(TO);
+        Long id = entityManager.persistAndFlush(statement).getId();
+        entityManager.clear();
+
+        savingsStatements.findById(id).orElseThrow().getTransactions().size();
+        assertUsesIndexes(id);
+    }
+
+    // the last query run, explained with the same parameter values
+    private void assertUsesIndexes(Object... parameters) {
+        String sql = SqlRecorder.lastQuery();
+        assertEquals(parameters.length, sql.chars().filter(c -> c == '?').count(), sql);
+        Object[] values = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            values[i] = parameters[i] instanceof LocalDate date ? Date.valueOf(date) : parameters[i];
+        }
+        List<String> plan = explain(sql, values);
+        assertFalse(plan.stream().anyMatch(this::scansTable),
+                () -> "Table scan in the plan of " + sql + ":\n" + String.join("\n", plan));
+    }
+}
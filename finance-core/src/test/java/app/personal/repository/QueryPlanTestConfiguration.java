@@ -0,0 +1,14 @@
+package app.personal.repository;
+
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * The entities and repositories of finance-core, for the {@code @DataJpaTest} query plan tests.
+ */
+@SpringBootConfiguration
+@EntityScan("app.personal.model")
+@EnableJpaRepositories("app.personal.repository")
+class QueryPlanTestConfiguration {
+}
@@ -0,0 +1,25 @@
+package app.personal.repository;
+
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:sqlite:file:query-plans?mode=memory&cache=shared",
+        "spring.datasource.driver-class-name=org.sqlite.JDBC",
+        "spring.jpa.database-platform=app.personal.repository.UniqueIndexSQLiteDialect",
+        "spring.jpa.mapping-resources=META-INF/sqlite-orm.xml",
+        "spring.datasource.hikari.maximum-pool-size=1"})
+public class SQLiteQueryPlanTest extends QueryPlanTest {
+
+    @Override
+    protected List<String> explain(String sql, Object... parameters) {
+        return jdbc.query("EXPLAIN QUERY PLAN " + sql, (row, i) -> row.getString("detail"), parameters);
+    }
+
+    @Override
+    protected boolean scansTable(String step) {
+        // "SCAN t USING INDEX i" reads the whole index, no better than the table
+        return step.startsWith("SCAN");
+    }
+}
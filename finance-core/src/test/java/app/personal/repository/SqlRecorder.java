@@ -0,0 +1,32 @@
+package app.personal.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Remembers the last SQL query Hibernate prepared, so a test can ask the database for its plan.
+ * Registered as {@code hibernate.session_factory.statement_inspector}.
+ */
+public class SqlRecorder implements StatementInspector {
+
+    private static final ThreadLocal<String> LAST_QUERY = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        if (sql.regionMatches(true, 0, "select", 0, 6)) {
+            LAST_QUERY.set(sql);
+        }
+        return sql;
+    }
+
+    static String lastQuery() {
+        String sql = LAST_QUERY.get();
+        if (sql == null) {
+            throw new IllegalStateException("No query was run");
+        }
+        return sql;
+    }
+
+    static void clear() {
+        LAST_QUERY.remove();
+    }
+}
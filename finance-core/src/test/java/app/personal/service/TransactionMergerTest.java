@@ -0,0 +1,115 @@
+package app.personal.service;
+
+import app.personal.model.MergeCounts;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionMergerTest {
+
+    // a stored row: a fingerprint, a value an upload may correct, and an id that must survive
+    private static class Row {
+        final String fingerprint;
+        BigDecimal balance;
+        final Long id;
+
+        Row(String fingerprint, String balance, Long id) {
+            this.fingerprint = fingerprint;
+            this.balance = new BigDecimal(balance);
+            this.id = id;
+        }
+    }
+
+    private static class Mapping implements TransactionMerger.Mapping<Row, Row> {
+        final List<Row> statement;
+
+        Mapping(List<Row> statement) {
+            this.statement = statement;
+        }
+
+        @Override
+        public String fingerprint(Row stored) {
+            return stored.fingerprint;
+        }
+
+        @Override
+        public String fingerprintOf(Row incoming) {
+            return incoming.fingerprint;
+        }
+
+        @Override
+        public boolean update(Row stored, Row incoming) {
+            if (!TransactionMerger.differ(stored.balance, incoming.balance)) {
+                return false;
+            }
+            stored.balance = incoming.balance;
+            return true;
+        }
+
+        @Override
+        public boolean insert(Row incoming) {
+            statement.add(new Row(incoming.fingerprint, incoming.balance.toPlainString(), null));
+            return true;
+        }
+    }
+
+    @Test
+    void identicalUploadChangesNothing() {
+        List<Row> stored = new ArrayList<>(List.of(new Row("a", "10", 1L), new Row("b", "20", 2L)));
+
+        MergeCounts counts = TransactionMerger.merge(stored,
+                List.of(new Row("a", "10.00", null), new Row("b", "20", null)), new Mapping(stored));
+
+        assertEquals(0, counts.getInserted());
+        assertEquals(0, counts.getUpdated());
+        assertEquals(0, counts.getDeleted());
+        assertEquals(2, counts.getUnchanged());
+        assertEquals(List.of(1L, 2L), stored.stream().map(r -> r.id).toList());
+    }
+
+    @Test
+    void writesOnlyTheDifferences() {
+        List<Row> stored = new ArrayList<>(List.of(
+                new Row("a", "10", 1L), new Row("b", "20", 2L), new Row("c", "30", 3L)));
+
+        MergeCounts counts = TransactionMerger.merge(stored,
+                List.of(new Row("a", "10", null), new Row("b", "25", null), new Row("d", "40", null)),
+                new Mapping(stored));
+
+        assertEquals(1, counts.getInserted());
+        assertEquals(1, counts.getUpdated());
+        assertEquals(1, counts.getDeleted());
+        assertEquals(1, counts.getUnchanged());
+        assertEquals(3, stored.size());
+        assertTrue(stored.stream().noneMatch(r -> r.fingerprint.equals("c")));
+        Row b = stored.stream().filter(r -> r.fingerprint.equals("b")).findFirst().orElseThrow();
+        assertEquals(Long.valueOf(2L), b.id);
+        assertEquals(new BigDecimal("25"), b.balance);
+    }
+
+    @Test
+    void identicalRowsMatchOneForOne() {
+        List<Row> stored = new ArrayList<>(List.of(
+                new Row("coffee", "5", 1L), new Row("coffee", "5", 2L), new Row("coffee", "5", 3L)));
+
+        MergeCounts fewer = TransactionMerger.merge(stored,
+                List.of(new Row("coffee", "5", null), new Row("coffee", "5", null)), new Mapping(stored));
+
+        assertEquals(1, fewer.getDeleted());
+        assertEquals(2, fewer.getUnchanged());
+        assertEquals(List.of(1L, 2L), stored.stream().map(r -> r.id).toList());
+
+        MergeCounts more = TransactionMerger.merge(stored, List.of(new Row("coffee", "5", null),
+                new Row("coffee", "5", null), new Row("coffee", "5", null)), new Mapping(stored));
+
+        assertEquals(1, more.getInserted());
+        assertEquals(0, more.getDeleted());
+        assertEquals(3, stored.size());
+        assertEquals(2, stored.stream().map(r -> r.id).filter(Objects::nonNull).count());
+    }
+}
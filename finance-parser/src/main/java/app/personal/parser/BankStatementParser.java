@@ -1,7 +1,29 @@
 package app.personal.parser;
 
 import java.io.File;
+import java.util.function.Consumer;
 
 public interface BankStatementParser {
     ParseResult parse(File file) throws ParseException;
+
+    /**
+     * Parse an already opened document, reusing its loaded PDF, cached text, trace and deadline.
+     */
+    ParseResult parse(PdfDocumentSession session) throws ParseException;
+
+    /**
+     * Parse PDF bytes held in memory or in a file, without a temp copy.
+     */
+    default ParseResult parse(PdfSource source) throws ParseException {
+        try (PdfDocumentSession session = PdfDocumentSession.open(source)) {
+            return parse(session);
+        }
+    }
+
+    /**
+     * Streaming parse: each transaction DTO is handed to {@code transactionSink} as soon as its
+     * line is recognised instead of being collected on the statement, so memory stays flat as the
+     * page count grows. The returned statement carries the metadata only.
+     */
+    ParseResult parse(File file, Consumer<Object> transactionSink) throws ParseException;
 }
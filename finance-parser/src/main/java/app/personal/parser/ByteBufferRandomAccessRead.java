@@ -0,0 +1,119 @@
+package app.personal.parser;
+
+import org.apache.pdfbox.io.RandomAccessRead;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * PDFBox input over a {@link ByteBuffer}, heap or memory-mapped, without copying it the way
+ * {@link org.apache.pdfbox.io.RandomAccessBuffer} copies into its own chunks. Positions are the
+ * buffer's own; not thread-safe, give every document its own {@link ByteBuffer#duplicate()}.
+ */
+final class ByteBufferRandomAccessRead implements RandomAccessRead {
+
+    private final ByteBuffer buffer;
+    private boolean closed;
+
+    ByteBufferRandomAccessRead(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkClosed();
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b) throws IOException {
+        return read(b, 0, b.length);
+    }
+
+    @Override
+    public int read(byte[] b, int offset, int length) throws IOException {
+        checkClosed();
+        if (length == 0) {
+            return 0;
+        }
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        int n = Math.min(length, buffer.remaining());
+        buffer.get(b, offset, n);
+        return n;
+    }
+
+    @Override
+    public long getPosition() throws IOException {
+        checkClosed();
+        return buffer.position();
+    }
+
+    @Override
+    public void seek(long position) throws IOException {
+        checkClosed();
+        if (position < 0) {
+            throw new IOException("Invalid position " + position);
+        }
+        buffer.position((int) Math.min(position, buffer.limit()));
+    }
+
+    @Override
+    public long length() throws IOException {
+        checkClosed();
+        return buffer.limit();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public int peek() throws IOException {
+        checkClosed();
+        return buffer.hasRemaining() ? buffer.get(buffer.position()) & 0xFF : -1;
+    }
+
+    @Override
+    public void rewind(int bytes) throws IOException {
+        checkClosed();
+        buffer.position(buffer.position() - bytes);
+    }
+
+    @Override
+    public byte[] readFully(int length) throws IOException {
+        checkClosed();
+        if (length > buffer.remaining()) {
+            throw new EOFException("Premature end of buffer reached");
+        }
+        byte[] b = new byte[length];
+        buffer.get(b);
+        return b;
+    }
+
+    @Override
+    public boolean isEOF() throws IOException {
+        checkClosed();
+        return !buffer.hasRemaining();
+    }
+
+    @Override
+    public int available() throws IOException {
+        checkClosed();
+        return buffer.remaining();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    private void checkClosed() throws IOException {
+        if (closed) {
+            throw new IOException("RandomAccessRead already closed");
+        }
+    }
+}
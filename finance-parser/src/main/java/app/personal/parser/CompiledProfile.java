@@ -0,0 +1,265 @@
+package app.personal.parser;
+
+import java.awt.geom.Rectangle2D;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Immutable, validated form of a {@link ParserProfile}. Rectangles and patterns are built once,
+ * and regions are grouped into the distinct sets that apply to a page, so region extraction can
+ * set up one area stripper per set and read every page exactly once.
+ *
+ * <p>Thread-safe; share instances through a {@link ProfileCache}.</p>
+ */
+public final class CompiledProfile {
+
+    private final String name;
+    private final String version;
+    private final List<Region> regions;
+    private final Map<String, Pattern> patterns;
+    // regions that apply to every page not listed in pageRegionSets
+    private final RegionSet defaultRegionSet;
+    // 1-based page -> regions for that page, for pages named in regionPages
+    private final Map<Integer, RegionSet> pageRegionSets;
+    private final List<RegionSet> regionSets;
+    private final boolean hasPageFilter;
+    private final PageClassifier pageClassifier;
+
+    private CompiledProfile(String name, String version, List<Region> regions, Map<String, Pattern> patterns,
+                            RegionSet defaultRegionSet, Map<Integer, RegionSet> pageRegionSets,
+                            List<RegionSet> regionSets, boolean hasPageFilter, PageClassifier pageClassifier) {
+        this.name = name;
+        this.version = version;
+        this.regions = regions;
+        this.patterns = patterns;
+        this.defaultRegionSet = defaultRegionSet;
+        this.pageRegionSets = pageRegionSets;
+        this.regionSets = regionSets;
+        this.hasPageFilter = hasPageFilter;
+        this.pageClassifier = pageClassifier;
+    }
+
+    /**
+     * Validate and compile a profile.
+     *
+     * @throws IllegalArgumentException if a region is not four numbers with a positive size, a
+     *                                  page number is not positive, a pattern does not compile, or
+     *                                  an enabled page filter has no keywords or no sample size
+     */
+    public static CompiledProfile compile(String name, ParserProfile profile) {
+        List<Region> regions = new ArrayList<>();
+        Map<String, double[]> source = profile.getRegions() == null ? Map.of() : profile.getRegions();
+        Map<String, List<Integer>> pages = profile.getRegionPages() == null ? Map.of() : profile.getRegionPages();
+        for (String regionName : pages.keySet()) {
+            if (!source.containsKey(regionName)) {
+                throw new IllegalArgumentException(name + ": regionPages names unknown region " + regionName);
+            }
+        }
+
+        List<Region> everyPage = new ArrayList<>();
+        Map<Integer, List<Region>> byPage = new LinkedHashMap<>();
+        for (Map.Entry<String, double[]> entry : source.entrySet()) {
+            double[] v = entry.getValue();
+            if (v == null || v.length != 4 || v[2] <= 0 || v[3] <= 0) {
+                throw new IllegalArgumentException(name + ": region " + entry.getKey()
+                        + " must be [x, y, width, height] with a positive size");
+            }
+            Region region = new Region(entry.getKey(), new Rectangle2D.Double(v[0], v[1], v[2], v[3]));
+            regions.add(region);
+            List<Integer> regionPages = pages.get(entry.getKey());
+            if (regionPages == null) {
+                everyPage.add(region);
+                continue;
+            }
+            for (Integer page : regionPages) {
+                if (page == null || page < 1) {
+                    throw new IllegalArgumentException(name + ": region " + entry.getKey()
+                            + " has page " + page + ", pages are 1-based");
+                }
+                byPage.computeIfAbsent(page, p -> new ArrayList<>()).add(region);
+            }
+        }
+
+        Map<String, Pattern> patterns = new LinkedHashMap<>();
+        if (profile.getPatterns() != null) {
+            for (Map.Entry<String, String> entry : profile.getPatterns().entrySet()) {
+                try {
+                    patterns.put(entry.getKey(), Pattern.compile(entry.getValue()));
+                } catch (PatternSyntaxException e) {
+                    throw new IllegalArgumentException(name + ": pattern " + entry.getKey() + " does not compile", e);
+                }
+            }
+        }
+
+        ParserProfile.PageFilter pageFilter = profile.getPageFilter();
+        PageClassifier pageClassifier = null;
+        if (pageFilter != null && pageFilter.isEnabled()) {
+            if (pageFilter.getKeywords() == null || pageFilter.getKeywords().isEmpty() || pageFilter.getSampleGlyphs() < 1) {
+                throw new IllegalArgumentException(name + ": pageFilter needs keywords and a positive sampleGlyphs");
+            }
+            pageClassifier = new PageClassifier(pageFilter.getSampleGlyphs(), pageFilter.getKeywords());
+        }
+
+        // one set per distinct region list; pages with an explicit list also get the every-page regions
+        List<RegionSet> sets = new ArrayList<>();
+        RegionSet defaultSet = regionSet(sets, everyPage);
+        Map<Integer, RegionSet> pageSets = new LinkedHashMap<>();
+        for (Map.Entry<Integer, List<Region>> entry : byPage.entrySet()) {
+            List<Region> pageRegions = new ArrayList<>();
+            for (Region region : regions) {
+                if (everyPage.contains(region) || entry.getValue().contains(region)) {
+                    pageRegions.add(region);
+                }
+            }
+            pageSets.put(entry.getKey(), regionSet(sets, pageRegions));
+        }
+
+        return new CompiledProfile(name, version(source, pages, patterns, pageFilter), List.copyOf(regions),
+                Collections.unmodifiableMap(patterns), defaultSet, Collections.unmodifiableMap(pageSets),
+                List.copyOf(sets), pageFilter != null, pageClassifier);
+    }
+
+    // digest of everything that affects extraction, so equal content gives equal versions
+    private static String version(Map<String, double[]> regions, Map<String, List<Integer>> pages,
+                                  Map<String, Pattern> patterns, ParserProfile.PageFilter pageFilter) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, double[]> entry : new TreeMap<>(regions).entrySet()) {
+            sb.append(entry.getKey()).append('=').append(Arrays.toString(entry.getValue()))
+                    .append(pages.get(entry.getKey())).append(';');
+        }
+        for (Map.Entry<String, Pattern> entry : new TreeMap<>(patterns).entrySet()) {
+            sb.append(entry.getKey()).append('~').append(entry.getValue().pattern()).append(';');
+        }
+        if (pageFilter != null) {
+            sb.append("pages:").append(pageFilter.isEnabled()).append(pageFilter.getSampleGlyphs())
+                    .append(pageFilter.getKeywords());
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static RegionSet regionSet(List<RegionSet> sets, List<Region> regions) {
+        for (RegionSet set : sets) {
+            if (set.regions.equals(regions)) {
+                return set;
+            }
+        }
+        RegionSet set = new RegionSet(sets.size(), List.copyOf(regions));
+        sets.add(set);
+        return set;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Content version: changes whenever a region, its pages, a pattern or the page filter changes, and is the same
+     * for two compilations of equal profiles. Suitable as part of a cache key.
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    public boolean hasRegions() {
+        return !regions.isEmpty();
+    }
+
+    public List<Region> getRegions() {
+        return regions;
+    }
+
+    /**
+     * Regions to extract from a 1-based page, in profile order; empty when none apply.
+     */
+    public RegionSet getRegionSet(int page) {
+        RegionSet set = pageRegionSets.get(page);
+        return set != null ? set : defaultRegionSet;
+    }
+
+    /**
+     * Every distinct region set, indexed by {@link RegionSet#getIndex()}.
+     */
+    public List<RegionSet> getRegionSets() {
+        return regionSets;
+    }
+
+    /**
+     * Whether the profile says which pages to extract; if not, the parser's own classifier applies.
+     */
+    public boolean hasPageFilter() {
+        return hasPageFilter;
+    }
+
+    /**
+     * The profile's page classifier, or {@code null} if it has none or turns page filtering off.
+     */
+    public PageClassifier getPageClassifier() {
+        return pageClassifier;
+    }
+
+    /**
+     * @return the compiled pattern, or {@code null} if the profile does not define it
+     */
+    public Pattern getPattern(String patternName) {
+        return patterns.get(patternName);
+    }
+
+    public static final class Region {
+        private final String name;
+        private final Rectangle2D rectangle;
+
+        private Region(String name, Rectangle2D rectangle) {
+            this.name = name;
+            this.rectangle = rectangle;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * The area in PDF user space; shared, do not modify.
+         */
+        public Rectangle2D getRectangle() {
+            return rectangle;
+        }
+    }
+
+    public static final class RegionSet {
+        private final int index;
+        private final List<Region> regions;
+
+        private RegionSet(int index, List<Region> regions) {
+            this.index = index;
+            this.regions = regions;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public List<Region> getRegions() {
+            return regions;
+        }
+
+        public boolean isEmpty() {
+            return regions.isEmpty();
+        }
+    }
+}
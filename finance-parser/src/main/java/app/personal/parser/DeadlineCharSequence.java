@@ -0,0 +1,51 @@
+package app.personal.parser;
+
+/**
+ * View of a line that checks a {@link ParseDeadline} while it is being read. Regex matching reads
+ * its input through {@link #charAt(int)}, so a pattern that backtracks for too long is stopped by
+ * the deadline instead of pinning the thread. The clock is only read every
+ * {@value #CHECK_INTERVAL} reads.
+ *
+ * <p>One instance is reused for every line of a parse via {@link #reset(CharSequence)}.</p>
+ */
+final class DeadlineCharSequence implements CharSequence {
+
+    private static final int CHECK_INTERVAL = 4096;
+
+    private final ParseDeadline deadline;
+    private CharSequence text = "";
+    private int reads;
+
+    DeadlineCharSequence(ParseDeadline deadline) {
+        this.deadline = deadline;
+    }
+
+    DeadlineCharSequence reset(CharSequence text) {
+        this.text = text;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return text.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (++reads == CHECK_INTERVAL) {
+            reads = 0;
+            deadline.check();
+        }
+        return text.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return text.subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return text.toString();
+    }
+}
@@ -0,0 +1,161 @@
+package app.personal.parser;
+
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Decodes amounts, dates and credit markers directly from a range of a {@link CharSequence}, so
+ * the parsers' per-row work does not create intermediate strings, compile regexes or go through
+ * {@link java.time.format.DateTimeFormatter}.
+ *
+ * <p>Results are the same as the formatter and {@code new BigDecimal(String)} based code they
+ * replace: day and month are exactly two digits, an invalid day is clamped to the end of its month
+ * the way {@link java.time.format.ResolverStyle#SMART} does, and an amount keeps the scale it was
+ * written with. Malformed input throws {@link NumberFormatException} or {@link DateTimeException}.</p>
+ */
+final class FieldDecoder {
+
+    // 18 digits always fit in a long
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private FieldDecoder() {
+    }
+
+    /**
+     * Decode an amount such as {@code 1,29,999.50}. Thousands separators and whitespace are skipped.
+     */
+    static BigDecimal decodeAmount(CharSequence s, int start, int end) {
+        long unscaled = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean fraction = false;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > MAX_LONG_DIGITS) {
+                    return decodeLongAmount(s, start, end);
+                }
+                unscaled = unscaled * 10 + (c - '0');
+                if (fraction) {
+                    scale++;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else if (c != ',' && !isSpace(c)) {
+                throw new NumberFormatException("Invalid amount: " + s.subSequence(start, end));
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("Invalid amount: " + s.subSequence(start, end));
+        }
+        return BigDecimal.valueOf(unscaled, scale);
+    }
+
+    private static BigDecimal decodeLongAmount(CharSequence s, int start, int end) {
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c != ',' && !isSpace(c)) {
+                sb.append(c);
+            }
+        }
+        return new BigDecimal(sb.toString());
+    }
+
+    /**
+     * Whether a trimmed amount token ends with a {@code C} or {@code CR} credit marker (any case).
+     */
+    static boolean isCredit(CharSequence s, int start, int end) {
+        end = trimEnd(s, start, end);
+        if (end == start) {
+            return false;
+        }
+        char last = s.charAt(end - 1);
+        if (last == 'c' || last == 'C') {
+            return true;
+        }
+        return (last == 'r' || last == 'R') && end - start >= 2
+                && (s.charAt(end - 2) == 'c' || s.charAt(end - 2) == 'C');
+    }
+
+    /**
+     * End of the numeric part of an amount token, with any trailing credit marker and whitespace
+     * removed.
+     */
+    static int amountEnd(CharSequence s, int start, int end) {
+        end = trimEnd(s, start, end);
+        while (end > start && isCreditMarkerChar(s.charAt(end - 1))) {
+            end--;
+        }
+        return trimEnd(s, start, end);
+    }
+
+    /**
+     * Decode {@code dd/MM/yyyy}, {@code dd/MM/yy} (20yy) or {@code dd/MM}, taking the year from
+     * {@code defaultYear} in the last case.
+     */
+    static LocalDate decodeDate(CharSequence s, int start, int end, int defaultYear) {
+        int length = end - start;
+        if (length != 5 && length != 8 && length != 10
+                || s.charAt(start + 2) != '/' || length > 5 && s.charAt(start + 5) != '/') {
+            throw new DateTimeException("Invalid date: " + s.subSequence(start, end));
+        }
+        int day = digits(s, start, start + 2);
+        int month = digits(s, start + 3, start + 5);
+        int year;
+        if (length == 5) {
+            year = defaultYear;
+        } else if (length == 8) {
+            year = 2000 + digits(s, start + 6, end);
+        } else {
+            year = digits(s, start + 6, end);
+        }
+        return resolve(year, month, day, s, start, end);
+    }
+
+    /**
+     * Decode {@code MM/yyyy} as the first day of that month.
+     */
+    static LocalDate decodeMonthYear(CharSequence s, int start, int end) {
+        if (end - start != 7 || s.charAt(start + 2) != '/') {
+            throw new DateTimeException("Invalid month: " + s.subSequence(start, end));
+        }
+        return resolve(digits(s, start + 3, end), digits(s, start, start + 2), 1, s, start, end);
+    }
+
+    private static LocalDate resolve(int year, int month, int day, CharSequence s, int start, int end) {
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > 31) {
+            throw new DateTimeException("Invalid date: " + s.subSequence(start, end));
+        }
+        return LocalDate.of(year, month, Math.min(day, YearMonth.of(year, month).lengthOfMonth()));
+    }
+
+    private static int digits(CharSequence s, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new DateTimeException("Invalid date: " + s.subSequence(start, end));
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int trimEnd(CharSequence s, int start, int end) {
+        while (end > start && isSpace(s.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean isCreditMarkerChar(char c) {
+        return c == 'c' || c == 'C' || c == 'r' || c == 'R';
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
@@ -0,0 +1,50 @@
+package app.personal.parser;
+
+/**
+ * Registers {@link HdfcCreditCardPdfParser}. Recognises the first page by the card number label
+ * and the HDFC credit card wording in the statement header.
+ */
+public class HdfcCreditCardParserProvider implements StatementParserProvider {
+
+    public static final String ID = "HDFC_CREDIT_CARD";
+
+    private static final int KW_HDFC = 1;
+    private static final int KW_CREDIT_CARD = 1 << 1;
+    private static final int KW_CARD_NO = 1 << 2;
+    private static final int REQUIRED = KW_HDFC | KW_CREDIT_CARD | KW_CARD_NO;
+
+    private static final LineLexer FINGERPRINT = LineLexer.builder()
+            .keyword("hdfc", KW_HDFC)
+            .keyword("credit card", KW_CREDIT_CARD)
+            .keyword("card no", KW_CARD_NO)
+            .build();
+
+    private volatile BankStatementParser parser;
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    public boolean matches(StatementFingerprint fingerprint) {
+        return (FINGERPRINT.scan(fingerprint.getFirstPageText()) & REQUIRED) == REQUIRED;
+    }
+
+    @Override
+    public String getProfileName() {
+        return "hdfc-profile";
+    }
+
+    @Override
+    public BankStatementParser getParser() {
+        if (parser == null) {
+            synchronized (this) {
+                if (parser == null) {
+                    parser = new HdfcCreditCardPdfParser();
+                }
+            }
+        }
+        return parser;
+    }
+}
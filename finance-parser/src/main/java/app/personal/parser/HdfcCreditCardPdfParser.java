@@ -3,9 +3,11 @@ package app.personal.parser;
 import app.personal.dto.CreditCardStatementDto;
 import app.personal.dto.CreditCardTransactionDto;
 import app.personal.model.TransactionType;
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 
@@ -18,281 +20,313 @@ public class HdfcCreditCardPdfParser extends PdfBoxStatementParser {
     private static final Pattern TRANSACTION_LINE_PATTERN = Pattern.compile("(?m)^\\s*(\\d{1,2}\\/\\d{1,2}(?:\\/\\d{2,4})?|\\d{1,2}\\/\\d{4})\\s+([^\\n]+?)\\s+([0-9,]+\\.?\\d*\\s*(?:[Cc][Rr]|[Cc])?|[0-9,]+\\.?\\d*)\\s*$");
     private static final Pattern STATEMENT_DATE_PATTERN = Pattern.compile("Statement\\s+Date:?\\s*([\\d/]+)");
     private static final Pattern CARD_NUMBER_PATTERN = Pattern.compile("Card\\s+No:?\\s*(\\d{4}\\s*\\d{2}XX\\s*XXXX\\s*\\d{4})");
-    private static final Pattern PAYMENT_DUE_DATE_PATTERN = Pattern.compile("(?:Payment\\s+Due\\s+Date[^\\n]*?|[^\\n]*?)(\\d{2}/\\d{2}/\\d{4})(?:[^\\n]*?(?:Due|Amount|Rs|\\d+[.,]\\d{2})[^\\n]*)?");
     private static final Pattern CREDIT_LIMIT_PATTERN = Pattern.compile("Credit\\s+Limit\\s*(\\d+,?\\d*)");
     private static final Pattern CARD_HOLDER_PATTERN = Pattern.compile("Name\\s*:\\s*([^\\n]+)");
     private static final Pattern TOTAL_DUES_PATTERN = Pattern.compile("Total\\s*(\\d+,?\\d*\\.?\\d*)");
     private static final Pattern MIN_DUE_PATTERN = Pattern.compile("(?:Min|Minimum)\\s*(?:Amount\\s*)?Due\\s*(\\d+,?\\d*\\.?\\d*)");
+    // Due date near "Amount Due", used when no labelled due date is found
+    private static final Pattern FULL_DATE_AMOUNTS_PATTERN = Pattern.compile("(\\d{2}/\\d{2}/\\d{4})\\s+[\\d,]+\\.\\d{2}\\s+[\\d,]+\\.\\d{2}");
     
     private static final Pattern TRANSACTION_SECTION_START = Pattern.compile("(?m)^\\s*(?:Domestic|International)\\s+Transactions?.*$");
     private static final Pattern TRANSACTION_SECTION_END = Pattern.compile("(?i)important\\s+information|cash\\s+points|reward\\s+points|due\\s+date");
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
+    // "Date | Transaction Description | Amount (in Rs.)", ending where the text section ends
+    private static final TableLayout TABLE_LAYOUT = new TableLayout(
+            EnumSet.of(TableLayout.Column.DATE, TableLayout.Column.DESCRIPTION, TableLayout.Column.AMOUNT),
+            TRANSACTION_SECTION_END);
+
+    // Keyword bits for the line lexer; each field pattern only runs on lines carrying its keyword
+    private static final int KW_STATEMENT = 1;
+    private static final int KW_CARD = 1 << 1;
+    private static final int KW_LIMIT = 1 << 2;
+    private static final int KW_NAME = 1 << 3;
+    private static final int KW_TOTAL = 1 << 4;
+    private static final int KW_MIN = 1 << 5;
+    private static final int KW_TRANSACTION = 1 << 6;
+    private static final int KW_SECTION_END = 1 << 7;
+
+    private static final LineLexer LEXER = LineLexer.builder()
+            .keyword("statement", KW_STATEMENT)
+            .keyword("card", KW_CARD)
+            .keyword("limit", KW_LIMIT)
+            .keyword("name", KW_NAME)
+            .keyword("total", KW_TOTAL)
+            .keyword("min", KW_MIN)
+            .keyword("transaction", KW_TRANSACTION)
+            .keyword("important", KW_SECTION_END)
+            .keyword("cash", KW_SECTION_END)
+            .keyword("reward", KW_SECTION_END)
+            .keyword("due", KW_SECTION_END)
+            .build();
+
+    // the transaction table's header; the rewards and terms pages that follow mention "statement" and "due"
+    private static final PageClassifier PAGE_CLASSIFIER = new PageClassifier(400,
+            List.of("Transaction Description", "Domestic Transactions", "International Transactions"));
+
+    public HdfcCreditCardPdfParser() {
+        setPageClassifier(PAGE_CLASSIFIER);
+    }
+
     @Override
-    protected ParseResult parseText(String text) {
-        if (text == null || text.isBlank()) {
-            System.err.println("DEBUG: Received empty or null text");
-            return ParseResult.failure("Empty text");
+    protected StatementLineParser newLineParser(Consumer<Object> transactionSink, ParseTrace trace) {
+        return new LineParser(transactionSink, trace);
+    }
+
+    @Override
+    TableLayout getTableLayout() {
+        return TABLE_LAYOUT;
+    }
+
+    /**
+     * Line-at-a-time HDFC credit card parse. Each line is classified once by {@link #LEXER} and only
+     * the patterns of the fields it may carry are run. Header fields are taken from the first line
+     * that matches them; transaction rows are only recognised between a section start marker
+     * ("Domestic/International Transactions") and the next end marker, unless they come from the
+     * transaction table's rows.
+     */
+    private final class LineParser implements StatementLineParser {
+        private final CreditCardStatementDto statement = new CreditCardStatementDto();
+        private final Consumer<Object> transactionSink;
+        private final ParseTrace trace;
+        // reset for every row candidate instead of allocating a matcher per line
+        private final Matcher transMatcher = TRANSACTION_LINE_PATTERN.matcher("");
+        private boolean inTransactionSection;
+        private boolean tableRows;
+        private String alternativeDueDate;
+        private int transactionCount;
+        private int lineNumber;
+
+        private LineParser(Consumer<Object> transactionSink, ParseTrace trace) {
+            this.transactionSink = transactionSink;
+            this.trace = trace;
         }
 
-        try {
-            System.out.println("\nDEBUG: Starting to parse text of length: " + text.length());
-            System.out.println("DEBUG: Text preview (first 200 chars):\n" + text.substring(0, Math.min(200, text.length())));
-            
-            CreditCardStatementDto statement = new CreditCardStatementDto();
-            
-            System.out.println("\nDEBUG: Extracting metadata...");
-            extractMetadata(text, statement);
-            
-            System.out.println("\nDEBUG: Extracting transactions...");
-            extractTransactions(text, statement);
-            
-            System.out.println("\nDEBUG: Validating statement...");
-            if (!validateStatement(statement)) {
-                // Print the full text when validation fails for debugging
-                System.err.println("\nDEBUG: Full extracted text when validation failed:\n" + text);
-                return ParseResult.failure("Statement validation failed");
+        @Override
+        public void acceptLine(CharSequence line) {
+            lineNumber++;
+            int tokens = LEXER.scan(line);
+            extractMetadata(line, tokens);
+
+            if (tableRows) {
+                return;
+            }
+            if (!inTransactionSection) {
+                if ((tokens & KW_TRANSACTION) != 0 && TRANSACTION_SECTION_START.matcher(line).find()) {
+                    trace.match("section.start", lineNumber, 0, line.length(), line);
+                    inTransactionSection = !isSectionEnd(line, tokens);
+                }
+                return;
             }
 
-            return ParseResult.success(statement);
-        } catch (Exception e) {
-            System.err.println("DEBUG: Exception during parsing: " + e.getMessage());
-            e.printStackTrace();
-            return ParseResult.failure("Failed to parse statement: " + e.getMessage());
-        }
-    }
+            if (isSectionEnd(line, tokens)) {
+                trace.match("section.end", lineNumber, 0, line.length(), line);
+                inTransactionSection = false;
+                return;
+            }
 
-    private void extractMetadata(String text, CreditCardStatementDto statement) {
-        // Extract Statement Date
-        System.out.println("DEBUG: Looking for Statement Date...");
-        Matcher m = STATEMENT_DATE_PATTERN.matcher(text);
-        if (m.find()) {
-            String dateStr = m.group(1).trim();
-            System.out.println("DEBUG: Found Statement Date: " + dateStr);
-            statement.setStatementDate(LocalDate.parse(dateStr, DATE_FORMATTER));
-        } else {
-            System.out.println("DEBUG: Statement Date not found");
+            // Match transaction lines which have a date followed by description and amount
+            if ((tokens & LineLexer.LEADING_DATE) == 0) {
+                return;
+            }
+            if (transMatcher.reset(line).find()) {
+                trace.match("transaction", lineNumber, transMatcher.start(), transMatcher.end(), line);
+                try {
+                    CreditCardTransactionDto transaction = new CreditCardTransactionDto();
+                    transaction.setDate(decodeDate(line, transMatcher.start(1), transMatcher.end(1)));
+                    setDescription(transaction, transMatcher.group(2).trim());
+                    setAmount(transaction, line, transMatcher.start(3), transMatcher.end(3));
+                    addTransaction(transaction);
+                } catch (Exception e) {
+                    trace.note("transaction.rejected", "line " + lineNumber + ": " + e.getMessage());
+                }
+            }
         }
 
-        // Extract Card Number
-        System.out.println("DEBUG: Looking for Card Number...");
-        m = CARD_NUMBER_PATTERN.matcher(text);
-        if (m.find()) {
-            String cardNum = m.group(1).replaceAll("\\s+", "");
-            System.out.println("DEBUG: Found Card Number: " + cardNum);
-            statement.setCardNumber(cardNum);
-        } else {
-            System.out.println("DEBUG: Card Number not found");
+        @Override
+        public void useTableRows() {
+            tableRows = true;
         }
 
-        // Extract Due Date
-        System.out.println("DEBUG: Looking for Payment Due Date...");
-        m = PAYMENT_DUE_DATE_PATTERN.matcher(text);
-        
-        // Try to find all potential due dates in the text for debugging
-        String allDates = "";
-        Matcher dateMatcher = Pattern.compile("\\d{2}/\\d{2}/\\d{4}").matcher(text);
-        while (dateMatcher.find()) {
-            allDates += dateMatcher.group() + ", ";
-        }
-        System.out.println("DEBUG: All dates found in text: " + allDates);
-        
-        if (m.find()) {
-            String dueDate = m.group(1).trim();
-            System.out.println("DEBUG: Found Due Date: " + dueDate);
-            // Print surrounding context for debugging
-            int start = Math.max(0, m.start() - 50);
-            int end = Math.min(text.length(), m.end() + 50);
-            System.out.println("DEBUG: Due Date Context:\n..." + 
-                text.substring(start, end).replaceAll("\\n", "↵") + "...");
+        @Override
+        public void acceptRow(TableLayout.Row row) {
+            String date = row.getText(TableLayout.Column.DATE);
+            String amount = row.getText(TableLayout.Column.AMOUNT);
+            // lines inside the table that are not transactions, such as the card holder's name
+            if (date.isEmpty() || !Character.isDigit(date.charAt(0)) || date.indexOf('/') < 0 || amount.isEmpty()) {
+                return;
+            }
+            if (trace.isEnabled()) {
+                trace.note("transaction", row.toString());
+            }
             try {
-                statement.setDueDate(LocalDate.parse(dueDate, DATE_FORMATTER));
-                System.out.println("DEBUG: Successfully parsed due date: " + statement.getDueDate());
+                CreditCardTransactionDto transaction = new CreditCardTransactionDto();
+                transaction.setDate(decodeDate(date, 0, date.length()));
+                setDescription(transaction, row.getText(TableLayout.Column.DESCRIPTION));
+                setAmount(transaction, amount, 0, amount.length());
+                addTransaction(transaction);
             } catch (Exception e) {
-                System.err.println("DEBUG: Failed to parse due date '" + dueDate + "': " + e.getMessage());
+                trace.note("transaction.rejected", row + ": " + e.getMessage());
             }
-        } else {
-            System.out.println("DEBUG: Payment Due Date not found");
-            // Look for due date near "Amount Due" as an alternative
-            Matcher alternativeMatcher = Pattern.compile("(\\d{2}/\\d{2}/\\d{4})\\s+[\\d,]+\\.\\d{2}\\s+[\\d,]+\\.\\d{2}").matcher(text);
-            if (alternativeMatcher.find()) {
-                String altDueDate = alternativeMatcher.group(1);
-                System.out.println("DEBUG: Found alternative due date format: " + altDueDate);
-                statement.setDueDate(LocalDate.parse(altDueDate, DATE_FORMATTER));
+        }
+
+        private void addTransaction(CreditCardTransactionDto transaction) {
+            transactionCount++;
+            if (transactionSink != null) {
+                transactionSink.accept(transaction);
             } else {
-                System.out.println("DEBUG: No alternative due date format found");
+                statement.addTransaction(transaction);
             }
         }
 
-        // Extract Credit Limit
-        m = CREDIT_LIMIT_PATTERN.matcher(text);
-        if (m.find()) {
-            statement.setCreditLimit(parseMoney(m.group(1)));
+        private boolean isSectionEnd(CharSequence line, int tokens) {
+            return (tokens & KW_SECTION_END) != 0 && TRANSACTION_SECTION_END.matcher(line).find();
         }
 
-        // Extract Card Holder Name
-        m = CARD_HOLDER_PATTERN.matcher(text);
-        if (m.find()) {
-            statement.setCardHolderName(m.group(1).trim());
-        }
+        private void extractMetadata(CharSequence line, int tokens) {
+            Matcher m;
 
-        // Extract Total Dues
-        m = TOTAL_DUES_PATTERN.matcher(text);
-        if (m.find()) {
-            statement.setTotalDues(parseMoney(m.group(1)));
-        }
+            // Extract Statement Date
+            if (statement.getStatementDate() == null && (tokens & KW_STATEMENT) != 0
+                    && (m = STATEMENT_DATE_PATTERN.matcher(line)).find()) {
+                String dateStr = m.group(1).trim();
+                trace.match("field.statementDate", lineNumber, m.start(1), m.end(1), line);
+                statement.setStatementDate(LocalDate.parse(dateStr, DATE_FORMATTER));
+            }
 
-        // Extract Minimum Due
-        m = MIN_DUE_PATTERN.matcher(text);
-        if (m.find()) {
-            statement.setMinimumAmountDue(parseMoney(m.group(1)));
-        }
-    }
+            // Extract Card Number
+            if (statement.getCardNumber() == null && (tokens & KW_CARD) != 0
+                    && (m = CARD_NUMBER_PATTERN.matcher(line)).find()) {
+                String cardNum = m.group(1).replaceAll("\\s+", "");
+                trace.match("field.cardNumber", lineNumber, m.start(1), m.end(1), line);
+                statement.setCardNumber(cardNum);
+            }
 
-    private void extractTransactions(String text, CreditCardStatementDto statement) {
-        System.out.println("DEBUG: Looking for transaction section...");
-        
-        // Find transaction section start
-        Matcher startMatcher = TRANSACTION_SECTION_START.matcher(text);
-        if (!startMatcher.find()) {
-            System.out.println("DEBUG: Transaction section start marker not found");
-            return;
-        }
-        
-        int start = startMatcher.start();
-        
-        // Find end of transaction section
-        Matcher endMatcher = TRANSACTION_SECTION_END.matcher(text.substring(start));
-        int end = endMatcher.find() ? start + endMatcher.start() : text.length();
-        
-        String transactionSection = text.substring(start, end);
-        System.out.println("DEBUG: Found transaction section (" + (end - start) + " chars)");
-        
-        System.out.println("DEBUG: Searching transaction section:\n" + transactionSection);
-
-        // Match transaction lines which have a date followed by description and amount
-        Matcher transMatcher = TRANSACTION_LINE_PATTERN.matcher(transactionSection);
-        
-        while (transMatcher.find()) {
-            System.out.println("DEBUG: Found transaction match: " + transMatcher.group());
-            try {
-                CreditCardTransactionDto transaction = new CreditCardTransactionDto();
-                
-                // Parse date
-                String origDateStr = transMatcher.group(1);
-                String dateStr = origDateStr;
-                System.out.println("DEBUG: Raw date string: " + origDateStr);
-                
-                // Handle different date formats
-                String[] parts = dateStr.split("/");
-                
-                if (parts.length == 2) {
-                    if (parts[1].length() == 4) {
-                        // M/yyyy format like 6/2025
-                        dateStr = "01/" + parts[0] + "/" + parts[1];
-                        System.out.println("DEBUG: Expanded M/yyyy to: " + dateStr);
-                    } else {
-                        // dd/mm format like 18/06
-                        if (statement.getStatementDate() != null) {
-                            dateStr = parts[0] + "/" + parts[1] + "/" + statement.getStatementDate().getYear();
-                            System.out.println("DEBUG: Added year from statement date: " + dateStr);
-                        } else {
-                            System.out.println("DEBUG: Statement date missing, using default year 2023");
-                            dateStr = parts[0] + "/" + parts[1] + "/2023"; // Use hardcoded year for test case
-                        }
+            // Extract Due Date: the first full date in the text, labelled or not
+            if ((tokens & LineLexer.FULL_DATE) != 0) {
+                if (statement.getDueDate() == null) {
+                    int at = LineLexer.indexOfDate(line, 4);
+                    String dueDate = line.subSequence(at, at + 10).toString();
+                    trace.match("field.dueDate", lineNumber, at, at + 10, line);
+                    try {
+                        statement.setDueDate(LocalDate.parse(dueDate, DATE_FORMATTER));
+                    } catch (Exception e) {
+                        trace.note("field.dueDate.rejected", dueDate + ": " + e.getMessage());
                     }
-                } else if (parts.length == 3) {
-                    // Already in dd/mm/yyyy format
-                    System.out.println("DEBUG: Using complete date: " + dateStr);
-                } else {
-                    throw new IllegalArgumentException("Invalid date format: " + dateStr);
                 }
-                
-                // Debug date parsing
-                System.out.println("DEBUG: Parsing date '" + dateStr + "'");
-                transaction.setDate(LocalDate.parse(dateStr, DATE_FORMATTER));
-                
-                // Parse description
-                String desc = transMatcher.group(2).trim();
-                transaction.setDescription(desc);
-                
-                // Parse amount and type
-                String amountStr = transMatcher.group(3).trim();
-                boolean isCredit = amountStr.toLowerCase().endsWith("cr") || 
-                                 amountStr.toLowerCase().endsWith("c");
-                if (isCredit) {
-                    amountStr = amountStr.replaceAll("(?i)[cr]+\\s*$", "").trim();
+                if (alternativeDueDate == null && (m = FULL_DATE_AMOUNTS_PATTERN.matcher(line)).find()) {
+                    alternativeDueDate = m.group(1);
                 }
-                transaction.setAmount(parseMoney(amountStr));
-                transaction.setType(isCredit ? TransactionType.CREDIT : TransactionType.DEBIT);
-
-                // Extract Reference Number if present
-                if (desc.contains("Ref#")) {
-                    int refStart = desc.indexOf("Ref#") + 4;
-                    int refEnd = desc.indexOf(")", refStart);
-                    if (refEnd != -1) {
-                        transaction.setReferenceNumber(desc.substring(refStart, refEnd).trim());
-                    }
+            }
+
+            // Extract Credit Limit
+            if (statement.getCreditLimit() == null && (tokens & KW_LIMIT) != 0
+                    && (m = CREDIT_LIMIT_PATTERN.matcher(line)).find()) {
+                trace.match("field.creditLimit", lineNumber, m.start(1), m.end(1), line);
+                statement.setCreditLimit(FieldDecoder.decodeAmount(line, m.start(1), m.end(1)));
+            }
+
+            // Extract Card Holder Name
+            if (statement.getCardHolderName() == null && (tokens & KW_NAME) != 0
+                    && (m = CARD_HOLDER_PATTERN.matcher(line)).find()) {
+                trace.match("field.cardHolderName", lineNumber, m.start(1), m.end(1), line);
+                statement.setCardHolderName(m.group(1).trim());
+            }
+
+            // Extract Total Dues
+            if (statement.getTotalDues() == null && (tokens & KW_TOTAL) != 0
+                    && (m = TOTAL_DUES_PATTERN.matcher(line)).find()) {
+                trace.match("field.totalDues", lineNumber, m.start(1), m.end(1), line);
+                statement.setTotalDues(FieldDecoder.decodeAmount(line, m.start(1), m.end(1)));
+            }
+
+            // Extract Minimum Due
+            if (statement.getMinimumAmountDue() == null && (tokens & KW_MIN) != 0
+                    && (m = MIN_DUE_PATTERN.matcher(line)).find()) {
+                trace.match("field.minimumAmountDue", lineNumber, m.start(1), m.end(1), line);
+                statement.setMinimumAmountDue(FieldDecoder.decodeAmount(line, m.start(1), m.end(1)));
+            }
+        }
+
+        // dd/MM/yy[yy], dd/MM (statement year) or MM/yyyy (first of month)
+        private LocalDate decodeDate(CharSequence s, int dateStart, int dateEnd) {
+            int firstSlash = dateStart + 1;
+            while (s.charAt(firstSlash) != '/') {
+                firstSlash++;
+            }
+            boolean hasYear = false;
+            for (int i = firstSlash + 1; i < dateEnd; i++) {
+                hasYear |= s.charAt(i) == '/';
+            }
+
+            if (!hasYear && dateEnd - firstSlash - 1 == 4) {
+                return FieldDecoder.decodeMonthYear(s, dateStart, dateEnd);
+            }
+            int year;
+            if (statement.getStatementDate() != null) {
+                year = statement.getStatementDate().getYear();
+            } else {
+                if (!hasYear) {
+                    trace.note("transaction.defaultYear", "statement date missing, using 2023");
                 }
-                
-                statement.addTransaction(transaction);
-                
-                System.out.println("DEBUG: Found transaction: " + transaction.getDate() + 
-                    " | " + transaction.getDescription() + " | " + transaction.getAmount() +
-                    " | " + transaction.getType());
-                    
-            } catch (Exception e) {
-                System.err.println("Warning: Failed to parse transaction: " + e.getMessage());
+                year = 2023; // Use hardcoded year for test case
             }
+            return FieldDecoder.decodeDate(s, dateStart, dateEnd, year);
+        }
+
+        // the description, and the reference number it may carry as "(Ref# ...)"
+        private void setDescription(CreditCardTransactionDto transaction, String desc) {
+            transaction.setDescription(desc);
+            if (desc.contains("Ref#")) {
+                int refStart = desc.indexOf("Ref#") + 4;
+                int refEnd = desc.indexOf(")", refStart);
+                if (refEnd != -1) {
+                    transaction.setReferenceNumber(desc.substring(refStart, refEnd).trim());
+                }
+            }
+        }
+
+        // amount and type; a trailing "Cr" or "C" marks a credit
+        private void setAmount(CreditCardTransactionDto transaction, CharSequence s, int amountStart, int amountEnd) {
+            boolean isCredit = FieldDecoder.isCredit(s, amountStart, amountEnd);
+            if (isCredit) {
+                amountEnd = FieldDecoder.amountEnd(s, amountStart, amountEnd);
+            }
+            transaction.setAmount(FieldDecoder.decodeAmount(s, amountStart, amountEnd));
+            transaction.setType(isCredit ? TransactionType.CREDIT : TransactionType.DEBIT);
+        }
+
+        @Override
+        public ParseResult finish() {
+            if (statement.getDueDate() == null && alternativeDueDate != null) {
+                trace.note("field.dueDate.fallback", alternativeDueDate);
+                statement.setDueDate(LocalDate.parse(alternativeDueDate, DATE_FORMATTER));
+            }
+
+            if (!validateStatement(statement, transactionCount, trace)) {
+                return ParseResult.failure("Statement validation failed");
+            }
+            return ParseResult.success(statement);
         }
     }
 
-    private boolean validateStatement(CreditCardStatementDto statement) {
-        System.out.println("\nDetailed Validation Results:");
-        System.out.println("--------------------------------");
-        
+    private boolean validateStatement(CreditCardStatementDto statement, int transactionCount, ParseTrace trace) {
         boolean hasStatementDate = statement.getStatementDate() != null;
         boolean hasDueDate = statement.getDueDate() != null;
         boolean hasCardNumber = statement.getCardNumber() != null;
-        boolean hasTransactions = statement.getTransactions() != null && !statement.getTransactions().isEmpty();
-        
-        System.out.println("1. Statement Date: " + statement.getStatementDate() + 
-                         " [" + (hasStatementDate ? "✓" : "✗") + "]");
-        System.out.println("2. Due Date: " + statement.getDueDate() + 
-                         " [" + (hasDueDate ? "✓" : "✗") + "]");
-        System.out.println("3. Card Number: " + statement.getCardNumber() + 
-                         " [" + (hasCardNumber ? "✓" : "✗") + "]");
-        System.out.println("4. Transactions: " + 
-            (statement.getTransactions() == null ? "null" : statement.getTransactions().size()) +
-            " [" + (hasTransactions ? "✓" : "✗") + "]");
-        
-        if (hasTransactions) {
-            System.out.println("\nFirst few transactions:");
-            statement.getTransactions().stream().limit(3).forEach(tx -> 
-                System.out.println("- " + tx.getDate() + " | " + tx.getDescription() + 
-                                 " | " + tx.getAmount() + " | " + tx.getType()));
-        }
-        
+        boolean hasTransactions = transactionCount > 0;
+
         // Consider validation successful if we have at least transactions
         // Skip metadata validation for now as it's not consistently present
         boolean isValid = hasTransactions;
-        
-        System.out.println("\nOverall validation: " + (isValid ? "PASSED ✓" : "FAILED ✗"));
-        if (!isValid) {
-            System.out.println("Failed validations:");
-            if (!hasTransactions) System.out.println("- No transactions found");
-        } else {
-            // Print missing fields as warnings but don't fail validation
-            System.out.println("\nWarnings (not failing validation):");
-            if (!hasStatementDate) System.out.println("- Missing statement date");
-            if (!hasDueDate) System.out.println("- Missing due date");
-            if (!hasCardNumber) System.out.println("- Missing card number");
+
+        if (trace.isEnabled()) {
+            trace.note("validate", (isValid ? "passed" : "failed")
+                    + ": transactions=" + transactionCount
+                    + ", statementDate=" + hasStatementDate
+                    + ", dueDate=" + hasDueDate
+                    + ", cardNumber=" + hasCardNumber);
         }
-        
         return isValid;
     }
-
-    private BigDecimal parseMoney(String amount) {
-        return new BigDecimal(amount.replaceAll("[,\\s]", ""));
-    }
 }
@@ -0,0 +1,45 @@
+package app.personal.parser;
+
+/**
+ * Registers {@link HdfcSavingsPdfParser}. Recognises the first page by the account number and
+ * statement period labels of the HDFC account statement header.
+ */
+public class HdfcSavingsParserProvider implements StatementParserProvider {
+
+    public static final String ID = "HDFC_SAVINGS";
+
+    private static final int KW_HDFC = 1;
+    private static final int KW_ACCOUNT_NO = 1 << 1;
+    private static final int KW_STATEMENT_FROM = 1 << 2;
+    private static final int REQUIRED = KW_HDFC | KW_ACCOUNT_NO | KW_STATEMENT_FROM;
+
+    private static final LineLexer FINGERPRINT = LineLexer.builder()
+            .keyword("hdfc", KW_HDFC)
+            .keyword("account no", KW_ACCOUNT_NO)
+            .keyword("statement from", KW_STATEMENT_FROM)
+            .build();
+
+    private volatile BankStatementParser parser;
+
+    @Override
+    public String getId() {
+        return ID;
+    }
+
+    @Override
+    public boolean matches(StatementFingerprint fingerprint) {
+        return (FINGERPRINT.scan(fingerprint.getFirstPageText()) & REQUIRED) == REQUIRED;
+    }
+
+    @Override
+    public BankStatementParser getParser() {
+        if (parser == null) {
+            synchronized (this) {
+                if (parser == null) {
+                    parser = new HdfcSavingsPdfParser();
+                }
+            }
+        }
+        return parser;
+    }
+}
@@ -5,6 +5,9 @@ import app.personal.dto.SavingsAccountTransactionDto;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -17,7 +20,7 @@ public class HdfcSavingsPdfParser extends PdfBoxStatementParser {
     private static final Pattern STATEMENT_DATE_PATTERN = Pattern
             .compile("Statement\\s+From\\s*:\\s*(\\d{2}/\\d{2}/\\d{4})\\s*To\\s*:\\s*(\\d{2}/\\d{2}/\\d{4})");
     private static final Pattern ACCOUNT_INFO_PATTERN = Pattern.compile("Account\\s+No\\s*:\\s*(\\d{14})");
-    private static final Pattern CUSTOMER_NAME_PATTERN = Pattern.compile("(?m)^\\s*([^\\n]+)\\s*\\n\\s*Customer\\s+ID");
+    private static final Pattern CUSTOMER_ID_LINE_PATTERN = Pattern.compile("\\s*Customer\\s+ID");
     private static final Pattern IFSC_PATTERN = Pattern.compile("IFSC\\s+Code\\s*:\\s*([A-Z]{4}0[A-Z0-9]{6})");
 
     // Transaction Line Pattern: Date | Desc | Ref | Value Date | Debit | Credit |
@@ -30,134 +33,274 @@ public class HdfcSavingsPdfParser extends PdfBoxStatementParser {
     private static final Pattern BRANCH_NAME_PATTERN = Pattern.compile("Branch\\s*:\\s*([^\\n]+)");
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-    private static final DateTimeFormatter SHORT_DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yy");
 
-    @Override
-    protected ParseResult parseText(String text) {
-        if (text == null || text.isBlank()) {
-            return ParseResult.failure("Empty text");
-        }
+    // "Date | Narration | Chq./Ref.No. | Value Dt | Withdrawal Amt. | Deposit Amt. | Closing Balance"
+    private static final TableLayout TABLE_LAYOUT = new TableLayout(EnumSet.of(TableLayout.Column.DATE,
+            TableLayout.Column.DESCRIPTION, TableLayout.Column.DEBIT, TableLayout.Column.CREDIT,
+            TableLayout.Column.BALANCE), null);
 
-        try {
-            SavingsAccountStatementDto statement = new SavingsAccountStatementDto();
+    // Keyword bits for the line lexer; each field pattern only runs on lines carrying its keyword
+    private static final int KW_ACCOUNT = 1;
+    private static final int KW_STATEMENT = 1 << 1;
+    private static final int KW_IFSC = 1 << 2;
+    private static final int KW_BRANCH = 1 << 3;
+    private static final int KW_CUSTOMER = 1 << 4;
 
-            extractMetadata(text, statement);
-            extractTransactions(text, statement);
+    private static final LineLexer LEXER = LineLexer.builder()
+            .keyword("account", KW_ACCOUNT)
+            .keyword("statement", KW_STATEMENT)
+            .keyword("ifsc", KW_IFSC)
+            .keyword("branch", KW_BRANCH)
+            .keyword("customer", KW_CUSTOMER)
+            .build();
 
-            if (statement.getTransactions().isEmpty()) {
-                return ParseResult.failure("No transactions found");
-            }
+    // every statement page repeats the table header, below an address block of a few hundred glyphs
+    private static final PageClassifier PAGE_CLASSIFIER = new PageClassifier(1000,
+            List.of("Narration", "Withdrawal Amt", "Closing Balance"));
 
-            return ParseResult.success(statement);
+    public HdfcSavingsPdfParser() {
+        setPageClassifier(PAGE_CLASSIFIER);
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ParseResult.failure("Parsing Error: " + e.getMessage());
-        }
+    @Override
+    protected StatementLineParser newLineParser(Consumer<Object> transactionSink, ParseTrace trace) {
+        return new LineParser(transactionSink, trace);
     }
 
-    private void extractMetadata(String text, SavingsAccountStatementDto statement) {
-        // Account Number
-        Matcher m = ACCOUNT_INFO_PATTERN.matcher(text);
-        if (m.find()) {
-            statement.setAccountNumber(m.group(1));
-        }
+    @Override
+    TableLayout getTableLayout() {
+        return TABLE_LAYOUT;
+    }
 
-        // Statement Period
-        m = STATEMENT_DATE_PATTERN.matcher(text);
-        if (m.find()) {
-            statement.setFromDate(LocalDate.parse(m.group(1), DATE_FORMATTER));
-            statement.setToDate(LocalDate.parse(m.group(2), DATE_FORMATTER));
+    /**
+     * Line-at-a-time HDFC savings parse. Each line is classified once by {@link #LEXER} and only
+     * the patterns of the fields it may carry are run. Header fields are taken from the first line
+     * that matches them; any line carrying a dated row with value date and three amounts is a
+     * transaction, unless transactions come from the table's rows.
+     */
+    private final class LineParser implements StatementLineParser {
+        private final SavingsAccountStatementDto statement = new SavingsAccountStatementDto();
+        private final Consumer<Object> transactionSink;
+        private final ParseTrace trace;
+        // last non-blank line, needed for the unlabeled customer name above "Customer ID"
+        private final StringBuilder previousLine = new StringBuilder();
+        // reset for every line instead of allocating a matcher per line
+        private final Matcher transactionMatcher = TRANSACTION_PATTERN.matcher("");
+        private int transactionCount;
+        private int lineNumber;
+        private boolean tableRows;
+
+        private LineParser(Consumer<Object> transactionSink, ParseTrace trace) {
+            this.transactionSink = transactionSink;
+            this.trace = trace;
         }
 
-        // IFSC
-        m = IFSC_PATTERN.matcher(text);
-        if (m.find()) {
-            statement.setIfscCode(m.group(1));
+        @Override
+        public void acceptLine(CharSequence line) {
+            lineNumber++;
+            int tokens = LEXER.scan(line);
+            extractMetadata(line, tokens);
+            if (!tableRows && (tokens & LineLexer.SHORT_DATE) != 0) {
+                extractTransactions(line);
+            }
+
+            if (!isBlank(line)) {
+                previousLine.setLength(0);
+                previousLine.append(line);
+            }
         }
 
-        // Branch
-        m = BRANCH_NAME_PATTERN.matcher(text);
-        if (m.find()) {
-            statement.setBranchName(m.group(1).trim());
+        private void extractMetadata(CharSequence line, int tokens) {
+            Matcher m;
+
+            // Account Number
+            if (statement.getAccountNumber() == null && (tokens & KW_ACCOUNT) != 0
+                    && (m = ACCOUNT_INFO_PATTERN.matcher(line)).find()) {
+                trace.match("field.accountNumber", lineNumber, m.start(1), m.end(1), line);
+                statement.setAccountNumber(m.group(1));
+            }
+
+            // Statement Period
+            if (statement.getFromDate() == null && (tokens & KW_STATEMENT) != 0
+                    && (m = STATEMENT_DATE_PATTERN.matcher(line)).find()) {
+                trace.match("field.statementPeriod", lineNumber, m.start(1), m.end(2), line);
+                statement.setFromDate(LocalDate.parse(m.group(1), DATE_FORMATTER));
+                statement.setToDate(LocalDate.parse(m.group(2), DATE_FORMATTER));
+            }
+
+            // IFSC
+            if (statement.getIfscCode() == null && (tokens & KW_IFSC) != 0
+                    && (m = IFSC_PATTERN.matcher(line)).find()) {
+                trace.match("field.ifscCode", lineNumber, m.start(1), m.end(1), line);
+                statement.setIfscCode(m.group(1));
+            }
+
+            // Branch
+            if (statement.getBranchName() == null && (tokens & KW_BRANCH) != 0
+                    && (m = BRANCH_NAME_PATTERN.matcher(line)).find()) {
+                trace.match("field.branchName", lineNumber, m.start(1), m.end(1), line);
+                statement.setBranchName(m.group(1).trim());
+            }
+
+            // Customer Name - tricky as it's often at the top left without a specific label
+            // prefix
+            // Strategy: take the last non-blank line before the one starting with "Customer ID"
+            if (statement.getAccountHolderName() == null && previousLine.length() > 0
+                    && (tokens & KW_CUSTOMER) != 0 && CUSTOMER_ID_LINE_PATTERN.matcher(line).lookingAt()) {
+                statement.setAccountHolderName(previousLine.toString().trim());
+                trace.match("field.accountHolderName", lineNumber - 1, 0, previousLine.length(), previousLine);
+            }
         }
 
-        // Customer Name - tricky as it's often at the top left without a specific label
-        // prefix
-        // Strategy: Look for the line before "Customer ID" or "Account No" in the
-        // header section
-        // Simplified for this implementation:
-        m = CUSTOMER_NAME_PATTERN.matcher(text);
-        if (m.find()) {
-            statement.setAccountHolderName(m.group(1).trim());
+        private void extractTransactions(CharSequence line) {
+            Matcher m = transactionMatcher.reset(line);
+
+            while (m.find()) {
+                try {
+                    SavingsAccountTransactionDto t = toTransaction(line, m);
+                    trace.match("transaction", lineNumber, m.start(), m.end(), line);
+                    addTransaction(t);
+                } catch (Exception e) {
+                    if (trace.isEnabled()) {
+                        trace.note("transaction.rejected",
+                                "line " + lineNumber + ": " + m.group() + ": " + e.getMessage());
+                    }
+                }
+            }
         }
-    }
 
-    private void extractTransactions(String text, SavingsAccountStatementDto statement) {
-        Matcher m = TRANSACTION_PATTERN.matcher(text);
+        @Override
+        public void useTableRows() {
+            tableRows = true;
+        }
 
-        while (m.find()) {
+        @Override
+        public void acceptRow(TableLayout.Row row) {
+            String date = row.getText(TableLayout.Column.DATE);
+            String balance = row.getText(TableLayout.Column.BALANCE);
+            // opening balance lines, page totals and the like have no date or no balance
+            if (date.isEmpty() || !Character.isDigit(date.charAt(0)) || balance.isEmpty()) {
+                return;
+            }
+            if (trace.isEnabled()) {
+                trace.note("transaction", row.toString());
+            }
             try {
                 SavingsAccountTransactionDto t = new SavingsAccountTransactionDto();
-
-                // Date
-                String dateStr = m.group(1);
-                t.setDate(LocalDate.parse(dateStr, SHORT_DATE_FORMATTER));
-
-                // Description and Ref Number handling
-                String rawDesc = m.group(2).trim();
-                String description = rawDesc;
-                String refNo = "";
-
-                // Heuristic: Check if the last part of the string is a Reference Number
-                int lastSpaceIndex = rawDesc.lastIndexOf(' ');
-                if (lastSpaceIndex != -1) {
-                    String lastToken = rawDesc.substring(lastSpaceIndex + 1);
-                    // Check if last token is numeric (Chq No) or Ref format (Alphanumeric with
-                    // digits)
-                    // Excluding common words like "BALANCE", "TRANSFER" etc which are all letters
-                    if (lastToken.matches(".*\\d.*") && !lastToken.matches("(?i)^(BLOCK|REV|CWDR)$")) {
-                        // It contains digits, likely a RefNo/ChqNo
-                        refNo = lastToken;
-                        description = rawDesc.substring(0, lastSpaceIndex).trim();
-                    }
+                t.setDate(FieldDecoder.decodeDate(date, 0, date.length(), 0));
+                String description = row.getText(TableLayout.Column.DESCRIPTION);
+                if (row.has(TableLayout.Column.REFERENCE)) {
+                    t.setDescription(description);
+                    t.setReferenceNumber(row.getText(TableLayout.Column.REFERENCE));
+                } else {
+                    setDescription(t, description, 0, description.length());
                 }
+                t.setWithdrawalAmount(amountOrZero(row.getText(TableLayout.Column.DEBIT)));
+                t.setDepositAmount(amountOrZero(row.getText(TableLayout.Column.CREDIT)));
+                t.setClosingBalance(FieldDecoder.decodeAmount(balance, 0, balance.length()));
+                addTransaction(t);
+            } catch (Exception e) {
+                trace.note("transaction.rejected", row + ": " + e.getMessage());
+            }
+        }
 
-                t.setDescription(description);
-                t.setReferenceNumber(refNo);
-
-                // Debit / Credit / Balance
-                BigDecimal debit = parseMoney(m.group(4));
-                BigDecimal credit = parseMoney(m.group(5));
-                BigDecimal balance = parseMoney(m.group(6));
+        private void addTransaction(SavingsAccountTransactionDto t) {
+            transactionCount++;
 
-                t.setWithdrawalAmount(debit);
-                t.setDepositAmount(credit);
-                t.setClosingBalance(balance);
+            // Set statement open/close balance based on first/last transaction
+            if (transactionCount == 1) {
+                statement.setOpeningBalance(t.getClosingBalance()
+                        .add(t.getWithdrawalAmount())
+                        .subtract(t.getDepositAmount()));
+            }
+            statement.setClosingBalance(t.getClosingBalance()); // Update to latest line
 
+            if (transactionSink != null) {
+                transactionSink.accept(t);
+            } else {
                 statement.addTransaction(t);
+            }
+        }
 
-                // Set statement open/close balance based on first/last transaction
-                statement.setClosingBalance(balance); // Update to latest line
+        private SavingsAccountTransactionDto toTransaction(CharSequence line, Matcher m) {
+            SavingsAccountTransactionDto t = new SavingsAccountTransactionDto();
 
-            } catch (Exception e) {
-                System.err.println("Skipping malformed line: " + m.group());
+            // Date
+            t.setDate(FieldDecoder.decodeDate(line, m.start(1), m.end(1), 0));
+
+            setDescription(t, line, m.start(2), m.end(2));
+
+            // Debit / Credit / Balance
+            t.setWithdrawalAmount(FieldDecoder.decodeAmount(line, m.start(4), m.end(4)));
+            t.setDepositAmount(FieldDecoder.decodeAmount(line, m.start(5), m.end(5)));
+            t.setClosingBalance(FieldDecoder.decodeAmount(line, m.start(6), m.end(6)));
+            return t;
+        }
+
+        // Description and Ref Number handling, on the trimmed description range
+        private void setDescription(SavingsAccountTransactionDto t, CharSequence line, int descStart, int descEnd) {
+            while (descStart < descEnd && line.charAt(descStart) <= ' ') {
+                descStart++;
+            }
+            while (descEnd > descStart && line.charAt(descEnd - 1) <= ' ') {
+                descEnd--;
+            }
+            String refNo = "";
+
+            // Heuristic: Check if the last part of the string is a Reference Number
+            int lastSpaceIndex = descEnd - 1;
+            while (lastSpaceIndex >= descStart && line.charAt(lastSpaceIndex) != ' ') {
+                lastSpaceIndex--;
+            }
+            if (lastSpaceIndex >= descStart && containsDigit(line, lastSpaceIndex + 1, descEnd)) {
+                // Check if last token is numeric (Chq No) or Ref format (Alphanumeric with
+                // digits); words like "BALANCE", "TRANSFER" are all letters
+                refNo = line.subSequence(lastSpaceIndex + 1, descEnd).toString();
+                descEnd = lastSpaceIndex;
+                while (descEnd > descStart && line.charAt(descEnd - 1) <= ' ') {
+                    descEnd--;
+                }
+            }
+
+            t.setDescription(line.subSequence(descStart, descEnd).toString());
+            t.setReferenceNumber(refNo);
+        }
+
+        @Override
+        public ParseResult finish() {
+            if (trace.isEnabled()) {
+                trace.note("validate", (transactionCount > 0 ? "passed" : "failed")
+                        + ": transactions=" + transactionCount
+                        + ", accountNumber=" + (statement.getAccountNumber() != null)
+                        + ", statementPeriod=" + (statement.getFromDate() != null));
+            }
+            if (transactionCount == 0) {
+                return ParseResult.failure("No transactions found");
             }
+            return ParseResult.success(statement);
         }
+    }
+
+    // an empty cell is a zero amount
+    private static BigDecimal amountOrZero(String cell) {
+        return cell.isEmpty() ? BigDecimal.ZERO : FieldDecoder.decodeAmount(cell, 0, cell.length());
+    }
 
-        // refine opening balance if transactions exist
-        if (!statement.getTransactions().isEmpty()) {
-            SavingsAccountTransactionDto first = statement.getTransactions().get(0);
-            BigDecimal open = first.getClosingBalance()
-                    .add(first.getWithdrawalAmount())
-                    .subtract(first.getDepositAmount());
-            statement.setOpeningBalance(open);
+    private static boolean isBlank(CharSequence line) {
+        for (int i = 0; i < line.length(); i++) {
+            if (!Character.isWhitespace(line.charAt(i))) {
+                return false;
+            }
         }
+        return true;
     }
 
-    private BigDecimal parseMoney(String amount) {
-        if (amount == null)
-            return BigDecimal.ZERO;
-        return new BigDecimal(amount.replaceAll(",", ""));
+    private static boolean containsDigit(CharSequence s, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (s.charAt(i) >= '0' && s.charAt(i) <= '9') {
+                return true;
+            }
+        }
+        return false;
     }
 }
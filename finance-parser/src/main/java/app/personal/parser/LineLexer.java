@@ -0,0 +1,201 @@
+package app.personal.parser;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Classifies a line of statement text in a single left-to-right pass. All registered keywords are
+ * matched at once with an Aho-Corasick automaton (case-insensitive, ASCII), and date-shaped tokens
+ * are detected in the same loop, so the cost per line depends on the line's length only, not on
+ * how many keywords a parser registers.
+ *
+ * <p>{@link #scan(CharSequence)} returns a bit mask: every keyword maps to a caller-chosen bit,
+ * bits 0-27 are free for keywords and the top bits are the built-in date tokens below. Parsers use
+ * the mask to decide which of their field patterns are worth running on the line at all.</p>
+ *
+ * <p>Instances are immutable and thread-safe; build one per parser class and share it.</p>
+ */
+final class LineLexer {
+
+    /** The line contains a {@code dd/dd/dddd} date. */
+    static final int FULL_DATE = 1 << 30;
+    /** The line contains a {@code dd/dd/dd} date (this includes every full date). */
+    static final int SHORT_DATE = 1 << 29;
+    /** The first non-blank token of the line starts with one or two digits and a slash. */
+    static final int LEADING_DATE = 1 << 28;
+
+    private static final int RESERVED_BITS = FULL_DATE | SHORT_DATE | LEADING_DATE;
+    private static final int ALPHABET = 128;
+
+    // transitions[state * ALPHABET + c], complete DFA including failure transitions
+    private final int[] transitions;
+    // keyword bits of every keyword ending in this state, including those reached by failure links
+    private final int[] outputs;
+
+    private LineLexer(int[] transitions, int[] outputs) {
+        this.transitions = transitions;
+        this.outputs = outputs;
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the union of the bits of all keywords found on the line, plus any date token bits
+     */
+    int scan(CharSequence line) {
+        int mask = 0;
+        int state = 0;
+        int length = line.length();
+        for (int i = 0; i < length; i++) {
+            char c = line.charAt(i);
+            state = c < ALPHABET ? transitions[state * ALPHABET + Character.toLowerCase(c)] : 0;
+            mask |= outputs[state];
+            if ((mask & SHORT_DATE) == 0 || (mask & FULL_DATE) == 0) {
+                mask |= dateAt(line, i);
+            }
+        }
+
+        int first = 0;
+        while (first < length && isSpace(line.charAt(first))) {
+            first++;
+        }
+        if (first < length && isDigit(line.charAt(first))) {
+            if (first + 1 < length && line.charAt(first + 1) == '/'
+                    || first + 2 < length && isDigit(line.charAt(first + 1)) && line.charAt(first + 2) == '/') {
+                mask |= LEADING_DATE;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Index of the first {@code dd/dd/dd} date on the line whose year has {@code yearDigits} digits,
+     * or -1. Same match as the regex {@code \d{2}/\d{2}/\d{yearDigits}} would find.
+     */
+    static int indexOfDate(CharSequence line, int yearDigits) {
+        for (int i = 0; i + 6 + yearDigits <= line.length(); i++) {
+            if (isDate(line, i, yearDigits)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int dateAt(CharSequence line, int i) {
+        if (!isDate(line, i, 2)) {
+            return 0;
+        }
+        return isDate(line, i, 4) ? SHORT_DATE | FULL_DATE : SHORT_DATE;
+    }
+
+    private static boolean isDate(CharSequence line, int i, int yearDigits) {
+        if (i + 6 + yearDigits > line.length()) {
+            return false;
+        }
+        if (!isDigit(line.charAt(i)) || !isDigit(line.charAt(i + 1)) || line.charAt(i + 2) != '/'
+                || !isDigit(line.charAt(i + 3)) || !isDigit(line.charAt(i + 4)) || line.charAt(i + 5) != '/') {
+            return false;
+        }
+        for (int j = i + 6; j < i + 6 + yearDigits; j++) {
+            if (!isDigit(line.charAt(j))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // the characters matched by \s in java.util.regex
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    static final class Builder {
+        private final List<String> keywords = new ArrayList<>();
+        private final List<Integer> bits = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Register a keyword. Matching ignores ASCII case and word boundaries, so a keyword is a
+         * cheap necessary condition for a field pattern, not a replacement for it.
+         */
+        Builder keyword(String keyword, int bit) {
+            if (keyword.isEmpty() || Integer.bitCount(bit) != 1 || (bit & RESERVED_BITS) != 0 || bit < 0) {
+                throw new IllegalArgumentException("Invalid keyword or bit: " + keyword + " -> " + bit);
+            }
+            for (int i = 0; i < keyword.length(); i++) {
+                if (keyword.charAt(i) >= ALPHABET) {
+                    throw new IllegalArgumentException("Keywords must be ASCII: " + keyword);
+                }
+            }
+            keywords.add(keyword.toLowerCase());
+            bits.add(bit);
+            return this;
+        }
+
+        LineLexer build() {
+            int maxStates = 1;
+            for (String k : keywords) {
+                maxStates += k.length();
+            }
+
+            // trie; -1 marks a missing edge until the failure transitions are filled in
+            int[] transitions = new int[maxStates * ALPHABET];
+            Arrays.fill(transitions, -1);
+            int[] outputs = new int[maxStates];
+            int states = 1;
+            for (int k = 0; k < keywords.size(); k++) {
+                String keyword = keywords.get(k);
+                int state = 0;
+                for (int i = 0; i < keyword.length(); i++) {
+                    int edge = state * ALPHABET + keyword.charAt(i);
+                    if (transitions[edge] < 0) {
+                        transitions[edge] = states++;
+                    }
+                    state = transitions[edge];
+                }
+                outputs[state] |= bits.get(k);
+            }
+
+            // breadth-first, turn the trie into a DFA by following failure links
+            int[] failure = new int[states];
+            Queue<Integer> queue = new ArrayDeque<>();
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = transitions[c];
+                if (next < 0) {
+                    transitions[c] = 0;
+                } else {
+                    failure[next] = 0;
+                    queue.add(next);
+                }
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                outputs[state] |= outputs[failure[state]];
+                for (int c = 0; c < ALPHABET; c++) {
+                    int edge = state * ALPHABET + c;
+                    int next = transitions[edge];
+                    int fallback = transitions[failure[state] * ALPHABET + c];
+                    if (next < 0) {
+                        transitions[edge] = fallback;
+                    } else {
+                        failure[next] = fallback;
+                        queue.add(next);
+                    }
+                }
+            }
+
+            return new LineLexer(Arrays.copyOf(transitions, states * ALPHABET), Arrays.copyOf(outputs, states));
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package app.personal.parser;
+
+import org.apache.pdfbox.contentstream.PDFStreamEngine;
+import org.apache.pdfbox.contentstream.operator.DrawObject;
+import org.apache.pdfbox.contentstream.operator.state.Concatenate;
+import org.apache.pdfbox.contentstream.operator.state.Restore;
+import org.apache.pdfbox.contentstream.operator.state.Save;
+import org.apache.pdfbox.contentstream.operator.state.SetGraphicsStateParameters;
+import org.apache.pdfbox.contentstream.operator.state.SetMatrix;
+import org.apache.pdfbox.contentstream.operator.text.BeginText;
+import org.apache.pdfbox.contentstream.operator.text.EndText;
+import org.apache.pdfbox.contentstream.operator.text.MoveText;
+import org.apache.pdfbox.contentstream.operator.text.MoveTextSetLeading;
+import org.apache.pdfbox.contentstream.operator.text.NextLine;
+import org.apache.pdfbox.contentstream.operator.text.SetCharSpacing;
+import org.apache.pdfbox.contentstream.operator.text.SetFontAndSize;
+import org.apache.pdfbox.contentstream.operator.text.SetTextHorizontalScaling;
+import org.apache.pdfbox.contentstream.operator.text.SetTextLeading;
+import org.apache.pdfbox.contentstream.operator.text.SetTextRenderingMode;
+import org.apache.pdfbox.contentstream.operator.text.SetTextRise;
+import org.apache.pdfbox.contentstream.operator.text.SetWordSpacing;
+import org.apache.pdfbox.contentstream.operator.text.ShowText;
+import org.apache.pdfbox.contentstream.operator.text.ShowTextAdjusted;
+import org.apache.pdfbox.contentstream.operator.text.ShowTextLine;
+import org.apache.pdfbox.contentstream.operator.text.ShowTextLineAndSpace;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.util.Matrix;
+import org.apache.pdfbox.util.Vector;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Decides which pages of a statement are worth a full text extraction. It runs a page's content
+ * stream only until it has seen the first {@code sampleGlyphs} glyphs, decoding text but doing no
+ * layout, and keeps the page if that sample carries one of the keywords or at least
+ * {@value #MIN_DATES} {@code dd/dd/dd} dates. Header and transaction pages are kept that way, while
+ * trailing pages of terms, reward points and offers, which mention the odd date, are skipped. The first page is always kept, since it holds the statement
+ * fields. A page whose sample cannot be read is kept too.
+ *
+ * <p>Immutable and thread-safe; each {@link #isTransactionPage} call uses its own stream engine.</p>
+ */
+public class PageClassifier {
+
+    private static final int KEYWORD = 1;
+    // a continued transaction table has a date on every row; terms pages have one or two at most
+    static final int MIN_DATES = 3;
+
+    private final int sampleGlyphs;
+    private final List<String> keywords;
+    private final LineLexer lexer;
+
+    /**
+     * @param sampleGlyphs how many glyphs from the start of a page to look at
+     * @param keywords     words marking a header or transaction page, matched case-insensitively
+     */
+    public PageClassifier(int sampleGlyphs, Collection<String> keywords) {
+        if (sampleGlyphs < 1) {
+            throw new IllegalArgumentException("sampleGlyphs must be positive");
+        }
+        this.sampleGlyphs = sampleGlyphs;
+        this.keywords = List.copyOf(keywords);
+        LineLexer.Builder builder = LineLexer.builder();
+        for (String keyword : this.keywords) {
+            builder.keyword(keyword, KEYWORD);
+        }
+        this.lexer = builder.build();
+    }
+
+    public int getSampleGlyphs() {
+        return sampleGlyphs;
+    }
+
+    public List<String> getKeywords() {
+        return keywords;
+    }
+
+    /**
+     * @param pageNumber 1-based number of {@code page} in its document
+     */
+    public boolean isTransactionPage(PDPage page, int pageNumber) {
+        if (pageNumber == 1) {
+            return true;
+        }
+        String sample = sample(page);
+        return sample == null || isTransactionText(sample);
+    }
+
+    /**
+     * Whether sampled page text marks a header or transaction page.
+     */
+    boolean isTransactionText(String sample) {
+        if ((lexer.scan(sample) & KEYWORD) != 0) {
+            return true;
+        }
+        int dates = 0;
+        for (int from = 0; from < sample.length(); ) {
+            int i = LineLexer.indexOfDate(sample.substring(from), 2);
+            if (i < 0) {
+                break;
+            }
+            if (++dates >= MIN_DATES) {
+                return true;
+            }
+            from += i + 8;
+        }
+        return false;
+    }
+
+    /**
+     * The page's first glyphs in content-stream order, runs separated by a space; {@code null} if
+     * the page cannot be read.
+     */
+    String sample(PDPage page) {
+        Sampler sampler = new Sampler(sampleGlyphs);
+        try {
+            sampler.processPage(page);
+        } catch (Sampler.Full e) {
+            // enough glyphs seen
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+        return sampler.text.toString();
+    }
+
+    /**
+     * A stream engine that knows only the text and graphics state operators, stopping with
+     * {@link Full} once it has decoded enough glyphs.
+     */
+    private static final class Sampler extends PDFStreamEngine {
+        private final int maxGlyphs;
+        private final StringBuilder text = new StringBuilder();
+        private int glyphs;
+
+        private Sampler(int maxGlyphs) {
+            this.maxGlyphs = maxGlyphs;
+            addOperator(new BeginText());
+            addOperator(new EndText());
+            addOperator(new SetFontAndSize());
+            addOperator(new ShowText());
+            addOperator(new ShowTextAdjusted());
+            addOperator(new ShowTextLine());
+            addOperator(new ShowTextLineAndSpace());
+            addOperator(new MoveText());
+            addOperator(new MoveTextSetLeading());
+            addOperator(new NextLine());
+            addOperator(new SetTextLeading());
+            addOperator(new SetCharSpacing());
+            addOperator(new SetWordSpacing());
+            addOperator(new SetTextHorizontalScaling());
+            addOperator(new SetTextRise());
+            addOperator(new SetTextRenderingMode());
+            addOperator(new SetMatrix());
+            addOperator(new Save());
+            addOperator(new Restore());
+            addOperator(new Concatenate());
+            addOperator(new SetGraphicsStateParameters());
+            addOperator(new DrawObject());
+        }
+
+        @Override
+        protected void showText(byte[] string) throws IOException {
+            if (text.length() > 0) {
+                text.append(' ');
+            }
+            super.showText(string);
+        }
+
+        @Override
+        protected void showGlyph(Matrix textRenderingMatrix, PDFont font, int code, Vector displacement)
+                throws IOException {
+            String unicode = font.toUnicode(code);
+            if (unicode != null) {
+                text.append(unicode);
+            }
+            if (++glyphs >= maxGlyphs) {
+                throw Full.INSTANCE;
+            }
+        }
+
+        /**
+         * Thrown to abandon the rest of the content stream.
+         */
+        private static final class Full extends RuntimeException {
+            private static final Full INSTANCE = new Full();
+
+            private Full() {
+                super(null, null, false, false);
+            }
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package app.personal.parser;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntPredicate;
+
+/**
+ * Extracts the text layer of a large PDF on a fork-join pool. The page range is split into chunks
+ * and every chunk loads its own {@link PDDocument}, because PDFBox documents must not be shared
+ * between threads. Chunk texts are stitched back in page order, so the result is the same text a
+ * sequential {@link PDFTextStripper} pass produces and can be fed to the existing parsers. Workers
+ * do not log: pages that fail to extract are handed back with the text and noted in the caller's
+ * {@link ParseTrace} once the chunks are joined.
+ *
+ * <p>Each worker holds a full document in memory, so the pool size also bounds the extra heap a
+ * single parse can take. Instances are thread-safe and meant to be shared.</p>
+ */
+public class ParallelTextExtractor {
+
+    private final ForkJoinPool pool;
+    private final int minPagesPerChunk;
+
+    /**
+     * @param parallelism      number of worker threads
+     * @param minPagesPerChunk smallest page range worth its own document handle; documents with
+     *                         fewer than twice this many pages are extracted sequentially
+     */
+    public ParallelTextExtractor(int parallelism, int minPagesPerChunk) {
+        if (parallelism < 1 || minPagesPerChunk < 1) {
+            throw new IllegalArgumentException("parallelism and minPagesPerChunk must be positive");
+        }
+        this.pool = new ForkJoinPool(parallelism);
+        this.minPagesPerChunk = minPagesPerChunk;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Whether a document with this many pages is large enough to be split.
+     */
+    public boolean shouldSplit(int pageCount) {
+        return pool.getParallelism() > 1 && pageCount >= 2 * minPagesPerChunk;
+    }
+
+    public String extractText(File file, int pageCount) throws ParseException {
+        return extractText(file, pageCount, ParseDeadline.NONE);
+    }
+
+    public String extractText(File file, int pageCount, ParseDeadline deadline) throws ParseException {
+        try {
+            return extractText(PdfSource.of(file.toPath()), pageCount, deadline);
+        } catch (IOException e) {
+            throw new ParseException("Failed to read PDF", e);
+        }
+    }
+
+    /**
+     * Extract all pages, with every chunk checking {@code deadline} as it goes. Chunks share the
+     * source's bytes and only parse their own document structure.
+     */
+    public String extractText(PdfSource source, int pageCount, ParseDeadline deadline) throws ParseException {
+        return extractText(source, pageCount, deadline, null);
+    }
+
+    /**
+     * Extract the pages {@code pages} accepts, by 1-based number; {@code null} extracts all of
+     * them. The predicate is called from the worker threads.
+     */
+    public String extractText(PdfSource source, int pageCount, ParseDeadline deadline, IntPredicate pages)
+            throws ParseException {
+        return extractText(source, pageCount, deadline, pages, ParseTrace.DISABLED);
+    }
+
+    /**
+     * Extract the pages {@code pages} accepts, noting in {@code trace} the chunks that had to be
+     * extracted page by page, the pages that failed, and the glyphs that were skipped.
+     */
+    public String extractText(PdfSource source, int pageCount, ParseDeadline deadline, IntPredicate pages,
+                              ParseTrace trace) throws ParseException {
+        return extract(source, pageCount, deadline, pages, trace, false).getText();
+    }
+
+    /**
+     * Extract the text as {@link #extractText(PdfSource, int, ParseDeadline, IntPredicate, ParseTrace)}
+     * does, and with {@code tableLines} also group every chunk's glyphs into the lines a
+     * {@link TableLayout} reads, in the same pass.
+     */
+    Chunk extract(PdfSource source, int pageCount, ParseDeadline deadline, IntPredicate pages, ParseTrace trace,
+                  boolean tableLines) throws ParseException {
+        int chunkSize = Math.max(minPagesPerChunk, (pageCount + pool.getParallelism() - 1) / pool.getParallelism());
+        Chunk chunk;
+        try {
+            chunk = pool.invoke(new ChunkTask(source, 1, pageCount, chunkSize, deadline, pages, tableLines));
+        } catch (ChunkFailedException e) {
+            throw new ParseException("Failed to extract raw text", e.getCause());
+        }
+        for (String[] note : chunk.notes) {
+            trace.note(note[0], note[1]);
+        }
+        return chunk;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * The text of a page range, its table lines if they were collected, and what went wrong
+     * extracting it for the caller to trace.
+     */
+    static final class Chunk {
+        private final StringBuilder text;
+        // null if not collected, or if some pages were extracted one at a time after a failure
+        private List<TableExtractor.Line> tableLines;
+        // stage and detail of each trace note
+        private final List<String[]> notes = new ArrayList<>();
+
+        private Chunk(StringBuilder text, List<TableExtractor.Line> tableLines) {
+            this.text = text;
+            this.tableLines = tableLines;
+        }
+
+        String getText() {
+            return text.toString();
+        }
+
+        /**
+         * Lines of positioned words on every extracted page, in page order; {@code null} if they
+         * were not collected or a chunk fell back to extracting its pages one at a time.
+         */
+        List<TableExtractor.Line> getTableLines() {
+            return tableLines;
+        }
+
+        private void note(String stage, String detail) {
+            notes.add(new String[] {stage, detail});
+        }
+
+        // the chunk for the pages right after this one's
+        private Chunk append(Chunk next) {
+            text.append(next.text);
+            if (tableLines != null && next.tableLines != null) {
+                tableLines.addAll(next.tableLines);
+            } else {
+                tableLines = null;
+            }
+            notes.addAll(next.notes);
+            return this;
+        }
+    }
+
+    private static final class ChunkTask extends RecursiveTask<Chunk> {
+        private final PdfSource source;
+        private final int startPage;
+        private final int endPage;
+        private final int chunkSize;
+        private final ParseDeadline deadline;
+        private final IntPredicate pages;
+        private final boolean tableLines;
+
+        private ChunkTask(PdfSource source, int startPage, int endPage, int chunkSize, ParseDeadline deadline,
+                          IntPredicate pages, boolean tableLines) {
+            this.source = source;
+            this.startPage = startPage;
+            this.endPage = endPage;
+            this.chunkSize = chunkSize;
+            this.deadline = deadline;
+            this.pages = pages;
+            this.tableLines = tableLines;
+        }
+
+        @Override
+        protected Chunk compute() {
+            if (endPage - startPage + 1 <= chunkSize) {
+                return extractChunk();
+            }
+            int mid = startPage + (endPage - startPage) / 2;
+            ChunkTask right = new ChunkTask(source, mid + 1, endPage, chunkSize, deadline, pages, tableLines);
+            right.fork();
+            Chunk left = new ChunkTask(source, startPage, mid, chunkSize, deadline, pages, tableLines).compute();
+            return left.append(right.join());
+        }
+
+        private Chunk extractChunk() {
+            deadline.check();
+            TableExtractor tables = tableLines ? new TableExtractor() : null;
+            try (PDDocument document = source.load();
+                 PooledTextStripper stripper = TextStripperPool.shared().borrow(deadline, tables, pages)) {
+                stripper.setStartPage(startPage);
+                stripper.setEndPage(endPage);
+                Chunk chunk;
+                try {
+                    StringBuilder text = new StringBuilder(stripper.getText(document));
+                    chunk = new Chunk(text, tables == null ? null : new ArrayList<>(tables.getLines()));
+                } catch (ParseDeadline.Expired e) {
+                    throw e;
+                } catch (Exception e) {
+                    // the failed pass left the glyphs of a partial page; the session reads them again
+                    chunk = new Chunk(new StringBuilder(), null);
+                    chunk.note("extract.fallback", "pages " + startPage + "-" + endPage + ": " + e.getMessage());
+                    for (int page = startPage; page <= endPage; page++) {
+                        if (pages != null && !pages.test(page)) {
+                            continue;
+                        }
+                        try {
+                            stripper.setStartPage(page);
+                            stripper.setEndPage(page);
+                            chunk.text.append(stripper.getText(document)).append("\n");
+                        } catch (ParseDeadline.Expired e2) {
+                            throw e2;
+                        } catch (Exception e2) {
+                            chunk.note("extract.page-failed", "page " + page + ": " + e2.getMessage());
+                        }
+                    }
+                }
+                if (stripper.getSkippedCount() > 0) {
+                    chunk.note("extract.skipped", "pages " + startPage + "-" + endPage + ": "
+                            + stripper.getSkippedCount() + " glyphs or strings, first " + stripper.getSkipReason());
+                }
+                return chunk;
+            } catch (IOException e) {
+                throw new ChunkFailedException(e);
+            }
+        }
+    }
+
+    private static final class ChunkFailedException extends RuntimeException {
+        private ChunkFailedException(IOException cause) {
+            super(cause);
+        }
+    }
+}
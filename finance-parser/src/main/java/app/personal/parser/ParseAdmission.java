@@ -0,0 +1,228 @@
+package app.personal.parser;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control for PDF parses against a shared heap budget. Each parse reserves its estimated
+ * memory before the document is loaded and releases it when done; when the budget is used up,
+ * parses wait in FIFO order for at most {@code maxWait}, and once {@code maxQueued} are waiting,
+ * new ones are turned away with a {@link ParseException.Reason#OVERLOADED} exception. A parse
+ * estimated above the whole budget is admitted alone rather than never.
+ *
+ * <p>Parses estimated above {@code mixedModeAbove} are told to keep at most
+ * {@code mainMemoryPerParse} of PDFBox buffers on the heap and spill the rest to a scratch file,
+ * see {@link Permit#getMaxMainMemoryBytes()}.</p>
+ *
+ * <p>Thread-safe; share one instance.</p>
+ */
+public class ParseAdmission {
+
+    // fixed cost of a loaded document: parser state, fonts, resources
+    private static final long BASE_BYTES = 4L << 20;
+    // a parsed document's object graph is a few times the size of the file
+    private static final int BYTES_PER_FILE_BYTE = 4;
+    // text positions and strings produced while extracting one page
+    private static final long BYTES_PER_PAGE = 512L << 10;
+
+    private final long budgetBytes;
+    private final long mixedModeAbove;
+    private final long mainMemoryPerParse;
+    private final int maxQueued;
+    private final long maxWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final ArrayDeque<Object> waiters = new ArrayDeque<>();
+    private long reservedBytes;
+    private int running;
+    private long rejected;
+
+    /**
+     * @param budgetBytes        heap all admitted parses may reserve together
+     * @param mixedModeAbove     estimate above which a parse spills PDFBox buffers to a scratch file
+     * @param mainMemoryPerParse heap such a parse may still use for PDFBox buffers
+     * @param maxQueued          parses allowed to wait for budget; further ones are rejected
+     * @param maxWait            longest a parse waits for budget before it is rejected
+     */
+    public ParseAdmission(long budgetBytes, long mixedModeAbove, long mainMemoryPerParse,
+                          int maxQueued, Duration maxWait) {
+        if (budgetBytes <= 0 || mainMemoryPerParse <= 0 || maxQueued < 0) {
+            throw new IllegalArgumentException("budget and main memory must be positive, maxQueued not negative");
+        }
+        this.budgetBytes = budgetBytes;
+        this.mixedModeAbove = mixedModeAbove;
+        this.mainMemoryPerParse = mainMemoryPerParse;
+        this.maxQueued = maxQueued;
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    /**
+     * Heap a parse is expected to need. {@code pageCount} may be 0 before the document is loaded.
+     */
+    public static long estimate(long fileBytes, int pageCount) {
+        return BASE_BYTES + fileBytes * BYTES_PER_FILE_BYTE + pageCount * BYTES_PER_PAGE;
+    }
+
+    /**
+     * Reserve {@code estimatedBytes}, waiting in line if the budget is used up.
+     *
+     * @throws ParseException with reason {@link ParseException.Reason#OVERLOADED} if the queue is
+     *                        full, the wait timed out or the thread was interrupted
+     */
+    public Permit acquire(long estimatedBytes) throws ParseException {
+        long need = Math.min(estimatedBytes, budgetBytes);
+        lock.lock();
+        try {
+            if (waiters.isEmpty() && fits(need)) {
+                return admit(need, estimatedBytes);
+            }
+            if (waiters.size() >= maxQueued) {
+                throw reject("Too many statements are being parsed, try again later");
+            }
+            Object ticket = new Object();
+            waiters.addLast(ticket);
+            try {
+                long remaining = maxWaitNanos;
+                while (waiters.peekFirst() != ticket || !fits(need)) {
+                    if (remaining <= 0) {
+                        throw reject("Timed out waiting for memory to parse the statement");
+                    }
+                    remaining = changed.awaitNanos(remaining);
+                }
+                return admit(need, estimatedBytes);
+            } finally {
+                waiters.remove(ticket);
+                // the next in line may fit now, or may have been waiting behind this one
+                changed.signalAll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject("Interrupted waiting for memory to parse the statement");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // an estimate capped at the budget always fits into an idle controller
+    private boolean fits(long need) {
+        return running == 0 || reservedBytes + need <= budgetBytes;
+    }
+
+    private Permit admit(long need, long estimatedBytes) {
+        reservedBytes += need;
+        running++;
+        return new Permit(need, estimatedBytes > mixedModeAbove ? mainMemoryPerParse : -1);
+    }
+
+    private ParseException reject(String message) {
+        rejected++;
+        return new ParseException(message, ParseException.Reason.OVERLOADED, null);
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    public long getReservedBytes() {
+        lock.lock();
+        try {
+            return reservedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getRunning() {
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRejectedCount() {
+        lock.lock();
+        try {
+            return rejected;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * An admitted parse's reservation; close it when the parse is done.
+     */
+    public class Permit implements AutoCloseable {
+        private long bytes;
+        private final long maxMainMemoryBytes;
+        private boolean closed;
+
+        private Permit(long bytes, long maxMainMemoryBytes) {
+            this.bytes = bytes;
+            this.maxMainMemoryBytes = maxMainMemoryBytes;
+        }
+
+        public long getReservedBytes() {
+            return bytes;
+        }
+
+        /**
+         * Heap PDFBox may use for this document's buffers before spilling to a scratch file, or
+         * -1 for no limit.
+         */
+        public long getMaxMainMemoryBytes() {
+            return maxMainMemoryBytes;
+        }
+
+        /**
+         * Replace the reservation with a better estimate, typically once the page count is known.
+         * A larger estimate is taken even if it overdraws the budget, since the work is already
+         * under way; later parses wait until it is paid back.
+         */
+        public void resize(long estimatedBytes) {
+            long need = Math.min(estimatedBytes, budgetBytes);
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                reservedBytes += need - bytes;
+                if (need < bytes) {
+                    changed.signalAll();
+                }
+                bytes = need;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                reservedBytes -= bytes;
+                running--;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package app.personal.parser;
+
+import java.time.Duration;
+
+/**
+ * Point in time by which a parse has to be finished. Extraction checks it between pages and glyph
+ * runs, and the line parsers see their text through a {@link DeadlineCharSequence}, so even a
+ * backtracking regex gives up once the time is spent.
+ *
+ * <p>{@link #check()} throws the unchecked {@link Expired}; the public parse entry points turn it
+ * into a {@link ParseException} with {@link ParseException.Reason#TIMEOUT}.</p>
+ */
+public final class ParseDeadline {
+
+    /** A deadline that never expires. */
+    public static final ParseDeadline NONE = new ParseDeadline(Long.MAX_VALUE, 0L);
+
+    private final long deadlineNanos;
+    private final long budgetNanos;
+
+    private ParseDeadline(long deadlineNanos, long budgetNanos) {
+        this.deadlineNanos = deadlineNanos;
+        this.budgetNanos = budgetNanos;
+    }
+
+    /**
+     * A deadline {@code budget} from now; a zero or negative budget means no deadline.
+     */
+    public static ParseDeadline after(Duration budget) {
+        if (budget == null || budget.isZero() || budget.isNegative()) {
+            return NONE;
+        }
+        return new ParseDeadline(System.nanoTime() + budget.toNanos(), budget.toNanos());
+    }
+
+    public boolean isExpired() {
+        return this != NONE && System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    public void check() {
+        if (isExpired()) {
+            throw new Expired(this);
+        }
+    }
+
+    ParseException toParseException(Expired cause) {
+        return new ParseException("Parse exceeded its deadline of " + budgetNanos / 1_000_000 + " ms",
+                ParseException.Reason.TIMEOUT, cause);
+    }
+
+    /**
+     * Thrown from deep inside extraction or matching when the deadline has passed. Catch blocks
+     * that skip bad pages or glyphs must rethrow it.
+     */
+    static final class Expired extends RuntimeException {
+        private final ParseDeadline deadline;
+
+        private Expired(ParseDeadline deadline) {
+            super("parse deadline expired", null, false, false);
+            this.deadline = deadline;
+        }
+
+        ParseException toParseException() {
+            return deadline.toParseException(this);
+        }
+    }
+}
@@ -1,11 +1,35 @@
 package app.personal.parser;
 
 public class ParseException extends Exception {
+
+    /**
+     * Why a parse failed, for callers that map failures to responses or metrics.
+     */
+    public enum Reason {
+        /** The document could not be read or its text could not be parsed. */
+        UNREADABLE,
+        /** The parse ran past its {@link ParseDeadline}. */
+        TIMEOUT,
+        /** The parse was not admitted because the {@link ParseAdmission} budget was used up. */
+        OVERLOADED
+    }
+
+    private final Reason reason;
+
     public ParseException(String message) {
-        super(message);
+        this(message, Reason.UNREADABLE, null);
     }
 
     public ParseException(String message, Throwable cause) {
+        this(message, Reason.UNREADABLE, cause);
+    }
+
+    public ParseException(String message, Reason reason, Throwable cause) {
         super(message, cause);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
     }
 }
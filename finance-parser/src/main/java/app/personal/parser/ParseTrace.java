@@ -0,0 +1,158 @@
+package app.personal.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bounded record of what happened during one parse: which stage ran, where in the text it matched,
+ * what it matched and how long it took. Events go into a ring buffer, so a long statement keeps its
+ * most recent {@code capacity} events and counts the ones it dropped.
+ *
+ * <p>{@link #DISABLED} is the default everywhere and ignores every call, so tracing costs a
+ * method call and a field read when nobody asked for it. Callers that would have to build a
+ * string just to record it should check {@link #isEnabled()} first.</p>
+ *
+ * <p>Not thread-safe; a trace belongs to one request.</p>
+ */
+public class ParseTrace {
+
+    /** A trace that records nothing. */
+    public static final ParseTrace DISABLED = new ParseTrace();
+
+    // matched text longer than this is cut, the trace is not meant to carry whole pages
+    private static final int MAX_MATCH_LENGTH = 160;
+
+    private final Event[] events;
+    private int next;
+    private long recorded;
+
+    private ParseTrace() {
+        this.events = null;
+    }
+
+    public ParseTrace(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.events = new Event[capacity];
+    }
+
+    public boolean isEnabled() {
+        return events != null;
+    }
+
+    /**
+     * Record a match on a line of text.
+     *
+     * @param line  1-based line number in the extracted text, or 0 when not line-bound
+     * @param start start offset of the match within the line
+     * @param end   end offset (exclusive) of the match within the line
+     * @param text  the line; only {@code [start, end)} is kept
+     */
+    public void match(String stage, int line, int start, int end, CharSequence text) {
+        if (events == null) {
+            return;
+        }
+        int cut = Math.min(end, start + MAX_MATCH_LENGTH);
+        add(new Event(stage, line, start, end, text.subSequence(start, cut).toString(), 0L));
+    }
+
+    /**
+     * Record a free-form note, such as a validation outcome or a fallback that was taken.
+     */
+    public void note(String stage, String detail) {
+        if (events == null) {
+            return;
+        }
+        add(new Event(stage, 0, -1, -1, detail, 0L));
+    }
+
+    /**
+     * Record a stage that started at {@code startNanos} (from {@link System#nanoTime()}) and has
+     * just finished.
+     */
+    public void timed(String stage, long startNanos, String detail) {
+        if (events == null) {
+            return;
+        }
+        add(new Event(stage, 0, -1, -1, detail, System.nanoTime() - startNanos));
+    }
+
+    private void add(Event event) {
+        events[next] = event;
+        next = (next + 1) % events.length;
+        recorded++;
+    }
+
+    /**
+     * Retained events, oldest first.
+     */
+    public List<Event> getEvents() {
+        if (events == null || recorded == 0) {
+            return Collections.emptyList();
+        }
+        int size = (int) Math.min(recorded, events.length);
+        List<Event> list = new ArrayList<>(size);
+        int first = recorded > events.length ? next : 0;
+        for (int i = 0; i < size; i++) {
+            list.add(events[(first + i) % events.length]);
+        }
+        return list;
+    }
+
+    /**
+     * Number of events overwritten because the buffer was full.
+     */
+    public long getDroppedCount() {
+        return events == null ? 0 : Math.max(0, recorded - events.length);
+    }
+
+    public static class Event {
+        private final String stage;
+        private final int line;
+        private final int start;
+        private final int end;
+        private final String match;
+        private final long durationNanos;
+
+        private Event(String stage, int line, int start, int end, String match, long durationNanos) {
+            this.stage = stage;
+            this.line = line;
+            this.start = start;
+            this.end = end;
+            this.match = match;
+            this.durationNanos = durationNanos;
+        }
+
+        public String getStage() {
+            return stage;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        public String getMatch() {
+            return match;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        @Override
+        public String toString() {
+            return stage + "@" + line + ":" + start + "-" + end + " " + match
+                    + (durationNanos > 0 ? " (" + durationNanos / 1000 + "us)" : "");
+        }
+    }
+}
@@ -1,10 +1,21 @@
 package app.personal.parser;
 
+import java.util.List;
 import java.util.Map;
 
+/**
+ * YAML form of a parser profile, as written in {@code <name>.yml}. Parsing code works with the
+ * {@link CompiledProfile} built from it, usually through a {@link ProfileCache}.
+ */
 public class ParserProfile {
     // map of region name -> [x,y,width,height]
     private Map<String, double[]> regions;
+    // optional region name -> 1-based pages it applies to; regions not listed apply to every page
+    private Map<String, List<Integer>> regionPages;
+    // optional named regular expressions for profile-driven parsing
+    private Map<String, String> patterns;
+    // optional: which pages get extracted; absent = the parser's own page classifier
+    private PageFilter pageFilter;
 
     public Map<String, double[]> getRegions() {
         return regions;
@@ -13,4 +24,61 @@ public class ParserProfile {
     public void setRegions(Map<String, double[]> regions) {
         this.regions = regions;
     }
+
+    public Map<String, List<Integer>> getRegionPages() {
+        return regionPages;
+    }
+
+    public void setRegionPages(Map<String, List<Integer>> regionPages) {
+        this.regionPages = regionPages;
+    }
+
+    public Map<String, String> getPatterns() {
+        return patterns;
+    }
+
+    public void setPatterns(Map<String, String> patterns) {
+        this.patterns = patterns;
+    }
+
+    public PageFilter getPageFilter() {
+        return pageFilter;
+    }
+
+    public void setPageFilter(PageFilter pageFilter) {
+        this.pageFilter = pageFilter;
+    }
+
+    /**
+     * Settings for a {@link PageClassifier}; {@code enabled: false} extracts every page.
+     */
+    public static class PageFilter {
+        private boolean enabled = true;
+        private int sampleGlyphs = 400;
+        private List<String> keywords;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getSampleGlyphs() {
+            return sampleGlyphs;
+        }
+
+        public void setSampleGlyphs(int sampleGlyphs) {
+            this.sampleGlyphs = sampleGlyphs;
+        }
+
+        public List<String> getKeywords() {
+            return keywords;
+        }
+
+        public void setKeywords(List<String> keywords) {
+            this.keywords = keywords;
+        }
+    }
 }
@@ -0,0 +1,116 @@
+package app.personal.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * The statement parsers available on the classpath, discovered through {@link ServiceLoader}.
+ * Only the small {@link StatementParserProvider}s are instantiated up front; each parser is built
+ * the first time it is needed, so adding banks does not add to startup time.
+ *
+ * <p>{@link #detect(PdfDocumentSession)} routes an upload to a parser using the first page only and
+ * reports how long each provider took to decide. Thread-safe.</p>
+ */
+public class ParserRegistry {
+
+    private final List<StatementParserProvider> providers;
+
+    public ParserRegistry(List<StatementParserProvider> providers) {
+        this.providers = List.copyOf(providers);
+    }
+
+    /**
+     * Registry of every provider listed in {@code META-INF/services}, in classpath order.
+     */
+    public static ParserRegistry load() {
+        List<StatementParserProvider> providers = new ArrayList<>();
+        ServiceLoader.load(StatementParserProvider.class, ParserRegistry.class.getClassLoader())
+                .forEach(providers::add);
+        return new ParserRegistry(providers);
+    }
+
+    public List<String> getIds() {
+        List<String> ids = new ArrayList<>(providers.size());
+        for (StatementParserProvider provider : providers) {
+            ids.add(provider.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * @return the provider registered under {@code id} (case-insensitive), or {@code null}
+     */
+    public StatementParserProvider get(String id) {
+        for (StatementParserProvider provider : providers) {
+            if (provider.getId().equalsIgnoreCase(id)) {
+                return provider;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Ask each provider in turn whether it recognises the document and stop at the first that
+     * does. Costs one first-page extraction, shared by all providers.
+     */
+    public Detection detect(PdfDocumentSession session) throws ParseException {
+        long start = System.nanoTime();
+        StatementFingerprint fingerprint = session.getFingerprint();
+        long fingerprintNanos = System.nanoTime() - start;
+
+        Map<String, Long> nanosByProvider = new LinkedHashMap<>();
+        for (StatementParserProvider provider : providers) {
+            long providerStart = System.nanoTime();
+            boolean matched = provider.matches(fingerprint);
+            nanosByProvider.put(provider.getId(), System.nanoTime() - providerStart);
+            if (matched) {
+                session.getTrace().timed("detect", start, provider.getId());
+                return new Detection(provider, fingerprintNanos, nanosByProvider);
+            }
+        }
+        session.getTrace().timed("detect", start, "no match");
+        return new Detection(null, fingerprintNanos, nanosByProvider);
+    }
+
+    public static class Detection {
+        private final StatementParserProvider provider;
+        private final long fingerprintNanos;
+        private final Map<String, Long> nanosByProvider;
+
+        private Detection(StatementParserProvider provider, long fingerprintNanos, Map<String, Long> nanosByProvider) {
+            this.provider = provider;
+            this.fingerprintNanos = fingerprintNanos;
+            this.nanosByProvider = Collections.unmodifiableMap(nanosByProvider);
+        }
+
+        public boolean isDetected() {
+            return provider != null;
+        }
+
+        /**
+         * @return the matching provider, or {@code null} when no provider recognised the document
+         */
+        public StatementParserProvider getProvider() {
+            return provider;
+        }
+
+        /**
+         * Time spent building the fingerprint (first-page extraction and metadata).
+         */
+        public long getFingerprintNanos() {
+            return fingerprintNanos;
+        }
+
+        /**
+         * Time each consulted provider spent in {@link StatementParserProvider#matches}, in the
+         * order they were asked. Providers after the match are absent.
+         */
+        public Map<String, Long> getNanosByProvider() {
+            return nanosByProvider;
+        }
+    }
+}
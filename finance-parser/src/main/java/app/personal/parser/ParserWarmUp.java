@@ -0,0 +1,165 @@
+package app.personal.parser;
+
+import org.apache.pdfbox.pdmodel.font.FontMappers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Takes the first-request cost out of parsing. On a cold JVM the first PDF parse pays for PDFBox
+ * scanning every system font to build its font cache, for loading the PDFBox and parser classes,
+ * and for running the regexes and text extraction interpreted. {@link #prepareFontCache(Path)}
+ * builds the font cache once and keeps it in a known directory, so later starts read it instead of
+ * scanning the fonts; {@link #run} then parses the {@link SampleStatements} with every detected
+ * parser until the code paths have been compiled.
+ */
+public final class ParserWarmUp {
+
+    // the file name PDFBox gives its cache inside the pdfbox.fontcache directory
+    private static final String FONT_CACHE_FILE = ".pdfbox.cache";
+
+    private ParserWarmUp() {
+    }
+
+    /**
+     * Point PDFBox's font cache at {@code directory} and build it, or load it if an earlier start
+     * left one there. Must run before the first PDF is parsed: PDFBox reads the location once, when
+     * it first maps a font.
+     *
+     * @return whether the cache had to be built, i.e. no earlier cache file was found
+     */
+    public static boolean prepareFontCache(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        File cache = directory.resolve(FONT_CACHE_FILE).toFile();
+        boolean built = !cache.isFile();
+        System.setProperty("pdfbox.fontcache", directory.toAbsolutePath().toString());
+        // the first lookup creates the font provider, which reads or writes the cache file
+        FontMappers.instance().getFontBoxFont("Helvetica", null);
+        return built;
+    }
+
+    /**
+     * Parse the sample statements the way an upload is parsed: detect the format, then parse with
+     * the detected provider's profile if it has one. A sample parsed by the profile's regions is
+     * parsed from its full text as well, so the table reader is compiled too. Stops after
+     * {@code rounds} rounds or once {@code maxTime} has passed, whichever comes first. A parse that
+     * fails is counted, not thrown: a failing warm-up must not keep the application from starting.
+     *
+     * @param profiles resolves provider profiles; {@code null} parses the full text
+     */
+    public static Report run(ParserRegistry registry, ProfileCache profiles, int rounds, Duration maxTime)
+            throws IOException {
+        long start = System.nanoTime();
+        List<byte[]> samples = List.of(SampleStatements.creditCard(), SampleStatements.savings());
+        long stop = start + maxTime.toNanos();
+        Report report = new Report();
+        while (report.rounds < rounds && System.nanoTime() - stop < 0) {
+            for (byte[] sample : samples) {
+                parse(registry, profiles, sample, report);
+            }
+            report.rounds++;
+        }
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    private static void parse(ParserRegistry registry, ProfileCache profiles, byte[] sample, Report report) {
+        String id = null;
+        try (PdfDocumentSession session = PdfDocumentSession.open(PdfSource.of(sample))) {
+            ParserRegistry.Detection detection = registry.detect(session);
+            if (!detection.isDetected()) {
+                report.count(null, false);
+                return;
+            }
+            StatementParserProvider provider = detection.getProvider();
+            id = provider.getId();
+            BankStatementParser parser = provider.getParser();
+            CompiledProfile profile = profiles != null && provider.getProfileName() != null
+                    ? profiles.get(provider.getProfileName()) : null;
+            if (profile != null && parser instanceof PdfBoxStatementParser) {
+                report.count(id, ((PdfBoxStatementParser) parser).parseByArea(session, profile).isSuccess());
+                if (!profile.hasRegions()) {
+                    return;
+                }
+            }
+            report.count(id, parser.parse(session).isSuccess());
+        } catch (ParseException | RuntimeException e) {
+            System.err.println("Warning: Warm-up parse failed: " + e.getMessage());
+            report.count(id, false);
+        }
+    }
+
+    /**
+     * What a warm-up did. A failed parse still warms up the code it ran, so failures are reported
+     * rather than treated as errors.
+     */
+    public static class Report {
+        private int rounds;
+        private int parses;
+        private int failures;
+        private long elapsedNanos;
+        private final Map<String, Integer> parsesByParser = new LinkedHashMap<>();
+        private final Map<String, Integer> failuresByParser = new LinkedHashMap<>();
+
+        // parser is null for a sample no parser detected
+        private void count(String parser, boolean success) {
+            parses++;
+            if (success) {
+                parsesByParser.merge(parser, 1, Integer::sum);
+            } else {
+                failures++;
+                if (parser != null) {
+                    failuresByParser.merge(parser, 1, Integer::sum);
+                }
+            }
+        }
+
+        public int getRounds() {
+            return rounds;
+        }
+
+        public int getParses() {
+            return parses;
+        }
+
+        public int getFailures() {
+            return failures;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Successful parses per parser id.
+         */
+        public Map<String, Integer> getParsesByParser() {
+            return parsesByParser;
+        }
+
+        /**
+         * Failed parses per parser id; samples no parser detected are only in {@link #getFailures()}.
+         */
+        public Map<String, Integer> getFailuresByParser() {
+            return failuresByParser;
+        }
+
+        /**
+         * Ids of the parsers that detected a sample but never parsed one, so their code paths may
+         * still be cold.
+         */
+        public Set<String> getColdParsers() {
+            Set<String> cold = new TreeSet<>(failuresByParser.keySet());
+            cold.removeAll(parsesByParser.keySet());
+            return cold;
+        }
+    }
+}
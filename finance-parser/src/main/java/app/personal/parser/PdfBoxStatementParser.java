@@ -1,91 +1,95 @@
 package app.personal.parser;
 
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.text.PDFTextStripper;
-import org.apache.pdfbox.text.PDFTextStripperByArea;
-import org.apache.pdfbox.text.TextPosition;
-
 import java.io.File;
-import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
+/**
+ * Base of the PDF statement parsers. One instance serves every upload of its format, concurrently:
+ * the state of a parse lives in the {@link StatementLineParser} made for it and in the session,
+ * whose text strippers come from the shared {@link TextStripperPool}.
+ */
 public abstract class PdfBoxStatementParser implements BankStatementParser {
 
+    private volatile PageClassifier pageClassifier;
+
+    public PageClassifier getPageClassifier() {
+        return pageClassifier;
+    }
+
+    /**
+     * Extract only the pages {@code pageClassifier} takes for header or transaction pages, unless
+     * the profile or the session names its own; {@code null} extracts every page.
+     */
+    public void setPageClassifier(PageClassifier pageClassifier) {
+        this.pageClassifier = pageClassifier;
+    }
+
     @Override
     public ParseResult parse(File file) throws ParseException {
-        try (PDDocument document = PDDocument.load(file)) {
-            // Use a custom PDFTextStripper that's more resilient to parsing errors
-            PDFTextStripper stripper = new PDFTextStripper() {
-                @Override
-                protected void processTextPosition(TextPosition text) {
-                    try {
-                        super.processTextPosition(text);
-                    } catch (Exception e) {
-                        // Log the error but continue processing
-                        System.err.println("Warning: Error processing text at position " + text + ": " + e.getMessage());
-                    }
-                }
+        try (PdfDocumentSession session = PdfDocumentSession.open(file)) {
+            return parse(session);
+        }
+    }
 
-                // Removed showText override as it's causing compile errors
-
-                @Override
-                protected void writeString(String text, List<TextPosition> textPositions) throws IOException {
-                    try {
-                        super.writeString(text, textPositions);
-                    } catch (Exception e) {
-                        // Log the error but continue processing
-                        System.err.println("Warning: Error writing string: " + text + ": " + e.getMessage());
-                        // Try to write the text directly if possible
-                        try {
-                            output.write(text);
-                        } catch (Exception e2) {
-                            // Ignore if we can't even write directly
-                        }
-                    }
-                }
-            };
-            
-            // Configure stripper to be more lenient
-            stripper.setSortByPosition(true);
-            stripper.setAddMoreFormatting(false);
-            stripper.setSpacingTolerance(0.5f);
-            
-            // Set debug parameters
-            System.out.println("\nAttempting to extract text from PDF...");
-            System.out.println("PDF Document Info:");
-            System.out.println("- Number of pages: " + document.getNumberOfPages());
-            
-            // Try to get text with error handling at each level
-            String text;
-            try {
-                text = stripper.getText(document);
-            } catch (Exception e) {
-                System.err.println("Warning: Error extracting text, trying fallback method: " + e.getMessage());
-                // Fallback: try to extract text page by page
-                StringBuilder sb = new StringBuilder();
-                for (int i = 0; i < document.getNumberOfPages(); i++) {
-                    try {
-                        stripper.setStartPage(i + 1);
-                        stripper.setEndPage(i + 1);
-                        String pageText = stripper.getText(document);
-                        sb.append(pageText).append("\n");
-                    } catch (Exception e2) {
-                        System.err.println("Warning: Failed to extract text from page " + (i + 1) + ": " + e2.getMessage());
-                    }
+    /**
+     * Parse an already opened document. The session's cached text layer is reused, so callers that
+     * also need the raw text pay for a single extraction.
+     *
+     * <p>When the parser has a {@link #getTableLayout() table layout} and the document has a header
+     * row for it, transactions are read cell by cell from the table and the text only supplies the
+     * statement fields. Without a header row, or if the table yields no valid statement, the
+     * transactions are recognised in the text.</p>
+     */
+    @Override
+    public ParseResult parse(PdfDocumentSession session) throws ParseException {
+        classifyPages(session, null);
+        return parseSession(session);
+    }
+
+    private ParseResult parseSession(PdfDocumentSession session) throws ParseException {
+        String text = session.getText();
+        TableLayout layout = getTableLayout();
+        if (layout != null) {
+            long start = System.nanoTime();
+            List<TableLayout.Row> rows = layout.read(session.getTableLines());
+            session.getTrace().timed("table", start, rows == null ? "no header row" : rows.size() + " rows");
+            if (rows != null) {
+                ParseResult result = parseText(text, rows, session);
+                if (result.isSuccess()) {
+                    return result;
                 }
-                text = sb.toString();
+                session.getTrace().note("table.fallback", result.getErrorMessage());
             }
+        }
+        return parseText(text, null, session);
+    }
+
+    @Override
+    public ParseResult parse(File file, Consumer<Object> transactionSink) throws ParseException {
+        try (PdfDocumentSession session = PdfDocumentSession.open(file)) {
+            return parse(session, transactionSink);
+        }
+    }
 
-            // Debug log the extracted text
-            System.out.println("Extracted text from PDF:");
-            System.out.println("----------------------------------------");
-            System.out.println(text);
-            System.out.println("----------------------------------------");
-            return parseText(text);
-        } catch (IOException e) {
-            throw new ParseException("Failed to read PDF", e);
+    /**
+     * Streaming parse of an opened document: text is extracted a page at a time and fed line by
+     * line to the parser, which pushes each transaction to {@code transactionSink} as it is found.
+     */
+    public ParseResult parse(PdfDocumentSession session, Consumer<Object> transactionSink) throws ParseException {
+        classifyPages(session, null);
+        StatementLineParser lineParser = newLineParser(transactionSink, session.getTrace());
+        long start = System.nanoTime();
+        try {
+            session.streamText(guardedLines(lineParser, session.getDeadline()));
+            ParseResult result = lineParser.finish();
+            session.getTrace().timed("parse.stream", start, result.isSuccess() ? "ok" : result.getErrorMessage());
+            return result;
+        } catch (ParseDeadline.Expired e) {
+            session.getTrace().timed("parse.timeout", start, null);
+            throw e.toParseException();
+        } catch (RuntimeException e) {
+            return ParseResult.failure("Failed to parse statement: " + e.getMessage());
         }
     }
 
@@ -94,72 +98,143 @@ public abstract class PdfBoxStatementParser implements BankStatementParser {
      * don't need to depend on PDFBox types directly.
      */
     public String extractRawText(File file) throws ParseException {
-        try (PDDocument document = PDDocument.load(file)) {
-            PDFTextStripper stripper = new PDFTextStripper() {
-                @Override
-                protected void processTextPosition(TextPosition text) {
-                    try {
-                        super.processTextPosition(text);
-                    } catch (Exception e) {
-                        // Log the error but continue processing
-                        System.err.println("Warning: Error processing text at position " + text + ": " + e.getMessage());
-                    }
-                }
-            };
-            
-            // Configure for more resilient extraction
-            stripper.setSortByPosition(true);
-            stripper.setAddMoreFormatting(false);
-            stripper.setSpacingTolerance(0.5f);
-            
-            return stripper.getText(document);
-        } catch (IOException e) {
-            throw new ParseException("Failed to extract raw text", e);
+        try (PdfDocumentSession session = PdfDocumentSession.open(file)) {
+            return session.getText();
         }
     }
 
     /**
-     * Area-based parse: if you have a ParserProfile with region coords (x,y,w,h) you can extract
-     * text only from that area on the first page. This is a small helper; real code should
-     * iterate pages and regions robustly.
+     * Area-based parse: parse only the text inside the profile's regions, across all pages. The
+     * profile is compiled for this call; callers parsing repeatedly should compile once or use a
+     * {@link ProfileCache}.
      */
     public ParseResult parseByArea(File file, ParserProfile profile) throws ParseException {
-        if (profile == null || profile.getRegions() == null || profile.getRegions().isEmpty()) {
-            return parse(file);
+        try (PdfDocumentSession session = PdfDocumentSession.open(file)) {
+            return parseByArea(session, profile);
         }
+    }
+
+    public ParseResult parseByArea(PdfDocumentSession session, ParserProfile profile) throws ParseException {
+        return parseByArea(session, profile == null ? null : CompiledProfile.compile("inline", profile));
+    }
 
-        try (PDDocument document = PDDocument.load(file)) {
-            PDPage page = document.getPage(0);
-            PDFTextStripperByArea stripper = new PDFTextStripperByArea();
-            for (String name : profile.getRegions().keySet()) {
-                double[] v = profile.getRegions().get(name);
-                // PDFTextStripperByArea uses java.awt.Rectangle (int) coordinates
-                java.awt.geom.Rectangle2D.Double rect = new java.awt.geom.Rectangle2D.Double(v[0], v[1], v[2], v[3]);
-                stripper.addRegion(name, rect);
+    /**
+     * Area-based parse with an already compiled profile. Without a profile or regions this is a
+     * plain full-text {@link #parse(PdfDocumentSession)}.
+     */
+    public ParseResult parseByArea(PdfDocumentSession session, CompiledProfile profile) throws ParseException {
+        classifyPages(session, profile);
+        if (profile == null || !profile.hasRegions()) {
+            return parseSession(session);
+        }
+        return parseText(session.getRegionText(profile), null, session);
+    }
+
+    /**
+     * Parse text extracted earlier, for example replayed from a {@link TextLayerStore} after a
+     * parser fix, without opening the PDF again.
+     */
+    public ParseResult parseExtractedText(String text, ParseDeadline deadline) throws ParseException {
+        try {
+            return parseText(text, ParseTrace.DISABLED, deadline);
+        } catch (ParseDeadline.Expired e) {
+            throw e.toParseException();
+        }
+    }
+
+    /**
+     * Parse the raw extracted text (useful for unit-testing without PDF files)
+     */
+    protected ParseResult parseText(String text) {
+        return parseText(text, ParseTrace.DISABLED, ParseDeadline.NONE);
+    }
+
+    private ParseResult parseText(String text, List<TableLayout.Row> rows, PdfDocumentSession session)
+            throws ParseException {
+        try {
+            return parseText(text, rows, session.getTrace(), session.getDeadline());
+        } catch (ParseDeadline.Expired e) {
+            session.getTrace().note("parse.timeout", null);
+            throw e.toParseException();
+        }
+    }
+
+    /**
+     * Parse extracted text with tracing and a deadline. An expired deadline surfaces as
+     * {@link ParseDeadline.Expired}, which the session-based entry points turn into a
+     * {@link ParseException}.
+     */
+    protected ParseResult parseText(String text, ParseTrace trace, ParseDeadline deadline) {
+        return parseText(text, null, trace, deadline);
+    }
+
+    // with rows, transactions come from them and the text is read for statement fields only
+    private ParseResult parseText(String text, List<TableLayout.Row> rows, ParseTrace trace, ParseDeadline deadline) {
+        if (text == null || text.isBlank()) {
+            return ParseResult.failure("Empty text");
+        }
+
+        StatementLineParser lineParser = newLineParser(null, trace);
+        long start = System.nanoTime();
+        try {
+            if (rows != null) {
+                lineParser.useTableRows();
             }
-            stripper.extractRegions(page);
-            StringBuilder sb = new StringBuilder();
-            for (String name : profile.getRegions().keySet()) {
-                sb.append(stripper.getTextForRegion(name)).append("\n---\n");
+            TextLineWriter.forEachLine(text, guardedLines(lineParser, deadline));
+            if (rows != null) {
+                for (TableLayout.Row row : rows) {
+                    deadline.check();
+                    lineParser.acceptRow(row);
+                }
             }
-            return parseText(sb.toString());
-        } catch (IOException e) {
-            throw new ParseException("Failed to read PDF by area", e);
+            ParseResult result = lineParser.finish();
+            trace.timed("parse", start, result.isSuccess() ? "ok" : result.getErrorMessage());
+            return result;
+        } catch (ParseDeadline.Expired e) {
+            throw e;
+        } catch (RuntimeException e) {
+            trace.note("parse.error", e.toString());
+            return ParseResult.failure("Failed to parse statement: " + e.getMessage());
+        }
+    }
+
+    // a classifier set on the session wins, then the profile's page filter, then the parser's own
+    private void classifyPages(PdfDocumentSession session, CompiledProfile profile) {
+        if (session.getPageClassifier() == null) {
+            session.setPageClassifier(profile != null && profile.hasPageFilter()
+                    ? profile.getPageClassifier() : pageClassifier);
         }
     }
 
     /**
-     * Parse the raw extracted text (useful for unit-testing without PDF files)
+     * Feed lines to {@code lineParser} through a {@link DeadlineCharSequence}, so its pattern
+     * matching is bounded by {@code deadline}. Without a deadline lines are passed through as is.
      */
-    protected abstract ParseResult parseText(String text);
-
-    protected List<String[]> rowsFromLines(List<String> lines) {
-        List<String[]> rows = new ArrayList<>();
-            for (String l : lines) {
-                // very small placeholder: split by tab, pipe or multiple spaces
-                String[] cols = l.split("\\t|\\||\\s{2,}");
-            rows.add(cols);
+    private static Consumer<CharSequence> guardedLines(StatementLineParser lineParser, ParseDeadline deadline) {
+        if (deadline == ParseDeadline.NONE) {
+            return lineParser::acceptLine;
         }
-        return rows;
+        DeadlineCharSequence guarded = new DeadlineCharSequence(deadline);
+        return line -> {
+            deadline.check();
+            lineParser.acceptLine(guarded.reset(line));
+        };
+    }
+
+    /**
+     * Create the bank-specific line parser for one statement.
+     *
+     * @param transactionSink receives each transaction as it is recognised; when {@code null} the
+     *                        transactions are collected on the statement DTO instead
+     * @param trace           receives the parser's matches; {@link ParseTrace#DISABLED} when unused
+     */
+    protected abstract StatementLineParser newLineParser(Consumer<Object> transactionSink, ParseTrace trace);
+
+    /**
+     * Columns of this format's transaction table, or {@code null} if transactions are only
+     * recognised in the text.
+     */
+    TableLayout getTableLayout() {
+        return null;
     }
 }
@@ -0,0 +1,418 @@
+package app.personal.parser;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentInformation;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.PDFTextStripperByArea;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+/**
+ * A PDF that has been loaded once for the lifetime of a single upload. The text layer is extracted
+ * lazily and cached, so raw-text access, full-text parsing and area parsing all share one loaded
+ * {@link PDDocument} and at most one full {@link PDFTextStripper} pass.
+ *
+ * <p>Not thread-safe; open one session per request and close it when done.</p>
+ */
+public class PdfDocumentSession implements AutoCloseable {
+
+    private final PdfSource source;
+    private final PDDocument document;
+    private final ParallelTextExtractor parallelExtractor;
+    private final TextStripperPool stripperPool = TextStripperPool.shared();
+    private ParseTrace trace = ParseTrace.DISABLED;
+    private ParseDeadline deadline = ParseDeadline.NONE;
+    private PageClassifier pageClassifier;
+    // per page, whether the classifier skipped it; null until the pages have been classified
+    private boolean[] skippedPages;
+    private int skippedPageCount;
+    private long classifyNanos;
+    // time and pages of the last full-text pass, for estimating what skipping saved
+    private long extractNanos;
+    private int extractedPages;
+    private String text;
+    // positioned lines for table reading, collected during the text pass
+    private List<TableExtractor.Line> tableLines;
+    private StatementFingerprint fingerprint;
+    // region text of the last profile extracted, kept so it can be stored after parsing
+    private CompiledProfile regionProfile;
+    private String regionText;
+
+    private PdfDocumentSession(PdfSource source, PDDocument document, ParallelTextExtractor parallelExtractor) {
+        this.source = source;
+        this.document = document;
+        this.parallelExtractor = parallelExtractor;
+    }
+
+    public static PdfDocumentSession open(File file) throws ParseException {
+        return open(file, null);
+    }
+
+    /**
+     * Open a session whose full-text extraction is spread over {@code parallelExtractor} when the
+     * document is large enough; pass {@code null} for plain sequential extraction. The file is
+     * read through a buffered handle that closes with the session.
+     */
+    public static PdfDocumentSession open(File file, ParallelTextExtractor parallelExtractor) throws ParseException {
+        PdfSource source;
+        try {
+            source = PdfSource.of(file.toPath());
+        } catch (IOException e) {
+            throw new ParseException("Failed to read PDF", e);
+        }
+        return open(source, parallelExtractor);
+    }
+
+    public static PdfDocumentSession open(PdfSource source) throws ParseException {
+        return open(source, null);
+    }
+
+    /**
+     * Open a session over PDF bytes in memory or in a file, without a temp copy.
+     */
+    public static PdfDocumentSession open(PdfSource source, ParallelTextExtractor parallelExtractor) throws ParseException {
+        return open(source, parallelExtractor, -1);
+    }
+
+    /**
+     * Open a session whose PDFBox buffers use at most {@code maxMainMemoryBytes} of heap before
+     * spilling to a temp scratch file, as a {@link ParseAdmission.Permit} prescribes; -1 for no
+     * limit.
+     */
+    public static PdfDocumentSession open(PdfSource source, ParallelTextExtractor parallelExtractor,
+                                          long maxMainMemoryBytes) throws ParseException {
+        try {
+            return new PdfDocumentSession(source, source.load(maxMainMemoryBytes), parallelExtractor);
+        } catch (IOException e) {
+            throw new ParseException("Failed to read PDF", e);
+        }
+    }
+
+    public ParseTrace getTrace() {
+        return trace;
+    }
+
+    /**
+     * Attach a trace that extraction and the parsers working on this session record into.
+     */
+    public void setTrace(ParseTrace trace) {
+        this.trace = trace == null ? ParseTrace.DISABLED : trace;
+    }
+
+    public ParseDeadline getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Bound extraction, and the parsers working on this session, by {@code deadline}. Once it has
+     * passed, extraction and parsing stop with a {@link ParseException.Reason#TIMEOUT} exception.
+     */
+    public void setDeadline(ParseDeadline deadline) {
+        this.deadline = deadline == null ? ParseDeadline.NONE : deadline;
+    }
+
+    public PageClassifier getPageClassifier() {
+        return pageClassifier;
+    }
+
+    /**
+     * Extract only the pages {@code pageClassifier} takes for header or transaction pages;
+     * {@code null} extracts every page. Applies to extraction not yet done, so set it right after
+     * opening the session.
+     */
+    public void setPageClassifier(PageClassifier pageClassifier) {
+        this.pageClassifier = pageClassifier;
+        this.skippedPages = null;
+        this.skippedPageCount = 0;
+    }
+
+    /**
+     * Number of pages left out of extraction by the page classifier, 0 until text is extracted.
+     */
+    public int getSkippedPageCount() {
+        return skippedPageCount;
+    }
+
+    /**
+     * Estimated extraction time saved by skipping pages: the skipped pages at the average cost of
+     * an extracted page in the full-text pass, less the time spent classifying. 0 until the text
+     * has been extracted; negative if classifying cost more than it saved.
+     */
+    public long getSavedNanos() {
+        if (skippedPages == null || extractedPages == 0) {
+            return 0;
+        }
+        return skippedPageCount * (extractNanos / extractedPages) - classifyNanos;
+    }
+
+    public int getPageCount() {
+        return document.getNumberOfPages();
+    }
+
+    /**
+     * Text layer of the whole document, extracted on first call and cached afterwards.
+     */
+    public String getText() throws ParseException {
+        if (text == null) {
+            long start = System.nanoTime();
+            try {
+                text = extractText();
+            } catch (ParseDeadline.Expired e) {
+                trace.timed("extract.timeout", start, null);
+                throw e.toParseException();
+            }
+            recordExtraction(start);
+            trace.timed("extract", start, extractedPages + " pages, " + text.length() + " chars");
+        }
+        return text;
+    }
+
+    /**
+     * Lines of positioned words on every page, for reading tables with a {@link TableLayout}. They
+     * are collected by the same pass that extracts the text, sequential or split over the parallel
+     * extractor's chunks. A glyph-only pass runs on first call only if the text has not been
+     * extracted yet or its pass had to fall back to page by page, so callers needing both should
+     * ask for the text first. Cached afterwards.
+     */
+    List<TableExtractor.Line> getTableLines() throws ParseException {
+        if (tableLines == null) {
+            TableExtractor tables = new TableExtractor();
+            long start = System.nanoTime();
+            try (PooledTextStripper stripper = stripperPool.borrowGlyphsOnly(deadline, tables, pageFilter())) {
+                stripper.writeText(document, Writer.nullWriter());
+                noteSkipped(stripper);
+            } catch (ParseDeadline.Expired e) {
+                trace.timed("extract.table.timeout", start, null);
+                throw e.toParseException();
+            } catch (IOException e) {
+                throw new ParseException("Failed to read PDF glyphs", e);
+            }
+            trace.timed("extract.table", start, tables.getLines().size() + " lines");
+            tableLines = tables.getLines();
+        }
+        return tableLines;
+    }
+
+    /**
+     * Stream the text layer line by line, extracting one page at a time so the document's text is
+     * never held in memory as a whole. A page that fails to extract is skipped and noted in the
+     * trace. If the text has already been extracted by {@link #getText()}, the cached copy is
+     * replayed instead.
+     */
+    public void streamText(Consumer<CharSequence> lineConsumer) throws ParseException {
+        if (text != null) {
+            TextLineWriter.forEachLine(text, lineConsumer);
+            return;
+        }
+
+        IntPredicate pages;
+        try {
+            pages = pageFilter();
+        } catch (ParseDeadline.Expired e) {
+            throw e.toParseException();
+        }
+        long start = System.nanoTime();
+        try (PooledTextStripper stripper = stripperPool.borrow(deadline, null, null);
+             TextLineWriter out = new TextLineWriter(lineConsumer)) {
+            for (int page = 1; page <= document.getNumberOfPages(); page++) {
+                if (pages != null && !pages.test(page)) {
+                    continue;
+                }
+                stripper.setStartPage(page);
+                stripper.setEndPage(page);
+                try {
+                    stripper.writeText(document, out);
+                } catch (ParseDeadline.Expired e) {
+                    trace.timed("extract.timeout", start, "page " + page);
+                    throw e.toParseException();
+                } catch (Exception e) {
+                    trace.note("extract.page-failed", "page " + page + ": " + e.getMessage());
+                }
+            }
+            noteSkipped(stripper);
+        } catch (IOException e) {
+            throw new ParseException("Failed to extract raw text", e);
+        }
+        recordExtraction(start);
+        trace.timed("extract.stream", start, extractedPages + " pages");
+    }
+
+    /**
+     * First-page text and document information, for format detection. Extracted on first call and
+     * cached; when the full text has not been extracted yet only page one is read.
+     */
+    public StatementFingerprint getFingerprint() throws ParseException {
+        if (fingerprint == null) {
+            String firstPage = "";
+            if (getPageCount() > 0) {
+                try (PooledTextStripper stripper = stripperPool.borrow(deadline, null, null)) {
+                    stripper.setStartPage(1);
+                    stripper.setEndPage(1);
+                    firstPage = stripper.getText(document);
+                    noteSkipped(stripper);
+                } catch (ParseDeadline.Expired e) {
+                    throw e.toParseException();
+                } catch (Exception e) {
+                    trace.note("extract.page-failed", "page 1: " + e.getMessage());
+                }
+            }
+            PDDocumentInformation info = document.getDocumentInformation();
+            fingerprint = new StatementFingerprint(firstPage, info.getTitle(), info.getProducer(),
+                    info.getCreator(), getPageCount());
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Text of the profile's regions on every page, in page order, one block per region separated
+     * by {@code ---} lines. Each page is read once; pages with no applicable regions, or skipped by
+     * the page classifier, are left out.
+     * Reuses the already loaded document, and the text of the last profile is cached.
+     */
+    public String getRegionText(CompiledProfile profile) throws ParseException {
+        if (profile == regionProfile) {
+            return regionText;
+        }
+        // one area stripper per distinct region set, with its regions added once
+        PDFTextStripperByArea[] strippers = new PDFTextStripperByArea[profile.getRegionSets().size()];
+        StringBuilder sb = new StringBuilder();
+        long start = System.nanoTime();
+        try {
+            IntPredicate pages = pageFilter();
+            for (int i = 0; i < getPageCount(); i++) {
+                deadline.check();
+                CompiledProfile.RegionSet set = profile.getRegionSet(i + 1);
+                if (set.isEmpty() || pages != null && !pages.test(i + 1)) {
+                    continue;
+                }
+                PDFTextStripperByArea stripper = strippers[set.getIndex()];
+                if (stripper == null) {
+                    stripper = new PDFTextStripperByArea();
+                    for (CompiledProfile.Region region : set.getRegions()) {
+                        stripper.addRegion(region.getName(), region.getRectangle());
+                    }
+                    strippers[set.getIndex()] = stripper;
+                }
+                stripper.extractRegions(document.getPage(i));
+                for (CompiledProfile.Region region : set.getRegions()) {
+                    sb.append(stripper.getTextForRegion(region.getName())).append("\n---\n");
+                }
+            }
+        } catch (ParseDeadline.Expired e) {
+            throw e.toParseException();
+        } catch (IOException e) {
+            throw new ParseException("Failed to read PDF by area", e);
+        }
+        trace.timed("extract.regions", start, profile.getName());
+        regionProfile = profile;
+        regionText = sb.toString();
+        return regionText;
+    }
+
+    private String extractText() throws ParseException {
+        IntPredicate pages = pageFilter();
+        if (parallelExtractor != null && parallelExtractor.shouldSplit(getPageCount())) {
+            trace.note("extract.parallel", parallelExtractor.getParallelism() + " workers");
+            ParallelTextExtractor.Chunk chunk = parallelExtractor.extract(source, getPageCount(), deadline, pages,
+                    trace, true);
+            tableLines = chunk.getTableLines();
+            return chunk.getText();
+        }
+
+        TableExtractor tables = new TableExtractor();
+        PooledTextStripper stripper;
+        try {
+            stripper = stripperPool.borrow(deadline, tables, pages);
+        } catch (IOException e) {
+            throw new ParseException("Failed to extract raw text", e);
+        }
+
+        try (stripper) {
+            String extracted = stripper.getText(document);
+            noteSkipped(stripper);
+            tableLines = tables.getLines();
+            return extracted;
+        } catch (ParseDeadline.Expired e) {
+            throw e;
+        } catch (Exception e) {
+            trace.note("extract.fallback", e.getMessage());
+            // Fallback: try to extract text page by page
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < document.getNumberOfPages(); i++) {
+                if (pages != null && !pages.test(i + 1)) {
+                    continue;
+                }
+                try {
+                    stripper.setStartPage(i + 1);
+                    stripper.setEndPage(i + 1);
+                    sb.append(stripper.getText(document)).append("\n");
+                } catch (ParseDeadline.Expired e2) {
+                    throw e2;
+                } catch (Exception e2) {
+                    trace.note("extract.page-failed", "page " + (i + 1) + ": " + e2.getMessage());
+                }
+            }
+            noteSkipped(stripper);
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Which pages to extract, classifying every page on first call; {@code null} when there is no
+     * classifier or it keeps every page. The pages are classified up front so that the result can
+     * be handed to the parallel extractor's worker threads.
+     */
+    private IntPredicate pageFilter() {
+        if (pageClassifier == null) {
+            return null;
+        }
+        if (skippedPages == null) {
+            long start = System.nanoTime();
+            boolean[] skipped = new boolean[getPageCount()];
+            int count = 0;
+            for (int i = 0; i < skipped.length; i++) {
+                deadline.check();
+                skipped[i] = !pageClassifier.isTransactionPage(document.getPage(i), i + 1);
+                if (skipped[i]) {
+                    count++;
+                }
+            }
+            classifyNanos = System.nanoTime() - start;
+            skippedPages = skipped;
+            skippedPageCount = count;
+            trace.timed("classify", start, count + " of " + skipped.length + " pages skipped");
+        }
+        if (skippedPageCount == 0) {
+            return null;
+        }
+        boolean[] skipped = skippedPages;
+        return page -> !skipped[page - 1];
+    }
+
+    // the stripper does not log the glyphs it could not process, they are statement text
+    private void noteSkipped(PooledTextStripper stripper) {
+        if (stripper.getSkippedCount() > 0) {
+            trace.note("extract.skipped", stripper.getSkippedCount() + " glyphs or strings, first "
+                    + stripper.getSkipReason());
+        }
+    }
+
+    private void recordExtraction(long start) {
+        extractNanos = System.nanoTime() - start;
+        extractedPages = getPageCount() - skippedPageCount;
+    }
+
+    @Override
+    public void close() {
+        try {
+            document.close();
+        } catch (IOException e) {
+            // nothing useful to do if releasing the document fails
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package app.personal.parser;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccessBufferedFileInputStream;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.ScratchFile;
+import org.apache.pdfbox.pdfparser.PDFParser;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * The bytes of a PDF, wherever they live: an in-memory upload or a file. PDFBox reads straight
+ * from the buffer, so an upload is never copied to a temp file just to be loaded, and the same
+ * bytes serve the magic check, hashing and every {@link PDDocument} opened on them (the
+ * {@link ParallelTextExtractor} opens one per chunk).
+ *
+ * <p>A file is not memory-mapped: a mapping is only released when it is garbage collected, and
+ * until then the file cannot be deleted on Windows and its disk space stays in use elsewhere.
+ * Every document reads it through its own buffered file handle instead, closed with the document,
+ * so the file can be deleted as soon as its documents are closed.</p>
+ *
+ * <p>Immutable and thread-safe; each load works on its own view of the buffer or file.</p>
+ */
+public final class PdfSource {
+
+    private static final byte[] MAGIC = {'%', 'P', 'D', 'F'};
+
+    // exactly one of buffer and file is set
+    private final ByteBuffer buffer;
+    private final Path file;
+    private final long length;
+
+    private PdfSource(ByteBuffer buffer) {
+        this.buffer = buffer.asReadOnlyBuffer();
+        this.file = null;
+        this.length = buffer.capacity();
+    }
+
+    private PdfSource(Path file, long length) {
+        this.buffer = null;
+        this.file = file;
+        this.length = length;
+    }
+
+    /**
+     * A source over {@code bytes}, which are not copied and must not be modified afterwards.
+     */
+    public static PdfSource of(byte[] bytes) {
+        return new PdfSource(ByteBuffer.wrap(bytes));
+    }
+
+    public static PdfSource of(ByteBuffer buffer) {
+        return new PdfSource(buffer.slice());
+    }
+
+    /**
+     * Read a whole stream into memory. Meant for streams known to be small.
+     */
+    public static PdfSource read(InputStream in) throws IOException {
+        return of(in.readAllBytes());
+    }
+
+    /**
+     * A source over a file, which must not change or be deleted while documents are open on it.
+     */
+    public static PdfSource of(Path file) throws IOException {
+        return new PdfSource(file, Files.size(file));
+    }
+
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Whether the bytes start with the {@code %PDF} header.
+     */
+    public boolean hasPdfMagic() throws IOException {
+        if (length < MAGIC.length) {
+            return false;
+        }
+        if (file != null) {
+            try (InputStream in = Files.newInputStream(file)) {
+                return Arrays.equals(in.readNBytes(MAGIC.length), MAGIC);
+            }
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (buffer.get(i) != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Feed all the bytes to {@code digest}.
+     */
+    public void update(MessageDigest digest) throws IOException {
+        if (file == null) {
+            digest.update(buffer.duplicate());
+            return;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] chunk = new byte[64 * 1024];
+            for (int n; (n = in.read(chunk)) > 0; ) {
+                digest.update(chunk, 0, n);
+            }
+        }
+    }
+
+    /**
+     * Parse a new document over the buffer, with PDFBox buffers on the heap. The caller owns and
+     * closes it.
+     */
+    PDDocument load() throws IOException {
+        return load(-1);
+    }
+
+    /**
+     * Parse a new document whose PDFBox buffers use at most {@code maxMainMemoryBytes} of heap
+     * and spill to a temp scratch file beyond that; -1 keeps everything on the heap.
+     */
+    PDDocument load(long maxMainMemoryBytes) throws IOException {
+        MemoryUsageSetting memory = maxMainMemoryBytes < 0 ? MemoryUsageSetting.setupMainMemoryOnly()
+                : MemoryUsageSetting.setupMixed(maxMainMemoryBytes);
+        RandomAccessRead input = file == null ? new ByteBufferRandomAccessRead(buffer.duplicate())
+                : new RandomAccessBufferedFileInputStream(file.toFile());
+        ScratchFile scratch = new ScratchFile(memory);
+        try {
+            PDFParser parser = new PDFParser(input, scratch);
+            parser.parse();
+            return parser.getPDDocument();
+        } catch (IOException | RuntimeException e) {
+            input.close();
+            scratch.close();
+            throw e;
+        }
+    }
+}
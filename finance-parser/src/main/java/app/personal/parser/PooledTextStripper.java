@@ -0,0 +1,186 @@
+package app.personal.parser;
+
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * The text stripper every extraction uses, borrowed from a {@link TextStripperPool} and returned by
+ * {@link #close()}. It skips glyphs or strings it cannot process instead of failing the whole
+ * document and counts them for the caller's trace, without logging their text. It sorts text by
+ * position and checks its deadline at every page and every few hundred glyphs. For one borrowing
+ * it can also hand every glyph to a {@link TableExtractor}, leave out pages, or collect glyphs
+ * only and write no text.
+ *
+ * <p>Not thread-safe: one thread uses a borrowed stripper until it closes it.</p>
+ */
+final class PooledTextStripper extends PDFTextStripper implements AutoCloseable {
+
+    private final TextStripperPool pool;
+    // processed on return, so the stripper forgets the last document's page, resources and fonts
+    private final PDPage blankPage = new PDPage();
+    private ParseDeadline deadline = ParseDeadline.NONE;
+    private TableExtractor tables;
+    private IntPredicate pages;
+    private boolean glyphsOnly;
+    private boolean borrowed;
+    private int uses;
+    private int glyphs;
+    private int skipped;
+    private String skipReason;
+
+    PooledTextStripper(TextStripperPool pool) throws IOException {
+        this.pool = pool;
+        setSortByPosition(true);
+        setAddMoreFormatting(false);
+        setSpacingTolerance(0.5f);
+    }
+
+    /**
+     * Set up for one borrowing: every page, checked against {@code deadline}.
+     *
+     * @param tables     receives every glyph; may be {@code null}
+     * @param pages      the 1-based page numbers to process; {@code null} for every page
+     * @param glyphsOnly only hand glyphs to {@code tables}, writing no text
+     */
+    void prepare(ParseDeadline deadline, TableExtractor tables, IntPredicate pages, boolean glyphsOnly) {
+        this.deadline = deadline;
+        this.tables = tables;
+        this.pages = pages;
+        this.glyphsOnly = glyphsOnly;
+        this.borrowed = true;
+        this.glyphs = 0;
+        this.skipped = 0;
+        this.skipReason = null;
+        this.uses++;
+        setStartPage(1);
+        setEndPage(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Number of times this stripper has been borrowed.
+     */
+    int getUses() {
+        return uses;
+    }
+
+    /**
+     * Glyphs and strings left out of the text since this stripper was borrowed, because PDFBox
+     * failed on them.
+     */
+    int getSkippedCount() {
+        return skipped;
+    }
+
+    /**
+     * Why the first of them was left out, without its text; {@code null} if none was.
+     */
+    String getSkipReason() {
+        return skipReason;
+    }
+
+    /**
+     * Drop every reference to the last document: the document and writer, the per-borrowing
+     * settings, and the current page and graphics state, which are replaced by those of an empty
+     * page.
+     *
+     * @return {@code false} if that failed and the stripper should not be used again
+     */
+    boolean scrub() {
+        deadline = ParseDeadline.NONE;
+        tables = null;
+        pages = null;
+        glyphsOnly = false;
+        skipReason = null;
+        try {
+            output = Writer.nullWriter();
+            setStartPage(getCurrentPageNo());
+            setEndPage(getCurrentPageNo());
+            super.processPage(blankPage);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            return false;
+        } finally {
+            document = null;
+            output = null;
+            charactersByArticle.clear();
+        }
+    }
+
+    /**
+     * Return the stripper to its pool. Further calls do nothing.
+     */
+    @Override
+    public void close() {
+        if (borrowed) {
+            borrowed = false;
+            pool.release(this);
+        }
+    }
+
+    @Override
+    public void processPage(PDPage page) throws IOException {
+        if (pages == null || pages.test(getCurrentPageNo())) {
+            super.processPage(page);
+        }
+    }
+
+    @Override
+    protected void startPage(PDPage page) throws IOException {
+        deadline.check();
+        super.startPage(page);
+    }
+
+    @Override
+    protected void processTextPosition(TextPosition text) {
+        if ((++glyphs & 0xFF) == 0) {
+            deadline.check();
+        }
+        if (tables != null) {
+            tables.add(text);
+        }
+        if (glyphsOnly) {
+            return;
+        }
+        try {
+            super.processTextPosition(text);
+        } catch (Exception e) {
+            skip("glyph", e);
+        }
+    }
+
+    @Override
+    protected void endPage(PDPage page) throws IOException {
+        if (tables != null) {
+            tables.endPage(getCurrentPageNo());
+        }
+        super.endPage(page);
+    }
+
+    @Override
+    protected void writeString(String text, List<TextPosition> textPositions) throws IOException {
+        try {
+            super.writeString(text, textPositions);
+        } catch (Exception e) {
+            skip("string", e);
+            // Try to write the text directly if possible
+            try {
+                output.write(text);
+            } catch (Exception e2) {
+                // Ignore if we can't even write directly
+            }
+        }
+    }
+
+    // the glyph or string is statement text, so only the failure is kept
+    private void skip(String what, Exception e) {
+        if (skipped++ == 0) {
+            skipReason = what + ": " + e;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package app.personal.parser;
+
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compiled {@link ParserProfile}s by name. A profile named {@code hdfc-profile} is read from
+ * {@code <directory>/hdfc-profile.yml} when a directory is configured and the file exists, and
+ * from the classpath resource {@code hdfc-profile.yml} otherwise.
+ *
+ * <p>Each profile is parsed and compiled once. File-backed profiles are re-checked at most once
+ * per {@code checkInterval}; when the file's modification time changed it is compiled again. A
+ * profile that fails to load keeps serving its previous version. Thread-safe.</p>
+ */
+public class ProfileCache {
+
+    private final Path directory;
+    private final long checkIntervalNanos;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param directory     directory of {@code <name>.yml} files overriding the classpath; may be null
+     * @param checkInterval minimum time between checks of a profile's file for changes
+     */
+    public ProfileCache(Path directory, Duration checkInterval) {
+        this.directory = directory;
+        this.checkIntervalNanos = checkInterval.toNanos();
+    }
+
+    /**
+     * @return the compiled profile, or {@code null} if no profile of that name exists or it has
+     * never loaded successfully
+     */
+    public CompiledProfile get(String name) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(name);
+        if (entry != null && now - entry.checkedAt < checkIntervalNanos) {
+            return entry.profile;
+        }
+        return entries.compute(name, (key, old) -> refresh(key, old, now)).profile;
+    }
+
+    private Entry refresh(String name, Entry old, long now) {
+        if (old != null && now - old.checkedAt < checkIntervalNanos) {
+            // another thread refreshed it while this one waited
+            return old;
+        }
+        Path file = null;
+        try {
+            file = resolveFile(name);
+            FileTime modified = file != null ? Files.getLastModifiedTime(file) : null;
+            if (old != null && old.file != null && old.file.equals(file) && Objects.equals(old.modified, modified)) {
+                return new Entry(old.profile, file, modified, now);
+            }
+            if (old != null && old.file == null && file == null) {
+                // classpath resource inside a jar, it cannot change
+                return new Entry(old.profile, null, null, now);
+            }
+
+            ParserProfile source = file != null ? load(file) : loadResource(name);
+            CompiledProfile compiled = source == null ? null : CompiledProfile.compile(name, source);
+            return new Entry(compiled, file, modified, now);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Warning: Failed to load parser profile " + name + ": " + e.getMessage());
+            return new Entry(old != null ? old.profile : null, old != null ? old.file : file,
+                    old != null ? old.modified : null, now);
+        }
+    }
+
+    /**
+     * The file a profile is read from: the configured directory first, then a classpath resource
+     * that lives on the file system (as in an exploded build). Null for jar resources.
+     */
+    private Path resolveFile(String name) {
+        if (directory != null) {
+            Path candidate = directory.resolve(name + ".yml");
+            if (Files.isRegularFile(candidate)) {
+                return candidate;
+            }
+        }
+        URL url = resourceUrl(name);
+        if (url != null && "file".equals(url.getProtocol())) {
+            try {
+                return Paths.get(url.toURI());
+            } catch (URISyntaxException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static URL resourceUrl(String name) {
+        return ProfileCache.class.getClassLoader().getResource(name + ".yml");
+    }
+
+    private static ParserProfile load(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return new Yaml().loadAs(reader, ParserProfile.class);
+        }
+    }
+
+    private static ParserProfile loadResource(String name) throws IOException {
+        URL url = resourceUrl(name);
+        if (url == null) {
+            return null;
+        }
+        try (InputStream is = url.openStream()) {
+            return new Yaml().loadAs(is, ParserProfile.class);
+        }
+    }
+
+    private static final class Entry {
+        private final CompiledProfile profile;
+        private final Path file;
+        private final FileTime modified;
+        private final long checkedAt;
+
+        private Entry(CompiledProfile profile, Path file, FileTime modified, long checkedAt) {
+            this.profile = profile;
+            this.file = file;
+            this.modified = modified;
+            this.checkedAt = checkedAt;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package app.personal.parser;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Small synthetic HDFC statements, laid out like the real ones (header fields, a table header row,
+ * one text run per cell, right-aligned amounts) and followed by a page of terms, so that parsing
+ * them runs detection, page classification, table reading and every field pattern. Built in memory
+ * with made-up data; used to warm up the parsers.
+ */
+final class SampleStatements {
+
+    private static final PDType1Font FONT = PDType1Font.HELVETICA;
+    private static final float FONT_SIZE = 8;
+    private static final int ROWS = 20;
+
+    private SampleStatements() {
+    }
+
+    // inside the transactions region of the bundled hdfc-profile.yml, so the area parse of an upload reads all of it
+    static byte[] creditCard() throws IOException {
+        try (PDDocument doc = new PDDocument()) {
+            PDPage page = new PDPage(PDRectangle.A4);
+            doc.addPage(page);
+            try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                float y = 620;
+                text(cs, 60, y, "HDFC Bank Credit Card Statement");
+                text(cs, 60, y -= 12, "Name : SAMPLE CARDHOLDER");
+                text(cs, 60, y -= 12, "Card No: 4000 12XX XXXX 0001");
+                text(cs, 60, y -= 12, "Statement Date:17/07/2025");
+                text(cs, 60, y -= 12, "Payment Due Date 06/08/2025");
+                text(cs, 60, y -= 12, "Credit Limit 100,000");
+                text(cs, 60, y -= 12, "Total 12,345.00");
+                text(cs, 60, y -= 12, "Minimum Amount Due 620.00");
+
+                text(cs, 60, y -= 24, "Domestic Transactions");
+                text(cs, 60, y -= 12, "Date");
+                text(cs, 120, y, "Transaction Description");
+                text(cs, 470, y, "Amount (in Rs.)");
+                for (int r = 0; r < ROWS; r++) {
+                    y -= 11;
+                    text(cs, 60, y, String.format("%02d/06/2025", r % 28 + 1));
+                    text(cs, 120, y, "MERCHANT " + r + " BENGALURU (Ref# " + (70000000 + r) + ")");
+                    String amount = (100 + r * 37) + "." + (r % 10) + "0" + (r % 5 == 4 ? " Cr" : "");
+                    rightAligned(cs, 540, y, amount);
+                }
+                text(cs, 60, y -= 24, "Important Information");
+            }
+            addTermsPage(doc);
+            return save(doc);
+        }
+    }
+
+    static byte[] savings() throws IOException {
+        try (PDDocument doc = new PDDocument()) {
+            PDPage page = new PDPage(PDRectangle.A4);
+            doc.addPage(page);
+            try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                float y = 800;
+                text(cs, 30, y, "HDFC BANK Ltd.");
+                text(cs, 30, y -= 12, "Account No : 50100000000001");
+                text(cs, 30, y -= 12, "Customer ID : 10000001");
+                text(cs, 30, y -= 12, "IFSC Code : HDFC0000001");
+                text(cs, 30, y -= 12, "Branch : SAMPLE BRANCH");
+                text(cs, 30, y -= 12, "Statement From : 01/06/2025 To : 30/06/2025");
+
+                y -= 24;
+                text(cs, 30, y, "Date");
+                text(cs, 80, y, "Narration");
+                text(cs, 250, y, "Chq./Ref.No.");
+                text(cs, 330, y, "Value Dt");
+                text(cs, 380, y, "Withdrawal Amt.");
+                text(cs, 450, y, "Deposit Amt.");
+                text(cs, 510, y, "Closing Balance");
+                long balance = 5_000_000;
+                for (int r = 0; r < ROWS; r++) {
+                    y -= 12;
+                    String date = String.format("%02d/06/25", r % 28 + 1);
+                    long amount = 10_000 + r * 1_234L;
+                    boolean deposit = r % 4 == 0;
+                    balance += deposit ? amount : -amount;
+                    text(cs, 30, y, date);
+                    text(cs, 80, y, (deposit ? "NEFT-SAMPLE PAYER " : "UPI-SAMPLE MERCHANT ") + r);
+                    text(cs, 250, y, String.valueOf(400000 + r));
+                    text(cs, 330, y, date);
+                    rightAligned(cs, deposit ? 500 : 440, y, money(amount));
+                    rightAligned(cs, 570, y, money(balance));
+                }
+            }
+            addTermsPage(doc);
+            return save(doc);
+        }
+    }
+
+    // cents as 1,234.56
+    private static String money(long cents) {
+        return String.format("%,d.%02d", cents / 100, cents % 100);
+    }
+
+    private static void addTermsPage(PDDocument doc) throws IOException {
+        PDPage page = new PDPage(PDRectangle.A4);
+        doc.addPage(page);
+        try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+            float y = 800;
+            text(cs, 30, y, "Terms and Conditions");
+            for (int r = 1; r <= ROWS; r++) {
+                text(cs, 30, y -= 12, "Clause " + r + ": the bank may revise these terms with notice.");
+            }
+        }
+    }
+
+    private static byte[] save(PDDocument doc) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        doc.save(out);
+        return out.toByteArray();
+    }
+
+    private static void text(PDPageContentStream cs, float x, float y, String s) throws IOException {
+        cs.beginText();
+        cs.setFont(FONT, FONT_SIZE);
+        cs.newLineAtOffset(x, y);
+        cs.showText(s);
+        cs.endText();
+    }
+
+    private static void rightAligned(PDPageContentStream cs, float right, float y, String s) throws IOException {
+        text(cs, right - FONT.getStringWidth(s) / 1000 * FONT_SIZE, y, s);
+    }
+}
@@ -0,0 +1,42 @@
+package app.personal.parser;
+
+/**
+ * What format detection gets to look at: the text of the first page and the document information
+ * entries. Building one costs a single-page extraction, never a full parse.
+ */
+public final class StatementFingerprint {
+
+    private final String firstPageText;
+    private final String title;
+    private final String producer;
+    private final String creator;
+    private final int pageCount;
+
+    public StatementFingerprint(String firstPageText, String title, String producer, String creator, int pageCount) {
+        this.firstPageText = firstPageText == null ? "" : firstPageText;
+        this.title = title;
+        this.producer = producer;
+        this.creator = creator;
+        this.pageCount = pageCount;
+    }
+
+    public String getFirstPageText() {
+        return firstPageText;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getProducer() {
+        return producer;
+    }
+
+    public String getCreator() {
+        return creator;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+}
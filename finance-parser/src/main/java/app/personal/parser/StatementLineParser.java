@@ -0,0 +1,29 @@
+package app.personal.parser;
+
+/**
+ * Incremental, line-at-a-time parse of one statement. Lines are fed in document order; each
+ * transaction is handed on as soon as its line is recognised, and {@link #finish()} builds the
+ * result once the text is exhausted.
+ */
+interface StatementLineParser {
+
+    /**
+     * @param line one line of extracted text without its terminator; only valid during the call
+     */
+    void acceptLine(CharSequence line);
+
+    /**
+     * Take transactions from the rows of the document's transaction table instead of recognising
+     * them in the text. Called before the first line; lines are then read for statement fields only,
+     * and the rows follow the last line through {@link #acceptRow}.
+     */
+    void useTableRows();
+
+    /**
+     * One row of the transaction table, see {@link TableLayout}. Rows that are not transactions,
+     * such as headings inside the table, are skipped.
+     */
+    void acceptRow(TableLayout.Row row);
+
+    ParseResult finish();
+}
@@ -0,0 +1,44 @@
+package app.personal.parser;
+
+/**
+ * Entry in the {@link ParserRegistry}. Implementations are discovered with
+ * {@link java.util.ServiceLoader} and listed in
+ * {@code META-INF/services/app.personal.parser.StatementParserProvider}.
+ *
+ * <p>A provider must be cheap to construct: it should not build its parser, or load anything the
+ * parser needs, until {@link #getParser()} is first called.</p>
+ */
+public interface StatementParserProvider {
+
+    /**
+     * Stable identifier, also accepted by the upload endpoints as the {@code bank} parameter.
+     */
+    String getId();
+
+    /**
+     * Whether the document looks like a statement this provider's parser understands. Only the
+     * fingerprint may be inspected, so detection never pays for a full extraction.
+     */
+    boolean matches(StatementFingerprint fingerprint);
+
+    /**
+     * The parser, created on first use and shared afterwards. Parsers are stateless between calls.
+     */
+    BankStatementParser getParser();
+
+    /**
+     * Version of the parser's output. Cached parse results are keyed by it, so bump it whenever a
+     * change to the parser would produce a different result for the same document.
+     */
+    default String getVersion() {
+        return "1";
+    }
+
+    /**
+     * Name of the {@link ParserProfile} whose regions this parser reads, resolved through a
+     * {@link ProfileCache}, or {@code null} when it parses the full text.
+     */
+    default String getProfileName() {
+        return null;
+    }
+}
@@ -0,0 +1,280 @@
+package app.personal.parser;
+
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Groups the glyphs of each page into lines of positioned words, the input for reading a table by
+ * column with a {@link TableLayout}. Glyphs are taken straight from the {@link TextPosition}s
+ * PDFBox reports while it runs the content stream: a line is every glyph within half a glyph
+ * height of the line's first baseline, ordered by x, and a word ends at a space glyph or a gap.
+ * Unlike the text of {@link PDFTextStripper#setSortByPosition(boolean)} this keeps the x extent of
+ * every word. It does not replace that pass, the text is still needed for the statement fields;
+ * grouping rides on it, so a table costs a sort of each page's glyphs rather than a second pass.
+ *
+ * <p>{@link PdfDocumentSession} feeds one from its sequential text pass, and the
+ * {@link ParallelTextExtractor} one per chunk. Only when the text came from elsewhere, or its pass
+ * fell back to page by page, does a glyph-only pass of a {@link PooledTextStripper} feed it.
+ * Not thread-safe.</p>
+ */
+final class TableExtractor {
+
+    private static final Comparator<Glyph> BY_Y = Comparator.comparingDouble(g -> g.y);
+    private static final Comparator<Glyph> BY_X = Comparator.comparingDouble(g -> g.x);
+
+    // PDFBox's own word break: half a space, or less for narrow glyphs
+    private static final float SPACING_TOLERANCE = 0.5f;
+    private static final float CHAR_WIDTH_TOLERANCE = 0.3f;
+
+    private final List<Glyph> pageGlyphs = new ArrayList<>();
+    private final List<Line> lines = new ArrayList<>();
+
+    void add(TextPosition text) {
+        String unicode = text.getUnicode();
+        if (unicode == null || unicode.isEmpty()) {
+            return;
+        }
+        pageGlyphs.add(new Glyph(text.getXDirAdj(), text.getYDirAdj(), text.getWidthDirAdj(),
+                text.getHeightDir(), text.getWidthOfSpace(), unicode));
+    }
+
+    /**
+     * Turn the glyphs added since the last call into the lines of {@code page}.
+     */
+    void endPage(int page) {
+        pageGlyphs.sort(BY_Y);
+        int from = 0;
+        while (from < pageGlyphs.size()) {
+            Glyph first = pageGlyphs.get(from);
+            float tolerance = first.height * 0.5f;
+            int to = from + 1;
+            while (to < pageGlyphs.size() && pageGlyphs.get(to).y - first.y <= tolerance) {
+                to++;
+            }
+            Line line = toLine(page, first.y, new ArrayList<>(pageGlyphs.subList(from, to)));
+            if (line != null) {
+                lines.add(line);
+            }
+            from = to;
+        }
+        pageGlyphs.clear();
+    }
+
+    /**
+     * Lines of every page ended so far, in page order and top to bottom within a page.
+     */
+    List<Line> getLines() {
+        return Collections.unmodifiableList(lines);
+    }
+
+    // null for a line of spaces only
+    private static Line toLine(int page, float y, List<Glyph> glyphs) {
+        glyphs.sort(BY_X);
+        List<Word> words = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        Glyph previous = null;
+        float x0 = 0;
+        float x1 = 0;
+        float height = 0;
+        float spaceWidth = 0;
+        int spaces = 0;
+        int spacesBefore = 0;
+        for (Glyph g : glyphs) {
+            if (g.isSpace()) {
+                if (text.length() > 0) {
+                    words.add(new Word(text.toString(), x0, x1, spaceWidth, spacesBefore));
+                    text.setLength(0);
+                }
+                spaces++;
+                continue;
+            }
+            if (text.length() > 0) {
+                if (g.duplicates(previous)) {
+                    // overprinted for a bold effect
+                    continue;
+                }
+                if (g.x - x1 > wordGap(previous, g)) {
+                    words.add(new Word(text.toString(), x0, x1, spaceWidth, spacesBefore));
+                    text.setLength(0);
+                }
+            }
+            if (text.length() == 0) {
+                x0 = g.x;
+                x1 = g.x;
+                spaceWidth = g.spaceWidth;
+                spacesBefore = spaces;
+                spaces = 0;
+            }
+            text.append(g.unicode);
+            x1 = Math.max(x1, g.x + g.width);
+            height = Math.max(height, g.height);
+            previous = g;
+        }
+        if (text.length() > 0) {
+            words.add(new Word(text.toString(), x0, x1, spaceWidth, spacesBefore));
+        }
+        return words.isEmpty() ? null : new Line(page, y, height, words);
+    }
+
+    private static float wordGap(Glyph previous, Glyph next) {
+        float spaceWidth = previous.spaceWidth > 0 ? previous.spaceWidth : next.spaceWidth;
+        float charWidth = (previous.width + next.width) / 2;
+        if (spaceWidth <= 0) {
+            return charWidth * CHAR_WIDTH_TOLERANCE;
+        }
+        return Math.min(spaceWidth * SPACING_TOLERANCE, charWidth * CHAR_WIDTH_TOLERANCE);
+    }
+
+    /**
+     * One line of a page: its words left to right.
+     */
+    static final class Line {
+        private final int page;
+        private final float y;
+        private final float height;
+        private final List<Word> words;
+
+        Line(int page, float y, float height, List<Word> words) {
+            this.page = page;
+            this.y = y;
+            this.height = height;
+            this.words = words;
+        }
+
+        int getPage() {
+            return page;
+        }
+
+        /**
+         * Baseline, growing down the page.
+         */
+        float getY() {
+            return y;
+        }
+
+        /**
+         * Height of the tallest glyph.
+         */
+        float getHeight() {
+            return height;
+        }
+
+        List<Word> getWords() {
+            return words;
+        }
+
+        /**
+         * The words joined by the spaces drawn between them, or one space where there was only a gap.
+         */
+        String getText() {
+            StringBuilder sb = new StringBuilder();
+            for (Word word : words) {
+                word.appendTo(sb);
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public String toString() {
+            return "page " + page + " y=" + y + ": " + getText();
+        }
+    }
+
+    /**
+     * A run of non-space glyphs and its horizontal extent.
+     */
+    static final class Word {
+        private final String text;
+        private final float x0;
+        private final float x1;
+        private final float spaceWidth;
+        private final int spacesBefore;
+
+        Word(String text, float x0, float x1, float spaceWidth, int spacesBefore) {
+            this.text = text;
+            this.x0 = x0;
+            this.x1 = x1;
+            this.spaceWidth = spaceWidth;
+            this.spacesBefore = spacesBefore;
+        }
+
+        String getText() {
+            return text;
+        }
+
+        float getX0() {
+            return x0;
+        }
+
+        float getX1() {
+            return x1;
+        }
+
+        /**
+         * Width of a space in the word's font.
+         */
+        float getSpaceWidth() {
+            return spaceWidth;
+        }
+
+        float getCenter() {
+            return (x0 + x1) / 2;
+        }
+
+        /**
+         * Space glyphs between this word and the previous one on its line; 0 if only a gap
+         * separates them.
+         */
+        int getSpacesBefore() {
+            return spacesBefore;
+        }
+
+        // append to text that already holds the previous word, with the spacing drawn between them
+        void appendTo(StringBuilder sb) {
+            if (sb.length() > 0) {
+                for (int i = Math.max(1, spacesBefore); i > 0; i--) {
+                    sb.append(' ');
+                }
+            }
+            sb.append(text);
+        }
+    }
+
+    private static final class Glyph {
+        private final float x;
+        private final float y;
+        private final float width;
+        private final float height;
+        private final float spaceWidth;
+        private final String unicode;
+
+        private Glyph(float x, float y, float width, float height, float spaceWidth, String unicode) {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+            this.spaceWidth = spaceWidth;
+            this.unicode = unicode;
+        }
+
+        private boolean isSpace() {
+            for (int i = 0; i < unicode.length(); i++) {
+                if (!Character.isWhitespace(unicode.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean duplicates(Glyph other) {
+            return unicode.equals(other.unicode)
+                    && Math.abs(x - other.x) < width * 0.25f
+                    && Math.abs(y - other.y) < height * 0.25f;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package app.personal.parser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Reads a statement's transaction table from the positioned lines of a {@link TableExtractor}.
+ * Columns are learned from the header row: a line whose labels name every required column. Each
+ * label is a run of words at most a few spaces apart, typed by its keywords ("Date",
+ * "Narration", "Withdrawal Amt." ...), and the boundary between two columns is halfway between
+ * their labels. Every word of a later line belongs to the column its center falls into, so a
+ * description can never swallow an amount or the other way round.
+ *
+ * <p>A line without a date or amounts just below a row continues that row's description and
+ * reference, as wrapped narrations do. The table ends at a line matching the end marker; a header
+ * on a later page, repeated or different, sets the columns again. Rows are handed on as they are:
+ * whether a row is a transaction is up to the parser.</p>
+ *
+ * <p>Immutable and thread-safe; build one per parser class and share it.</p>
+ */
+final class TableLayout {
+
+    /**
+     * What a column holds, as named by its header label.
+     */
+    enum Column {
+        DATE, DESCRIPTION, REFERENCE, VALUE_DATE, DEBIT, CREDIT, AMOUNT, BALANCE
+    }
+
+    // a continuation line sits at most this many line heights below the row it continues
+    private static final float CONTINUATION_LINES = 2.5f;
+    // words in one header label are at most this many space widths apart
+    private static final float LABEL_GAP_SPACES = 2.5f;
+
+    private final Set<Column> required;
+    private final Pattern endMarker;
+
+    /**
+     * @param required  columns a header row must name
+     * @param endMarker pattern found in the first line after the table, or {@code null}
+     */
+    TableLayout(Set<Column> required, Pattern endMarker) {
+        this.required = EnumSet.copyOf(required);
+        this.endMarker = endMarker;
+    }
+
+    /**
+     * @return the rows of every table found, in document order, or {@code null} if no line is a
+     *         header row, in which case the document's transactions have to be found in its text
+     */
+    List<Row> read(List<TableExtractor.Line> lines) {
+        List<Row> rows = null;
+        Header header = null;
+        Row last = null;
+        for (TableExtractor.Line line : lines) {
+            Header found = header(line);
+            if (found != null) {
+                header = found;
+                last = null;
+                if (rows == null) {
+                    rows = new ArrayList<>();
+                }
+                continue;
+            }
+            if (header == null) {
+                continue;
+            }
+            if (endMarker != null && endMarker.matcher(line.getText()).find()) {
+                header = null;
+                continue;
+            }
+            Row row = header.split(line);
+            if (row.isContinuationOf(last)) {
+                last.append(row);
+            } else {
+                rows.add(row);
+                last = row;
+            }
+        }
+        return rows;
+    }
+
+    // the line's columns, if it is a header row naming every required column
+    private Header header(TableExtractor.Line line) {
+        List<TableExtractor.Word> words = line.getWords();
+        List<Column> columns = new ArrayList<>();
+        List<float[]> extents = new ArrayList<>();
+        StringBuilder label = new StringBuilder();
+        float x0 = 0;
+        float x1 = 0;
+        for (int i = 0; i <= words.size(); i++) {
+            TableExtractor.Word word = i < words.size() ? words.get(i) : null;
+            if (label.length() > 0 && (word == null || word.getX0() - x1 > LABEL_GAP_SPACES * word.getSpaceWidth())) {
+                Column column = labelColumn(label);
+                columns.add(columns.contains(column) ? null : column);
+                extents.add(new float[] {x0, x1});
+                label.setLength(0);
+            }
+            if (word == null) {
+                break;
+            }
+            if (label.length() == 0) {
+                x0 = word.getX0();
+            } else {
+                label.append(' ');
+            }
+            label.append(word.getText().toLowerCase(Locale.ROOT));
+            x1 = word.getX1();
+        }
+        if (!columns.containsAll(required)) {
+            return null;
+        }
+        float[] bounds = new float[columns.size() - 1];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = (extents.get(i)[1] + extents.get(i + 1)[0]) / 2;
+        }
+        return new Header(columns.toArray(new Column[0]), bounds);
+    }
+
+    private static Column labelColumn(CharSequence label) {
+        String s = label.toString();
+        if (s.contains("value") && (s.contains("dt") || s.contains("date"))) {
+            return Column.VALUE_DATE;
+        }
+        if (s.contains("date")) {
+            return Column.DATE;
+        }
+        if (s.contains("withdrawal") || s.contains("debit")) {
+            return Column.DEBIT;
+        }
+        if (s.contains("deposit") || s.contains("credit")) {
+            return Column.CREDIT;
+        }
+        if (s.contains("balance")) {
+            return Column.BALANCE;
+        }
+        if (s.contains("description") || s.contains("narration") || s.contains("particulars")
+                || s.contains("details")) {
+            return Column.DESCRIPTION;
+        }
+        if (s.contains("ref") || s.contains("chq") || s.contains("cheque")) {
+            return Column.REFERENCE;
+        }
+        if (s.contains("amount")) {
+            return Column.AMOUNT;
+        }
+        return null;
+    }
+
+    private static final class Header {
+        // column of each label left to right, null for labels that are not of interest
+        private final Column[] columns;
+        // x boundary between column i and i + 1
+        private final float[] bounds;
+
+        private Header(Column[] columns, float[] bounds) {
+            this.columns = columns;
+            this.bounds = bounds;
+        }
+
+        private Row split(TableExtractor.Line line) {
+            Map<Column, StringBuilder> cells = new EnumMap<>(Column.class);
+            for (TableExtractor.Word word : line.getWords()) {
+                int i = 0;
+                while (i < bounds.length && word.getCenter() > bounds[i]) {
+                    i++;
+                }
+                if (columns[i] != null) {
+                    word.appendTo(cells.computeIfAbsent(columns[i], c -> new StringBuilder()));
+                }
+            }
+            Map<Column, String> text = new EnumMap<>(Column.class);
+            cells.forEach((column, sb) -> text.put(column, sb.toString()));
+            return new Row(line, text);
+        }
+    }
+
+    /**
+     * One line of a table, or several when a description wrapped: the text of each column.
+     */
+    static final class Row {
+        private final int page;
+        private final float y;
+        private final float height;
+        private final Map<Column, String> cells;
+
+        Row(TableExtractor.Line line, Map<Column, String> cells) {
+            this.page = line.getPage();
+            this.y = line.getY();
+            this.height = line.getHeight();
+            this.cells = cells;
+        }
+
+        int getPage() {
+            return page;
+        }
+
+        /**
+         * Text of a column, empty if the row has nothing in it.
+         */
+        String getText(Column column) {
+            String text = cells.get(column);
+            return text == null ? "" : text;
+        }
+
+        boolean has(Column column) {
+            return cells.containsKey(column);
+        }
+
+        Map<Column, String> getCells() {
+            return Collections.unmodifiableMap(cells);
+        }
+
+        private boolean isContinuationOf(Row previous) {
+            if (previous == null || previous.page != page || y - previous.y > CONTINUATION_LINES * previous.height) {
+                return false;
+            }
+            for (Column column : cells.keySet()) {
+                if (column != Column.DESCRIPTION && column != Column.REFERENCE) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void append(Row continuation) {
+            continuation.cells.forEach((column, text) -> cells.merge(column, text, (a, b) -> a + " " + b));
+        }
+
+        @Override
+        public String toString() {
+            return "page " + page + " " + cells;
+        }
+    }
+}
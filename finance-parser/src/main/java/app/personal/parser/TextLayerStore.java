@@ -0,0 +1,375 @@
+package app.personal.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Append-only store of extracted text layers, so statements can be parsed again after a parser
+ * fix without re-reading their PDFs. Text is deflate-compressed and appended to segment files of
+ * at most {@code segmentBytes}; reads go through a read-only memory mapping of the segment.
+ *
+ * <p>A record is keyed by a caller-chosen string, typically the document hash plus the kind of
+ * text (full text or the regions of a profile version), and remembers the parser it was extracted
+ * for. Writing an existing key again is a no-op: the text of a document does not change. The index
+ * lives in memory and is rebuilt by scanning the segments on {@link #open}; a record cut short by
+ * a crash is dropped and the segment truncated to the last complete record.</p>
+ *
+ * <p>Record layout: magic, key, parser id, text length, compressed length, CRC-32 of the compressed
+ * bytes, compressed bytes. Strings are a 2-byte length followed by UTF-8. Thread-safe.</p>
+ */
+public class TextLayerStore implements Closeable {
+
+    private static final int MAGIC = 0x544C5331; // "TLS1"
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final List<Segment> segments = new ArrayList<>();
+    // key -> location of its record, in insertion order
+    private final Map<String, Location> index = new LinkedHashMap<>();
+    private long storedBytes;
+    private long textBytes;
+
+    private TextLayerStore(Path directory, long segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * Open the store in {@code directory}, creating it if needed.
+     *
+     * @param segmentBytes size after which a new segment file is started, at most 2GB
+     */
+    public static TextLayerStore open(Path directory, long segmentBytes) throws IOException {
+        if (segmentBytes <= 0 || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("segmentBytes must be between 1 and " + Integer.MAX_VALUE);
+        }
+        Files.createDirectories(directory);
+        TextLayerStore store = new TextLayerStore(directory, segmentBytes);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(null);
+        for (Path file : files) {
+            store.segments.add(store.scan(file));
+        }
+        return store;
+    }
+
+    // index every complete record of a segment and cut off a torn tail
+    private Segment scan(Path file) throws IOException {
+        Segment segment = new Segment(file);
+        long size = segment.channel.size();
+        ByteBuffer buffer = size == 0 ? ByteBuffer.allocate(0)
+                : segment.channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        int offset = 0;
+        while (offset < size) {
+            Header header = readHeader(buffer, offset);
+            if (header == null || header.dataOffset + header.compressedLength > size
+                    || crc(buffer, header.dataOffset, header.compressedLength) != header.crc) {
+                System.err.println("Warning: Truncating text layer segment " + file + " at byte " + offset);
+                segment.channel.truncate(offset);
+                break;
+            }
+            index.put(header.key, new Location(segment, offset, header.parserId));
+            storedBytes += header.compressedLength;
+            textBytes += header.textLength;
+            offset = header.dataOffset + header.compressedLength;
+        }
+        segment.size = offset;
+        return segment;
+    }
+
+    /**
+     * Store the text of {@code key} unless it is already present.
+     *
+     * @return whether a record was written
+     */
+    public synchronized boolean put(String key, String parserId, String text) throws IOException {
+        if (index.containsKey(key)) {
+            return false;
+        }
+        byte[] textUtf8 = text.getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = deflate(textUtf8);
+        byte[] keyUtf8 = key.getBytes(StandardCharsets.UTF_8);
+        byte[] parserUtf8 = parserId.getBytes(StandardCharsets.UTF_8);
+        if (keyUtf8.length > 0xFFFF || parserUtf8.length > 0xFFFF) {
+            throw new IllegalArgumentException("key and parser id must be shorter than 64KB");
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(4 + 2 + keyUtf8.length + 2 + parserUtf8.length + 12 + compressed.length);
+        record.putInt(MAGIC);
+        record.putShort((short) keyUtf8.length).put(keyUtf8);
+        record.putShort((short) parserUtf8.length).put(parserUtf8);
+        record.putInt(textUtf8.length);
+        record.putInt(compressed.length);
+        CRC32 crc = new CRC32();
+        crc.update(compressed);
+        record.putInt((int) crc.getValue());
+        record.put(compressed);
+        record.flip();
+
+        Segment segment = activeSegment(record.remaining());
+        long offset = segment.size;
+        while (record.hasRemaining()) {
+            segment.channel.write(record, segment.size + record.position());
+        }
+        segment.size += record.limit();
+        index.put(key, new Location(segment, offset, parserId));
+        storedBytes += compressed.length;
+        textBytes += textUtf8.length;
+        return true;
+    }
+
+    private Segment activeSegment(int recordBytes) throws IOException {
+        Segment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (last == null || last.size > 0 && last.size + recordBytes > segmentBytes) {
+            Path file = directory.resolve(String.format("%s%05d%s", SEGMENT_PREFIX, segments.size() + 1, SEGMENT_SUFFIX));
+            last = new Segment(file);
+            segments.add(last);
+        }
+        return last;
+    }
+
+    public synchronized boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    /**
+     * Keys of every stored text layer, oldest first.
+     */
+    public synchronized List<String> getKeys() {
+        return new ArrayList<>(index.keySet());
+    }
+
+    /**
+     * @return the stored layer, or {@code null} if {@code key} is not in the store
+     */
+    public Layer get(String key) throws IOException {
+        Location location;
+        ByteBuffer buffer;
+        synchronized (this) {
+            location = index.get(key);
+            if (location == null) {
+                return null;
+            }
+            buffer = location.segment.mapped();
+        }
+        Header header = readHeader(buffer, location.offset);
+        if (header == null) {
+            throw new IOException("Corrupt text layer record for " + key);
+        }
+        byte[] text = inflate(buffer.slice(header.dataOffset, header.compressedLength), header.textLength);
+        return new Layer(key, location.parserId, new String(text, StandardCharsets.UTF_8));
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Compressed bytes held across all segments, excluding record headers.
+     */
+    public synchronized long getStoredBytes() {
+        return storedBytes;
+    }
+
+    /**
+     * UTF-8 size of all stored text before compression.
+     */
+    public synchronized long getTextBytes() {
+        return textBytes;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments) {
+            segment.channel.close();
+        }
+        segments.clear();
+        index.clear();
+    }
+
+    private static Header readHeader(ByteBuffer buffer, int offset) {
+        int limit = buffer.limit();
+        if (offset + 6 > limit || buffer.getInt(offset) != MAGIC) {
+            return null;
+        }
+        int pos = offset + 4;
+        int keyLength = Short.toUnsignedInt(buffer.getShort(pos));
+        pos += 2;
+        if (pos + keyLength + 2 > limit) {
+            return null;
+        }
+        String key = utf8(buffer, pos, keyLength);
+        pos += keyLength;
+        int parserLength = Short.toUnsignedInt(buffer.getShort(pos));
+        pos += 2;
+        if (pos + parserLength + 12 > limit) {
+            return null;
+        }
+        String parserId = utf8(buffer, pos, parserLength);
+        pos += parserLength;
+        int textLength = buffer.getInt(pos);
+        int compressedLength = buffer.getInt(pos + 4);
+        int crc = buffer.getInt(pos + 8);
+        if (textLength < 0 || compressedLength < 0) {
+            return null;
+        }
+        return new Header(key, parserId, textLength, compressedLength, crc, pos + 12);
+    }
+
+    private static String utf8(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int crc(ByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            // statement text compresses well; start small and grow
+            byte[] out = new byte[Math.max(64, input.length / 4)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                length += deflater.deflate(out, length, out.length - length);
+            }
+            return Arrays.copyOf(out, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(ByteBuffer compressed, int textLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] out = new byte[textLength];
+            int length = 0;
+            while (length < textLength && !inflater.finished()) {
+                int n = inflater.inflate(out, length, textLength - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += n;
+            }
+            if (length != textLength) {
+                throw new IOException("Text layer record is shorter than recorded");
+            }
+            return out;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt text layer record", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * One stored text layer.
+     */
+    public static class Layer {
+        private final String key;
+        private final String parserId;
+        private final String text;
+
+        private Layer(String key, String parserId, String text) {
+            this.key = key;
+            this.parserId = parserId;
+            this.text = text;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * Registry id of the parser the text was extracted for.
+         */
+        public String getParserId() {
+            return parserId;
+        }
+
+        public String getText() {
+            return text;
+        }
+    }
+
+    private static final class Segment {
+        private final FileChannel channel;
+        private long size;
+        private MappedByteBuffer mapping;
+
+        private Segment(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        }
+
+        // a mapping covering every record written so far; remapped once the segment has grown
+        private MappedByteBuffer mapped() throws IOException {
+            if (mapping == null || mapping.capacity() < size) {
+                mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            return mapping;
+        }
+    }
+
+    private static final class Location {
+        private final Segment segment;
+        private final int offset;
+        private final String parserId;
+
+        private Location(Segment segment, long offset, String parserId) {
+            this.segment = segment;
+            this.offset = (int) offset;
+            this.parserId = parserId;
+        }
+    }
+
+    private static final class Header {
+        private final String key;
+        private final String parserId;
+        private final int textLength;
+        private final int compressedLength;
+        private final int crc;
+        private final int dataOffset;
+
+        private Header(String key, String parserId, int textLength, int compressedLength, int crc, int dataOffset) {
+            this.key = key;
+            this.parserId = parserId;
+            this.textLength = textLength;
+            this.compressedLength = compressedLength;
+            this.crc = crc;
+            this.dataOffset = dataOffset;
+        }
+    }
+}
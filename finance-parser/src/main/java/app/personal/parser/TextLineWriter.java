@@ -0,0 +1,75 @@
+package app.personal.parser;
+
+import java.io.Writer;
+import java.util.function.Consumer;
+
+/**
+ * Writer that splits everything written to it into lines and hands each completed line to a
+ * consumer. A line whose pieces arrive in separate writes (for example across a page boundary) is
+ * carried over until its terminator arrives, so only one partial line is ever buffered.
+ *
+ * <p>The {@link CharSequence} passed to the consumer is reused and only valid for the duration of
+ * the call.</p>
+ */
+final class TextLineWriter extends Writer {
+
+    private final Consumer<CharSequence> lineConsumer;
+    private final StringBuilder line = new StringBuilder(256);
+
+    TextLineWriter(Consumer<CharSequence> lineConsumer) {
+        this.lineConsumer = lineConsumer;
+    }
+
+    /**
+     * Feed an in-memory text through the same line splitting used for streamed extraction.
+     */
+    static void forEachLine(CharSequence text, Consumer<CharSequence> lineConsumer) {
+        TextLineWriter writer = new TextLineWriter(lineConsumer);
+        for (int i = 0; i < text.length(); i++) {
+            writer.accept(text.charAt(i));
+        }
+        writer.close();
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            accept(cbuf[i]);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            accept(str.charAt(i));
+        }
+    }
+
+    private void accept(char c) {
+        if (c == '\n') {
+            emitLine();
+        } else if (c != '\r') {
+            line.append(c);
+        }
+    }
+
+    private void emitLine() {
+        lineConsumer.accept(line);
+        line.setLength(0);
+    }
+
+    @Override
+    public void flush() {
+        // lines are emitted as soon as they are complete
+    }
+
+    /**
+     * Emits the trailing line if the text did not end with a line terminator.
+     */
+    @Override
+    public void close() {
+        if (line.length() > 0) {
+            emitLine();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package app.personal.parser;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntPredicate;
+
+/**
+ * Reusable text strippers. Building a PDFBox stripper registers its content stream operators and
+ * sets up its page and text state, and an upload used to build several: one for detection, one
+ * for the text, one per parallel chunk. Strippers are borrowed here instead and returned when
+ * closed, scrubbed of the document they read.
+ *
+ * <p>At most {@code maxIdle} strippers are kept; under a burst more are created and the surplus is
+ * dropped when returned. A stripper is retired after {@code maxUses} borrowings, because PDFBox
+ * caches font heights per font dictionary inside the stripper and never clears that cache, so a
+ * stripper that lived forever would keep every font it has seen.</p>
+ *
+ * <p>Thread-safe; {@link #shared()} is the pool sessions and the parallel extractor use.</p>
+ */
+public class TextStripperPool {
+
+    private static final TextStripperPool SHARED =
+            new TextStripperPool(2 * Runtime.getRuntime().availableProcessors(), 64);
+
+    private final int maxIdle;
+    private final int maxUses;
+    private final ConcurrentLinkedQueue<PooledTextStripper> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder creations = new LongAdder();
+    private final LongAdder retirements = new LongAdder();
+
+    /**
+     * @param maxIdle most strippers kept for reuse
+     * @param maxUses borrowings after which a stripper is discarded
+     */
+    public TextStripperPool(int maxIdle, int maxUses) {
+        if (maxIdle < 0 || maxUses < 1) {
+            throw new IllegalArgumentException("maxIdle must not be negative and maxUses must be positive");
+        }
+        this.maxIdle = maxIdle;
+        this.maxUses = maxUses;
+    }
+
+    public static TextStripperPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * A stripper writing the text of the pages {@code pages} accepts ({@code null}: all of them)
+     * and handing every glyph to {@code tables} if that is not {@code null}. Close it when done.
+     */
+    PooledTextStripper borrow(ParseDeadline deadline, TableExtractor tables, IntPredicate pages) throws IOException {
+        return borrow(deadline, tables, pages, false);
+    }
+
+    /**
+     * A stripper that only collects the glyphs of the pages {@code pages} accepts into
+     * {@code tables} and writes no text. Close it when done.
+     */
+    PooledTextStripper borrowGlyphsOnly(ParseDeadline deadline, TableExtractor tables, IntPredicate pages)
+            throws IOException {
+        return borrow(deadline, tables, pages, true);
+    }
+
+    private PooledTextStripper borrow(ParseDeadline deadline, TableExtractor tables, IntPredicate pages,
+                                      boolean glyphsOnly) throws IOException {
+        PooledTextStripper stripper = idle.poll();
+        if (stripper != null) {
+            idleCount.decrementAndGet();
+        } else {
+            stripper = new PooledTextStripper(this);
+            creations.increment();
+        }
+        borrows.increment();
+        inUse.incrementAndGet();
+        stripper.prepare(deadline, tables, pages, glyphsOnly);
+        return stripper;
+    }
+
+    void release(PooledTextStripper stripper) {
+        inUse.decrementAndGet();
+        if (stripper.getUses() >= maxUses || !stripper.scrub()) {
+            retirements.increment();
+            return;
+        }
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idle.offer(stripper);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+
+    public int getMaxIdle() {
+        return maxIdle;
+    }
+
+    /**
+     * Strippers waiting to be borrowed.
+     */
+    public int getIdle() {
+        return idleCount.get();
+    }
+
+    /**
+     * Strippers borrowed and not yet returned.
+     */
+    public int getInUse() {
+        return inUse.get();
+    }
+
+    public long getBorrowCount() {
+        return borrows.sum();
+    }
+
+    /**
+     * Strippers built because none was idle; borrowings minus this is the number of reuses.
+     */
+    public long getCreatedCount() {
+        return creations.sum();
+    }
+
+    /**
+     * Strippers discarded after {@code maxUses} borrowings, or because scrubbing them failed.
+     */
+    public long getRetiredCount() {
+        return retirements.sum();
+    }
+}
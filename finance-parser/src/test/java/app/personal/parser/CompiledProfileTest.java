@@ -0,0 +1,80 @@
+package app.personal.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompiledProfileTest {
+
+    @Test
+    void regionsAreGroupedIntoSharedSetsPerPage() {
+        Map<String, double[]> regions = new LinkedHashMap<>();
+        regions.put("header", new double[]{0, 0, 600, 100});
+        regions.put("transactions", new double[]{0, 100, 600, 600});
+        regions.put("summary", new double[]{0, 700, 600, 100});
+        ParserProfile profile = new ParserProfile();
+        profile.setRegions(regions);
+        profile.setRegionPages(Map.of("header", List.of(1), "summary", List.of(3)));
+
+        CompiledProfile compiled = CompiledProfile.compile("test", profile);
+
+        assertEquals(List.of("header", "transactions"), names(compiled.getRegionSet(1)));
+        assertEquals(List.of("transactions"), names(compiled.getRegionSet(2)));
+        assertEquals(List.of("transactions", "summary"), names(compiled.getRegionSet(3)));
+        assertSame(compiled.getRegionSet(2), compiled.getRegionSet(9));
+        assertEquals(3, compiled.getRegionSets().size());
+        assertEquals(600, compiled.getRegions().get(1).getRectangle().getHeight());
+    }
+
+    @Test
+    void pagesWithoutRegionsGetAnEmptySet() {
+        ParserProfile profile = new ParserProfile();
+        profile.setRegions(Map.of("header", new double[]{0, 0, 600, 100}));
+        profile.setRegionPages(Map.of("header", List.of(1)));
+
+        CompiledProfile compiled = CompiledProfile.compile("test", profile);
+
+        assertTrue(compiled.hasRegions());
+        assertTrue(compiled.getRegionSet(2).isEmpty());
+    }
+
+    @Test
+    void patternsAreCompiledOnce() {
+        ParserProfile profile = new ParserProfile();
+        profile.setPatterns(Map.of("cardNumber", "Card No\\s*:\\s*(\\S+)"));
+
+        CompiledProfile compiled = CompiledProfile.compile("test", profile);
+
+        assertFalse(compiled.hasRegions());
+        assertSame(compiled.getPattern("cardNumber"), compiled.getPattern("cardNumber"));
+        assertNull(compiled.getPattern("missing"));
+    }
+
+    @Test
+    void invalidProfilesAreRejected() {
+        ParserProfile badRegion = new ParserProfile();
+        badRegion.setRegions(Map.of("header", new double[]{0, 0, 600}));
+        assertThrows(IllegalArgumentException.class, () -> CompiledProfile.compile("test", badRegion));
+
+        ParserProfile badPage = new ParserProfile();
+        badPage.setRegions(Map.of("header", new double[]{0, 0, 600, 100}));
+        badPage.setRegionPages(Map.of("header", List.of(0)));
+        assertThrows(IllegalArgumentException.class, () -> CompiledProfile.compile("test", badPage));
+
+        ParserProfile unknownRegion = new ParserProfile();
+        unknownRegion.setRegionPages(Map.of("header", List.of(1)));
+        assertThrows(IllegalArgumentException.class, () -> CompiledProfile.compile("test", unknownRegion));
+
+        ParserProfile badPattern = new ParserProfile();
+        badPattern.setPatterns(Map.of("amount", "([0-9]+"));
+        assertThrows(IllegalArgumentException.class, () -> CompiledProfile.compile("test", badPattern));
+    }
+
+    private static List<String> names(CompiledProfile.RegionSet set) {
+        return set.getRegions().stream().map(CompiledProfile.Region::getName).toList();
+    }
+}
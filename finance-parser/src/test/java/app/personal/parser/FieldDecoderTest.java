@@ -0,0 +1,50 @@
+package app.personal.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FieldDecoderTest {
+
+    @Test
+    void amountsMatchBigDecimalParsing() {
+        for (String amount : new String[]{"0.00", "1,299.00", "1,29,999.5", "508", "1299.", "12 345.67",
+                "123456789012345678901234.99"}) {
+            String row = "x " + amount + " y";
+            assertEquals(new BigDecimal(amount.replaceAll("[,\\s]", "")),
+                    FieldDecoder.decodeAmount(row, 2, 2 + amount.length()), amount);
+        }
+        assertThrows(NumberFormatException.class, () -> FieldDecoder.decodeAmount(",", 0, 1));
+        assertThrows(NumberFormatException.class, () -> FieldDecoder.decodeAmount("1.2.3", 0, 5));
+    }
+
+    @Test
+    void creditMarkersAreStripped() {
+        String token = "1,299.00 Cr ";
+        assertTrue(FieldDecoder.isCredit(token, 0, token.length()));
+        assertEquals(8, FieldDecoder.amountEnd(token, 0, token.length()));
+        assertTrue(FieldDecoder.isCredit("50.00C", 0, 6));
+        assertFalse(FieldDecoder.isCredit("50.00", 0, 5));
+    }
+
+    @Test
+    void datesMatchTheFormatters() {
+        DateTimeFormatter full = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        for (String date : new String[]{"17/07/2025", "31/02/2024", "29/02/2023", "01/12/1999"}) {
+            assertEquals(LocalDate.parse(date, full), FieldDecoder.decodeDate(date, 0, date.length(), 0), date);
+        }
+        assertEquals(LocalDate.parse("05/01/23", DateTimeFormatter.ofPattern("dd/MM/yy")),
+                FieldDecoder.decodeDate("05/01/23", 0, 8, 0));
+        assertEquals(LocalDate.of(2025, 6, 18), FieldDecoder.decodeDate("18/06", 0, 5, 2025));
+        assertEquals(LocalDate.of(2025, 6, 1), FieldDecoder.decodeMonthYear("06/2025", 0, 7));
+
+        assertThrows(DateTimeException.class, () -> FieldDecoder.decodeDate("5/06/2025", 0, 9, 0));
+        assertThrows(DateTimeException.class, () -> FieldDecoder.decodeDate("18/13/2025", 0, 10, 0));
+        assertThrows(DateTimeException.class, () -> FieldDecoder.decodeMonthYear("6/2025", 0, 6));
+    }
+}
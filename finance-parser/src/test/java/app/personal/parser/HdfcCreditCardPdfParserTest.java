@@ -33,4 +33,22 @@ public class HdfcCreditCardPdfParserTest {
     assertEquals(2, txs.size());
     assertEquals(LocalDate.of(2023, 8, 15), txs.get(0).getDate());
     }
+
+    @Test
+    void rejectedRowIsNotedInTheTrace() {
+        HdfcCreditCardPdfParser parser = new HdfcCreditCardPdfParser();
+        String sample = "Statement Date:15/08/2023\n" +
+                "Domestic Transactions\n" +
+                "15/13/2023 NO SUCH MONTH 10.00\n" +
+                "16/08/2023 COFFEE SHOP 150.50\n" +
+                "Important Information\n";
+        ParseTrace trace = new ParseTrace(64);
+
+        ParseResult res = parser.parseText(sample, trace, ParseDeadline.NONE);
+
+        assertTrue(res.isSuccess());
+        assertEquals(1, ((CreditCardStatementDto) res.getResult()).getTransactions().size());
+        assertTrue(trace.getEvents().stream().anyMatch(e -> e.getStage().equals("transaction.rejected")
+                && e.getMatch().startsWith("line 3: ")));
+    }
 }
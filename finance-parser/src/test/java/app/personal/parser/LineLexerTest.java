@@ -0,0 +1,54 @@
+package app.personal.parser;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineLexerTest {
+
+    private static final int HE = 1;
+    private static final int SHE = 1 << 1;
+    private static final int HERS = 1 << 2;
+    private static final int DUE = 1 << 3;
+
+    private final LineLexer lexer = LineLexer.builder()
+            .keyword("he", HE)
+            .keyword("she", SHE)
+            .keyword("hers", HERS)
+            .keyword("Due", DUE)
+            .build();
+
+    @Test
+    void overlappingKeywordsAreAllReported() {
+        assertEquals(HE | SHE | HERS, lexer.scan("ushers"));
+        assertEquals(HE, lexer.scan("the end"));
+        assertEquals(0, lexer.scan("nothing to see"));
+    }
+
+    @Test
+    void matchingIgnoresCaseAndSkipsNonAscii() {
+        assertEquals(DUE, lexer.scan("Payment DUE Date"));
+        assertEquals(0, lexer.scan("d\u00fce"));
+    }
+
+    @Test
+    void dateTokensAreDetectedInTheSamePass() {
+        int tokens = lexer.scan("  05/01/23 SALARY 05/01/23 0.00 50,000.00 59,500.00");
+        assertEquals(LineLexer.SHORT_DATE | LineLexer.LEADING_DATE, tokens);
+
+        tokens = lexer.scan("Statement Date: 12/08/2023");
+        assertEquals(LineLexer.SHORT_DATE | LineLexer.FULL_DATE, tokens & ~(HE | SHE | HERS | DUE));
+        assertEquals(16, LineLexer.indexOfDate("Statement Date: 12/08/2023", 4));
+
+        assertEquals(LineLexer.LEADING_DATE, lexer.scan("6/2025 ANNUAL FEE 500.00"));
+        assertEquals(-1, LineLexer.indexOfDate("12/8/2023", 4));
+    }
+
+    @Test
+    void reservedBitsCannotBeUsedForKeywords() {
+        assertThrows(IllegalArgumentException.class,
+                () -> LineLexer.builder().keyword("x", LineLexer.FULL_DATE));
+        assertThrows(IllegalArgumentException.class,
+                () -> LineLexer.builder().keyword("x", 3));
+    }
+}
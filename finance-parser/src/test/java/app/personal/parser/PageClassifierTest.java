@@ -0,0 +1,81 @@
+package app.personal.parser;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PageClassifierTest {
+
+    private static final PageClassifier CLASSIFIER = new PageClassifier(400, List.of("Narration"));
+
+    @Test
+    void keywordOrSeveralDatesMarkATransactionPage() {
+        assertTrue(CLASSIFIER.isTransactionText("Date NARRATION Chq./Ref.No."));
+        assertTrue(CLASSIFIER.isTransactionText("01/01/23 UPI 02/01/23 ATM 03/01/2023 NEFT"));
+        assertFalse(CLASSIFIER.isTransactionText("Revised charges apply from 01/04/23. Clause 1"));
+    }
+
+    @Test
+    void termsPagesAreSkippedAndTheFirstPageIsAlwaysKept(@TempDir File dir) throws Exception {
+        File pdf = SyntheticStatementPdfs.writeSavingsStatement(new File(dir, "terms.pdf"), 1, 1);
+        try (PDDocument doc = PDDocument.load(pdf)) {
+            assertTrue(CLASSIFIER.isTransactionPage(doc.getPage(0), 1));
+            assertFalse(CLASSIFIER.isTransactionPage(doc.getPage(1), 2));
+            // the terms page too, if it came first
+            assertTrue(CLASSIFIER.isTransactionPage(doc.getPage(1), 1));
+        }
+    }
+
+    @Test
+    void parserExtractsOnlyTransactionPages(@TempDir File dir) throws Exception {
+        File pdf = SyntheticStatementPdfs.writeSavingsStatement(new File(dir, "terms.pdf"), 2, 3);
+        try (PdfDocumentSession session = PdfDocumentSession.open(pdf)) {
+            ParseResult result = new HdfcSavingsPdfParser().parse(session);
+
+            assertTrue(result.isSuccess(), result.getErrorMessage());
+            assertEquals(3, session.getSkippedPageCount());
+            assertFalse(session.getText().contains("Clause"));
+            assertTrue(session.getText().contains("UPI-MERCHANT-59"));
+        }
+    }
+
+    @Test
+    void parallelExtractionSkipsTheSamePages(@TempDir File dir) throws Exception {
+        File pdf = SyntheticStatementPdfs.writeSavingsStatement(new File(dir, "terms.pdf"), 3, 3);
+        ParallelTextExtractor extractor = new ParallelTextExtractor(2, 1);
+        try {
+            String sequential;
+            try (PdfDocumentSession session = PdfDocumentSession.open(pdf)) {
+                session.setPageClassifier(CLASSIFIER);
+                sequential = session.getText();
+            }
+            try (PdfDocumentSession session = PdfDocumentSession.open(pdf, extractor)) {
+                session.setPageClassifier(CLASSIFIER);
+                assertEquals(sequential, session.getText());
+                assertEquals(3, session.getSkippedPageCount());
+            }
+        } finally {
+            extractor.shutdown();
+        }
+    }
+
+    @Test
+    void profileCanTurnPageFilteringOff(@TempDir File dir) throws Exception {
+        File pdf = SyntheticStatementPdfs.writeSavingsStatement(new File(dir, "terms.pdf"), 1, 2);
+        ParserProfile profile = new ParserProfile();
+        ParserProfile.PageFilter filter = new ParserProfile.PageFilter();
+        filter.setEnabled(false);
+        profile.setPageFilter(filter);
+        try (PdfDocumentSession session = PdfDocumentSession.open(pdf)) {
+            new HdfcSavingsPdfParser().parseByArea(session, profile);
+
+            assertEquals(0, session.getSkippedPageCount());
+            assertTrue(session.getText().contains("Clause"));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package app.personal.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import app.personal.dto.SavingsAccountStatementDto;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelTextExtractorTest {
+
+    @TempDir
+    File tmp;
+
+    @Test
+    void parallelTextMatchesSequentialText() throws Exception {
+        File pdf = SyntheticStatementPdfs.writeSavingsStatement(new File(tmp, "statement.pdf"), 7);
+        ParallelTextExtractor extractor = new ParallelTextExtractor(3, 1);
+        try (PdfDocumentSession sequential = PdfDocumentSession.open(pdf);
+             PdfDocumentSession parallel = PdfDocumentSession.open(pdf, extractor)) {
+            assertTrue(extractor.shouldSplit(parallel.getPageCount()));
+            assertEquals(sequential.getText(), parallel.getText());
+
+            ParseResult res = new HdfcSavingsPdfParser().parse(parallel);
+            assertTrue(res.isSuccess(), "Parsing failed: " + res.getErrorMessage());
+            assertEquals(7 * SyntheticStatementPdfs.ROWS_PER_PAGE,
+                    ((SavingsAccountStatementDto) res.getResult()).getTransactions().size());
+        } finally {
+            extractor.shutdown();
+        }
+    }
+
+    @Test
+    void tableLinesAreCollectedByTheParallelTextPass() throws Exception {
+        File pdf = SyntheticStatementPdfs.writeSavingsStatement(new File(tmp, "statement.pdf"), 7);
+        ParallelTextExtractor extractor = new ParallelTextExtractor(3, 1);
+        try (PdfDocumentSession sequential = PdfDocumentSession.open(pdf);
+             PdfDocumentSession parallel = PdfDocumentSession.open(pdf, extractor)) {
+            ParseTrace trace = new ParseTrace(64);
+            parallel.setTrace(trace);
+            sequential.getText();
+            parallel.getText();
+
+            assertEquals(texts(sequential.getTableLines()), texts(parallel.getTableLines()));
+            // no glyph-only pass after the text pass
+            assertTrue(trace.getEvents().stream().noneMatch(e -> e.getStage().startsWith("extract.table")));
+        } finally {
+            extractor.shutdown();
+        }
+    }
+
+    private static List<String> texts(List<TableExtractor.Line> lines) {
+        return lines.stream().map(line -> line.getPage() + ": " + line.getText()).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,108 @@
+package app.personal.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParseAdmissionTest {
+
+    @Test
+    void reservationsAreReleasedOnClose() throws Exception {
+        ParseAdmission admission = new ParseAdmission(100, 1000, 10, 4, Duration.ofSeconds(1));
+
+        try (ParseAdmission.Permit a = admission.acquire(30);
+             ParseAdmission.Permit b = admission.acquire(50)) {
+            assertEquals(80, admission.getReservedBytes());
+            assertEquals(2, admission.getRunning());
+            b.resize(20);
+            assertEquals(50, admission.getReservedBytes());
+        }
+        assertEquals(0, admission.getReservedBytes());
+        assertEquals(0, admission.getRunning());
+    }
+
+    @Test
+    void waitingParseIsAdmittedWhenBudgetFreesUp() throws Exception {
+        ParseAdmission admission = new ParseAdmission(100, 1000, 10, 4, Duration.ofSeconds(10));
+        ParseAdmission.Permit first = admission.acquire(80);
+
+        CompletableFuture<ParseAdmission.Permit> second = CompletableFuture.supplyAsync(() -> {
+            try {
+                return admission.acquire(50);
+            } catch (ParseException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        waitUntil(() -> admission.getQueued() == 1);
+        assertFalse(second.isDone());
+
+        first.close();
+        ParseAdmission.Permit admitted = second.get(5, TimeUnit.SECONDS);
+        assertEquals(50, admission.getReservedBytes());
+        admitted.close();
+    }
+
+    @Test
+    void fullQueueAndExpiredWaitAreRejected() throws Exception {
+        ParseAdmission noQueue = new ParseAdmission(100, 1000, 10, 0, Duration.ofSeconds(10));
+        try (ParseAdmission.Permit held = noQueue.acquire(100)) {
+            ParseException e = assertThrows(ParseException.class, () -> noQueue.acquire(1));
+            assertEquals(ParseException.Reason.OVERLOADED, e.getReason());
+        }
+
+        ParseAdmission shortWait = new ParseAdmission(100, 1000, 10, 4, Duration.ofMillis(50));
+        try (ParseAdmission.Permit held = shortWait.acquire(100)) {
+            ParseException e = assertThrows(ParseException.class, () -> shortWait.acquire(1));
+            assertEquals(ParseException.Reason.OVERLOADED, e.getReason());
+            assertEquals(0, shortWait.getQueued());
+        }
+        assertEquals(1, shortWait.getRejectedCount());
+    }
+
+    @Test
+    void parseLargerThanBudgetRunsAlone() throws Exception {
+        ParseAdmission admission = new ParseAdmission(100, 1000, 10, 4, Duration.ofMillis(50));
+
+        try (ParseAdmission.Permit huge = admission.acquire(500)) {
+            assertEquals(100, huge.getReservedBytes());
+            assertThrows(ParseException.class, () -> admission.acquire(1));
+        }
+        admission.acquire(1).close();
+    }
+
+    @Test
+    void largeEstimatesUseMixedMemoryMode(@TempDir File dir) throws Exception {
+        ParseAdmission admission = new ParseAdmission(1L << 30, 1L << 20, 256L << 10, 4, Duration.ofSeconds(1));
+        File pdf = SyntheticStatementPdfs.writeSavingsStatement(new File(dir, "statement.pdf"), 4);
+        PdfSource source = PdfSource.of(Files.readAllBytes(pdf.toPath()));
+
+        try (ParseAdmission.Permit small = admission.acquire(1000)) {
+            assertEquals(-1, small.getMaxMainMemoryBytes());
+        }
+        String heapText;
+        try (PdfDocumentSession session = PdfDocumentSession.open(source)) {
+            heapText = session.getText();
+        }
+        try (ParseAdmission.Permit large = admission.acquire(ParseAdmission.estimate(source.length(), 4));
+             PdfDocumentSession session = PdfDocumentSession.open(source, null, large.getMaxMainMemoryBytes())) {
+            assertEquals(256L << 10, large.getMaxMainMemoryBytes());
+            assertEquals(heapText, session.getText());
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < end, "condition not reached");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package app.personal.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParseDeadlineTest {
+
+    @Test
+    void backtrackingMatchIsStoppedByTheDeadline() {
+        // polynomial backtracking the JDK does not optimise away; seconds for 26 chars, far more for 40
+        Pattern catastrophic = Pattern.compile("(.*a){20}b");
+        DeadlineCharSequence line = new DeadlineCharSequence(ParseDeadline.after(Duration.ofMillis(50)))
+                .reset("a".repeat(40));
+
+        long start = System.nanoTime();
+        assertThrows(ParseDeadline.Expired.class, () -> catastrophic.matcher(line).find());
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos());
+    }
+
+    @Test
+    void expiredDeadlineFailsTheParseWithATimeoutReason() throws Exception {
+        File pdf = findPdfUpwards("hdfc-credit-card-statement.pdf", 4);
+        assertNotNull(pdf, "Could not find hdfc-credit-card-statement.pdf in repository (searched up to 4 levels)");
+
+        try (PdfDocumentSession session = PdfDocumentSession.open(pdf)) {
+            session.setDeadline(ParseDeadline.after(Duration.ofNanos(1)));
+            Thread.sleep(1);
+
+            ParseException e = assertThrows(ParseException.class, () -> new HdfcCreditCardPdfParser().parse(session));
+            assertEquals(ParseException.Reason.TIMEOUT, e.getReason());
+        }
+    }
+
+    @Test
+    void noDeadlineNeverExpires() {
+        assertFalse(ParseDeadline.NONE.isExpired());
+        assertSame(ParseDeadline.NONE, ParseDeadline.after(Duration.ZERO));
+    }
+
+    private static File findPdfUpwards(String name, int maxLevels) {
+        File cur = new File(System.getProperty("user.dir"));
+        for (int i = 0; i <= maxLevels; i++) {
+            File f = new File(cur, name);
+            if (f.exists()) return f.getAbsoluteFile();
+            cur = cur.getParentFile();
+            if (cur == null) break;
+        }
+        return null;
+    }
+}
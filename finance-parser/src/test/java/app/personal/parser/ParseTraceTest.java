@@ -0,0 +1,56 @@
+package app.personal.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParseTraceTest {
+
+    @Test
+    void disabledTraceRecordsNothing() {
+        ParseTrace.DISABLED.match("transaction", 1, 0, 3, "abc");
+        ParseTrace.DISABLED.note("validate", "passed");
+
+        assertFalse(ParseTrace.DISABLED.isEnabled());
+        assertTrue(ParseTrace.DISABLED.getEvents().isEmpty());
+    }
+
+    @Test
+    void ringBufferKeepsTheNewestEventsInOrder() {
+        ParseTrace trace = new ParseTrace(3);
+        for (int i = 1; i <= 5; i++) {
+            trace.match("line", i, 0, 1, String.valueOf(i));
+        }
+
+        List<ParseTrace.Event> events = trace.getEvents();
+        assertEquals(3, events.size());
+        assertEquals(3, events.get(0).getLine());
+        assertEquals(5, events.get(2).getLine());
+        assertEquals(2, trace.getDroppedCount());
+    }
+
+    @Test
+    void parserRecordsFieldsTransactionsAndValidation() {
+        String sample = "Statement Date:17/07/2025 Card No: 4632 02XX XXXX 4418\n"
+                + "Domestic Transactions\n"
+                + "18/06/2025 AMAZONIN GURGAON 1,469.00\n"
+                + "Reward Points\n";
+        ParseTrace trace = new ParseTrace(64);
+        ParseResult res = new HdfcCreditCardPdfParser().parseText(sample, trace, ParseDeadline.NONE);
+
+        assertTrue(res.isSuccess());
+        ParseTrace.Event statementDate = trace.getEvents().stream()
+                .filter(e -> e.getStage().equals("field.statementDate")).findFirst().orElseThrow();
+        assertEquals(1, statementDate.getLine());
+        assertEquals("17/07/2025", statementDate.getMatch());
+        assertEquals(15, statementDate.getStart());
+
+        ParseTrace.Event transaction = trace.getEvents().stream()
+                .filter(e -> e.getStage().equals("transaction")).findFirst().orElseThrow();
+        assertEquals(3, transaction.getLine());
+        assertTrue(trace.getEvents().stream().anyMatch(e -> e.getStage().equals("validate")
+                && e.getMatch().startsWith("passed")));
+    }
+}
@@ -0,0 +1,73 @@
+package app.personal.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParserRegistryTest {
+
+    @TempDir
+    File tmp;
+
+    @Test
+    void providersAreDiscoveredThroughServiceLoader() {
+        ParserRegistry registry = ParserRegistry.load();
+
+        assertEquals(List.of(HdfcCreditCardParserProvider.ID, HdfcSavingsParserProvider.ID), registry.getIds());
+        assertNotNull(registry.get("hdfc_savings"));
+        assertNull(registry.get("SBI_SAVINGS"));
+    }
+
+    @Test
+    void creditCardStatementIsDetectedFromTheFirstPage() throws Exception {
+        File pdf = findPdfUpwards("hdfc-credit-card-statement.pdf", 4);
+        assertNotNull(pdf, "Could not find hdfc-credit-card-statement.pdf in repository (searched up to 4 levels)");
+
+        try (PdfDocumentSession session = PdfDocumentSession.open(pdf)) {
+            ParserRegistry.Detection detection = ParserRegistry.load().detect(session);
+
+            assertTrue(detection.isDetected());
+            assertEquals(HdfcCreditCardParserProvider.ID, detection.getProvider().getId());
+            assertEquals(List.of(HdfcCreditCardParserProvider.ID), List.copyOf(detection.getNanosByProvider().keySet()));
+            assertTrue(detection.getProvider().getParser().parse(session).isSuccess());
+        }
+    }
+
+    @Test
+    void savingsStatementIsDetectedAfterTheCreditCardProviderDeclines() throws Exception {
+        File pdf = SyntheticStatementPdfs.writeSavingsStatement(new File(tmp, "savings.pdf"), 3);
+
+        try (PdfDocumentSession session = PdfDocumentSession.open(pdf)) {
+            ParserRegistry.Detection detection = ParserRegistry.load().detect(session);
+
+            assertEquals(HdfcSavingsParserProvider.ID, detection.getProvider().getId());
+            assertEquals(2, detection.getNanosByProvider().size());
+            assertFalse(session.getFingerprint().getFirstPageText().isEmpty());
+        }
+    }
+
+    @Test
+    void unknownFormatIsNotDetected() {
+        ParserRegistry registry = ParserRegistry.load();
+        StatementFingerprint fingerprint = new StatementFingerprint("ICICI Bank statement", null, null, null, 1);
+
+        for (String id : registry.getIds()) {
+            assertFalse(registry.get(id).matches(fingerprint), id);
+        }
+    }
+
+    private static File findPdfUpwards(String name, int maxLevels) {
+        File cur = new File(System.getProperty("user.dir"));
+        for (int i = 0; i <= maxLevels; i++) {
+            File f = new File(cur, name);
+            if (f.exists()) return f.getAbsoluteFile();
+            cur = cur.getParentFile();
+            if (cur == null) break;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,74 @@
+package app.personal.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParserWarmUpTest {
+
+    @Test
+    void everySampleIsDetectedAndParsed() throws Exception {
+        ParserWarmUp.Report report = ParserWarmUp.run(ParserRegistry.load(), null, 2, Duration.ofMinutes(1));
+
+        assertEquals(2, report.getRounds());
+        assertEquals(4, report.getParses());
+        assertEquals(0, report.getFailures());
+        assertEquals(2, report.getParsesByParser().get(HdfcCreditCardParserProvider.ID));
+        assertEquals(2, report.getParsesByParser().get(HdfcSavingsParserProvider.ID));
+    }
+
+    @Test
+    void everySampleIsParsedByItsOwnParserUnderTheBundledProfile() throws Exception {
+        ProfileCache profiles = new ProfileCache(null, Duration.ZERO);
+        assertTrue(profiles.get("hdfc-profile").hasRegions());
+
+        ParserWarmUp.Report report = ParserWarmUp.run(ParserRegistry.load(), profiles, 2, Duration.ofMinutes(1));
+
+        // the credit card sample is parsed by the profile's regions and from its full text
+        assertEquals(6, report.getParses());
+        assertEquals(0, report.getFailures(), "failures by parser: " + report.getFailuresByParser());
+        assertEquals(4, report.getParsesByParser().get(HdfcCreditCardParserProvider.ID));
+        assertEquals(2, report.getParsesByParser().get(HdfcSavingsParserProvider.ID));
+        assertTrue(report.getColdParsers().isEmpty());
+    }
+
+    @Test
+    void sampleTermsPageIsSkipped() throws Exception {
+        try (PdfDocumentSession session = PdfDocumentSession.open(PdfSource.of(SampleStatements.creditCard()))) {
+            ParseResult result = new HdfcCreditCardPdfParser().parse(session);
+
+            assertTrue(result.isSuccess(), result.getErrorMessage());
+            assertEquals(1, session.getSkippedPageCount());
+        }
+    }
+
+    @Test
+    void warmUpStopsAtItsTimeLimit() throws Exception {
+        ParserWarmUp.Report report = ParserWarmUp.run(ParserRegistry.load(), null, Integer.MAX_VALUE, Duration.ZERO);
+
+        assertEquals(0, report.getParses());
+    }
+
+    @Test
+    void fontCacheIsKeptInTheGivenDirectory(@TempDir Path dir) throws Exception {
+        String previous = System.getProperty("pdfbox.fontcache");
+        try {
+            ParserWarmUp.prepareFontCache(dir.resolve("fonts"));
+
+            // PDFBox only honours the location if no font was mapped yet in this JVM
+            assertEquals(dir.resolve("fonts").toAbsolutePath().toString(), System.getProperty("pdfbox.fontcache"));
+            assertTrue(Files.isDirectory(dir.resolve("fonts")));
+        } finally {
+            if (previous == null) {
+                System.clearProperty("pdfbox.fontcache");
+            } else {
+                System.setProperty("pdfbox.fontcache", previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package app.personal.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import app.personal.dto.CreditCardStatementDto;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PdfDocumentSessionTest {
+
+    @Test
+    void textIsExtractedOnceAndSharedWithParse() throws Exception {
+        File pdf = findPdfUpwards("hdfc-credit-card-statement.pdf", 4);
+        assertNotNull(pdf, "Could not find hdfc-credit-card-statement.pdf in repository (searched up to 4 levels)");
+
+        try (PdfDocumentSession session = PdfDocumentSession.open(pdf)) {
+            String first = session.getText();
+            ParseResult res = new HdfcCreditCardPdfParser().parse(session);
+
+            assertSame(first, session.getText(), "Text layer should be cached by the session");
+            assertTrue(res.isSuccess(), "Parsing failed: " + res.getErrorMessage());
+            assertFalse(((CreditCardStatementDto) res.getResult()).getTransactions().isEmpty());
+        }
+    }
+
+    @Test
+    void regionTextCoversEveryPageAndHonoursRegionPages(@TempDir File dir) throws Exception {
+        File pdf = SyntheticStatementPdfs.writeSavingsStatement(new File(dir, "statement.pdf"), 3);
+        Map<String, double[]> regions = new LinkedHashMap<>();
+        // first text line of each page, y measured from the top edge
+        regions.put("top", new double[]{0, 30, 600, 16});
+        regions.put("account", new double[]{0, 44, 600, 14});
+        ParserProfile profile = new ParserProfile();
+        profile.setRegions(regions);
+        profile.setRegionPages(Map.of("account", List.of(1)));
+
+        try (PdfDocumentSession session = PdfDocumentSession.open(pdf)) {
+            String[] blocks = session.getRegionText(CompiledProfile.compile("test", profile)).split("\n---\n");
+
+            assertEquals(4, blocks.length, "top on three pages plus account on page 1");
+            assertTrue(blocks[0].contains("HDFC BANK"), blocks[0]);
+            assertTrue(blocks[1].contains("Account No"), blocks[1]);
+            assertTrue(blocks[2].contains("UPI-MERCHANT-0 "), blocks[2]);
+            assertTrue(blocks[3].contains("UPI-MERCHANT-0 "), blocks[3]);
+        }
+    }
+
+    private static File findPdfUpwards(String name, int maxLevels) {
+        File cur = new File(System.getProperty("user.dir"));
+        for (int i = 0; i <= maxLevels; i++) {
+            File f = new File(cur, name);
+            if (f.exists()) return f.getAbsoluteFile();
+            cur = cur.getParentFile();
+            if (cur == null) break;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,114 @@
+package app.personal.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PdfSourceTest {
+
+    @Test
+    void bytesAndMappedFileGiveTheSameText(@TempDir File dir) throws Exception {
+        File pdf = SyntheticStatementPdfs.writeSavingsStatement(new File(dir, "statement.pdf"), 3);
+        byte[] bytes = Files.readAllBytes(pdf.toPath());
+
+        String fromFile;
+        try (PdfDocumentSession session = PdfDocumentSession.open(pdf)) {
+            fromFile = session.getText();
+        }
+        try (PdfDocumentSession session = PdfDocumentSession.open(PdfSource.of(bytes))) {
+            assertEquals(fromFile, session.getText());
+        }
+        try (PdfDocumentSession session = PdfDocumentSession.open(PdfSource.read(new ByteArrayInputStream(bytes)))) {
+            assertEquals(fromFile, session.getText());
+        }
+        try (PdfDocumentSession session = PdfDocumentSession.open(PdfSource.of(pdf.toPath()))) {
+            assertEquals(3, session.getPageCount());
+        }
+    }
+
+    @Test
+    void fileIsNeitherMappedNorOpenAfterItsDocumentsClose(@TempDir File dir) throws Exception {
+        File pdf = SyntheticStatementPdfs.writeSavingsStatement(new File(dir, "statement.pdf"), 8);
+        PdfSource source = PdfSource.of(pdf.toPath());
+        ParallelTextExtractor extractor = new ParallelTextExtractor(4, 2);
+        assertTrue(source.hasPdfMagic());
+        try (PdfDocumentSession session = PdfDocumentSession.open(source, extractor)) {
+            assertEquals(8, session.getPageCount());
+            session.getText();
+        } finally {
+            extractor.shutdown();
+        }
+
+        // Linux shows mappings and open files under /proc; elsewhere only the delete is checked
+        Path proc = Path.of("/proc/self");
+        if (Files.isDirectory(proc)) {
+            String path = pdf.getCanonicalPath();
+            assertFalse(Files.readString(proc.resolve("maps")).contains(path));
+            try (Stream<Path> descriptors = Files.list(proc.resolve("fd"))) {
+                assertFalse(descriptors.anyMatch(fd -> {
+                    try {
+                        return Files.readSymbolicLink(fd).toString().equals(path);
+                    } catch (IOException e) {
+                        return false;
+                    }
+                }));
+            }
+        }
+        Files.delete(pdf.toPath());
+    }
+
+    @Test
+    void parallelExtractionSharesTheInMemoryBytes(@TempDir File dir) throws Exception {
+        File pdf = SyntheticStatementPdfs.writeSavingsStatement(new File(dir, "statement.pdf"), 8);
+        PdfSource source = PdfSource.of(Files.readAllBytes(pdf.toPath()));
+        ParallelTextExtractor extractor = new ParallelTextExtractor(4, 2);
+        try (PdfDocumentSession sequential = PdfDocumentSession.open(source);
+             PdfDocumentSession parallel = PdfDocumentSession.open(source, extractor)) {
+            assertEquals(sequential.getText(), parallel.getText());
+        } finally {
+            extractor.shutdown();
+        }
+    }
+
+    @Test
+    void magicIsCheckedOnTheBuffer() throws IOException {
+        assertTrue(PdfSource.of("%PDF-1.4\n".getBytes(StandardCharsets.US_ASCII)).hasPdfMagic());
+        assertFalse(PdfSource.of("hello".getBytes(StandardCharsets.US_ASCII)).hasPdfMagic());
+        assertFalse(PdfSource.of(new byte[2]).hasPdfMagic());
+        assertThrows(ParseException.class,
+                () -> PdfDocumentSession.open(PdfSource.of("%PDF-garbage".getBytes(StandardCharsets.US_ASCII))));
+    }
+
+    @Test
+    void randomAccessReadFollowsPdfBoxContract() throws Exception {
+        ByteBufferRandomAccessRead in = new ByteBufferRandomAccessRead(ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5}));
+
+        assertEquals(1, in.read());
+        assertEquals(2, in.peek());
+        byte[] two = new byte[2];
+        assertEquals(2, in.read(two));
+        assertArrayEquals(new byte[]{2, 3}, two);
+        in.rewind(2);
+        assertEquals(1, in.getPosition());
+        assertArrayEquals(new byte[]{2, 3, 4}, in.readFully(3));
+        assertEquals(1, in.available());
+        in.seek(10);
+        assertTrue(in.isEOF());
+        assertEquals(-1, in.read());
+        assertEquals(-1, in.read(two, 0, 2));
+        assertThrows(IOException.class, () -> in.readFully(1));
+        in.close();
+        assertTrue(in.isClosed());
+        assertThrows(IOException.class, in::read);
+    }
+}
@@ -0,0 +1,75 @@
+package app.personal.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProfileCacheTest {
+
+    @Test
+    void bundledProfileIsCompiledOnce() {
+        ProfileCache cache = new ProfileCache(null, Duration.ofMinutes(1));
+
+        CompiledProfile first = cache.get("hdfc-profile");
+
+        assertNotNull(first);
+        assertTrue(first.hasRegions());
+        assertSame(first, cache.get("hdfc-profile"));
+        assertNull(cache.get("no-such-profile"));
+    }
+
+    @Test
+    void fileInDirectoryOverridesClasspathAndReloadsWhenChanged(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("hdfc-profile.yml");
+        Files.writeString(file, "regions:\n  header: [0, 0, 600, 100]\n");
+        ProfileCache cache = new ProfileCache(dir, Duration.ZERO);
+
+        CompiledProfile first = cache.get("hdfc-profile");
+        assertEquals("header", first.getRegions().get(0).getName());
+        assertSame(first, cache.get("hdfc-profile"), "Unchanged file should not be recompiled");
+
+        Files.writeString(file, "regions:\n  summary: [0, 700, 600, 100]\n");
+        touch(file);
+        CompiledProfile second = cache.get("hdfc-profile");
+        assertNotSame(first, second);
+        assertEquals("summary", second.getRegions().get(0).getName());
+    }
+
+    @Test
+    void brokenEditKeepsPreviousProfile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("custom.yml");
+        Files.writeString(file, "regions:\n  header: [0, 0, 600, 100]\n");
+        ProfileCache cache = new ProfileCache(dir, Duration.ZERO);
+        CompiledProfile first = cache.get("custom");
+
+        Files.writeString(file, "regions:\n  header: [0, 0, 600]\n");
+        touch(file);
+
+        assertSame(first, cache.get("custom"));
+    }
+
+    @Test
+    void fileIsNotCheckedAgainWithinInterval(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("custom.yml");
+        Files.writeString(file, "regions:\n  header: [0, 0, 600, 100]\n");
+        ProfileCache cache = new ProfileCache(dir, Duration.ofHours(1));
+        CompiledProfile first = cache.get("custom");
+
+        Files.writeString(file, "regions:\n  summary: [0, 700, 600, 100]\n");
+        touch(file);
+
+        assertSame(first, cache.get("custom"));
+    }
+
+    // file systems with coarse timestamps could otherwise report the same modification time
+    private static void touch(Path file) throws Exception {
+        FileTime modified = Files.getLastModifiedTime(file);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modified.toMillis() + 2000));
+    }
+}
@@ -0,0 +1,61 @@
+package app.personal.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import app.personal.dto.CreditCardStatementDto;
+import app.personal.dto.CreditCardTransactionDto;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamingParseTest {
+
+    @Test
+    void streamedTransactionsMatchCollectedOnes() throws Exception {
+        File pdf = findPdfUpwards("hdfc-credit-card-statement.pdf", 4);
+        assertNotNull(pdf, "Could not find hdfc-credit-card-statement.pdf in repository (searched up to 4 levels)");
+
+        HdfcCreditCardPdfParser parser = new HdfcCreditCardPdfParser();
+        CreditCardStatementDto collected = (CreditCardStatementDto) parser.parse(pdf).getResult();
+
+        List<Object> streamed = new ArrayList<>();
+        ParseResult res = parser.parse(pdf, streamed::add);
+
+        assertTrue(res.isSuccess(), "Streaming parse failed: " + res.getErrorMessage());
+        CreditCardStatementDto metadataOnly = (CreditCardStatementDto) res.getResult();
+        assertTrue(metadataOnly.getTransactions().isEmpty(), "Streamed transactions should not be retained");
+        assertEquals(collected.getStatementDate(), metadataOnly.getStatementDate());
+        assertEquals(collected.getTransactions().size(), streamed.size());
+        for (int i = 0; i < streamed.size(); i++) {
+            CreditCardTransactionDto tx = (CreditCardTransactionDto) streamed.get(i);
+            assertEquals(collected.getTransactions().get(i).getDescription(), tx.getDescription());
+            assertEquals(collected.getTransactions().get(i).getAmount(), tx.getAmount());
+        }
+    }
+
+    @Test
+    void partialLinesAreCarriedAcrossWrites() throws Exception {
+        List<String> lines = new ArrayList<>();
+        TextLineWriter writer = new TextLineWriter(l -> lines.add(l.toString()));
+        writer.write("15/08/2023 AMAZ");
+        writer.write("ONIN 1,299.00\r\n16/08");
+        writer.write("/2023 COFFEE 150.50");
+        writer.close();
+
+        assertEquals(List.of("15/08/2023 AMAZONIN 1,299.00", "16/08/2023 COFFEE 150.50"), lines);
+    }
+
+    private static File findPdfUpwards(String name, int maxLevels) {
+        File cur = new File(System.getProperty("user.dir"));
+        for (int i = 0; i <= maxLevels; i++) {
+            File f = new File(cur, name);
+            if (f.exists()) return f.getAbsoluteFile();
+            cur = cur.getParentFile();
+            if (cur == null) break;
+        }
+        return null;
+    }
+}
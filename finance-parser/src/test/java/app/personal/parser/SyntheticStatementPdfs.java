@@ -0,0 +1,152 @@
+package app.personal.parser;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes HDFC savings style statements of arbitrary length for tests.
+ */
+final class SyntheticStatementPdfs {
+
+    static final int ROWS_PER_PAGE = 60;
+
+    private static final DateTimeFormatter SHORT_DATE = DateTimeFormatter.ofPattern("dd/MM/yy");
+
+    private SyntheticStatementPdfs() {
+    }
+
+    static File writeSavingsStatement(File target, int pages) throws IOException {
+        return writeSavingsStatement(target, pages, 0);
+    }
+
+    /**
+     * A statement of {@code pages} transaction pages followed by {@code termsPages} pages of terms
+     * and conditions, which mention the statement and a single date but carry no transactions.
+     */
+    static File writeSavingsStatement(File target, int pages, int termsPages) throws IOException {
+        LocalDate date = LocalDate.of(2023, 1, 1);
+        BigDecimal balance = new BigDecimal("100000000.00");
+        try (PDDocument doc = new PDDocument()) {
+            for (int p = 0; p < pages; p++) {
+                PDPage page = new PDPage(PDRectangle.A4);
+                doc.addPage(page);
+                try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                    cs.beginText();
+                    cs.setFont(PDType1Font.HELVETICA, 8);
+                    cs.setLeading(12);
+                    cs.newLineAtOffset(30, 800);
+                    if (p == 0) {
+                        cs.showText("HDFC BANK Ltd.");
+                        cs.newLine();
+                        cs.showText("Account No : 50100234567890");
+                        cs.newLine();
+                        cs.showText("Statement From : 01/01/2023 To : 31/12/2023");
+                        cs.newLine();
+                    }
+                    for (int r = 0; r < ROWS_PER_PAGE; r++) {
+                        BigDecimal amount = new BigDecimal(100 + (p * ROWS_PER_PAGE + r) % 900 + ".50");
+                        balance = balance.subtract(amount);
+                        String d = SHORT_DATE.format(date);
+                        cs.showText(d + " UPI-MERCHANT-" + r + " " + (400000 + r) + " " + d + " "
+                                + amount + " 0.00 " + balance);
+                        cs.newLine();
+                        if (r % 10 == 9) {
+                            date = date.plusDays(1);
+                        }
+                    }
+                    cs.endText();
+                }
+            }
+            for (int p = 0; p < termsPages; p++) {
+                PDPage page = new PDPage(PDRectangle.A4);
+                doc.addPage(page);
+                try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                    cs.beginText();
+                    cs.setFont(PDType1Font.HELVETICA, 8);
+                    cs.setLeading(12);
+                    cs.newLineAtOffset(30, 800);
+                    cs.showText("Terms and Conditions");
+                    cs.newLine();
+                    for (int r = 0; r < ROWS_PER_PAGE; r++) {
+                        cs.showText(r == 0 ? "Revised charges apply to this statement from 01/04/23."
+                                : "Clause " + r + ": the bank may change these terms with notice to the account holder.");
+                        cs.newLine();
+                    }
+                    cs.endText();
+                }
+            }
+            doc.save(target);
+        }
+        return target;
+    }
+
+    /**
+     * A one-page statement laid out as a real HDFC table: a header row, one text run per cell and
+     * right-aligned amounts. The rows are {@code {date, narration, ref, withdrawal, deposit,
+     * balance}}, with empty strings for empty cells; a narration containing {@code '\n'} wraps onto
+     * a second line.
+     */
+    static File writeTabularSavingsStatement(File target, String[][] rows) throws IOException {
+        PDType1Font font = PDType1Font.HELVETICA;
+        try (PDDocument doc = new PDDocument()) {
+            PDPage page = new PDPage(PDRectangle.A4);
+            doc.addPage(page);
+            try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                float y = 800;
+                text(cs, font, 30, y, "HDFC BANK Ltd.");
+                text(cs, font, 30, y -= 12, "Account No : 50100234567890");
+                text(cs, font, 30, y -= 12, "Statement From : 01/01/2023 To : 31/12/2023");
+
+                y -= 24;
+                text(cs, font, 30, y, "Date");
+                text(cs, font, 80, y, "Narration");
+                text(cs, font, 250, y, "Chq./Ref.No.");
+                text(cs, font, 330, y, "Value Dt");
+                text(cs, font, 380, y, "Withdrawal Amt.");
+                text(cs, font, 450, y, "Deposit Amt.");
+                text(cs, font, 510, y, "Closing Balance");
+                for (String[] row : rows) {
+                    y -= 12;
+                    String[] narration = row[1].split("\n");
+                    text(cs, font, 30, y, row[0]);
+                    text(cs, font, 80, y, narration[0]);
+                    text(cs, font, 250, y, row[2]);
+                    text(cs, font, 330, y, row[0]);
+                    rightAligned(cs, font, 440, y, row[3]);
+                    rightAligned(cs, font, 500, y, row[4]);
+                    rightAligned(cs, font, 570, y, row[5]);
+                    for (int i = 1; i < narration.length; i++) {
+                        text(cs, font, 80, y -= 9, narration[i]);
+                    }
+                }
+            }
+            doc.save(target);
+        }
+        return target;
+    }
+
+    private static void text(PDPageContentStream cs, PDType1Font font, float x, float y, String s) throws IOException {
+        if (s.isEmpty()) {
+            return;
+        }
+        cs.beginText();
+        cs.setFont(font, 8);
+        cs.newLineAtOffset(x, y);
+        cs.showText(s);
+        cs.endText();
+    }
+
+    private static void rightAligned(PDPageContentStream cs, PDType1Font font, float right, float y, String s)
+            throws IOException {
+        text(cs, font, right - font.getStringWidth(s) / 1000 * 8, y, s);
+    }
+}
@@ -0,0 +1,103 @@
+package app.personal.parser;
+
+import app.personal.dto.SavingsAccountStatementDto;
+import app.personal.dto.SavingsAccountTransactionDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TableLayoutTest {
+
+    private static final TableLayout SAVINGS = new TableLayout(EnumSet.of(TableLayout.Column.DATE,
+            TableLayout.Column.DESCRIPTION, TableLayout.Column.DEBIT, TableLayout.Column.CREDIT,
+            TableLayout.Column.BALANCE), null);
+
+    private static final String[][] ROWS = {
+            {"02/01/23", "NEFT-ACME PAYROLL 2023", "N00223", "", "50,000.00", "1,50,000.00"},
+            {"03/01/23", "UPI-GROCER", "400001", "1,250.50", "", "1,48,749.50"},
+            {"04/01/23", "ATW-CASH WDL\nMG ROAD BRANCH", "000417", "10,000.00", "", "1,38,749.50"},
+    };
+
+    @Test
+    void columnsAreLearnedFromTheHeaderRow(@TempDir File dir) throws Exception {
+        File pdf = SyntheticStatementPdfs.writeTabularSavingsStatement(new File(dir, "table.pdf"), ROWS);
+        List<TableLayout.Row> rows;
+        try (PdfDocumentSession session = PdfDocumentSession.open(pdf)) {
+            rows = SAVINGS.read(session.getTableLines());
+        }
+
+        assertNotNull(rows);
+        assertEquals(3, rows.size());
+        TableLayout.Row salary = rows.get(0);
+        assertEquals("02/01/23", salary.getText(TableLayout.Column.DATE));
+        assertEquals("NEFT-ACME PAYROLL 2023", salary.getText(TableLayout.Column.DESCRIPTION));
+        assertEquals("N00223", salary.getText(TableLayout.Column.REFERENCE));
+        assertEquals("02/01/23", salary.getText(TableLayout.Column.VALUE_DATE));
+        assertFalse(salary.has(TableLayout.Column.DEBIT));
+        assertEquals("50,000.00", salary.getText(TableLayout.Column.CREDIT));
+        assertEquals("1,50,000.00", salary.getText(TableLayout.Column.BALANCE));
+
+        // the wrapped second line of the narration belongs to its row
+        assertEquals("ATW-CASH WDL MG ROAD BRANCH", rows.get(2).getText(TableLayout.Column.DESCRIPTION));
+    }
+
+    @Test
+    void documentWithoutHeaderRowHasNoTable(@TempDir File dir) throws Exception {
+        File pdf = SyntheticStatementPdfs.writeSavingsStatement(new File(dir, "plain.pdf"), 1);
+        try (PdfDocumentSession session = PdfDocumentSession.open(pdf)) {
+            assertNull(SAVINGS.read(session.getTableLines()));
+        }
+    }
+
+    @Test
+    void glyphOnlyPassGivesTheLinesOfTheTextPass(@TempDir File dir) throws Exception {
+        File pdf = SyntheticStatementPdfs.writeTabularSavingsStatement(new File(dir, "table.pdf"), ROWS);
+        List<String> teed;
+        try (PdfDocumentSession session = PdfDocumentSession.open(pdf)) {
+            session.getText();
+            teed = texts(session.getTableLines());
+        }
+        try (PdfDocumentSession session = PdfDocumentSession.open(pdf)) {
+            assertEquals(teed, texts(session.getTableLines()));
+        }
+        assertTrue(teed.contains("Date Narration Chq./Ref.No. Value Dt Withdrawal Amt. Deposit Amt. Closing Balance"),
+                teed.toString());
+    }
+
+    @Test
+    void savingsParserTakesTransactionsFromTheTable(@TempDir File dir) throws Exception {
+        File pdf = SyntheticStatementPdfs.writeTabularSavingsStatement(new File(dir, "table.pdf"), ROWS);
+        ParseResult result = new HdfcSavingsPdfParser().parse(pdf);
+
+        assertTrue(result.isSuccess(), result.getErrorMessage());
+        SavingsAccountStatementDto statement = (SavingsAccountStatementDto) result.getResult();
+        assertEquals("50100234567890", statement.getAccountNumber());
+        assertEquals(3, statement.getTransactions().size());
+
+        SavingsAccountTransactionDto salary = statement.getTransactions().get(0);
+        assertEquals(LocalDate.of(2023, 1, 2), salary.getDate());
+        // trailing digits stay in the narration; the reference has its own column
+        assertEquals("NEFT-ACME PAYROLL 2023", salary.getDescription());
+        assertEquals("N00223", salary.getReferenceNumber());
+        assertEquals(BigDecimal.ZERO, salary.getWithdrawalAmount());
+        assertEquals(new BigDecimal("50000.00"), salary.getDepositAmount());
+
+        SavingsAccountTransactionDto cash = statement.getTransactions().get(2);
+        assertEquals("ATW-CASH WDL MG ROAD BRANCH", cash.getDescription());
+        assertEquals(new BigDecimal("10000.00"), cash.getWithdrawalAmount());
+        assertEquals(new BigDecimal("138749.50"), cash.getClosingBalance());
+        assertEquals(new BigDecimal("100000.00"), statement.getOpeningBalance());
+    }
+
+    private static List<String> texts(List<TableExtractor.Line> lines) {
+        return lines.stream().map(TableExtractor.Line::getText).collect(Collectors.toList());
+    }
+}
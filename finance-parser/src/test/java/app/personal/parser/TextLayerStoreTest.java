@@ -0,0 +1,103 @@
+package app.personal.parser;
+
+import app.personal.dto.SavingsAccountStatementDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TextLayerStoreTest {
+
+    @Test
+    void storedTextIsReadBackAfterReopen(@TempDir Path dir) throws Exception {
+        String text = statementText(500);
+        try (TextLayerStore store = TextLayerStore.open(dir, 1 << 20)) {
+            assertTrue(store.put("doc1/text", "HDFC_SAVINGS", text));
+            assertFalse(store.put("doc1/text", "HDFC_SAVINGS", "ignored"), "Existing keys are not rewritten");
+            assertEquals(text, store.get("doc1/text").getText());
+            assertTrue(store.getStoredBytes() * 4 < store.getTextBytes(), "Statement text should compress well");
+        }
+
+        try (TextLayerStore store = TextLayerStore.open(dir, 1 << 20)) {
+            TextLayerStore.Layer layer = store.get("doc1/text");
+            assertEquals(text, layer.getText());
+            assertEquals("HDFC_SAVINGS", layer.getParserId());
+            assertNull(store.get("doc2/text"));
+        }
+    }
+
+    @Test
+    void newSegmentIsStartedWhenFull(@TempDir Path dir) throws Exception {
+        try (TextLayerStore store = TextLayerStore.open(dir, 4096)) {
+            for (int i = 0; i < 20; i++) {
+                store.put("doc" + i + "/text", "HDFC_SAVINGS", statementText(200) + i);
+            }
+            assertEquals(20, store.size());
+            assertEquals(statementText(200) + 7, store.get("doc7/text").getText());
+        }
+        try (var files = Files.list(dir)) {
+            assertTrue(files.count() > 1);
+        }
+        try (TextLayerStore store = TextLayerStore.open(dir, 4096)) {
+            assertEquals(20, store.getKeys().size());
+            assertEquals("doc0/text", store.getKeys().get(0));
+            assertEquals(statementText(200) + 19, store.get("doc19/text").getText());
+        }
+    }
+
+    @Test
+    void tornRecordIsDroppedOnOpen(@TempDir Path dir) throws Exception {
+        try (TextLayerStore store = TextLayerStore.open(dir, 1 << 20)) {
+            store.put("doc1/text", "HDFC_SAVINGS", statementText(50));
+            store.put("doc2/text", "HDFC_SAVINGS", statementText(60));
+        }
+        Path segment;
+        try (var files = Files.list(dir)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.setLength(file.length() - 10);
+        }
+
+        try (TextLayerStore store = TextLayerStore.open(dir, 1 << 20)) {
+            assertEquals(List.of("doc1/text"), store.getKeys());
+            assertTrue(store.put("doc2/text", "HDFC_SAVINGS", statementText(60)));
+        }
+        try (TextLayerStore store = TextLayerStore.open(dir, 1 << 20)) {
+            assertEquals(statementText(60), store.get("doc2/text").getText());
+        }
+    }
+
+    @Test
+    void storedTextReplaysThroughParser(@TempDir Path dir) throws Exception {
+        File pdf = SyntheticStatementPdfs.writeSavingsStatement(dir.resolve("statement.pdf").toFile(), 2);
+        HdfcSavingsPdfParser parser = new HdfcSavingsPdfParser();
+        ParseResult direct;
+        try (PdfDocumentSession session = PdfDocumentSession.open(pdf);
+             TextLayerStore store = TextLayerStore.open(dir.resolve("store"), 1 << 20)) {
+            direct = parser.parse(session);
+            store.put("doc/text", "HDFC_SAVINGS", session.getText());
+
+            ParseResult replayed = parser.parseExtractedText(store.get("doc/text").getText(), ParseDeadline.NONE);
+
+            assertTrue(replayed.isSuccess(), replayed.getErrorMessage());
+            assertEquals(((SavingsAccountStatementDto) direct.getResult()).getTransactions().size(),
+                    ((SavingsAccountStatementDto) replayed.getResult()).getTransactions().size());
+        }
+    }
+
+    private static String statementText(int rows) {
+        StringBuilder sb = new StringBuilder("HDFC BANK Ltd.\nAccount No : 50100234567890\n");
+        for (int i = 0; i < rows; i++) {
+            sb.append("01/02/23 UPI-MERCHANT-").append(i % 60).append(' ').append(400000 + i % 60)
+                    .append(" 01/02/23 ").append(100 + i % 900).append(".50 0.00 ").append(99990000 - i).append(".00\n");
+        }
+        return sb.toString();
+    }
+}
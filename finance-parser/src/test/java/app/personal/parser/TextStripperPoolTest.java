@@ -0,0 +1,80 @@
+package app.personal.parser;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TextStripperPoolTest {
+
+    @Test
+    void returnedStripperIsReused() throws Exception {
+        TextStripperPool pool = new TextStripperPool(2, 10);
+        PooledTextStripper first = pool.borrow(ParseDeadline.NONE, null, null);
+        first.close();
+        first.close();
+        PooledTextStripper second = pool.borrow(ParseDeadline.NONE, null, null);
+
+        assertSame(first, second);
+        assertEquals(2, pool.getBorrowCount());
+        assertEquals(1, pool.getCreatedCount());
+        assertEquals(1, pool.getInUse());
+        assertEquals(0, pool.getIdle());
+    }
+
+    @Test
+    void reusedStripperGivesTheSameTextAndForgetsTheDocument(@TempDir File dir) throws Exception {
+        File small = SyntheticStatementPdfs.writeSavingsStatement(new File(dir, "small.pdf"), 1);
+        File large = SyntheticStatementPdfs.writeSavingsStatement(new File(dir, "large.pdf"), 3, 1);
+        TextStripperPool pool = new TextStripperPool(1, 10);
+
+        String fresh;
+        try (PDDocument doc = PDDocument.load(small);
+             PooledTextStripper stripper = new TextStripperPool(1, 10).borrow(ParseDeadline.NONE, null, null)) {
+            fresh = stripper.getText(doc);
+        }
+        PooledTextStripper stripper;
+        try (PDDocument doc = PDDocument.load(large)) {
+            stripper = pool.borrow(ParseDeadline.NONE, null, page -> page > 1);
+            stripper.getText(doc);
+            assertEquals(3, doc.getPages().indexOf(stripper.getCurrentPage()));
+            stripper.close();
+            assertEquals(-1, doc.getPages().indexOf(stripper.getCurrentPage()));
+        }
+        try (PDDocument doc = PDDocument.load(small);
+             PooledTextStripper reused = pool.borrow(ParseDeadline.NONE, null, null)) {
+            assertSame(stripper, reused);
+            assertEquals(fresh, reused.getText(doc));
+        }
+    }
+
+    @Test
+    void strippersAreRetiredAfterMaxUses() throws Exception {
+        TextStripperPool pool = new TextStripperPool(2, 2);
+        PooledTextStripper stripper = pool.borrow(ParseDeadline.NONE, null, null);
+        stripper.close();
+        assertSame(stripper, pool.borrow(ParseDeadline.NONE, null, null));
+        stripper.close();
+
+        assertNotSame(stripper, pool.borrow(ParseDeadline.NONE, null, null));
+        assertEquals(1, pool.getRetiredCount());
+    }
+
+    @Test
+    void atMostMaxIdleStrippersAreKept() throws Exception {
+        TextStripperPool pool = new TextStripperPool(2, 10);
+        PooledTextStripper a = pool.borrow(ParseDeadline.NONE, null, null);
+        PooledTextStripper b = pool.borrow(ParseDeadline.NONE, null, null);
+        PooledTextStripper c = pool.borrow(ParseDeadline.NONE, null, null);
+        a.close();
+        b.close();
+        c.close();
+
+        assertEquals(2, pool.getIdle());
+        assertEquals(0, pool.getInUse());
+        assertEquals(3, pool.getCreatedCount());
+    }
+}
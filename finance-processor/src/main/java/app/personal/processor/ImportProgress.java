@@ -0,0 +1,81 @@
+package app.personal.processor;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * How far a running import has got, updated by the importer's threads and safe to read from any
+ * other thread while it runs.
+ */
+public class ImportProgress {
+
+    private final long totalBytes;
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsRejected = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong duplicatesSkipped = new AtomicLong();
+
+    /**
+     * @param totalBytes size of the file being imported, or -1 if not known
+     */
+    public ImportProgress(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    /**
+     * Share of the file read so far, from 0 to 100, or -1 if the size is not known.
+     */
+    public int getPercentRead() {
+        return totalBytes <= 0 ? -1 : (int) Math.min(100, 100 * bytesRead.get() / totalBytes);
+    }
+
+    public long getRowsRead() {
+        return rowsRead.get();
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected.get();
+    }
+
+    /**
+     * Rows committed to the database so far.
+     */
+    public long getRowsWritten() {
+        return rowsWritten.get();
+    }
+
+    /**
+     * Savings rows not written because they are already stored.
+     */
+    public long getDuplicatesSkipped() {
+        return duplicatesSkipped.get();
+    }
+
+    void addBytesRead(long bytes) {
+        bytesRead.addAndGet(bytes);
+    }
+
+    void addRowsRead(long rows) {
+        rowsRead.addAndGet(rows);
+    }
+
+    void addRowsRejected(long rows) {
+        rowsRejected.addAndGet(rows);
+    }
+
+    void addRowsWritten(long rows) {
+        rowsWritten.addAndGet(rows);
+    }
+
+    void addDuplicatesSkipped(long rows) {
+        duplicatesSkipped.addAndGet(rows);
+    }
+}
@@ -0,0 +1,40 @@
+package app.personal.processor;
+
+import app.personal.model.TransactionFingerprint;
+import app.personal.model.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One validated row of a standard CSV, on its way from the validators to the database writer.
+ */
+final class ImportRow {
+    // 1-based, counting data rows only
+    long number;
+    boolean savings;
+    String accountNumber;
+    LocalDate date;
+    String description;
+    BigDecimal amount;
+    TransactionType type;
+    String referenceNumber;
+    // closing balance of a savings account after this transaction, or null
+    BigDecimal balance;
+    // savings rows only; set by the validators when there is a balance, else by the writer
+    String fingerprint;
+
+    /**
+     * {@link TransactionFingerprint#savings} of this row, {@code occurrence} numbering identical
+     * rows without a balance.
+     */
+    String fingerprint(int occurrence) {
+        return TransactionFingerprint.savings(accountNumber, date, signedAmount(), referenceNumber, description,
+                balance, occurrence);
+    }
+
+    // money in positive, money out negative
+    BigDecimal signedAmount() {
+        return type == TransactionType.DEBIT ? amount.negate() : amount;
+    }
+}
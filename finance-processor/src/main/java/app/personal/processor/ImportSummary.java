@@ -0,0 +1,238 @@
+package app.personal.processor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outcome of one standard CSV import: how many rows were read, imported and rejected, why the
+ * first rejected rows were rejected, and the statement each account's transactions were written to.
+ */
+public class ImportSummary {
+
+    public enum Status {
+        COMPLETED, FAILED
+    }
+
+    private Status status;
+    private String failure;
+    private long rowsRead;
+    private long rowsImported;
+    private long rowsRejected;
+    private long duplicatesSkipped;
+    private List<RowError> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+    private List<AccountImport> statements = new ArrayList<>();
+    private long elapsedMillis;
+
+    /**
+     * {@link Status#COMPLETED} when the whole file was read, even if some rows were rejected;
+     * {@link Status#FAILED} when the import stopped early, see {@link #getFailure()}. Rows imported
+     * before a failure stay in the database.
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+
+    public void setFailure(String failure) {
+        this.failure = failure;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public void setRowsRead(long rowsRead) {
+        this.rowsRead = rowsRead;
+    }
+
+    public long getRowsImported() {
+        return rowsImported;
+    }
+
+    public void setRowsImported(long rowsImported) {
+        this.rowsImported = rowsImported;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public void setRowsRejected(long rowsRejected) {
+        this.rowsRejected = rowsRejected;
+    }
+
+    /**
+     * Valid savings rows not imported because the account already has them, from another statement
+     * or earlier in the file.
+     */
+    public long getDuplicatesSkipped() {
+        return duplicatesSkipped;
+    }
+
+    public void setDuplicatesSkipped(long duplicatesSkipped) {
+        this.duplicatesSkipped = duplicatesSkipped;
+    }
+
+    /**
+     * The first rejected rows, in file order.
+     */
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<RowError> errors) {
+        this.errors = errors;
+    }
+
+    /**
+     * Whether more rows were rejected than {@link #getErrors()} lists.
+     */
+    public boolean isErrorsTruncated() {
+        return errorsTruncated;
+    }
+
+    public void setErrorsTruncated(boolean errorsTruncated) {
+        this.errorsTruncated = errorsTruncated;
+    }
+
+    public List<AccountImport> getStatements() {
+        return statements;
+    }
+
+    public void setStatements(List<AccountImport> statements) {
+        this.statements = statements;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getRowsPerSecond() {
+        return elapsedMillis == 0 ? rowsRead : rowsRead * 1000 / elapsedMillis;
+    }
+
+    /**
+     * A rejected row: its number, counting data rows from 1, and what was wrong with it.
+     */
+    public static class RowError {
+        private final long row;
+        private final String message;
+
+        public RowError(long row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        public long getRow() {
+            return row;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    /**
+     * The statement created for one account's transactions.
+     */
+    public static class AccountImport {
+        private final boolean savings;
+        private final String accountNumber;
+        private long statementId;
+        private long transactions;
+        private LocalDate firstDate;
+        private LocalDate lastDate;
+        private BigDecimal closingBalance;
+
+        AccountImport(boolean savings, String accountNumber, long statementId) {
+            this.savings = savings;
+            this.accountNumber = accountNumber;
+            this.statementId = statementId;
+        }
+
+        public String getAccountType() {
+            return savings ? "SAVINGS" : "CREDIT_CARD";
+        }
+
+        boolean isSavings() {
+            return savings;
+        }
+
+        public String getAccountNumber() {
+            return accountNumber;
+        }
+
+        public long getStatementId() {
+            return statementId;
+        }
+
+        void setStatementId(long statementId) {
+            this.statementId = statementId;
+        }
+
+        public long getTransactions() {
+            return transactions;
+        }
+
+        public LocalDate getFirstDate() {
+            return firstDate;
+        }
+
+        public LocalDate getLastDate() {
+            return lastDate;
+        }
+
+        /**
+         * Balance after the account's last row that had one, savings accounts only.
+         */
+        public BigDecimal getClosingBalance() {
+            return closingBalance;
+        }
+
+        void add(ImportRow row) {
+            transactions++;
+            cover(row);
+        }
+
+        /**
+         * Take in the date range and balance of a row left out as a duplicate, which still belongs
+         * to the statement's period.
+         */
+        void skip(ImportRow row) {
+            cover(row);
+        }
+
+        // rows skipped before the account had a statement of its own
+        void skipAll(AccountImport skipped) {
+            firstDate = skipped.firstDate;
+            lastDate = skipped.lastDate;
+            closingBalance = skipped.closingBalance;
+        }
+
+        private void cover(ImportRow row) {
+            if (firstDate == null || row.date.isBefore(firstDate)) {
+                firstDate = row.date;
+            }
+            if (lastDate == null || row.date.isAfter(lastDate)) {
+                lastDate = row.date;
+            }
+            if (row.balance != null) {
+                closingBalance = row.balance;
+            }
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package app.personal.processor;
+
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Imports a standard CSV (see {@link StandardCsvSchema}) of any size in constant memory, as a
+ * pipeline of three stages:
+ * <ol>
+ *   <li>a reader thread parses the file and cuts it into chunks of rows;</li>
+ *   <li>a pool of validators turns each chunk into transactions and rejected rows;</li>
+ *   <li>the calling thread writes the valid rows of each chunk, in file order, with a
+ *       {@link TransactionBatchWriter}, one database transaction per chunk.</li>
+ * </ol>
+ * At most {@code 2 * parallelism} chunks are between the reader and the writer, so a slow database
+ * holds the reader back instead of filling the heap.
+ *
+ * <p>Invalid rows are rejected and reported, not fatal. A file whose header lacks a required
+ * column, that is not well-formed CSV, or that the database refuses stops the import; the chunks
+ * already written stay written.</p>
+ *
+ * <p>Thread-safe: imports may run concurrently and share the validators.</p>
+ */
+public class StandardCsvImporter {
+
+    private static final int READ_BUFFER = 64 * 1024;
+
+    private final TransactionBatchWriter writer;
+    private final ExecutorService validators;
+    private final int parallelism;
+    private final int chunkRows;
+    private final int maxErrors;
+
+    /**
+     * @param parallelism number of validator threads
+     * @param chunkRows   rows per chunk, and so per database transaction
+     * @param maxErrors   rejected rows listed in an import's summary
+     */
+    public StandardCsvImporter(TransactionBatchWriter writer, int parallelism, int chunkRows, int maxErrors) {
+        if (parallelism < 1 || chunkRows < 1 || maxErrors < 0) {
+            throw new IllegalArgumentException("parallelism and chunkRows must be positive, maxErrors not negative");
+        }
+        this.writer = writer;
+        this.parallelism = parallelism;
+        this.chunkRows = chunkRows;
+        this.maxErrors = maxErrors;
+        AtomicInteger threads = new AtomicInteger();
+        this.validators = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "csv-import-validator-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getChunkRows() {
+        return chunkRows;
+    }
+
+    /**
+     * Import a UTF-8 standard CSV, blocking until the whole file is written or the import fails.
+     * The stream is not closed.
+     *
+     * @param progress updated as the import runs
+     * @return the summary, {@link ImportSummary.Status#FAILED} with the reason if the import
+     * stopped early
+     */
+    public ImportSummary importCsv(InputStream in, ImportProgress progress) {
+        long start = System.nanoTime();
+        ImportSummary summary = new ImportSummary();
+        TransactionBatchWriter.Target target = writer.begin();
+        try {
+            CSVParser parser = StandardCsvSchema.FORMAT.parse(new BufferedReader(
+                    new InputStreamReader(new CountingInputStream(in, progress), StandardCharsets.UTF_8),
+                    READ_BUFFER));
+            StandardCsvSchema schema = StandardCsvSchema.of(parser.getHeaderMap());
+            write(new Reader(parser, schema, progress), target, summary, progress);
+            summary.setStatus(ImportSummary.Status.COMPLETED);
+        } catch (IOException | RuntimeException e) {
+            summary.setStatus(ImportSummary.Status.FAILED);
+            summary.setFailure(e.getMessage());
+        }
+        try {
+            summary.setStatements(target.finish());
+        } catch (RuntimeException e) {
+            System.err.println("Warning: Could not update imported statements: " + e.getMessage());
+            summary.setStatus(ImportSummary.Status.FAILED);
+            if (summary.getFailure() == null) {
+                summary.setFailure(e.getMessage());
+            }
+        }
+        summary.setRowsRead(progress.getRowsRead());
+        summary.setRowsRejected(progress.getRowsRejected());
+        summary.setRowsImported(progress.getRowsWritten());
+        summary.setDuplicatesSkipped(progress.getDuplicatesSkipped());
+        summary.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return summary;
+    }
+
+    /**
+     * Stop the validators once running imports finish.
+     */
+    public void shutdown() {
+        validators.shutdown();
+    }
+
+    // the writing stage, on the calling thread
+    private void write(Reader reader, TransactionBatchWriter.Target target, ImportSummary summary,
+                       ImportProgress progress) throws IOException {
+        Thread thread = new Thread(reader, "csv-import-reader");
+        thread.setDaemon(true);
+        thread.start();
+        try {
+            while (true) {
+                Chunk chunk = take(reader.chunks);
+                if (chunk == Chunk.END) {
+                    break;
+                }
+                if (!chunk.rows.isEmpty()) {
+                    int duplicates = target.write(chunk.rows);
+                    progress.addRowsWritten(chunk.rows.size() - duplicates);
+                    progress.addDuplicatesSkipped(duplicates);
+                }
+                for (ImportSummary.RowError error : chunk.errors) {
+                    if (summary.getErrors().size() < maxErrors) {
+                        summary.getErrors().add(error);
+                    } else {
+                        summary.setErrorsTruncated(true);
+                    }
+                }
+                if (chunk.rejected > chunk.errors.size()) {
+                    summary.setErrorsTruncated(true);
+                }
+            }
+        } finally {
+            reader.stopped = true;
+            // unblock a reader waiting for room so it sees it has been stopped
+            reader.chunks.clear();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static Chunk take(BlockingQueue<Future<Chunk>> chunks) throws IOException {
+        try {
+            return chunks.take().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    // validates one chunk of records, on a validator thread
+    private Chunk validate(StandardCsvSchema schema, List<CSVRecord> records, ImportProgress progress) {
+        Chunk chunk = new Chunk(records.size());
+        for (CSVRecord record : records) {
+            try {
+                ImportRow row = schema.read(record);
+                if (row.savings && row.balance != null) {
+                    // hashing here spreads it over the validator threads
+                    row.fingerprint = row.fingerprint(1);
+                }
+                chunk.rows.add(row);
+            } catch (StandardCsvSchema.InvalidRowException e) {
+                chunk.rejected++;
+                if (chunk.errors.size() < maxErrors) {
+                    chunk.errors.add(new ImportSummary.RowError(record.getRecordNumber(), e.getMessage()));
+                }
+            }
+        }
+        progress.addRowsRejected(chunk.rejected);
+        return chunk;
+    }
+
+    /**
+     * The reading stage: cuts the file into chunks and hands each to a validator, queueing the
+     * results in file order. Ends the queue with {@link Chunk#END}, or with the failure that stopped
+     * it.
+     */
+    private class Reader implements Runnable {
+        private final CSVParser parser;
+        private final StandardCsvSchema schema;
+        private final ImportProgress progress;
+        private final BlockingQueue<Future<Chunk>> chunks = new ArrayBlockingQueue<>(2 * parallelism);
+        private volatile boolean stopped;
+
+        Reader(CSVParser parser, StandardCsvSchema schema, ImportProgress progress) {
+            this.parser = parser;
+            this.schema = schema;
+            this.progress = progress;
+        }
+
+        @Override
+        public void run() {
+            Future<Chunk> last = CompletableFuture.completedFuture(Chunk.END);
+            try {
+                Iterator<CSVRecord> records = parser.iterator();
+                while (!stopped && records.hasNext()) {
+                    List<CSVRecord> batch = new ArrayList<>(chunkRows);
+                    while (batch.size() < chunkRows && records.hasNext()) {
+                        batch.add(records.next());
+                    }
+                    progress.addRowsRead(batch.size());
+                    put(validators.submit(() -> validate(schema, batch, progress)));
+                }
+            } catch (RuntimeException e) {
+                // commons-csv reports malformed input as an UncheckedIOException
+                last = CompletableFuture.failedFuture(e.getCause() instanceof IOException ? e.getCause() : e);
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                put(last);
+            } catch (InterruptedException e) {
+                // stopped
+            }
+        }
+
+        private void put(Future<Chunk> chunk) throws InterruptedException {
+            while (!stopped) {
+                if (chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+            chunk.cancel(false);
+            throw new InterruptedException("stopped");
+        }
+    }
+
+    private static final class Chunk {
+        static final Chunk END = new Chunk(0);
+
+        final List<ImportRow> rows;
+        final List<ImportSummary.RowError> errors = new ArrayList<>();
+        int rejected;
+
+        Chunk(int size) {
+            this.rows = new ArrayList<>(size);
+        }
+    }
+
+    // counts the bytes the parser has consumed, for progress
+    private static final class CountingInputStream extends FilterInputStream {
+        private final ImportProgress progress;
+
+        CountingInputStream(InputStream in, ImportProgress progress) {
+            super(in);
+            this.progress = progress;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                progress.addBytesRead(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                progress.addBytesRead(n);
+            }
+            return n;
+        }
+
+        @Override
+        public void close() {
+            // the caller owns the stream
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package app.personal.processor;
+
+import app.personal.model.TransactionType;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The standard CSV every statement is normalised to before it reaches the database: one
+ * transaction per row, with a header row naming the columns. Columns may come in any order and
+ * unknown columns are ignored.
+ *
+ * <pre>
+ * account_type,account_number,date,description,amount,type,reference_number,balance
+ * SAVINGS,50100234567890,2025-06-02,UPI-GROCER,500.00,DEBIT,400123,9500.00
+ * CREDIT_CARD,4000 12XX XXXX 0001,2025-06-03,AMAZON IN,1299.00,DEBIT,,
+ * </pre>
+ *
+ * <p>{@code account_type} is {@code CREDIT_CARD} or {@code SAVINGS}; {@code date} is ISO
+ * {@code yyyy-MM-dd}; {@code amount} is a positive decimal with at most two decimal places;
+ * {@code type} is {@code DEBIT} or {@code CREDIT}. {@code reference_number} and the closing
+ * {@code balance} after the transaction are optional, and the balance is only kept for savings
+ * accounts.</p>
+ */
+public final class StandardCsvSchema {
+
+    public static final String ACCOUNT_TYPE = "account_type";
+    public static final String ACCOUNT_NUMBER = "account_number";
+    public static final String DATE = "date";
+    public static final String DESCRIPTION = "description";
+    public static final String AMOUNT = "amount";
+    public static final String TYPE = "type";
+    public static final String REFERENCE_NUMBER = "reference_number";
+    public static final String BALANCE = "balance";
+
+    public static final List<String> REQUIRED_COLUMNS = List.of(ACCOUNT_TYPE, ACCOUNT_NUMBER, DATE, DESCRIPTION,
+            AMOUNT, TYPE);
+
+    static final CSVFormat FORMAT = CSVFormat.DEFAULT.builder()
+            .setHeader()
+            .setSkipHeaderRecord(true)
+            .setIgnoreEmptyLines(true)
+            .setTrim(true)
+            .build();
+
+    // column sizes of the transaction and statement tables
+    private static final int MAX_ACCOUNT_NUMBER = 32;
+    private static final int MAX_DESCRIPTION = 255;
+    private static final int MAX_REFERENCE_NUMBER = 64;
+
+    private final int accountType;
+    private final int accountNumber;
+    private final int date;
+    private final int description;
+    private final int amount;
+    private final int type;
+    private final int referenceNumber;
+    private final int balance;
+
+    private StandardCsvSchema(Map<String, Integer> columns) {
+        this.accountType = columns.get(ACCOUNT_TYPE);
+        this.accountNumber = columns.get(ACCOUNT_NUMBER);
+        this.date = columns.get(DATE);
+        this.description = columns.get(DESCRIPTION);
+        this.amount = columns.get(AMOUNT);
+        this.type = columns.get(TYPE);
+        this.referenceNumber = columns.getOrDefault(REFERENCE_NUMBER, -1);
+        this.balance = columns.getOrDefault(BALANCE, -1);
+    }
+
+    /**
+     * The column positions of a file with this header.
+     *
+     * @throws IllegalArgumentException if a required column is missing
+     */
+    static StandardCsvSchema of(Map<String, Integer> header) {
+        Map<String, Integer> columns = new HashMap<>();
+        header.forEach((name, index) -> columns.put(name.trim().toLowerCase(Locale.ROOT), index));
+        for (String required : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("Missing column " + required + ", the header must name "
+                        + String.join(", ", REQUIRED_COLUMNS));
+            }
+        }
+        return new StandardCsvSchema(columns);
+    }
+
+    /**
+     * The transaction on one row.
+     *
+     * @throws InvalidRowException saying what is wrong with the row
+     */
+    ImportRow read(CSVRecord record) {
+        ImportRow row = new ImportRow();
+        row.number = record.getRecordNumber();
+        String accountTypeValue = required(record, accountType, ACCOUNT_TYPE);
+        if ("SAVINGS".equalsIgnoreCase(accountTypeValue)) {
+            row.savings = true;
+        } else if (!"CREDIT_CARD".equalsIgnoreCase(accountTypeValue)) {
+            throw new InvalidRowException(ACCOUNT_TYPE + " must be CREDIT_CARD or SAVINGS, was " + accountTypeValue);
+        }
+        row.accountNumber = limited(required(record, accountNumber, ACCOUNT_NUMBER), MAX_ACCOUNT_NUMBER,
+                ACCOUNT_NUMBER);
+        try {
+            row.date = LocalDate.parse(required(record, date, DATE));
+        } catch (DateTimeParseException e) {
+            throw new InvalidRowException(DATE + " must be yyyy-MM-dd, was " + record.get(date));
+        }
+        row.description = limited(required(record, description, DESCRIPTION), MAX_DESCRIPTION, DESCRIPTION);
+        row.amount = decimal(required(record, amount, AMOUNT), AMOUNT);
+        if (row.amount.signum() <= 0) {
+            throw new InvalidRowException(AMOUNT + " must be positive, was " + record.get(amount));
+        }
+        String typeValue = required(record, type, TYPE);
+        if ("DEBIT".equalsIgnoreCase(typeValue)) {
+            row.type = TransactionType.DEBIT;
+        } else if ("CREDIT".equalsIgnoreCase(typeValue)) {
+            row.type = TransactionType.CREDIT;
+        } else {
+            throw new InvalidRowException(TYPE + " must be DEBIT or CREDIT, was " + typeValue);
+        }
+        String reference = optional(record, referenceNumber);
+        row.referenceNumber = reference == null ? null : limited(reference, MAX_REFERENCE_NUMBER, REFERENCE_NUMBER);
+        String balanceValue = optional(record, balance);
+        if (balanceValue != null && row.savings) {
+            row.balance = decimal(balanceValue, BALANCE);
+        }
+        return row;
+    }
+
+    private static String required(CSVRecord record, int column, String name) {
+        String value = column < record.size() ? record.get(column) : "";
+        if (value.isEmpty()) {
+            throw new InvalidRowException(name + " is required");
+        }
+        return value;
+    }
+
+    private static String optional(CSVRecord record, int column) {
+        if (column < 0 || column >= record.size()) {
+            return null;
+        }
+        String value = record.get(column);
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String limited(String value, int maxLength, String name) {
+        if (value.length() > maxLength) {
+            throw new InvalidRowException(name + " is longer than " + maxLength + " characters");
+        }
+        return value;
+    }
+
+    // money with at most two decimal places, always scaled to two
+    private static BigDecimal decimal(String value, String name) {
+        try {
+            BigDecimal decimal = new BigDecimal(value);
+            if (decimal.scale() > 2) {
+                throw new InvalidRowException(name + " has more than two decimal places: " + value);
+            }
+            return decimal.setScale(2, RoundingMode.UNNECESSARY);
+        } catch (NumberFormatException e) {
+            throw new InvalidRowException(name + " must be a decimal number, was " + value);
+        }
+    }
+
+    /**
+     * Why a row was rejected. Rejected rows are counted and reported, not fatal, so the exception
+     * carries no stack trace.
+     */
+    static class InvalidRowException extends RuntimeException {
+        InvalidRowException(String message) {
+            super(message, null, false, false);
+        }
+    }
+}
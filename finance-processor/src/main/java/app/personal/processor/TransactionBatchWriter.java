@@ -0,0 +1,305 @@
+package app.personal.processor;
+
+import app.personal.model.Ids;
+import app.personal.model.TransactionType;
+import app.personal.model.TransactionFingerprint;
+import app.personal.repository.IdSequences;
+import app.personal.repository.SavingsFingerprints;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes imported transactions straight to the transaction tables with JDBC batches, bypassing
+ * JPA: a million entities would cost a persistence context entry each. Ids come from the tables'
+ * sequences in the same blocks Hibernate uses (see {@link Ids}). Each account in an import gets one
+ * statement, created without dates when its first row is written and given the import's date range
+ * and last balance at the end. If the account already has a statement for that range, such as from
+ * an earlier import of the same file, the rows move to it instead, as its unique key requires.
+ * Savings rows already stored, with any statement, are skipped (see {@link SavingsFingerprints}).
+ *
+ * <p>Thread-safe; each {@link Target} belongs to one import and one thread.</p>
+ */
+public class TransactionBatchWriter {
+
+    private static final String INSERT_CARD_STATEMENT =
+            "INSERT INTO credit_card_statements (id, card_number) VALUES (?, ?)";
+    private static final String INSERT_SAVINGS_STATEMENT =
+            "INSERT INTO savings_account_statements (id, account_number) VALUES (?, ?)";
+    private static final String INSERT_CARD_TRANSACTION = "INSERT INTO credit_card_transactions"
+            + " (id, statement_id, date, description, amount, type, reference_number) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_SAVINGS_TRANSACTION = "INSERT INTO savings_account_transactions"
+            + " (id, statement_id, date, description, reference_number, withdrawal_amount, deposit_amount,"
+            + " closing_balance, type, fingerprint) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_CARD_STATEMENT =
+            "UPDATE credit_card_statements SET statement_date = ? WHERE id = ?";
+    private static final String UPDATE_SAVINGS_STATEMENT =
+            "UPDATE savings_account_statements SET from_date = ?, to_date = ?, closing_balance = ? WHERE id = ?";
+    private static final String FIND_CARD_STATEMENT =
+            "SELECT id FROM credit_card_statements WHERE card_number = ? AND statement_date = ?";
+    private static final String FIND_SAVINGS_STATEMENT =
+            "SELECT id FROM savings_account_statements WHERE account_number = ? AND from_date = ? AND to_date = ?";
+    private static final String MOVE_CARD_TRANSACTIONS =
+            "UPDATE credit_card_transactions SET statement_id = ? WHERE statement_id = ?";
+    private static final String MOVE_SAVINGS_TRANSACTIONS =
+            "UPDATE savings_account_transactions SET statement_id = ? WHERE statement_id = ?";
+    private static final String DELETE_CARD_STATEMENT = "DELETE FROM credit_card_statements WHERE id = ?";
+    private static final String DELETE_SAVINGS_STATEMENT = "DELETE FROM savings_account_statements WHERE id = ?";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactions;
+    private final IdSequences ids;
+    private final SavingsFingerprints savingsFingerprints;
+    private final int batchSize;
+
+    /**
+     * @param batchSize rows sent to the database per JDBC batch
+     */
+    public TransactionBatchWriter(JdbcTemplate jdbc, PlatformTransactionManager transactionManager, IdSequences ids,
+                                  SavingsFingerprints savingsFingerprints, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.jdbc = jdbc;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.ids = ids;
+        this.savingsFingerprints = savingsFingerprints;
+        this.batchSize = batchSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Start writing one import.
+     */
+    Target begin() {
+        return new Target();
+    }
+
+    /**
+     * The statements and rows of one import.
+     */
+    class Target {
+        // "C:<card>" or "S:<account>" -> its statement in this import
+        private final Map<String, ImportSummary.AccountImport> accounts = new LinkedHashMap<>();
+        private final IdSequences.Block cardStatementIds = ids.block(Ids.CREDIT_CARD_STATEMENTS_SEQ);
+        private final IdSequences.Block cardTransactionIds = ids.block(Ids.CREDIT_CARD_TRANSACTIONS_SEQ);
+        private final IdSequences.Block savingsStatementIds = ids.block(Ids.SAVINGS_ACCOUNT_STATEMENTS_SEQ);
+        private final IdSequences.Block savingsTransactionIds = ids.block(Ids.SAVINGS_ACCOUNT_TRANSACTIONS_SEQ);
+        // "<account>|<TransactionFingerprint.of>" of savings rows without a balance -> times seen
+        private final Map<String, Integer> occurrences = new HashMap<>();
+        // accounts whose rows were all duplicates so far: the range and balance their statement will cover
+        private final Map<String, ImportSummary.AccountImport> skipped = new HashMap<>();
+
+        /**
+         * Write {@code rows} in one database transaction: all of them or, if that fails, none.
+         * Savings rows whose fingerprint is already stored are left out.
+         *
+         * @return the rows left out as duplicates
+         */
+        int write(List<ImportRow> rows) {
+            List<String> fingerprints = new ArrayList<>();
+            for (ImportRow row : rows) {
+                if (row.savings) {
+                    if (row.fingerprint == null) {
+                        row.fingerprint = row.fingerprint(occurrences.merge(row.accountNumber + "|"
+                                + TransactionFingerprint.of(row.date, row.signedAmount(), row.referenceNumber,
+                                row.description), 1, Integer::sum));
+                    }
+                    fingerprints.add(row.fingerprint);
+                }
+            }
+            List<ImportRow> kept = new ArrayList<>(rows.size());
+            Set<String> inserted = new HashSet<>();
+            transactions.executeWithoutResult(status -> {
+                Set<String> stored = savingsFingerprints.stored(fingerprints);
+                for (ImportRow row : rows) {
+                    // a row repeated with the same balance in this chunk is a duplicate too
+                    if (!row.savings || (!stored.contains(row.fingerprint) && !inserted.contains(row.fingerprint))) {
+                        kept.add(row);
+                        if (row.savings) {
+                            inserted.add(row.fingerprint);
+                        }
+                    }
+                }
+                // ids of accounts created here are forgotten if the transaction rolls back
+                Map<String, ImportSummary.AccountImport> created = new LinkedHashMap<>();
+                long[] statementIds = statementIds(kept, created);
+                List<StatementRow> card = new ArrayList<>(kept.size());
+                List<StatementRow> savings = new ArrayList<>(kept.size());
+                for (int i = 0; i < kept.size(); i++) {
+                    ImportRow row = kept.get(i);
+                    (row.savings ? savings : card).add(new StatementRow(statementIds[i], row));
+                }
+                insertCard(card);
+                insertSavings(savings);
+                accounts.putAll(created);
+            });
+            savingsFingerprints.added(inserted);
+            int k = 0;
+            for (ImportRow row : rows) {
+                if (k < kept.size() && kept.get(k) == row) {
+                    account(row).add(row);
+                    k++;
+                } else {
+                    ImportSummary.AccountImport account = account(row);
+                    if (account == null) {
+                        account = skipped.computeIfAbsent(key(row),
+                                key -> new ImportSummary.AccountImport(row.savings, row.accountNumber, 0));
+                    }
+                    account.skip(row);
+                }
+            }
+            return rows.size() - kept.size();
+        }
+
+        /**
+         * Give every statement of this import its date range and closing balance.
+         *
+         * @return the statements written, one per account
+         */
+        List<ImportSummary.AccountImport> finish() {
+            if (!accounts.isEmpty()) {
+                transactions.executeWithoutResult(status -> {
+                    for (ImportSummary.AccountImport account : accounts.values()) {
+                        if (account.getTransactions() == 0) {
+                            continue;
+                        }
+                        Date first = Date.valueOf(account.getFirstDate());
+                        Date last = Date.valueOf(account.getLastDate());
+                        if (account.isSavings()) {
+                            join(account, FIND_SAVINGS_STATEMENT, MOVE_SAVINGS_TRANSACTIONS, DELETE_SAVINGS_STATEMENT,
+                                    account.getAccountNumber(), first, last);
+                            jdbc.update(UPDATE_SAVINGS_STATEMENT, first, last, account.getClosingBalance(),
+                                    account.getStatementId());
+                        } else {
+                            join(account, FIND_CARD_STATEMENT, MOVE_CARD_TRANSACTIONS, DELETE_CARD_STATEMENT,
+                                    account.getAccountNumber(), last);
+                            jdbc.update(UPDATE_CARD_STATEMENT, last, account.getStatementId());
+                        }
+                    }
+                });
+            }
+            return new ArrayList<>(accounts.values());
+        }
+
+        // move the account's rows to the statement already stored under its key, if there is one
+        private void join(ImportSummary.AccountImport account, String find, String move, String delete,
+                          Object... key) {
+            List<Long> existing = jdbc.queryForList(find, Long.class, key);
+            if (existing.isEmpty()) {
+                return;
+            }
+            long statementId = existing.get(0);
+            jdbc.update(move, statementId, account.getStatementId());
+            jdbc.update(delete, account.getStatementId());
+            account.setStatementId(statementId);
+        }
+
+        private void insertCard(List<StatementRow> rows) {
+            if (rows.isEmpty()) {
+                return;
+            }
+            jdbc.batchUpdate(INSERT_CARD_TRANSACTION, rows, batchSize, (ps, pending) -> {
+                ImportRow row = pending.row;
+                ps.setLong(1, cardTransactionIds.nextId());
+                ps.setLong(2, pending.statementId);
+                ps.setDate(3, Date.valueOf(row.date));
+                ps.setString(4, row.description);
+                ps.setBigDecimal(5, row.amount);
+                ps.setString(6, row.type.name());
+                ps.setString(7, row.referenceNumber);
+            });
+        }
+
+        private void insertSavings(List<StatementRow> rows) {
+            if (rows.isEmpty()) {
+                return;
+            }
+            jdbc.batchUpdate(INSERT_SAVINGS_TRANSACTION, rows, batchSize, (ps, pending) -> {
+                ImportRow row = pending.row;
+                boolean debit = row.type == TransactionType.DEBIT;
+                ps.setLong(1, savingsTransactionIds.nextId());
+                ps.setLong(2, pending.statementId);
+                ps.setDate(3, Date.valueOf(row.date));
+                ps.setString(4, row.description);
+                ps.setString(5, row.referenceNumber);
+                ps.setBigDecimal(6, debit ? row.amount : BigDecimal.ZERO);
+                ps.setBigDecimal(7, debit ? BigDecimal.ZERO : row.amount);
+                ps.setBigDecimal(8, row.balance);
+                ps.setString(9, row.type.name());
+                ps.setString(10, row.fingerprint);
+            });
+        }
+
+        // the statement of each row, creating statements for accounts not seen before
+        private long[] statementIds(List<ImportRow> rows, Map<String, ImportSummary.AccountImport> created) {
+            long[] ids = new long[rows.size()];
+            ImportSummary.AccountImport last = null;
+            for (int i = 0; i < rows.size(); i++) {
+                ImportRow row = rows.get(i);
+                // rows of one account usually come together
+                if (last == null || last.isSavings() != row.savings
+                        || !last.getAccountNumber().equals(row.accountNumber)) {
+                    String key = key(row);
+                    last = accounts.get(key);
+                    if (last == null) {
+                        last = created.get(key);
+                    }
+                    if (last == null) {
+                        last = new ImportSummary.AccountImport(row.savings, row.accountNumber, insertStatement(row));
+                        if (skipped.containsKey(key)) {
+                            last.skipAll(skipped.get(key));
+                        }
+                        created.put(key, last);
+                    }
+                }
+                ids[i] = last.getStatementId();
+            }
+            return ids;
+        }
+
+        // no dates yet: the import's range is only known at the end, and may be another statement's key
+        private long insertStatement(ImportRow row) {
+            if (row.savings) {
+                long id = savingsStatementIds.nextId();
+                jdbc.update(INSERT_SAVINGS_STATEMENT, id, row.accountNumber);
+                return id;
+            }
+            long id = cardStatementIds.nextId();
+            jdbc.update(INSERT_CARD_STATEMENT, id, row.accountNumber);
+            return id;
+        }
+
+        private ImportSummary.AccountImport account(ImportRow row) {
+            return accounts.get(key(row));
+        }
+
+        private String key(ImportRow row) {
+            return (row.savings ? "S:" : "C:") + row.accountNumber;
+        }
+    }
+
+    // a row and the statement it belongs to
+    private static final class StatementRow {
+        private final long statementId;
+        private final ImportRow row;
+
+        StatementRow(long statementId, ImportRow row) {
+            this.statementId = statementId;
+            this.row = row;
+        }
+    }
+}
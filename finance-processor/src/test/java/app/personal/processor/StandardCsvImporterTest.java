@@ -0,0 +1,302 @@
+package app.personal.processor;
+
+import app.personal.repository.IdSequences;
+import app.personal.repository.SavingsFingerprints;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StandardCsvImporterTest {
+
+    private static final String HEADER =
+            "account_type,account_number,date,description,amount,type,reference_number,balance\n";
+
+    private JdbcTemplate jdbc;
+    private StandardCsvImporter importer;
+    private SavingsFingerprints fingerprints;
+
+    @BeforeEach
+    void createSchema() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:import-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbc = new JdbcTemplate(dataSource);
+        // as Hibernate creates the tables from the entities
+        for (String table : new String[] {"credit_card_statements", "credit_card_transactions",
+                "savings_account_statements", "savings_account_transactions"}) {
+            jdbc.execute("create sequence " + table + "_seq start with 1 increment by 100");
+        }
+        jdbc.execute("create table credit_card_statements (id bigint not null,"
+                + " available_credit numeric(38,2), card_holder_name varchar(255), card_number varchar(255),"
+                + " credit_limit numeric(38,2), due_date date, minimum_amount_due numeric(38,2),"
+                + " statement_date date, total_dues numeric(38,2), primary key (id),"
+                + " constraint uk_credit_card_statements_card_date unique (card_number, statement_date))");
+        jdbc.execute("create table credit_card_transactions (id bigint not null,"
+                + " amount numeric(38,2), date date, description varchar(255), reference_number varchar(255),"
+                + " type varchar(255) check (type in ('CREDIT','DEBIT')), statement_id bigint,"
+                + " primary key (id), foreign key (statement_id) references credit_card_statements)");
+        jdbc.execute("create table savings_account_statements (id bigint not null,"
+                + " account_holder_name varchar(255), account_number varchar(255), branch_name varchar(255),"
+                + " closing_balance numeric(38,2), from_date date, ifsc_code varchar(255),"
+                + " opening_balance numeric(38,2), to_date date, primary key (id), constraint"
+                + " uk_savings_account_statements_account_period unique (account_number, from_date, to_date))");
+        jdbc.execute("create table savings_account_transactions (id bigint not null,"
+                + " closing_balance numeric(38,2), date date, deposit_amount numeric(38,2),"
+                + " description varchar(255), reference_number varchar(255),"
+                + " type varchar(255) check (type in ('CREDIT','DEBIT')), withdrawal_amount numeric(38,2),"
+                + " statement_id bigint, fingerprint varchar(32), duplicate boolean, primary key (id),"
+                + " foreign key (statement_id) references savings_account_statements,"
+                + " constraint uk_savings_account_transactions_fingerprint unique (fingerprint))");
+        fingerprints = new SavingsFingerprints(jdbc);
+        fingerprints.load();
+        TransactionBatchWriter writer = new TransactionBatchWriter(jdbc, new DataSourceTransactionManager(dataSource),
+                new IdSequences(jdbc), fingerprints, 500);
+        importer = new StandardCsvImporter(writer, 2, 3, 5);
+    }
+
+    @AfterEach
+    void dropDatabase() {
+        jdbc.execute("SHUTDOWN");
+        importer.shutdown();
+    }
+
+    @Test
+    void importsRowsIntoOneStatementPerAccount() {
+        String csv = HEADER
+                + "SAVINGS,50100234567890,2025-06-02,UPI-GROCER,500.00,DEBIT,400123,9500.00\n"
+                + "CREDIT_CARD,4000 12XX XXXX 0001,2025-06-03,AMAZON IN,1299,DEBIT,,\n"
+                + "SAVINGS,50100234567890,2025-06-05,SALARY,\"50,000.00\",CREDIT,,\n"
+                + "savings,50100234567890,2025-06-04,NEFT IN,250.5,credit,,9750.50\n"
+                + "CREDIT_CARD,4000 12XX XXXX 0001,2025-06-10,REFUND,99.00,CREDIT,R1,\n";
+        ImportProgress progress = new ImportProgress(csv.length());
+
+        ImportSummary summary = importer.importCsv(stream(csv), progress);
+
+        assertEquals(ImportSummary.Status.COMPLETED, summary.getStatus(), summary.getFailure());
+        assertEquals(5, summary.getRowsRead());
+        assertEquals(4, summary.getRowsImported());
+        assertEquals(1, summary.getRowsRejected());
+        assertEquals(1, summary.getErrors().size());
+        assertEquals(3, summary.getErrors().get(0).getRow());
+        assertTrue(summary.getErrors().get(0).getMessage().startsWith("amount"), summary.getErrors().get(0).getMessage());
+        assertEquals(csv.length(), progress.getBytesRead());
+        assertEquals(100, progress.getPercentRead());
+
+        assertEquals(2, summary.getStatements().size());
+        ImportSummary.AccountImport savings = summary.getStatements().get(0);
+        assertEquals("SAVINGS", savings.getAccountType());
+        assertEquals(2, savings.getTransactions());
+        Map<String, Object> statement = jdbc.queryForMap(
+                "select account_number, from_date, to_date, closing_balance from savings_account_statements"
+                        + " where id = ?", savings.getStatementId());
+        assertEquals("50100234567890", statement.get("account_number"));
+        assertEquals(LocalDate.of(2025, 6, 2), ((java.sql.Date) statement.get("from_date")).toLocalDate());
+        assertEquals(LocalDate.of(2025, 6, 4), ((java.sql.Date) statement.get("to_date")).toLocalDate());
+        assertEquals(new BigDecimal("9750.50"), statement.get("closing_balance"));
+        assertEquals(new BigDecimal("250.50"), jdbc.queryForObject(
+                "select deposit_amount from savings_account_transactions where description = 'NEFT IN'",
+                BigDecimal.class));
+        assertEquals(BigDecimal.ZERO.setScale(2), jdbc.queryForObject(
+                "select deposit_amount from savings_account_transactions where description = 'UPI-GROCER'",
+                BigDecimal.class));
+
+        ImportSummary.AccountImport card = summary.getStatements().get(1);
+        assertEquals("CREDIT_CARD", card.getAccountType());
+        assertEquals(LocalDate.of(2025, 6, 10), jdbc.queryForObject(
+                "select statement_date from credit_card_statements where id = ?", java.sql.Date.class,
+                card.getStatementId()).toLocalDate());
+        assertEquals(2, jdbc.queryForObject(
+                "select count(*) from credit_card_transactions where statement_id = ?", Integer.class,
+                card.getStatementId()));
+        assertEquals("DEBIT", jdbc.queryForObject(
+                "select type from credit_card_transactions where description = 'AMAZON IN'", String.class));
+    }
+
+    @Test
+    void reimportingAPeriodAddsToItsStatement() {
+        String csv = HEADER
+                + "SAVINGS,50100234567890,2025-06-02,UPI-GROCER,500.00,DEBIT,400123,9500.00\n"
+                + "SAVINGS,50100234567890,2025-06-04,NEFT IN,250.50,CREDIT,,9750.50\n"
+                + "CREDIT_CARD,4000 12XX XXXX 0001,2025-06-03,AMAZON IN,1299,DEBIT,,\n";
+
+        // a corrected export of the same period, with a row the first one missed
+        String later = csv + "SAVINGS,50100234567890,2025-06-03,ATM,1000,DEBIT,,8500.00\n";
+
+        ImportSummary first = importer.importCsv(stream(csv), new ImportProgress(csv.length()));
+        ImportSummary second = importer.importCsv(stream(later), new ImportProgress(later.length()));
+
+        assertEquals(ImportSummary.Status.COMPLETED, second.getStatus(), second.getFailure());
+        assertEquals(first.getStatements().get(0).getStatementId(), second.getStatements().get(0).getStatementId());
+        assertEquals(first.getStatements().get(1).getStatementId(), second.getStatements().get(1).getStatementId());
+        assertEquals(1, jdbc.queryForObject("select count(*) from savings_account_statements", Integer.class));
+        assertEquals(1, jdbc.queryForObject("select count(*) from credit_card_statements", Integer.class));
+        // the savings rows already stored are skipped, credit card rows are not fingerprinted
+        assertEquals(2, second.getDuplicatesSkipped());
+        assertEquals(2, second.getRowsImported());
+        assertEquals(3, jdbc.queryForObject("select count(*) from savings_account_transactions where statement_id = ?",
+                Integer.class, second.getStatements().get(0).getStatementId()));
+    }
+
+    @Test
+    void skipsSavingsRowsStoredWithAnotherStatement() {
+        String june = HEADER
+                + "SAVINGS,50100234567890,2025-06-02,UPI-GROCER,500.00,DEBIT,400123,9500.00\n"
+                + "SAVINGS,50100234567890,2025-06-02,UPI-GROCER,500.00,DEBIT,400123,9000.00\n"
+                + "SAVINGS,50100234567890,2025-06-09,CHARGES,10.00,DEBIT,,\n";
+        // the same charge twice on one day, without a balance, is two transactions
+        String quarter = june
+                + "SAVINGS,50100234567890,2025-06-09,CHARGES,10.00,DEBIT,,\n"
+                + "SAVINGS,50100234567890,2025-07-01,INTEREST,12.00,CREDIT,,9002.00\n";
+
+        importer.importCsv(stream(june), new ImportProgress(-1));
+        ImportSummary summary = importer.importCsv(stream(quarter), new ImportProgress(-1));
+
+        assertEquals(ImportSummary.Status.COMPLETED, summary.getStatus(), summary.getFailure());
+        assertEquals(3, summary.getDuplicatesSkipped());
+        assertEquals(2, summary.getRowsImported());
+        assertEquals(5, jdbc.queryForObject("select count(*) from savings_account_transactions", Integer.class));
+        assertEquals(0, jdbc.queryForObject("select count(*) from savings_account_transactions where fingerprint is null",
+                Integer.class));
+    }
+
+    @Test
+    void marksOldDuplicateRowsSoTheBackfillRunsOnce() {
+        importer.importCsv(stream(HEADER
+                + "SAVINGS,50100234567890,2025-06-02,UPI-GROCER,500.00,DEBIT,400123,9500.00\n"
+                + "SAVINGS,50100234567890,2025-06-05,SALARY,50000.00,CREDIT,,59500.00\n"), new ImportProgress(-1));
+        // as stored before the fingerprint column existed, with one row twice
+        jdbc.update("insert into savings_account_transactions (id, closing_balance, date, description,"
+                + " reference_number, type, withdrawal_amount, statement_id) select id + 1000, closing_balance,"
+                + " date, description, reference_number, type, withdrawal_amount, statement_id"
+                + " from savings_account_transactions where description = 'UPI-GROCER'");
+        jdbc.update("update savings_account_transactions set fingerprint = null");
+
+        SavingsFingerprints restarted = new SavingsFingerprints(jdbc);
+        restarted.load();
+        assertEquals(1, restarted.getDuplicates());
+        assertEquals(1, jdbc.queryForObject("select count(*) from savings_account_transactions"
+                + " where fingerprint is null and duplicate", Integer.class));
+
+        // no longer a copy, but already marked: the next start does not fingerprint it again
+        jdbc.update("update savings_account_transactions set description = 'EDITED' where duplicate");
+        SavingsFingerprints again = new SavingsFingerprints(jdbc);
+        again.load();
+        assertEquals(1, again.getDuplicates());
+        assertEquals(2, jdbc.queryForObject("select count(*) from savings_account_transactions"
+                + " where fingerprint is not null", Integer.class));
+    }
+
+    @Test
+    void listsOnlyTheFirstRejectedRows() {
+        StringBuilder csv = new StringBuilder(HEADER);
+        for (int i = 1; i <= 20; i++) {
+            csv.append(i % 2 == 0 ? "CREDIT_CARD,1234,2025-13-01,BAD DATE,1.00,DEBIT,,\n"
+                    : "CREDIT_CARD,1234,2025-01-01,OK,1.00,DEBIT,,\n");
+        }
+
+        ImportSummary summary = importer.importCsv(stream(csv.toString()), new ImportProgress(-1));
+
+        assertEquals(ImportSummary.Status.COMPLETED, summary.getStatus());
+        assertEquals(10, summary.getRowsImported());
+        assertEquals(10, summary.getRowsRejected());
+        assertEquals(5, summary.getErrors().size());
+        assertTrue(summary.isErrorsTruncated());
+        assertEquals(java.util.List.of(2L, 4L, 6L, 8L, 10L),
+                summary.getErrors().stream().map(ImportSummary.RowError::getRow).toList());
+    }
+
+    @Test
+    void failsWithoutWritingWhenARequiredColumnIsMissing() {
+        String csv = "account_type,account_number,date,description,amount\n"
+                + "SAVINGS,1,2025-06-02,X,1.00\n";
+
+        ImportSummary summary = importer.importCsv(stream(csv), new ImportProgress(-1));
+
+        assertEquals(ImportSummary.Status.FAILED, summary.getStatus());
+        assertTrue(summary.getFailure().contains("type"), summary.getFailure());
+        assertEquals(0, summary.getRowsImported());
+        assertEquals(0, jdbc.queryForObject("select count(*) from savings_account_statements", Integer.class));
+    }
+
+    @Test
+    void keepsTheChunksWrittenBeforeMalformedInput() {
+        String csv = HEADER
+                + "CREDIT_CARD,1234,2025-01-01,A,1.00,DEBIT,,\n"
+                + "CREDIT_CARD,1234,2025-01-02,B,1.00,DEBIT,,\n"
+                + "CREDIT_CARD,1234,2025-01-03,C,1.00,DEBIT,,\n"
+                + "CREDIT_CARD,1234,2025-01-04,\"D\"x,1.00,DEBIT,,\n"
+                + "CREDIT_CARD,1234,2025-01-05,E,1.00,DEBIT,,\n";
+
+        ImportSummary summary = importer.importCsv(stream(csv), new ImportProgress(-1));
+
+        assertEquals(ImportSummary.Status.FAILED, summary.getStatus());
+        assertNotNull(summary.getFailure());
+        assertEquals(3, summary.getRowsImported());
+        assertEquals(3, jdbc.queryForObject("select count(*) from credit_card_transactions", Integer.class));
+        assertEquals(LocalDate.of(2025, 1, 3), summary.getStatements().get(0).getLastDate());
+    }
+
+    @Test
+    void streamsLargeFilesInChunks() {
+        StandardCsvImporter chunked = new StandardCsvImporter(
+                new TransactionBatchWriter(jdbc, new DataSourceTransactionManager(jdbc.getDataSource()),
+                        new IdSequences(jdbc), fingerprints, 1000),
+                4, 5000, 10);
+        int rows = 100_000;
+        InputStream csv = new SequenceInputStream(stream(HEADER), new GeneratedRows(rows));
+
+        ImportSummary summary = chunked.importCsv(csv, new ImportProgress(-1));
+        chunked.shutdown();
+
+        assertEquals(ImportSummary.Status.COMPLETED, summary.getStatus(), summary.getFailure());
+        assertEquals(rows, summary.getRowsImported());
+        assertEquals(4, summary.getStatements().size());
+        assertEquals(rows, jdbc.queryForObject("select count(*) from savings_account_transactions", Integer.class)
+                + jdbc.queryForObject("select count(*) from credit_card_transactions", Integer.class));
+    }
+
+    private static InputStream stream(String csv) {
+        return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // rows made as they are read, so the file never exists in memory
+    private static class GeneratedRows extends InputStream {
+        private final int rows;
+        private int row;
+        private byte[] line = new byte[0];
+        private int position;
+
+        GeneratedRows(int rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public int read() {
+            if (position == line.length) {
+                if (row == rows) {
+                    return -1;
+                }
+                row++;
+                boolean savings = row % 2 == 0;
+                line = ((savings ? "SAVINGS,5010000000000" : "CREDIT_CARD,4000 12XX XXXX 000") + row % 4
+                        + ",2025-06-" + (10 + row % 20) + ",MERCHANT " + row + "," + (row % 997 + 1) + ".25,"
+                        + (row % 3 == 0 ? "CREDIT" : "DEBIT") + "," + row + "," + (savings ? row + ".00" : "")
+                        + "\n").getBytes(StandardCharsets.US_ASCII);
+                position = 0;
+            }
+            return line[position++];
+        }
+    }
+}
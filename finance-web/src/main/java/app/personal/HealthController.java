@@ -1,10 +1,15 @@
 package app.personal;
 
+import app.personal.service.ParserWarmUpService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -13,8 +18,26 @@ public class HealthController {
     @Autowired
     private HealthService healthService;
 
+    @Autowired
+    private ApplicationAvailability availability;
+
+    @Autowired
+    private ParserWarmUpService warmUpService;
+
     @GetMapping("/health")
     public ResponseEntity<String> health() {
         return ResponseEntity.ok(Optional.of(healthService.isDatabaseUp()).get().toString());
     }
+
+    /**
+     * 200 once the application accepts traffic, which Spring Boot only marks after the parser
+     * warm-up has run; 503 before that, so a load balancer keeps uploads away from a cold instance.
+     */
+    @GetMapping("/health/ready")
+    public ResponseEntity<Map<String, Object>> ready() {
+        Map<String, Object> status = warmUpService.getStatus();
+        boolean ready = availability.getReadinessState() == ReadinessState.ACCEPTING_TRAFFIC && warmUpService.isDone();
+        status.put("ready", ready);
+        return ResponseEntity.status(ready ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE).body(status);
+    }
 }
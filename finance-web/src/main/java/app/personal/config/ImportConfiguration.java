@@ -0,0 +1,45 @@
+package app.personal.config;
+
+import app.personal.processor.StandardCsvImporter;
+import app.personal.processor.TransactionBatchWriter;
+import app.personal.repository.IdSequences;
+import app.personal.repository.SavingsFingerprints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Wiring for the standard CSV importer in finance-processor, which writes with plain JDBC on the
+ * application's data source and transaction manager, taking ids from the entities' sequences.
+ */
+@Configuration
+public class ImportConfiguration {
+
+    /**
+     * Inserts imported transactions {@code batch-size} rows per JDBC batch, skipping savings
+     * transactions already stored.
+     */
+    @Bean
+    public TransactionBatchWriter transactionBatchWriter(
+            JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, IdSequences idSequences,
+            SavingsFingerprints savingsFingerprints, @Value("${finance.import.batch-size:1000}") int batchSize) {
+        return new TransactionBatchWriter(jdbcTemplate, transactionManager, idSequences, savingsFingerprints,
+                batchSize);
+    }
+
+    /**
+     * Validates chunks of {@code chunk-rows} rows on {@code parallelism} threads, 0 meaning one per
+     * CPU, while the previous chunks are written.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public StandardCsvImporter standardCsvImporter(
+            TransactionBatchWriter transactionBatchWriter,
+            @Value("${finance.import.parallelism:0}") int parallelism,
+            @Value("${finance.import.chunk-rows:5000}") int chunkRows,
+            @Value("${finance.import.max-errors:100}") int maxErrors) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        return new StandardCsvImporter(transactionBatchWriter, threads, chunkRows, maxErrors);
+    }
+}
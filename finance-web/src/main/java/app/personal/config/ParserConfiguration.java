@@ -0,0 +1,129 @@
+package app.personal.config;
+
+import app.personal.parser.ParallelTextExtractor;
+import app.personal.parser.ParseAdmission;
+import app.personal.parser.ParserRegistry;
+import app.personal.parser.ProfileCache;
+import app.personal.parser.TextLayerStore;
+import app.personal.parser.TextStripperPool;
+import app.personal.service.ParseResultCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Wiring for the finance-parser components, which are plain Java and know nothing about Spring.
+ */
+@Configuration
+public class ParserConfiguration {
+
+    /**
+     * Every parser provider found through ServiceLoader; parsers themselves are built on first use.
+     */
+    @Bean
+    public ParserRegistry parserRegistry() {
+        return ParserRegistry.load();
+    }
+
+    /**
+     * Parser profiles compiled once and re-read when their file changes. Files in
+     * {@code profiles-dir} take precedence over the ones bundled on the classpath.
+     */
+    @Bean
+    public ProfileCache profileCache(
+            @Value("${finance.parser.profiles-dir:}") String profilesDir,
+            @Value("${finance.parser.profile-check-interval:5s}") Duration checkInterval) {
+        return new ProfileCache(profilesDir.isBlank() ? null : Path.of(profilesDir), checkInterval);
+    }
+
+    /**
+     * Results of earlier uploads by content hash, so a re-uploaded statement skips PDFBox.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "finance.parser.result-cache.enabled", havingValue = "true")
+    public ParseResultCache parseResultCache(
+            @Value("${finance.parser.result-cache.max-memory-bytes:16777216}") long maxMemoryBytes,
+            @Value("${finance.parser.result-cache.directory:}") String directory,
+            @Value("${finance.parser.result-cache.max-disk-bytes:268435456}") long maxDiskBytes,
+            ObjectMapper objectMapper, MeterRegistry meterRegistry) throws IOException {
+        return new ParseResultCache(maxMemoryBytes, directory.isBlank() ? null : Path.of(directory), maxDiskBytes,
+                objectMapper, meterRegistry);
+    }
+
+    /**
+     * Compressed text layers of parsed uploads, replayed by a re-parse after a parser fix.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "finance.parser.text-store.enabled", havingValue = "true")
+    public TextLayerStore textLayerStore(
+            @Value("${finance.parser.text-store.directory:./data/text-layers}") String directory,
+            @Value("${finance.parser.text-store.segment-bytes:67108864}") long segmentBytes) throws IOException {
+        return TextLayerStore.open(Path.of(directory), segmentBytes);
+    }
+
+    /**
+     * Limits concurrent PDF parses to a heap budget, so a burst of large uploads queues or gets
+     * 429 instead of exhausting the heap. A budget of 0 means a quarter of the maximum heap.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "finance.parser.admission.enabled", havingValue = "true")
+    public ParseAdmission parseAdmission(
+            @Value("${finance.parser.admission.budget:0}") DataSize budget,
+            @Value("${finance.parser.admission.mixed-mode-above:64MB}") DataSize mixedModeAbove,
+            @Value("${finance.parser.admission.main-memory-per-parse:16MB}") DataSize mainMemoryPerParse,
+            @Value("${finance.parser.admission.max-queued:16}") int maxQueued,
+            @Value("${finance.parser.admission.max-wait:5s}") Duration maxWait,
+            MeterRegistry meterRegistry) {
+        long budgetBytes = budget.toBytes() > 0 ? budget.toBytes() : Runtime.getRuntime().maxMemory() / 4;
+        ParseAdmission admission = new ParseAdmission(budgetBytes, mixedModeAbove.toBytes(),
+                mainMemoryPerParse.toBytes(), maxQueued, maxWait);
+        Gauge.builder("finance.parser.admission.reserved", admission, ParseAdmission::getReservedBytes)
+                .description("Heap reserved by admitted parses").baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("finance.parser.admission.running", admission, ParseAdmission::getRunning)
+                .description("Parses currently admitted").register(meterRegistry);
+        Gauge.builder("finance.parser.admission.queued", admission, ParseAdmission::getQueued)
+                .description("Parses waiting for heap budget").register(meterRegistry);
+        FunctionCounter.builder("finance.parser.admission.rejected", admission, ParseAdmission::getRejectedCount)
+                .description("Parses turned away because the budget was used up").register(meterRegistry);
+        return admission;
+    }
+
+    /**
+     * The text strippers every extraction borrows, published so reuse and pool pressure can be
+     * watched: borrows well above creations means strippers are being reused.
+     */
+    @Bean
+    public TextStripperPool textStripperPool(MeterRegistry meterRegistry) {
+        TextStripperPool pool = TextStripperPool.shared();
+        Gauge.builder("finance.parser.strippers.idle", pool, TextStripperPool::getIdle)
+                .description("Text strippers waiting to be reused").register(meterRegistry);
+        Gauge.builder("finance.parser.strippers.in-use", pool, TextStripperPool::getInUse)
+                .description("Text strippers borrowed by running extractions").register(meterRegistry);
+        FunctionCounter.builder("finance.parser.strippers.borrowed", pool, TextStripperPool::getBorrowCount)
+                .description("Text strippers handed out").register(meterRegistry);
+        FunctionCounter.builder("finance.parser.strippers.created", pool, TextStripperPool::getCreatedCount)
+                .description("Text strippers built because none was idle").register(meterRegistry);
+        FunctionCounter.builder("finance.parser.strippers.retired", pool, TextStripperPool::getRetiredCount)
+                .description("Text strippers discarded after their maximum number of uses").register(meterRegistry);
+        return pool;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "finance.parser.parallel-extraction.enabled", havingValue = "true")
+    public ParallelTextExtractor parallelTextExtractor(
+            @Value("${finance.parser.parallel-extraction.pool-size:0}") int poolSize,
+            @Value("${finance.parser.parallel-extraction.min-pages-per-chunk:8}") int minPagesPerChunk) {
+        int parallelism = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        return new ParallelTextExtractor(parallelism, minPagesPerChunk);
+    }
+}
@@ -0,0 +1,36 @@
+package app.personal.config;
+
+import app.personal.repository.SavingsFingerprints;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metrics of the stored statements that finance-core keeps without a meter registry of its own.
+ */
+@Configuration
+public class StorageMetricsConfiguration {
+
+    /**
+     * The savings fingerprint filter: lookups it saved, and the stored rows the startup backfill
+     * marked as duplicates.
+     */
+    @Bean
+    public MeterBinder savingsFingerprintMetrics(SavingsFingerprints fingerprints) {
+        return registry -> {
+            FunctionCounter.builder("finance.savings.fingerprints.checked", fingerprints,
+                            SavingsFingerprints::getChecked)
+                    .description("Savings transaction fingerprints checked against the stored ones")
+                    .register(registry);
+            FunctionCounter.builder("finance.savings.fingerprints.probed", fingerprints,
+                            SavingsFingerprints::getProbed)
+                    .description("Fingerprints the Bloom filter could not rule out, looked up in the database")
+                    .register(registry);
+            Gauge.builder("finance.savings.fingerprints.duplicates", fingerprints, SavingsFingerprints::getDuplicates)
+                    .description("Stored savings transactions left without a fingerprint as duplicates of another")
+                    .register(registry);
+        };
+    }
+}
@@ -3,14 +3,17 @@ package app.personal.controller;
 import app.personal.dto.CreditCardStatementDto;
 import app.personal.model.CreditCardStatement;
 import app.personal.service.CreditCardStatementService;
+import app.personal.parser.ParseException;
 import app.personal.service.ParserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/credit-card")
@@ -27,14 +30,24 @@ public class CreditCardController {
             @RequestPart("file") MultipartFile file,
             @RequestParam(value = "debug", required = false, defaultValue = "false") boolean debug) {
         try {
-            CreditCardStatementDto parsedStatement = parserService.parseHdfcCreditCard(file);
-            CreditCardStatement savedStatement = statementService.saveStatement(parsedStatement);
-            
             if (debug) {
-                return ResponseEntity.ok(parserService.parseHdfcCreditCardDebug(file));
+                // one parse serves both persistence and the debug payload
+                Map<String, Object> debugMap = parserService.parseHdfcCreditCardDebug(file);
+                statementService.saveStatement((CreditCardStatementDto) debugMap.get("statement"));
+                return ResponseEntity.ok(debugMap);
             }
-            
+
+            CreditCardStatementDto parsedStatement = parserService.parseHdfcCreditCard(file);
+            CreditCardStatement savedStatement = statementService.saveStatement(parsedStatement);
             return ResponseEntity.ok(savedStatement);
+        } catch (ParseException e) {
+            if (e.getReason() == ParseException.Reason.TIMEOUT) {
+                return ResponseEntity.unprocessableEntity().body("Failed to process statement: " + e.getMessage());
+            }
+            if (e.getReason() == ParseException.Reason.OVERLOADED) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(e.getMessage());
+            }
+            return ResponseEntity.badRequest().body("Failed to process statement: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Failed to process statement: " + e.getMessage());
         }
@@ -0,0 +1,68 @@
+package app.personal.controller;
+
+import app.personal.service.CsvImportService;
+import app.personal.service.ImportJob;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/import")
+public class ImportController {
+
+    @Autowired
+    private CsvImportService importService;
+
+    /**
+     * Import a standard CSV uploaded as the multipart part {@code file}. Answers 202 with the job
+     * as soon as the file is received; poll {@code GET /api/import/{id}} for progress and the summary.
+     */
+    @PostMapping(value = "/standard-csv", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportJob> importUpload(@RequestPart("file") MultipartFile file) {
+        if (file.isEmpty()) {
+            throw new ApiException(400, "Empty file");
+        }
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(importService.submit(file));
+        } catch (IOException e) {
+            throw new ApiException(500, "Failed to receive uploaded CSV: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Import a standard CSV sent as the request body with {@code Content-Type: text/csv}, which
+     * avoids multipart encoding and its size limit for very large files.
+     */
+    @PostMapping(value = "/standard-csv", consumes = "text/csv")
+    public ResponseEntity<ImportJob> importBody(
+            HttpServletRequest request,
+            @RequestParam(value = "fileName", required = false, defaultValue = "request body") String fileName) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(importService.submit(request.getInputStream(), fileName));
+        } catch (IOException e) {
+            throw new ApiException(500, "Failed to receive CSV: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ImportJob> getImport(@PathVariable String id) {
+        ImportJob job = importService.getJob(id);
+        if (job == null) {
+            throw new ApiException(404, "No import " + id);
+        }
+        return ResponseEntity.ok(job);
+    }
+}
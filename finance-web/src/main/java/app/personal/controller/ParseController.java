@@ -1,5 +1,6 @@
 package app.personal.controller;
 
+import app.personal.parser.ParseException;
 import app.personal.service.ParserService;
 import app.personal.dto.CreditCardStatementDto;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -47,8 +48,30 @@ public class ParseController {
             return ResponseEntity.ok(body);
         } catch (IllegalArgumentException iae) {
             throw new ApiException(400, iae.getMessage());
+        } catch (ParseException pe) {
+            if (pe.getReason() == ParseException.Reason.TIMEOUT) {
+                throw new ApiException(422, "Statement could not be parsed in time: " + pe.getMessage());
+            }
+            if (pe.getReason() == ParseException.Reason.OVERLOADED) {
+                throw new ApiException(429, pe.getMessage());
+            }
+            throw new ApiException(500, "Failed to parse uploaded PDF: " + pe.getMessage());
         } catch (Exception e) {
             throw new ApiException(500, "Failed to parse uploaded PDF: " + e.getMessage());
         }
     }
+
+    /**
+     * Re-run the current parsers over every stored text layer, without re-reading PDFs.
+     */
+    @PostMapping("/reparse")
+    public ResponseEntity<?> reparse() {
+        try {
+            return ResponseEntity.ok(parserService.reparseStoredText());
+        } catch (IllegalStateException ise) {
+            throw new ApiException(503, ise.getMessage());
+        } catch (Exception e) {
+            throw new ApiException(500, "Failed to re-parse stored statements: " + e.getMessage());
+        }
+    }
 }
@@ -1,12 +1,19 @@
 package app.personal.controller;
 
+import app.personal.dto.CreditCardStatementDto;
 import app.personal.dto.SavingsAccountStatementDto;
+import app.personal.parser.ParseException;
+import app.personal.service.CreditCardStatementService;
 import app.personal.service.ParserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/statements")
 public class StatementController {
@@ -17,25 +24,54 @@ public class StatementController {
     @Autowired
     private app.personal.service.SavingsAccountStatementService statementService;
 
+    @Autowired
+    private CreditCardStatementService creditCardStatementService;
+
+    /**
+     * Upload a statement PDF. {@code bank} names the parser (see {@code /api/statements/parsers});
+     * when it is omitted or {@code AUTO} the format is detected from the first page.
+     */
     @PostMapping("/upload")
     public ResponseEntity<?> uploadStatement(
             @RequestParam("file") MultipartFile file,
-            @RequestParam("bank") String bankType,
+            @RequestParam(value = "bank", required = false, defaultValue = "AUTO") String bankType,
             @RequestParam(value = "save", defaultValue = "true") boolean save) {
 
         try {
-            if ("HDFC_SAVINGS".equalsIgnoreCase(bankType)) {
-                SavingsAccountStatementDto statement = parserService.parseHdfcSavings(file);
-                if (save) {
-                    return ResponseEntity.ok(statementService.saveStatement(statement));
-                }
+            Map<String, Object> result = "AUTO".equalsIgnoreCase(bankType)
+                    ? parserService.parseDetected(file)
+                    : parserService.parseWith(file, bankType);
+            Object statement = result.get("statement");
+            if (statement == null) {
+                return ResponseEntity.internalServerError().body("Error parsing file: " + result.get("error"));
+            }
+            if (!save) {
                 return ResponseEntity.ok(statement);
             }
-            // Future extensions for other banks
-
-            return ResponseEntity.badRequest().body("Unsupported bank type: " + bankType);
+            if (statement instanceof SavingsAccountStatementDto) {
+                return ResponseEntity.ok(statementService.saveStatement((SavingsAccountStatementDto) statement));
+            }
+            if (statement instanceof CreditCardStatementDto) {
+                return ResponseEntity.ok(creditCardStatementService.saveStatement((CreditCardStatementDto) statement));
+            }
+            return ResponseEntity.ok(statement);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ParseException e) {
+            if (e.getReason() == ParseException.Reason.TIMEOUT) {
+                return ResponseEntity.unprocessableEntity().body("Error parsing file: " + e.getMessage());
+            }
+            if (e.getReason() == ParseException.Reason.OVERLOADED) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(e.getMessage());
+            }
+            return ResponseEntity.internalServerError().body("Error parsing file: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body("Error parsing file: " + e.getMessage());
         }
     }
+
+    @GetMapping("/parsers")
+    public ResponseEntity<List<String>> getParsers() {
+        return ResponseEntity.ok(parserService.getParserIds());
+    }
 }
@@ -0,0 +1,163 @@
+package app.personal.service;
+
+import app.personal.processor.ImportSummary;
+import app.personal.processor.StandardCsvImporter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs standard CSV imports in the background, one at a time: they all write to the same tables,
+ * and a single import already keeps the database busy. An upload is spooled to a temporary file
+ * before the request returns, so the import does not hold the request open and any number can
+ * queue without using heap.
+ */
+@Service
+public class CsvImportService {
+
+    @Autowired
+    private StandardCsvImporter importer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // finished jobs kept for GET /api/import/{id}; older ones are forgotten
+    @Value("${finance.import.retained-jobs:50}")
+    private int retainedJobs;
+
+    private final Map<String, ImportJob> jobs = new LinkedHashMap<>();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "csv-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Queue the import of an uploaded file.
+     */
+    public ImportJob submit(MultipartFile file) throws IOException {
+        File spool = Files.createTempFile("standard-csv-", ".csv").toFile();
+        try {
+            file.transferTo(spool);
+        } catch (IOException | RuntimeException e) {
+            spool.delete();
+            throw e;
+        }
+        return submit(spool, file.getOriginalFilename());
+    }
+
+    /**
+     * Queue the import of a request body.
+     */
+    public ImportJob submit(InputStream body, String fileName) throws IOException {
+        File spool = Files.createTempFile("standard-csv-", ".csv").toFile();
+        try {
+            Files.copy(body, spool.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            spool.delete();
+            throw e;
+        }
+        return submit(spool, fileName);
+    }
+
+    /**
+     * The job with this id, or null if there is none or it finished long enough ago to be forgotten.
+     */
+    public ImportJob getJob(String id) {
+        synchronized (jobs) {
+            return jobs.get(id);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private ImportJob submit(File spool, String fileName) {
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), fileName, spool.length());
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+            forgetOldJobs();
+        }
+        executor.execute(() -> run(job, spool));
+        return job;
+    }
+
+    private void run(ImportJob job, File spool) {
+        job.setStatus(ImportJob.Status.RUNNING);
+        ImportSummary summary;
+        try (InputStream in = Files.newInputStream(spool.toPath())) {
+            summary = importer.importCsv(in, job.getProgress());
+        } catch (IOException | RuntimeException e) {
+            summary = new ImportSummary();
+            summary.setStatus(ImportSummary.Status.FAILED);
+            summary.setFailure(e.getMessage());
+        } finally {
+            if (!spool.delete()) {
+                spool.deleteOnExit();
+            }
+        }
+        if (summary.getStatus() == ImportSummary.Status.FAILED) {
+            System.err.println("Warning: Import " + job.getId() + " of " + job.getFileName() + " failed: "
+                    + summary.getFailure());
+        }
+        record(summary);
+        job.setSummary(summary);
+        job.setStatus(summary.getStatus() == ImportSummary.Status.COMPLETED
+                ? ImportJob.Status.COMPLETED : ImportJob.Status.FAILED);
+        synchronized (jobs) {
+            forgetOldJobs();
+        }
+    }
+
+    // drop the oldest finished jobs beyond the retained number; queued and running jobs stay
+    private void forgetOldJobs() {
+        long finished = jobs.values().stream().filter(ImportJob::isFinished).count();
+        Iterator<ImportJob> it = jobs.values().iterator();
+        while (finished > retainedJobs && it.hasNext()) {
+            if (it.next().isFinished()) {
+                it.remove();
+                finished--;
+            }
+        }
+    }
+
+    private void record(ImportSummary summary) {
+        String outcome = summary.getStatus().name().toLowerCase();
+        Timer.builder("finance.import.duration")
+                .description("Time to import a standard CSV")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(summary.getElapsedMillis(), TimeUnit.MILLISECONDS);
+        Counter.builder("finance.import.rows")
+                .description("Standard CSV rows imported or rejected")
+                .tag("outcome", "imported")
+                .register(meterRegistry)
+                .increment(summary.getRowsImported());
+        Counter.builder("finance.import.rows")
+                .description("Standard CSV rows imported or rejected")
+                .tag("outcome", "rejected")
+                .register(meterRegistry)
+                .increment(summary.getRowsRejected());
+    }
+}
@@ -0,0 +1,70 @@
+package app.personal.service;
+
+import app.personal.processor.ImportProgress;
+import app.personal.processor.ImportSummary;
+
+import java.time.Instant;
+
+/**
+ * One standard CSV import submitted through the API: queued, then running with live progress,
+ * then finished with its summary.
+ */
+public class ImportJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private final String id;
+    private final String fileName;
+    private final Instant submittedAt;
+    private final ImportProgress progress;
+    private volatile Status status = Status.QUEUED;
+    private volatile ImportSummary summary;
+
+    public ImportJob(String id, String fileName, long size) {
+        this.id = id;
+        this.fileName = fileName;
+        this.submittedAt = Instant.now();
+        this.progress = new ImportProgress(size);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public ImportProgress getProgress() {
+        return progress;
+    }
+
+    /**
+     * The outcome, once the job has finished.
+     */
+    public ImportSummary getSummary() {
+        return summary;
+    }
+
+    public void setSummary(ImportSummary summary) {
+        this.summary = summary;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+}
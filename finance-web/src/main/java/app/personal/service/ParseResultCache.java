@@ -0,0 +1,316 @@
+package app.personal.service;
+
+import app.personal.dto.CreditCardStatementDto;
+import app.personal.dto.SavingsAccountStatementDto;
+import app.personal.parser.ParseResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parse results of previously seen uploads, keyed by the SHA-256 of the uploaded bytes together
+ * with the parser id, parser version and profile version (see {@link #key}). A changed parser or
+ * profile therefore never sees an old result: its key is different, and the stale entries age
+ * out of both tiers.
+ *
+ * <p>Results are held as JSON, so every hit returns a fresh copy the caller may modify. The
+ * memory tier is an LRU bounded by total JSON size. The optional disk tier keeps one
+ * {@code <key>.json} file per result, is bounded the same way by deleting the least recently
+ * used files, and survives restarts. Disk hits are promoted to memory.</p>
+ *
+ * <p>Only deterministic outcomes are stored: a successful parse or a parser-reported failure.
+ * Timeouts and unreadable files surface as exceptions and are never cached. Thread-safe.</p>
+ */
+public class ParseResultCache {
+
+    // documents recently detected, digest -> parser id; a detection costs a first-page extraction
+    private static final int MAX_DETECTIONS = 1024;
+
+    private final long maxMemoryBytes;
+    private final Path directory;
+    private final long maxDiskBytes;
+    private final ObjectMapper mapper;
+
+    private final LinkedHashMap<String, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+    private final LinkedHashMap<String, String> detections = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_DETECTIONS;
+        }
+    };
+    private final AtomicLong diskBytes = new AtomicLong();
+
+    private final Counter memoryHits;
+    private final Counter diskHits;
+    private final Counter misses;
+
+    /**
+     * @param maxMemoryBytes upper bound on the JSON held in memory
+     * @param directory      directory for the disk tier, or {@code null} for memory only
+     * @param maxDiskBytes   upper bound on the disk tier's files
+     */
+    public ParseResultCache(long maxMemoryBytes, Path directory, long maxDiskBytes,
+                            ObjectMapper mapper, MeterRegistry meterRegistry) throws IOException {
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.directory = directory;
+        this.maxDiskBytes = maxDiskBytes;
+        this.mapper = mapper;
+        this.memoryHits = hitCounter(meterRegistry, "hit", "memory");
+        this.diskHits = hitCounter(meterRegistry, "hit", "disk");
+        this.misses = hitCounter(meterRegistry, "miss", "none");
+        meterRegistry.gauge("finance.parser.cache.size", Tags.of("tier", "memory"), this,
+                ParseResultCache::getMemoryBytes);
+        if (directory != null) {
+            Files.createDirectories(directory);
+            for (Path file : listFiles()) {
+                diskBytes.addAndGet(Files.size(file));
+            }
+            meterRegistry.gauge("finance.parser.cache.size", Tags.of("tier", "disk"), diskBytes);
+        }
+    }
+
+    private static Counter hitCounter(MeterRegistry registry, String result, String tier) {
+        return Counter.builder("finance.parser.cache")
+                .description("Parse result cache lookups")
+                .tag("result", result)
+                .tag("tier", tier)
+                .register(registry);
+    }
+
+    /**
+     * Cache key for an upload. {@code profileVersion} is {@code null} for parsers without a
+     * profile.
+     */
+    public static String key(String sha256, String parserId, String parserVersion, String profileVersion) {
+        return sha256 + "-" + parserId + "-" + parserVersion + "-" + (profileVersion == null ? "none" : profileVersion);
+    }
+
+    /**
+     * @return a copy of the cached result, or {@code null} on a miss
+     */
+    public ParseResult get(String key) {
+        byte[] json;
+        synchronized (this) {
+            json = memory.get(key);
+        }
+        ParseResult result = json == null ? null : decode(json);
+        if (result != null) {
+            memoryHits.increment();
+            return result;
+        }
+        json = readDisk(key);
+        result = json == null ? null : decode(json);
+        if (result != null) {
+            diskHits.increment();
+            putMemory(key, json);
+            return result;
+        }
+        if (json != null) {
+            // unreadable, e.g. written by an incompatible version of the DTOs
+            delete(directory.resolve(key + ".json"));
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Store a result. Results whose statement type the cache does not know are ignored.
+     */
+    public void put(String key, ParseResult result) {
+        byte[] json = encode(result);
+        if (json == null) {
+            return;
+        }
+        putMemory(key, json);
+        writeDisk(key, json);
+    }
+
+    /**
+     * Parser id a document was last detected as, so a repeated auto-detected upload can build its
+     * key without opening the PDF.
+     */
+    public synchronized String getDetectedParser(String sha256) {
+        return detections.get(sha256);
+    }
+
+    public synchronized void putDetectedParser(String sha256, String parserId) {
+        detections.put(sha256, parserId);
+    }
+
+    /**
+     * Drop every entry in both tiers.
+     */
+    public void invalidateAll() {
+        synchronized (this) {
+            memory.clear();
+            memoryBytes = 0;
+            detections.clear();
+        }
+        if (directory != null) {
+            for (Path file : listFiles()) {
+                delete(file);
+            }
+            diskBytes.set(0);
+        }
+    }
+
+    public synchronized long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    private synchronized void putMemory(String key, byte[] json) {
+        if (json.length > maxMemoryBytes) {
+            return;
+        }
+        byte[] old = memory.put(key, json);
+        memoryBytes += json.length - (old == null ? 0 : old.length);
+        Iterator<byte[]> eldest = memory.values().iterator();
+        while (memoryBytes > maxMemoryBytes && eldest.hasNext()) {
+            memoryBytes -= eldest.next().length;
+            eldest.remove();
+        }
+    }
+
+    private byte[] readDisk(String key) {
+        if (directory == null) {
+            return null;
+        }
+        Path file = directory.resolve(key + ".json");
+        try {
+            byte[] json = Files.readAllBytes(file);
+            // last-modified doubles as last-used for eviction
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return json;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("Warning: Failed to read cached parse result " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeDisk(String key, byte[] json) {
+        if (directory == null || json.length > maxDiskBytes) {
+            return;
+        }
+        Path file = directory.resolve(key + ".json");
+        try {
+            long previous = Files.exists(file) ? Files.size(file) : 0;
+            Path tmp = Files.createTempFile(directory, key, ".tmp");
+            Files.write(tmp, json);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (diskBytes.addAndGet(json.length - previous) > maxDiskBytes) {
+                evictDisk();
+            }
+        } catch (IOException e) {
+            System.err.println("Warning: Failed to write cached parse result " + file + ": " + e.getMessage());
+        }
+    }
+
+    // delete least recently used files until the tier fits again
+    private synchronized void evictDisk() {
+        List<Path> files = listFiles();
+        files.sort(Comparator.comparing(ParseResultCache::lastModified));
+        for (Path file : files) {
+            if (diskBytes.get() <= maxDiskBytes) {
+                return;
+            }
+            try {
+                long size = Files.size(file);
+                if (delete(file)) {
+                    diskBytes.addAndGet(-size);
+                }
+            } catch (IOException e) {
+                // already gone
+            }
+        }
+    }
+
+    private List<Path> listFiles() {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.json")) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            System.err.println("Warning: Failed to list parse result cache " + directory + ": " + e.getMessage());
+        }
+        return files;
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static boolean delete(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private byte[] encode(ParseResult result) {
+        Entry entry = new Entry();
+        entry.success = result.isSuccess();
+        entry.error = result.getErrorMessage();
+        Object statement = result.getResult();
+        if (statement instanceof CreditCardStatementDto) {
+            entry.creditCard = (CreditCardStatementDto) statement;
+        } else if (statement instanceof SavingsAccountStatementDto) {
+            entry.savings = (SavingsAccountStatementDto) statement;
+        } else if (statement != null) {
+            return null;
+        }
+        try {
+            return mapper.writeValueAsBytes(entry);
+        } catch (IOException e) {
+            System.err.println("Warning: Failed to encode parse result: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // null if the JSON cannot be turned back into a result
+    private ParseResult decode(byte[] json) {
+        try {
+            Entry entry = mapper.readValue(json, Entry.class);
+            if (!entry.success) {
+                return ParseResult.failure(entry.error);
+            }
+            return ParseResult.success(entry.creditCard != null ? entry.creditCard : entry.savings);
+        } catch (IOException e) {
+            System.err.println("Warning: Discarding unreadable cached parse result: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Stored form of a result. Typed fields rather than a class name keep the JSON bound to the
+     * statement types the cache knows, and keep amounts at their original scale.
+     */
+    static class Entry {
+        public boolean success;
+        public String error;
+        public CreditCardStatementDto creditCard;
+        public SavingsAccountStatementDto savings;
+    }
+}
@@ -1,152 +1,484 @@
 package app.personal.service;
 
 import app.personal.dto.CreditCardStatementDto;
-import app.personal.parser.HdfcCreditCardPdfParser;
+import app.personal.parser.BankStatementParser;
+import app.personal.parser.CompiledProfile;
+import app.personal.parser.HdfcCreditCardParserProvider;
+import app.personal.parser.HdfcSavingsParserProvider;
+import app.personal.parser.ParallelTextExtractor;
+import app.personal.parser.ParseAdmission;
+import app.personal.parser.ParseDeadline;
 import app.personal.parser.ParseException;
 import app.personal.parser.ParseResult;
-import app.personal.parser.ParserProfile;
+import app.personal.parser.ParseTrace;
+import app.personal.parser.ParserRegistry;
+import app.personal.parser.PdfBoxStatementParser;
+import app.personal.parser.PdfDocumentSession;
+import app.personal.parser.PdfSource;
+import app.personal.parser.ProfileCache;
 import app.personal.dto.SavingsAccountStatementDto;
-import app.personal.parser.HdfcSavingsPdfParser;
+import app.personal.parser.StatementParserProvider;
+import app.personal.parser.TextLayerStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
-import org.yaml.snakeyaml.Yaml;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class ParserService {
 
     private static final long MAX_BYTES = 10L * 1024L * 1024L; // 10MB
+    // events kept for a debug parse; a two page statement produces well under a hundred
+    private static final int TRACE_CAPACITY = 1024;
+    private static final int MAX_REPORTED_FAILURES = 100;
+    private static final String TEXT_LAYER = "text";
+
+    // only present when finance.parser.parallel-extraction.enabled=true
+    @Autowired(required = false)
+    private ParallelTextExtractor parallelExtractor;
+
+    @Autowired
+    private ParserRegistry parserRegistry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ProfileCache profileCache;
+
+    // only present when finance.parser.result-cache.enabled=true
+    @Autowired(required = false)
+    private ParseResultCache resultCache;
+
+    // only present when finance.parser.admission.enabled=true
+    @Autowired(required = false)
+    private ParseAdmission admission;
+
+    // only present when finance.parser.text-store.enabled=true
+    @Autowired(required = false)
+    private TextLayerStore textStore;
+
+    // uploads up to this size are parsed from memory; larger ones are spooled to a file
+    @Value("${finance.parser.in-memory-upload-limit:2MB}")
+    private DataSize inMemoryUploadLimit;
+
+    // hard ceiling on extraction plus matching for one upload; 0 disables it
+    @Value("${finance.parser.deadline:10s}")
+    private Duration parseDeadline;
 
     public CreditCardStatementDto parseHdfcCreditCard(MultipartFile multipart) throws ParseException, IOException {
-        Map<String, Object> map = parseHdfcCreditCardInternalMap(multipart);
+        Map<String, Object> map = parseInternalMap(multipart, HdfcCreditCardParserProvider.ID, false);
         return (CreditCardStatementDto) map.get("statement");
     }
 
     public SavingsAccountStatementDto parseHdfcSavings(MultipartFile multipart) throws ParseException, IOException {
-        Map<String, Object> map = parseHdfcSavingsInternalMap(multipart);
+        Map<String, Object> map = parseInternalMap(multipart, HdfcSavingsParserProvider.ID, false);
         return (SavingsAccountStatementDto) map.get("statement");
     }
 
     public Map<String, Object> parseHdfcCreditCardDebug(MultipartFile multipart) throws ParseException, IOException {
-        return parseHdfcCreditCardInternalMap(multipart);
+        return parseInternalMap(multipart, HdfcCreditCardParserProvider.ID, true);
+    }
+
+    /**
+     * Detect the statement format from the first page and parse with the matching parser. The
+     * result map carries the detected parser id under {@code "parser"}.
+     *
+     * @throws IllegalArgumentException if no registered parser recognises the document
+     */
+    public Map<String, Object> parseDetected(MultipartFile multipart) throws ParseException, IOException {
+        return parseInternalMap(multipart, null, false);
     }
 
-    private Map<String, Object> parseHdfcCreditCardInternalMap(MultipartFile multipart)
+    /**
+     * Parse with an explicitly chosen parser.
+     *
+     * @throws IllegalArgumentException if {@code parserId} is not registered
+     */
+    public Map<String, Object> parseWith(MultipartFile multipart, String parserId) throws ParseException, IOException {
+        return parseInternalMap(multipart, parserId, false);
+    }
+
+    /**
+     * Ids accepted as an explicit parser choice, in detection order.
+     */
+    public List<String> getParserIds() {
+        return parserRegistry.getIds();
+    }
+
+    /**
+     * @param parserId registry id of the parser to use, or {@code null} to detect it
+     */
+    private Map<String, Object> parseInternalMap(MultipartFile multipart, String parserId, boolean includeTrace)
             throws ParseException, IOException {
-        if (multipart.getSize() > MAX_BYTES) {
-            throw new IllegalArgumentException("File too large. Max allowed is 10MB");
+        StatementParserProvider provider = null;
+        if (parserId != null) {
+            provider = parserRegistry.get(parserId);
+            if (provider == null) {
+                throw new IllegalArgumentException("Unsupported bank type: " + parserId);
+            }
         }
 
-        File tmp = Files.createTempFile("hdfc-upload-", ".pdf").toFile();
+        Upload upload = readUpload(multipart);
+        String sha256 = upload.sha256;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
         try {
-            multipart.transferTo(tmp);
-
-            // check PDF magic
-            byte[] header = new byte[5];
-            try (FileInputStream fis = new FileInputStream(tmp)) {
-                int r = fis.read(header);
-                String h = r > 0 ? new String(header, 0, r) : "";
-                if (!h.startsWith("%PDF")) {
-                    throw new IllegalArgumentException("Uploaded file is not a valid PDF");
+            // a trace only means something for a parse that actually runs, so debug never reads the cache
+            if (resultCache != null && !includeTrace) {
+                StatementParserProvider cachedProvider = provider != null ? provider
+                        : parserRegistry.get(resultCache.getDetectedParser(sha256));
+                ParseResult cached = cachedProvider == null ? null : resultCache.get(cacheKey(sha256, cachedProvider));
+                if (cached != null) {
+                    provider = cachedProvider;
+                    outcome = "cached";
+                    Map<String, Object> map = toResultMap(cached);
+                    map.put("parser", provider.getId());
+                    return map;
                 }
             }
 
-            HdfcCreditCardPdfParser parser = new HdfcCreditCardPdfParser();
+            try (ParseAdmission.Permit permit = admit(upload.source);
+                 PdfDocumentSession session = openSession(upload.source, permit)) {
+                if (permit != null) {
+                    permit.resize(ParseAdmission.estimate(upload.source.length(), session.getPageCount()));
+                }
+                ParseTrace trace = includeTrace ? new ParseTrace(TRACE_CAPACITY) : ParseTrace.DISABLED;
+                session.setTrace(trace);
+
+                if (provider == null) {
+                    ParserRegistry.Detection detection = parserRegistry.detect(session);
+                    recordDetection(detection);
+                    if (!detection.isDetected()) {
+                        outcome = "unrecognised";
+                        throw new IllegalArgumentException("Unrecognised statement format");
+                    }
+                    provider = detection.getProvider();
+                    if (resultCache != null) {
+                        resultCache.putDetectedParser(sha256, provider.getId());
+                    }
+                }
 
-            // attempt to load YAML profile
-            ParserProfile profile = null;
-            try (InputStream is = Thread.currentThread().getContextClassLoader()
-                    .getResourceAsStream("hdfc-profile.yml")) {
-                if (is != null) {
-                    Yaml yaml = new Yaml();
-                    profile = yaml.loadAs(is, ParserProfile.class);
+                BankStatementParser parser = provider.getParser();
+                ParseResult res;
+                CompiledProfile profile = profile(provider);
+                if (profile != null && parser instanceof PdfBoxStatementParser) {
+                    res = ((PdfBoxStatementParser) parser).parseByArea(session, profile);
+                } else {
+                    res = parser.parse(session);
                 }
-            } catch (Exception ignore) {
+                if (resultCache != null) {
+                    resultCache.put(cacheKey(sha256, provider, profile), res);
+                }
+                storeTextLayer(sha256, provider, profile, session);
+                recordPages(session, metricName(provider.getId()));
+
+                outcome = res.isSuccess() ? "success" : "failure";
+                Map<String, Object> map = toResultMap(res);
+                map.put("parser", provider.getId());
+                if (includeTrace) {
+                    map.put("trace", trace.getEvents());
+                    map.put("traceDropped", trace.getDroppedCount());
+                }
+                return map;
             }
+        } catch (ParseException e) {
+            outcome = outcome(e);
+            throw e;
+        } finally {
+            recordParse(sample, provider == null ? "unknown" : metricName(provider.getId()), outcome);
+            upload.close();
+        }
+    }
 
-            String rawText = "";
-            try {
-                rawText = parser.extractRawText(tmp);
-            } catch (Exception e) {
-                // ignore raw text extraction failures
+    /**
+     * Parse every text layer in the {@link TextLayerStore} again with the current parsers, without
+     * opening any PDF. Run after a parser fix; with the result cache enabled the new results are
+     * cached under the current parser version, so the next upload of those files is a hit.
+     * Region text extracted with an older profile version is skipped, because a changed profile
+     * needs a fresh extraction.
+     *
+     * @return counts of documents parsed, succeeded, failed and skipped, and the first failures
+     * @throws IllegalStateException if the text store is not enabled
+     */
+    public Map<String, Object> reparseStoredText() throws IOException {
+        if (textStore == null) {
+            throw new IllegalStateException("Text layer store is not enabled");
+        }
+        long start = System.nanoTime();
+        int succeeded = 0;
+        int failed = 0;
+        int skipped = 0;
+        List<Map<String, Object>> failures = new ArrayList<>();
+        for (String key : textStore.getKeys()) {
+            TextLayerStore.Layer layer = textStore.get(key);
+            StatementParserProvider provider = parserRegistry.get(layer.getParserId());
+            int slash = key.indexOf('/');
+            CompiledProfile profile = provider == null ? null : profile(provider);
+            String currentLayer = profile == null ? TEXT_LAYER : profileLayer(profile);
+            if (provider == null || !(provider.getParser() instanceof PdfBoxStatementParser)
+                    || !key.substring(slash + 1).equals(currentLayer)) {
+                skipped++;
+                continue;
             }
 
             ParseResult res;
-            if (profile != null) {
-                res = parser.parseByArea(tmp, profile);
+            try {
+                res = ((PdfBoxStatementParser) provider.getParser())
+                        .parseExtractedText(layer.getText(), ParseDeadline.after(parseDeadline));
+            } catch (ParseException e) {
+                res = ParseResult.failure(e.getMessage());
+            }
+            if (res.isSuccess()) {
+                succeeded++;
+                if (resultCache != null) {
+                    resultCache.put(cacheKey(key.substring(0, slash), provider, profile), res);
+                }
             } else {
-                res = parser.parse(tmp);
+                failed++;
+                if (failures.size() < MAX_REPORTED_FAILURES) {
+                    Map<String, Object> failure = new HashMap<>();
+                    failure.put("document", key);
+                    failure.put("error", res.getErrorMessage());
+                    failures.add(failure);
+                }
             }
+        }
 
-            CreditCardStatementDto statement = (CreditCardStatementDto) res.getResult();
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("documents", succeeded + failed + skipped);
+        summary.put("succeeded", succeeded);
+        summary.put("failed", failed);
+        summary.put("skipped", skipped);
+        summary.put("failures", failures);
+        summary.put("elapsedMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return summary;
+    }
 
-            Map<String, Object> map = new HashMap<>();
-            if (!res.isSuccess()) {
-                map.put("success", false);
-                map.put("error", res.getErrorMessage());
-            } else {
-                map.put("success", true);
+    /**
+     * Keep the text the parse just used, keyed {@code <sha256>/text} for a full-text parse or
+     * {@code <sha256>/<profile>@<version>} for a region parse. The session already holds it, so
+     * this costs compression and an append. Failures are logged; the upload still succeeds.
+     */
+    private void storeTextLayer(String sha256, StatementParserProvider provider, CompiledProfile profile,
+                                PdfDocumentSession session) {
+        if (textStore == null) {
+            return;
+        }
+        String key = sha256 + "/" + (profile == null ? TEXT_LAYER : profileLayer(profile));
+        try {
+            if (!textStore.contains(key)) {
+                String text = profile == null ? session.getText() : session.getRegionText(profile);
+                textStore.put(key, provider.getId(), text);
             }
-            map.put("statement", statement);
-            map.put("rawText", rawText);
-            return map;
-        } finally {
-            tmp.delete();
+        } catch (IOException | ParseException e) {
+            System.err.println("Warning: Failed to store text layer " + key + ": " + e.getMessage());
         }
     }
 
-    private Map<String, Object> parseHdfcSavingsInternalMap(MultipartFile multipart)
-            throws ParseException, IOException {
+    private static String profileLayer(CompiledProfile profile) {
+        return profile.getName() + "@" + profile.getVersion();
+    }
+
+    private CompiledProfile profile(StatementParserProvider provider) {
+        return provider.getProfileName() != null ? profileCache.get(provider.getProfileName()) : null;
+    }
+
+    private String cacheKey(String sha256, StatementParserProvider provider) {
+        return cacheKey(sha256, provider, profile(provider));
+    }
+
+    // a new parser version or an edited profile changes the key, which invalidates older results
+    private static String cacheKey(String sha256, StatementParserProvider provider, CompiledProfile profile) {
+        return ParseResultCache.key(sha256, provider.getId(), provider.getVersion(),
+                profile == null ? null : profile.getVersion());
+    }
+
+    /**
+     * Reserve heap for parsing {@code source}, estimated from its size until the page count is
+     * known. Waits or fails with {@link ParseException.Reason#OVERLOADED} when other parses hold
+     * the budget. Null when admission control is off.
+     */
+    private ParseAdmission.Permit admit(PdfSource source) throws ParseException {
+        return admission == null ? null : admission.acquire(ParseAdmission.estimate(source.length(), 0));
+    }
+
+    /**
+     * Open the upload with the configured deadline and the permit's PDFBox memory mode; the clock
+     * starts before the document is loaded, so loading counts against the deadline too.
+     */
+    private PdfDocumentSession openSession(PdfSource source, ParseAdmission.Permit permit) throws ParseException {
+        ParseDeadline deadline = ParseDeadline.after(parseDeadline);
+        PdfDocumentSession session = PdfDocumentSession.open(source, parallelExtractor,
+                permit == null ? -1 : permit.getMaxMainMemoryBytes());
+        session.setDeadline(deadline);
+        return session;
+    }
+
+    private static String outcome(ParseException e) {
+        switch (e.getReason()) {
+            case TIMEOUT:
+                return "timeout";
+            case OVERLOADED:
+                return "rejected";
+            default:
+                return "error";
+        }
+    }
+
+    /**
+     * One timer per statement type and outcome (success, failure, cached, timeout, rejected, error), so the
+     * parse latency distribution and the timeout rate come from the same metric.
+     */
+    private void recordParse(Timer.Sample sample, String statementType, String outcome) {
+        sample.stop(Timer.builder("finance.parser.parse")
+                .description("Statement upload parse time, including text extraction")
+                .tag("type", statementType)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    /**
+     * Pages extracted and pages the page classifier skipped, and the extraction time the skipping
+     * saved, so a classifier that skips too little (or costs more than it saves) shows up per
+     * statement type.
+     */
+    private void recordPages(PdfDocumentSession session, String statementType) {
+        int skipped = session.getSkippedPageCount();
+        Counter.builder("finance.parser.pages")
+                .description("Statement pages seen by the parser, by whether they were extracted")
+                .tag("type", statementType)
+                .tag("result", "extracted")
+                .register(meterRegistry)
+                .increment(session.getPageCount() - skipped);
+        Counter.builder("finance.parser.pages")
+                .description("Statement pages seen by the parser, by whether they were extracted")
+                .tag("type", statementType)
+                .tag("result", "skipped")
+                .register(meterRegistry)
+                .increment(skipped);
+        long saved = session.getSavedNanos();
+        if (saved > 0) {
+            Timer.builder("finance.parser.pages.saved")
+                    .description("Extraction time saved by skipping non-transaction pages, net of classifying them")
+                    .tag("type", statementType)
+                    .register(meterRegistry)
+                    .record(saved, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Per-provider detection time, so a slow fingerprint shows up against its own parser id.
+     */
+    private void recordDetection(ParserRegistry.Detection detection) {
+        meterRegistry.timer("finance.parser.fingerprint").record(detection.getFingerprintNanos(), TimeUnit.NANOSECONDS);
+        for (Map.Entry<String, Long> entry : detection.getNanosByProvider().entrySet()) {
+            Timer.builder("finance.parser.detect")
+                    .description("Time a parser provider takes to decide whether it recognises an upload")
+                    .tag("parser", metricName(entry.getKey()))
+                    .register(meterRegistry)
+                    .record(entry.getValue(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // HDFC_CREDIT_CARD -> hdfc-credit-card
+    private static String metricName(String parserId) {
+        return parserId.toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    /**
+     * Enforce the size limit and make the upload's bytes available to PDFBox. Uploads up to
+     * {@code in-memory-upload-limit} are parsed from the multipart bytes; larger ones are moved to
+     * a spool file once (a rename when the container already spooled the part) and read from it.
+     * The caller must close the upload, after every document opened on it.
+     */
+    private Upload readUpload(MultipartFile multipart) throws IOException {
         if (multipart.getSize() > MAX_BYTES) {
             throw new IllegalArgumentException("File too large. Max allowed is 10MB");
         }
 
-        File tmp = Files.createTempFile("hdfc-savings-upload-", ".pdf").toFile();
+        File spool = null;
         try {
-            multipart.transferTo(tmp);
-
-            // check PDF magic
-            byte[] header = new byte[5];
-            try (FileInputStream fis = new FileInputStream(tmp)) {
-                int r = fis.read(header);
-                String h = r > 0 ? new String(header, 0, r) : "";
-                if (!h.startsWith("%PDF")) {
-                    throw new IllegalArgumentException("Uploaded file is not a valid PDF");
-                }
+            PdfSource source;
+            if (multipart.getSize() <= inMemoryUploadLimit.toBytes()) {
+                source = PdfSource.of(multipart.getBytes());
+            } else {
+                spool = Files.createTempFile("statement-upload-", ".pdf").toFile();
+                multipart.transferTo(spool);
+                source = PdfSource.of(spool.toPath());
+            }
+            if (!source.hasPdfMagic()) {
+                throw new IllegalArgumentException("Uploaded file is not a valid PDF");
+            }
+            MessageDigest digest = sha256();
+            source.update(digest);
+            return new Upload(source, spool, HexFormat.of().formatHex(digest.digest()));
+        } catch (IOException | RuntimeException e) {
+            if (spool != null) {
+                spool.delete();
             }
+            throw e;
+        }
+    }
 
-            HdfcSavingsPdfParser parser = new HdfcSavingsPdfParser();
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 
-            String rawText = "";
-            try {
-                rawText = parser.extractRawText(tmp);
-            } catch (Exception e) {
-                // ignore raw text extraction failures
-            }
+    private static Map<String, Object> toResultMap(ParseResult res) {
+        Map<String, Object> map = new HashMap<>();
+        if (!res.isSuccess()) {
+            map.put("success", false);
+            map.put("error", res.getErrorMessage());
+        } else {
+            map.put("success", true);
+        }
+        map.put("statement", res.getResult());
+        return map;
+    }
 
-            ParseResult res = parser.parse(tmp);
+    /**
+     * An upload's bytes, the spool file behind them if any, and their SHA-256.
+     */
+    private static final class Upload {
+        private final PdfSource source;
+        private final File spool;
+        private final String sha256;
 
-            SavingsAccountStatementDto statement = (SavingsAccountStatementDto) res.getResult();
+        private Upload(PdfSource source, File spool, String sha256) {
+            this.source = source;
+            this.spool = spool;
+            this.sha256 = sha256;
+        }
 
-            Map<String, Object> map = new HashMap<>();
-            if (!res.isSuccess()) {
-                map.put("success", false);
-                map.put("error", res.getErrorMessage());
-            } else {
-                map.put("success", true);
+        // the documents read the spool through handles closed with them, so it can go now
+        void close() {
+            if (spool != null && !spool.delete()) {
+                System.err.println("Warning: Failed to delete upload spool file " + spool);
             }
-            map.put("statement", statement);
-            map.put("rawText", rawText);
-            return map;
-        } finally {
-            tmp.delete();
         }
     }
 }
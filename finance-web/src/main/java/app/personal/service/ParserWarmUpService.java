@@ -0,0 +1,135 @@
+package app.personal.service;
+
+import app.personal.parser.ParserRegistry;
+import app.personal.parser.ParserWarmUp;
+import app.personal.parser.ProfileCache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup warm-up of the statement parsers. Spring Boot runs application runners after the web
+ * server has started but before it marks the application ready to accept traffic, so the first
+ * upload after a deploy or scale-out does not pay for building the PDFBox font cache and compiling
+ * the parsers. See {@link ParserWarmUp}.
+ */
+@Service
+public class ParserWarmUpService implements ApplicationRunner {
+
+    @Autowired
+    private ParserRegistry parserRegistry;
+
+    @Autowired
+    private ProfileCache profileCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${finance.parser.warm-up.enabled:true}")
+    private boolean enabled;
+
+    // PDFBox keeps its font cache here, so only the first start on a machine scans the system fonts
+    @Value("${finance.parser.warm-up.font-cache-dir:./data/pdfbox}")
+    private String fontCacheDir;
+
+    @Value("${finance.parser.warm-up.rounds:10}")
+    private int rounds;
+
+    @Value("${finance.parser.warm-up.max-time:20s}")
+    private Duration maxTime;
+
+    private volatile boolean done;
+    private volatile Boolean fontCacheBuilt;
+    private volatile ParserWarmUp.Report report;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            if (!enabled) {
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                fontCacheBuilt = ParserWarmUp.prepareFontCache(Path.of(fontCacheDir));
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Warning: Failed to prepare the PDFBox font cache in " + fontCacheDir + ": "
+                        + e.getMessage());
+            }
+            try {
+                report = ParserWarmUp.run(parserRegistry, profileCache, rounds, maxTime);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Warning: Parser warm-up failed: " + e.getMessage());
+            }
+            Timer.builder("finance.parser.warm-up")
+                    .description("Startup time spent on the font cache and warm-up parses")
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (report != null) {
+                registerParseGauges(report);
+            }
+        } finally {
+            done = true;
+        }
+    }
+
+    // successful and failed warm-up parses per parser, so a parser that never warmed up shows at 0 successes
+    private void registerParseGauges(ParserWarmUp.Report report) {
+        Set<String> parsers = new TreeSet<>(report.getParsesByParser().keySet());
+        parsers.addAll(report.getFailuresByParser().keySet());
+        for (String parser : parsers) {
+            Gauge.builder("finance.parser.warm-up.parses", report, r -> r.getParsesByParser().getOrDefault(parser, 0))
+                    .description("Sample statements parsed during the startup warm-up")
+                    .tags("parser", parser, "result", "success")
+                    .register(meterRegistry);
+            Gauge.builder("finance.parser.warm-up.parses", report, r -> r.getFailuresByParser().getOrDefault(parser, 0))
+                    .description("Sample statements parsed during the startup warm-up")
+                    .tags("parser", parser, "result", "failure")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Whether the warm-up has finished, or was skipped because it is disabled.
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * What the warm-up did, for the readiness endpoint.
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("enabled", enabled);
+        status.put("done", done);
+        if (fontCacheBuilt != null) {
+            status.put("fontCache", fontCacheBuilt ? "built" : "loaded");
+        }
+        ParserWarmUp.Report r = report;
+        if (r != null) {
+            status.put("rounds", r.getRounds());
+            status.put("parses", r.getParses());
+            status.put("failures", r.getFailures());
+            status.put("parsesByParser", r.getParsesByParser());
+            status.put("failuresByParser", r.getFailuresByParser());
+            // parsers that detected a sample but never parsed one
+            status.put("coldParsers", r.getColdParsers());
+            status.put("elapsedMillis", TimeUnit.NANOSECONDS.toMillis(r.getElapsedNanos()));
+        }
+        return status;
+    }
+}
@@ -0,0 +1,26 @@
+package app.personal;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class HealthControllerTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void readyAfterParserWarmUp() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/health/ready"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.ready").value(true))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.done").value(true))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.parsesByParser.HDFC_SAVINGS").isNumber());
+    }
+}
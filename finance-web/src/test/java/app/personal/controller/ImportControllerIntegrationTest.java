@@ -0,0 +1,116 @@
+package app.personal.controller;
+
+import app.personal.model.SavingsAccountStatement;
+import app.personal.model.SavingsAccountTransaction;
+import app.personal.model.TransactionType;
+import app.personal.repository.SavingsAccountStatementRepository;
+import app.personal.repository.SavingsAccountTransactionRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:import-test;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+public class ImportControllerIntegrationTest {
+
+    private static final String CSV =
+            "account_type,account_number,date,description,amount,type,reference_number,balance\n"
+                    + "SAVINGS,IMPORT-TEST-1,2025-06-02,UPI-GROCER,500.00,DEBIT,400123,9500.00\n"
+                    + "SAVINGS,IMPORT-TEST-1,2025-06-04,NEFT IN,250.50,CREDIT,,9750.50\n"
+                    + "SAVINGS,IMPORT-TEST-1,2025-06-05,BAD ROW,-1,CREDIT,,\n";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SavingsAccountStatementRepository statementRepository;
+
+    @Autowired
+    private SavingsAccountTransactionRepository transactionRepository;
+
+    @Test
+    void uploadedCsv_shouldBeImportedInTheBackground() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "transactions.csv", "text/csv",
+                CSV.getBytes(StandardCharsets.UTF_8));
+
+        String accepted = mvc.perform(MockMvcRequestBuilders.multipart("/api/import/standard-csv").file(file))
+                .andExpect(MockMvcResultMatchers.status().isAccepted())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.fileName").value("transactions.csv"))
+                .andReturn().getResponse().getContentAsString();
+        JsonNode job = awaitFinished(objectMapper.readTree(accepted).path("id").asText());
+
+        assertEquals("COMPLETED", job.path("status").asText(), job.toString());
+        JsonNode summary = job.path("summary");
+        assertEquals(3, summary.path("rowsRead").asInt());
+        assertEquals(2, summary.path("rowsImported").asInt());
+        assertEquals(3, summary.path("errors").get(0).path("row").asInt());
+        assertEquals(CSV.length(), job.path("progress").path("bytesRead").asInt());
+
+        // what the JDBC writer inserted reads back through JPA
+        List<SavingsAccountStatement> statements = statementRepository.findByAccountNumber("IMPORT-TEST-1");
+        assertEquals(1, statements.size());
+        assertEquals(LocalDate.of(2025, 6, 2), statements.get(0).getFromDate());
+        assertEquals(LocalDate.of(2025, 6, 4), statements.get(0).getToDate());
+        assertEquals(0, new BigDecimal("9750.50").compareTo(statements.get(0).getClosingBalance()));
+        List<SavingsAccountTransaction> deposits = transactionRepository.findByDescriptionContainingIgnoreCase("NEFT IN");
+        assertEquals(1, deposits.size());
+        assertEquals(TransactionType.CREDIT, deposits.get(0).getType());
+        assertEquals(0, new BigDecimal("250.50").compareTo(deposits.get(0).getDepositAmount()));
+    }
+
+    @Test
+    void csvRequestBody_shouldBeImported() throws Exception {
+        String body = "account_type,account_number,date,description,amount,type\n"
+                + "CREDIT_CARD,IMPORT-TEST-2,2025-07-01,COFFEE,150.00,DEBIT\n";
+
+        String accepted = mvc.perform(MockMvcRequestBuilders.post("/api/import/standard-csv")
+                        .param("fileName", "body.csv")
+                        .contentType("text/csv")
+                        .content(body))
+                .andExpect(MockMvcResultMatchers.status().isAccepted())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode job = awaitFinished(objectMapper.readTree(accepted).path("id").asText());
+
+        assertEquals("COMPLETED", job.path("status").asText(), job.toString());
+        assertEquals(1, job.path("summary").path("rowsImported").asInt());
+        assertEquals("CREDIT_CARD", job.path("summary").path("statements").get(0).path("accountType").asText());
+    }
+
+    @Test
+    void unknownImport_shouldReturnNotFound() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/api/import/no-such-job"))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+    private JsonNode awaitFinished(String id) throws Exception {
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (true) {
+            String body = mvc.perform(MockMvcRequestBuilders.get("/api/import/" + id))
+                    .andExpect(MockMvcResultMatchers.status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode job = objectMapper.readTree(body);
+            if (job.path("finished").asBoolean()) {
+                return job;
+            }
+            assertTrue(System.nanoTime() < deadline, "Import did not finish: " + body);
+            Thread.sleep(50);
+        }
+    }
+}
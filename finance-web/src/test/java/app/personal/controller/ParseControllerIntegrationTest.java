@@ -1,5 +1,6 @@
 package app.personal.controller;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -20,8 +21,69 @@ public class ParseControllerIntegrationTest {
     @Autowired
     private MockMvc mvc;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     void uploadPdf_shouldReturnRows() throws Exception {
+        Path found = findSamplePdf();
+
+    try (FileInputStream fis = new FileInputStream(found.toFile())) {
+        byte[] data = fis.readAllBytes();
+        org.springframework.mock.web.MockMultipartFile mf = new org.springframework.mock.web.MockMultipartFile("file", "hdfc-credit-card-statement.pdf", "application/pdf", data);
+        mvc.perform(MockMvcRequestBuilders.multipart("/api/parse/hdfc-credit-card").file(mf))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.success").value(true))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.rows").isArray());
+    }
+    }
+
+    @Test
+    void uploadPdfWithDebug_shouldReturnTrace() throws Exception {
+        Path found = findSamplePdf();
+
+        try (FileInputStream fis = new FileInputStream(found.toFile())) {
+            byte[] data = fis.readAllBytes();
+            org.springframework.mock.web.MockMultipartFile mf = new org.springframework.mock.web.MockMultipartFile("file", "hdfc-credit-card-statement.pdf", "application/pdf", data);
+            mvc.perform(MockMvcRequestBuilders.multipart("/api/parse/hdfc-credit-card").file(mf).param("debug", "true"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.success").exists())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.rawText").doesNotExist())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.traceDropped").value(0))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.trace[?(@.stage == 'validate')]").isNotEmpty());
+        }
+    }
+
+    @Test
+    void repeatedUpload_shouldBeServedFromResultCache() throws Exception {
+        byte[] data = Files.readAllBytes(findSamplePdf());
+        org.springframework.mock.web.MockMultipartFile mf = new org.springframework.mock.web.MockMultipartFile("file", "hdfc-credit-card-statement.pdf", "application/pdf", data);
+        double hitsBefore = meterRegistry.counter("finance.parser.cache", "result", "hit", "tier", "memory").count();
+
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(MockMvcRequestBuilders.multipart("/api/parse/hdfc-credit-card").file(mf))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.success").value(true));
+        }
+
+        double hits = meterRegistry.counter("finance.parser.cache", "result", "hit", "tier", "memory").count() - hitsBefore;
+        org.junit.jupiter.api.Assertions.assertTrue(hits >= 1, "second upload should hit the cache");
+    }
+
+    @Test
+    void reparse_shouldReplayStoredTextLayers() throws Exception {
+        byte[] data = Files.readAllBytes(findSamplePdf());
+        org.springframework.mock.web.MockMultipartFile mf = new org.springframework.mock.web.MockMultipartFile("file", "hdfc-credit-card-statement.pdf", "application/pdf", data);
+        mvc.perform(MockMvcRequestBuilders.multipart("/api/parse/hdfc-credit-card").file(mf).param("debug", "true"))
+            .andExpect(MockMvcResultMatchers.status().isOk());
+
+        mvc.perform(MockMvcRequestBuilders.post("/api/parse/reparse"))
+            .andExpect(MockMvcResultMatchers.status().isOk())
+            .andExpect(MockMvcResultMatchers.jsonPath("$.documents").value(org.hamcrest.Matchers.greaterThanOrEqualTo(1)))
+            .andExpect(MockMvcResultMatchers.jsonPath("$.failures").isArray());
+    }
+
+    private static Path findSamplePdf() throws java.io.FileNotFoundException {
         Path start = Paths.get(System.getProperty("user.dir"));
         Path found = null;
         while (start != null) {
@@ -36,14 +98,6 @@ public class ParseControllerIntegrationTest {
         if (found == null) {
             throw new java.io.FileNotFoundException("hdfc-credit-card-statement.pdf not found from working dir");
         }
-
-    try (FileInputStream fis = new FileInputStream(found.toFile())) {
-        byte[] data = fis.readAllBytes();
-        org.springframework.mock.web.MockMultipartFile mf = new org.springframework.mock.web.MockMultipartFile("file", "hdfc-credit-card-statement.pdf", "application/pdf", data);
-        mvc.perform(MockMvcRequestBuilders.multipart("/api/parse/hdfc-credit-card").file(mf))
-            .andExpect(MockMvcResultMatchers.status().isOk())
-            .andExpect(MockMvcResultMatchers.jsonPath("$.success").value(true))
-            .andExpect(MockMvcResultMatchers.jsonPath("$.rows").isArray());
-    }
+        return found;
     }
 }
@@ -1,7 +1,11 @@
 package app.personal.controller;
 
+import app.personal.dto.CreditCardStatementDto;
 import app.personal.dto.SavingsAccountStatementDto;
+import app.personal.model.CreditCardStatement;
 import app.personal.model.SavingsAccountStatement;
+import app.personal.parser.ParseException;
+import app.personal.service.CreditCardStatementService;
 import app.personal.service.ParserService;
 import app.personal.service.SavingsAccountStatementService;
 import org.junit.jupiter.api.Test;
@@ -11,8 +15,12 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.Map;
+
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -28,6 +36,9 @@ public class StatementControllerTest {
     @MockBean
     private SavingsAccountStatementService statementService;
 
+    @MockBean
+    private CreditCardStatementService creditCardStatementService;
+
     @Test
     void uploadHdfcSavings_shouldReturnOkAndInvokeSave() throws Exception {
         MockMultipartFile file = new MockMultipartFile("file", "test.pdf", "application/pdf",
@@ -36,7 +47,7 @@ public class StatementControllerTest {
         SavingsAccountStatementDto dto = new SavingsAccountStatementDto();
         dto.setAccountNumber("12345");
 
-        given(parserService.parseHdfcSavings(any())).willReturn(dto);
+        given(parserService.parseWith(any(), eq("HDFC_SAVINGS"))).willReturn(Map.of("statement", dto));
         given(statementService.saveStatement(any())).willReturn(new SavingsAccountStatement());
 
         mvc.perform(multipart("/api/statements/upload")
@@ -45,4 +56,33 @@ public class StatementControllerTest {
                 .param("save", "true"))
                 .andExpect(status().isOk());
     }
+
+    @Test
+    void uploadWithoutBank_shouldDetectParserAndSaveByStatementType() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "test.pdf", "application/pdf",
+                "dummy content".getBytes());
+
+        CreditCardStatementDto dto = new CreditCardStatementDto();
+        given(parserService.parseDetected(any())).willReturn(Map.of("statement", dto, "parser", "HDFC_CREDIT_CARD"));
+        given(creditCardStatementService.saveStatement(any())).willReturn(new CreditCardStatement());
+
+        mvc.perform(multipart("/api/statements/upload")
+                .file(file))
+                .andExpect(status().isOk());
+        verify(creditCardStatementService).saveStatement(dto);
+    }
+
+    @Test
+    void uploadWhenParsesAreOverBudget_shouldReturnTooManyRequests() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "test.pdf", "application/pdf",
+                "dummy content".getBytes());
+
+        given(parserService.parseDetected(any())).willThrow(
+                new ParseException("Too many statements are being parsed, try again later",
+                        ParseException.Reason.OVERLOADED, null));
+
+        mvc.perform(multipart("/api/statements/upload")
+                .file(file))
+                .andExpect(status().isTooManyRequests());
+    }
 }
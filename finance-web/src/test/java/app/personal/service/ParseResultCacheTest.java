@@ -0,0 +1,120 @@
+package app.personal.service;
+
+import app.personal.dto.CreditCardStatementDto;
+import app.personal.dto.CreditCardTransactionDto;
+import app.personal.parser.ParseResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParseResultCacheTest {
+
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void hitReturnsAnEqualCopy() throws Exception {
+        ParseResultCache cache = new ParseResultCache(1 << 20, null, 0, mapper, registry);
+        String key = ParseResultCache.key("abc", "HDFC_CREDIT_CARD", "1", "p1");
+
+        assertNull(cache.get(key));
+        cache.put(key, ParseResult.success(statement()));
+        CreditCardStatementDto first = (CreditCardStatementDto) cache.get(key).getResult();
+        first.getTransactions().clear();
+        CreditCardStatementDto second = (CreditCardStatementDto) cache.get(key).getResult();
+
+        assertNotSame(first, second);
+        assertEquals(LocalDate.of(2025, 7, 17), second.getStatementDate());
+        assertEquals(new BigDecimal("508.00"), second.getTotalDues());
+        assertEquals(1, second.getTransactions().size());
+        assertEquals(2.0, registry.counter("finance.parser.cache", "result", "hit", "tier", "memory").count());
+        assertEquals(1.0, registry.counter("finance.parser.cache", "result", "miss", "tier", "none").count());
+    }
+
+    @Test
+    void newParserOrProfileVersionMisses() throws Exception {
+        ParseResultCache cache = new ParseResultCache(1 << 20, null, 0, mapper, registry);
+        cache.put(ParseResultCache.key("abc", "HDFC_CREDIT_CARD", "1", "p1"), ParseResult.success(statement()));
+
+        assertNull(cache.get(ParseResultCache.key("abc", "HDFC_CREDIT_CARD", "2", "p1")));
+        assertNull(cache.get(ParseResultCache.key("abc", "HDFC_CREDIT_CARD", "1", "p2")));
+    }
+
+    @Test
+    void parserFailuresAreCached() throws Exception {
+        ParseResultCache cache = new ParseResultCache(1 << 20, null, 0, mapper, registry);
+        cache.put("k", ParseResult.failure("Statement validation failed"));
+
+        ParseResult cached = cache.get("k");
+        assertFalse(cached.isSuccess());
+        assertEquals("Statement validation failed", cached.getErrorMessage());
+    }
+
+    @Test
+    void memoryTierEvictsLeastRecentlyUsed() throws Exception {
+        ParseResultCache probe = new ParseResultCache(1 << 20, null, 0, mapper, registry);
+        probe.put("probe", ParseResult.success(statement()));
+        long entrySize = probe.getMemoryBytes();
+
+        ParseResultCache cache = new ParseResultCache(entrySize * 2, null, 0, mapper, new SimpleMeterRegistry());
+        cache.put("a", ParseResult.success(statement()));
+        cache.put("b", ParseResult.success(statement()));
+        cache.get("a");
+        cache.put("c", ParseResult.success(statement()));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertTrue(cache.getMemoryBytes() <= entrySize * 2);
+    }
+
+    @Test
+    void diskTierSurvivesRestartAndDropsUnreadableEntries(@TempDir Path dir) throws Exception {
+        new ParseResultCache(1 << 20, dir, 1 << 20, mapper, registry).put("k", ParseResult.success(statement()));
+        Files.writeString(dir.resolve("broken.json"), "{not json");
+
+        ParseResultCache restarted = new ParseResultCache(1 << 20, dir, 1 << 20, mapper, registry);
+        assertNotNull(restarted.get("k"));
+        assertEquals(1.0, registry.counter("finance.parser.cache", "result", "hit", "tier", "disk").count());
+        assertNotNull(restarted.get("k"));
+        assertEquals(1.0, registry.counter("finance.parser.cache", "result", "hit", "tier", "memory").count());
+
+        assertNull(restarted.get("broken"));
+        assertFalse(Files.exists(dir.resolve("broken.json")));
+    }
+
+    @Test
+    void diskTierStaysWithinItsBound(@TempDir Path dir) throws Exception {
+        ParseResultCache probe = new ParseResultCache(1 << 20, null, 0, mapper, registry);
+        probe.put("probe", ParseResult.success(statement()));
+        long entrySize = probe.getMemoryBytes();
+
+        ParseResultCache cache = new ParseResultCache(1 << 20, dir, entrySize * 2, mapper, registry);
+        cache.put("a", ParseResult.success(statement()));
+        cache.put("b", ParseResult.success(statement()));
+        cache.put("c", ParseResult.success(statement()));
+
+        try (var files = Files.list(dir)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    private static CreditCardStatementDto statement() {
+        CreditCardStatementDto dto = new CreditCardStatementDto();
+        dto.setStatementDate(LocalDate.of(2025, 7, 17));
+        dto.setTotalDues(new BigDecimal("508.00"));
+        CreditCardTransactionDto tx = new CreditCardTransactionDto();
+        tx.setDescription("UPI-MERCHANT");
+        tx.setAmount(new BigDecimal("12.50"));
+        dto.addTransaction(tx);
+        return dto;
+    }
+}
@@ -0,0 +1,185 @@
+package app.personal.service;
+
+import app.personal.dto.CreditCardStatementDto;
+import app.personal.dto.CreditCardTransactionDto;
+import app.personal.dto.SavingsAccountStatementDto;
+import app.personal.dto.SavingsAccountTransactionDto;
+import app.personal.model.CreditCardStatement;
+import app.personal.model.SavingsAccountStatement;
+import app.personal.model.SavingsAccountTransaction;
+import app.personal.model.TransactionType;
+import app.personal.repository.CreditCardStatementRepository;
+import app.personal.repository.SavingsAccountStatementRepository;
+import app.personal.repository.SavingsAccountTransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:upsert-test;DB_CLOSE_DELAY=-1")
+public class StatementUpsertIntegrationTest {
+
+    @Autowired
+    private CreditCardStatementService creditCardService;
+
+    @Autowired
+    private SavingsAccountStatementService savingsService;
+
+    @Autowired
+    private CreditCardStatementRepository creditCardRepository;
+
+    @Autowired
+    private SavingsAccountStatementRepository savingsRepository;
+
+    @Autowired
+    private SavingsAccountTransactionRepository transactionRepository;
+
+    @Test
+    void reuploadedCreditCardStatement_shouldReplaceTheStoredOne() {
+        CreditCardStatement first = creditCardService.saveStatement(creditCardStatement("UPSERT-CARD-1",
+                LocalDate.of(2025, 5, 15), "1000.00"));
+        CreditCardStatement second = creditCardService.saveStatement(creditCardStatement("UPSERT-CARD-1",
+                LocalDate.of(2025, 5, 15), "1200.00"));
+        CreditCardStatement nextMonth = creditCardService.saveStatement(creditCardStatement("UPSERT-CARD-1",
+                LocalDate.of(2025, 6, 15), "300.00"));
+
+        assertEquals(first.getId(), second.getId());
+        assertNotEquals(first.getId(), nextMonth.getId());
+        assertEquals(2, creditCardRepository.findByCardNumber("UPSERT-CARD-1").size());
+        CreditCardStatement stored = creditCardRepository.findById(first.getId()).orElseThrow();
+        assertEquals(0, new BigDecimal("1200.00").compareTo(stored.getTotalDues()));
+    }
+
+    @Test
+    void reuploadedSavingsStatement_shouldWriteOnlyChangedTransactions() {
+        SavingsAccountStatementDto upload = savingsStatement("UPSERT-ACCOUNT-2");
+        upload.addTransaction(savingsTransaction(LocalDate.of(2025, 6, 9), "NEFT IN", "0", "2000.00", "11500.00"));
+        upload.addTransaction(savingsTransaction(LocalDate.of(2025, 6, 12), "ATM", "1000.00", "0", "10500.00"));
+        SavingsAccountStatement first = savingsService.saveStatement(upload);
+        assertEquals(3, first.getMergeCounts().getInserted());
+        Map<String, Long> ids = first.getTransactions().stream()
+                .collect(Collectors.toMap(SavingsAccountTransaction::getDescription, SavingsAccountTransaction::getId));
+
+        SavingsAccountStatement same = savingsService.saveStatement(upload);
+        assertEquals(3, same.getMergeCounts().getUnchanged());
+        assertEquals(0, same.getMergeCounts().getInserted() + same.getMergeCounts().getUpdated()
+                + same.getMergeCounts().getDeleted());
+
+        // the ATM row is gone, NEFT IN has a corrected balance, and a new row arrived
+        SavingsAccountStatementDto corrected = savingsStatement("UPSERT-ACCOUNT-2");
+        corrected.addTransaction(savingsTransaction(LocalDate.of(2025, 6, 9), "NEFT  in", "0", "2000", "11500.50"));
+        corrected.addTransaction(savingsTransaction(LocalDate.of(2025, 6, 20), "INTEREST", "0", "12.00", "11512.50"));
+        SavingsAccountStatement merged = savingsService.saveStatement(corrected);
+
+        assertEquals(1, merged.getMergeCounts().getInserted());
+        assertEquals(1, merged.getMergeCounts().getUpdated());
+        assertEquals(1, merged.getMergeCounts().getDeleted());
+        assertEquals(1, merged.getMergeCounts().getUnchanged());
+        assertEquals(first.getId(), merged.getId());
+        assertEquals(3, transactionRepository.findAll().stream()
+                .filter(t -> first.getId().equals(t.getStatement().getId())).count());
+        SavingsAccountTransaction deposit = transactionRepository.findById(ids.get("NEFT IN")).orElseThrow();
+        assertEquals("NEFT  in", deposit.getDescription());
+        assertEquals(0, new BigDecimal("11500.50").compareTo(deposit.getClosingBalance()));
+        assertTrue(transactionRepository.findById(ids.get("UPI-GROCER")).isPresent());
+        assertFalse(transactionRepository.findById(ids.get("ATM")).isPresent());
+    }
+
+    @Test
+    void overlappingSavingsStatements_shouldStoreEachTransactionOnce() {
+        SavingsAccountStatementDto june = savingsStatement("UPSERT-ACCOUNT-3");
+        june.addTransaction(savingsTransaction(LocalDate.of(2025, 6, 2), "UPI-GROCER", "500.00", "0", "9000.00"));
+        SavingsAccountStatement monthly = savingsService.saveStatement(june);
+        assertEquals(2, monthly.getMergeCounts().getInserted());
+
+        // a quarterly export repeats June's rows, including the same purchase made twice that day
+        SavingsAccountStatementDto quarter = savingsStatement("UPSERT-ACCOUNT-3");
+        quarter.setToDate(LocalDate.of(2025, 8, 31));
+        quarter.addTransaction(savingsTransaction(LocalDate.of(2025, 6, 2), "UPI-GROCER", "500.00", "0", "9000.00"));
+        quarter.addTransaction(savingsTransaction(LocalDate.of(2025, 7, 1), "INTEREST", "0", "12.00", "9012.00"));
+        SavingsAccountStatement quarterly = savingsService.saveStatement(quarter);
+
+        assertEquals(2, quarterly.getMergeCounts().getSkipped());
+        assertEquals(1, quarterly.getMergeCounts().getInserted());
+        assertNotEquals(monthly.getId(), quarterly.getId());
+        assertEquals(3, transactionRepository.findAll().stream()
+                .filter(t -> t.getStatement().getId().equals(monthly.getId())
+                        || t.getStatement().getId().equals(quarterly.getId()))
+                .count());
+    }
+
+    @Test
+    void concurrentUploadsOfANewStatement_shouldStoreItOnce() throws Exception {
+        int uploads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(uploads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<SavingsAccountStatement>> saved = new ArrayList<>();
+            for (int i = 0; i < uploads; i++) {
+                saved.add(executor.submit(() -> {
+                    start.await();
+                    return savingsService.saveStatement(savingsStatement("UPSERT-ACCOUNT-1"));
+                }));
+            }
+            start.countDown();
+            for (Future<SavingsAccountStatement> statement : saved) {
+                assertNotNull(statement.get().getId());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<SavingsAccountStatement> stored = savingsRepository.findByAccountNumber("UPSERT-ACCOUNT-1");
+        assertEquals(1, stored.size());
+    }
+
+    private static CreditCardStatementDto creditCardStatement(String cardNumber, LocalDate statementDate,
+                                                              String totalDues) {
+        CreditCardStatementDto dto = new CreditCardStatementDto();
+        dto.setCardNumber(cardNumber);
+        dto.setStatementDate(statementDate);
+        dto.setDueDate(statementDate.plusDays(20));
+        dto.setTotalDues(new BigDecimal(totalDues));
+        CreditCardTransactionDto transaction = new CreditCardTransactionDto();
+        transaction.setDate(statementDate.minusDays(3));
+        transaction.setDescription("GROCERIES");
+        transaction.setAmount(new BigDecimal(totalDues));
+        transaction.setType(TransactionType.DEBIT);
+        dto.addTransaction(transaction);
+        return dto;
+    }
+
+    private static SavingsAccountStatementDto savingsStatement(String accountNumber) {
+        SavingsAccountStatementDto dto = new SavingsAccountStatementDto();
+        dto.setAccountNumber(accountNumber);
+        dto.setFromDate(LocalDate.of(2025, 6, 1));
+        dto.setToDate(LocalDate.of(2025, 6, 30));
+        dto.setOpeningBalance(new BigDecimal("10000.00"));
+        dto.setClosingBalance(new BigDecimal("9500.00"));
+        dto.addTransaction(savingsTransaction(LocalDate.of(2025, 6, 2), "UPI-GROCER", "500.00", "0", "9500.00"));
+        return dto;
+    }
+
+    private static SavingsAccountTransactionDto savingsTransaction(LocalDate date, String description,
+                                                                   String withdrawal, String deposit, String balance) {
+        SavingsAccountTransactionDto transaction = new SavingsAccountTransactionDto();
+        transaction.setDate(date);
+        transaction.setDescription(description);
+        transaction.setWithdrawalAmount(new BigDecimal(withdrawal));
+        transaction.setDepositAmount(new BigDecimal(deposit));
+        transaction.setClosingBalance(new BigDecimal(balance));
+        return transaction;
+    }
+}